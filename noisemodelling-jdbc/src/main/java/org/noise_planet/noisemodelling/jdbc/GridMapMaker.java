@@ -16,7 +16,9 @@ import org.h2gis.utilities.dbtypes.DBUtils;
 import org.locationtech.jts.geom.*;
 import org.noise_planet.noisemodelling.jdbc.input.DefaultTableLoader;
 import org.noise_planet.noisemodelling.jdbc.utils.CellIndex;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.RasterDem;
 
+import java.io.File;
 import java.sql.*;
 
 import static org.h2gis.utilities.GeometryTableUtilities.getGeometryColumnNames;
@@ -34,6 +36,12 @@ public abstract class GridMapMaker {
     protected String soilTableName = "";
     // Digital elevation model table. (Contains points or triangles)
     protected String demTable = "";
+    // Regular grid digital elevation model, used instead of demTable if set
+    protected RasterDem demRaster = null;
+    // Folder of the triangulated DEM tiles kept between cells and runs, disabled if null
+    protected File demCacheFolder = null;
+    // Folder of the ProfileBuilder snapshot of each cell, disabled if null
+    protected File profileBuilderSnapshotFolder = null;
     protected String sound_lvl_field = "DB_M";
     /** True if Z of receivers geometry is the altitude (sea level) or false if Z is relative to the ground (relative to digital elevation model)
      * When the propagation area will be prepared. All coordinates will be converted into altitude if necessary.
@@ -287,6 +295,59 @@ public abstract class GridMapMaker {
         this.demTable = demTable;
     }
 
+    /**
+     * Regular grid Digital Elevation model, see {@link org.noise_planet.noisemodelling.jdbc.utils.AscReaderDriver#readRasterDem(java.io.File)}.
+     * @return Regular grid Digital Elevation model or null
+     */
+    public RasterDem getDemRaster() {
+        return demRaster;
+    }
+
+    /**
+     * Regular grid Digital Elevation model. If set, it is used by all the cells instead of the triangulation
+     * of the {@link #getDemTable()} points.
+     * @param demRaster Regular grid Digital Elevation model
+     */
+    public void setDemRaster(RasterDem demRaster) {
+        this.demRaster = demRaster;
+    }
+
+    /**
+     * @return Folder of the triangulated DEM tiles, null if the cache is disabled
+     */
+    public File getDemCacheFolder() {
+        return demCacheFolder;
+    }
+
+    /**
+     * The DEM triangulation of each cell is stored in this folder, keyed by the DEM table and a hash of the cell
+     * fetch envelope and DEM points. The next runs computing the same cells (same grid and propagation distances) with
+     * unchanged DEM points load the triangulation instead of computing it. The cells of one run do not share their
+     * triangulation.
+     * @param demCacheFolder Folder of the triangulated DEM tiles, null to disable the cache
+     */
+    public void setDemCacheFolder(File demCacheFolder) {
+        this.demCacheFolder = demCacheFolder;
+    }
+
+    /**
+     * @return Folder of the ProfileBuilder snapshot of each cell, null if disabled
+     */
+    public File getProfileBuilderSnapshotFolder() {
+        return profileBuilderSnapshotFolder;
+    }
+
+    /**
+     * The geometry of each cell (buildings, walls, DEM, soil areas) is stored in this folder once prepared, next
+     * runs load the cell snapshot instead of fetching the tables. The snapshots are identified by the cell index, the
+     * fetch envelope, the geometry table names and the parameters used to read them. The content of the tables is
+     * not checked, so the folder must be emptied when the rows of the geometry tables change.
+     * @param profileBuilderSnapshotFolder Folder of the cell snapshots, null to disable
+     */
+    public void setProfileBuilderSnapshotFolder(File profileBuilderSnapshotFolder) {
+        this.profileBuilderSnapshotFolder = profileBuilderSnapshotFolder;
+    }
+
     /**
      * Field name of the {@link #sourcesTableName}HERTZ. Where HERTZ is a number [100-5000].
      * Without the hertz value.
@@ -39,8 +39,16 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import javax.sql.DataSource;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Compute noise propagation at specified receiver points.
@@ -57,6 +65,25 @@ public class NoiseMapByReceiverMaker extends GridMapMaker {
     private IComputeRaysOutFactory computeRaysOutFactory;
     private Logger logger = LoggerFactory.getLogger(NoiseMapByReceiverMaker.class);
     private int threadCount = 0;
+    private int receiverChunkSize = 0;
+    private boolean shareMirrorReceivers = false;
+    private int cellPrefetchDepth = 0;
+    private long cellMemoryBudget = 0;
+    private int smallCellReceiverCount = 500;
+    /** Number of small cells currently computed and highest value of the last run */
+    private final AtomicInteger runningSmallCellCount = new AtomicInteger();
+    private final AtomicInteger maximumRunningSmallCellCount = new AtomicInteger();
+    private DataSource dataSource;
+    /** Estimated memory usage of each building of a scene (bytes) */
+    public static final long BUILDING_MEMORY_FOOTPRINT = 2048;
+    /** Estimated memory usage of each wall of a scene (bytes) */
+    public static final long WALL_MEMORY_FOOTPRINT = 512;
+    /** Estimated memory usage of each topographic triangle of a scene, including vertices and neighbors (bytes) */
+    public static final long TRIANGLE_MEMORY_FOOTPRINT = 256;
+    /** Estimated memory usage of each sound source of a scene, including geometry and emission (bytes) */
+    public static final long SOURCE_MEMORY_FOOTPRINT = 2048;
+    /** Estimated memory usage of each receiver of a scene (bytes) */
+    public static final long RECEIVER_MEMORY_FOOTPRINT = 128;
     private ProfilerThread profilerThread;
     public String exportKmlName = "cell_%d_%d.kml";
 
@@ -211,6 +238,128 @@ public class NoiseMapByReceiverMaker extends GridMapMaker {
         this.threadCount = threadCount;
     }
 
+    /**
+     * @return Number of receivers fetched at once by each propagation thread, 0 if the cell receivers are split into
+     * one contiguous range per thread
+     */
+    public int getReceiverChunkSize() {
+        return receiverChunkSize;
+    }
+
+    /**
+     * @param receiverChunkSize Number of receivers fetched at once by each propagation thread from a shared cursor,
+     *                          0 to split the cell receivers into one contiguous range per thread
+     */
+    public void setReceiverChunkSize(int receiverChunkSize) {
+        this.receiverChunkSize = receiverChunkSize;
+    }
+
+    /**
+     * @return True if the image receivers are shared between the receivers having the same X and Y
+     */
+    public boolean isShareMirrorReceivers() {
+        return shareMirrorReceivers;
+    }
+
+    /**
+     * @param shareMirrorReceivers True to compute the image receivers once for the receivers having the same X and Y
+     *                             (building facade receivers of each floor) and fetch the walls once for close
+     *                             receivers
+     */
+    public void setShareMirrorReceivers(boolean shareMirrorReceivers) {
+        this.shareMirrorReceivers = shareMirrorReceivers;
+    }
+
+    /**
+     * @return Number of cells loaded in advance while the current cell is propagated, 0 if cells are loaded only when
+     * they are evaluated
+     */
+    public int getCellPrefetchDepth() {
+        return cellPrefetchDepth;
+    }
+
+    /**
+     * When running with {@link #run(DataSource, ProgressVisitor)}, the next cells scenes are fetched from the database
+     * and triangulated on a dedicated connection while the current cell is computed.
+     * Each prefetched scene stays in memory until its computation, so this value bound the memory overhead.
+     * @param cellPrefetchDepth Number of cells loaded in advance, 0 to load each cell just before its evaluation
+     */
+    public void setCellPrefetchDepth(int cellPrefetchDepth) {
+        this.cellPrefetchDepth = cellPrefetchDepth;
+    }
+
+    /**
+     * @return Maximum estimated memory (bytes) used by the scenes of the small cells computed at the same time,
+     * 0 if cells are computed one after the other
+     */
+    public long getCellMemoryBudget() {
+        return cellMemoryBudget;
+    }
+
+    /**
+     * When running with {@link #run(DataSource, ProgressVisitor)}, cells that contain at most
+     * {@link #getSmallCellReceiverCount()} receivers are computed at the same time, each one on a single thread.
+     * A new small cell is started only if the sum of the estimated memory footprint of the loaded scenes
+     * (see {@link #estimateSceneMemory(SceneWithEmission)}) stays below this budget. The footprint of the last
+     * loaded scene is reserved before loading the next cell, so the prefetched scenes are also bounded.
+     * Cells with more receivers are computed alone using all the threads.
+     * @param cellMemoryBudget Memory budget in bytes, 0 to compute cells one after the other
+     */
+    public void setCellMemoryBudget(long cellMemoryBudget) {
+        this.cellMemoryBudget = cellMemoryBudget;
+    }
+
+    /**
+     * @return Maximum number of receivers of a cell that can be computed along other cells
+     */
+    public int getSmallCellReceiverCount() {
+        return smallCellReceiverCount;
+    }
+
+    /**
+     * @param smallCellReceiverCount Maximum number of receivers of a cell that can be computed along other cells,
+     *                               see {@link #setCellMemoryBudget(long)}
+     */
+    public void setSmallCellReceiverCount(int smallCellReceiverCount) {
+        this.smallCellReceiverCount = smallCellReceiverCount;
+    }
+
+    /**
+     * @return Highest number of small cells computed at the same time during the last run,
+     * see {@link #setCellMemoryBudget(long)}
+     */
+    public int getMaximumRunningSmallCellCount() {
+        return maximumRunningSmallCellCount.get();
+    }
+
+    /**
+     * @return Source of additional connections, set by {@link #run(DataSource, ProgressVisitor)}, may be null
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * @param dataSource Source of additional connections, used by the additional results writers
+     */
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Rough estimation of the memory used by a loaded scene
+     * @param scene Cell scene
+     * @return Estimated memory footprint in bytes
+     */
+    public static long estimateSceneMemory(SceneWithEmission scene) {
+        long footprint = scene.profileBuilder.getBuildingCount() * BUILDING_MEMORY_FOOTPRINT;
+        footprint += scene.profileBuilder.getWallCount() * WALL_MEMORY_FOOTPRINT;
+        footprint += scene.profileBuilder.getTriangleCount() * TRIANGLE_MEMORY_FOOTPRINT;
+        footprint += scene.sourceGeometries.size() * SOURCE_MEMORY_FOOTPRINT;
+        footprint += scene.receivers.size() * RECEIVER_MEMORY_FOOTPRINT;
+        return footprint;
+    }
+
     /**
      * Initialisation of data structures needed for sound propagation.
      * @param connection JDBC Connection
@@ -309,7 +458,33 @@ public class NoiseMapByReceiverMaker extends GridMapMaker {
     public CutPlaneVisitorFactory evaluateCell(Connection connection, CellIndex cellIndex,
                                         ProgressVisitor progression, Set<Long> skipReceivers) throws SQLException, IOException {
         SceneWithEmission scene = prepareCell(connection, cellIndex, skipReceivers);
+        return evaluateCell(cellIndex, scene, progression);
+    }
 
+    /**
+     * Launch sound propagation on a scene already loaded with {@link #prepareCell(Connection, CellIndex, Set)}
+     * @param cellIndex Computation area index
+     * @param scene Data input for cell evaluation
+     * @param progression Progression info
+     * @return Output data instance for this cell
+     * @throws IOException IO exception instance
+     */
+    public CutPlaneVisitorFactory evaluateCell(CellIndex cellIndex, SceneWithEmission scene,
+                                               ProgressVisitor progression) throws IOException {
+        return evaluateCell(cellIndex, scene, progression, threadCount);
+    }
+
+    /**
+     * Launch sound propagation on a scene already loaded
+     * @param cellIndex Computation area index
+     * @param scene Data input for cell evaluation
+     * @param progression Progression info
+     * @param cellThreadCount Number of threads used for this cell, 0 means automatic detection of number of CPU cores
+     * @return Output data instance for this cell
+     * @throws IOException IO exception instance
+     */
+    private CutPlaneVisitorFactory evaluateCell(CellIndex cellIndex, SceneWithEmission scene,
+                                               ProgressVisitor progression, int cellThreadCount) throws IOException {
         File sceneExportFolder = getNoiseMapDatabaseParameters().getSceneExportFolder();
         if(sceneExportFolder != null) {
             exportScene(cellIndex, sceneExportFolder, scene);
@@ -329,10 +504,13 @@ public class NoiseMapByReceiverMaker extends GridMapMaker {
             computeRays.setProfilerThread(profilerThread);
         }
 
-        if(threadCount > 0) {
-            computeRays.setThreadCount(threadCount);
+        if(cellThreadCount > 0) {
+            computeRays.setThreadCount(cellThreadCount);
         }
 
+        computeRays.setReceiverChunkSize(receiverChunkSize);
+        computeRays.setShareMirrorReceivers(shareMirrorReceivers);
+
         computeRays.run(computeRaysOut);
 
         return computeRaysOut;
@@ -416,6 +594,233 @@ public class NoiseMapByReceiverMaker extends GridMapMaker {
         }
     }
 
+    /**
+     * Run NoiseModelling with provided parameters, return when computation is done.
+     * If {@link #getCellPrefetchDepth()} or {@link #getCellMemoryBudget()} is greater than 0, a second connection is
+     * opened in order to load the next cells while the current cells are computed.
+     * @param dataSource Provide the connections to the database
+     * @param progressLogger Progression info
+     */
+    public void run(DataSource dataSource, ProgressVisitor progressLogger) throws SQLException {
+        this.dataSource = dataSource;
+        try (Connection connection = dataSource.getConnection()) {
+            if (cellPrefetchDepth <= 0 && cellMemoryBudget <= 0) {
+                run(connection, progressLogger);
+                return;
+            }
+            try (Connection loaderConnection = dataSource.getConnection()) {
+                runPipelined(connection, loaderConnection, progressLogger);
+            }
+        }
+    }
+
+    /**
+     * Run NoiseModelling, the scenes of the next cells are loaded by a dedicated thread. If a memory budget is set,
+     * small cells are computed at the same time.
+     * @param connection Connection used for initialisation and results
+     * @param loaderConnection Connection used only by the cell loading thread
+     * @param progressLogger Progression info
+     */
+    private void runPipelined(Connection connection, Connection loaderConnection,
+                              ProgressVisitor progressLogger) throws SQLException {
+        initialize(connection);
+        maximumRunningSmallCellCount.set(0);
+
+        // Set of already processed receivers, only read and updated by the loading thread
+        Set<Long> receivers = new HashSet<>();
+
+        // Fetch cell identifiers with receivers
+        Map<CellIndex, Integer> cells = searchPopulatedCells(connection);
+        ProgressVisitor progressVisitor = progressLogger.subProcess(cells.size());
+
+        // Small cells need a loaded scene ahead to be started while the others are running
+        final int prefetchDepth = cellMemoryBudget > 0 ? Math.max(1, cellPrefetchDepth) : cellPrefetchDepth;
+        final int workerCount = threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors();
+        // Permits are kilobytes of the memory budget
+        final int budgetPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, cellMemoryBudget / 1024));
+        Semaphore memoryBudget = new Semaphore(budgetPermits);
+        // Permits reserved before loading a cell, the footprint of the last loaded scene
+        int loadPermits = Math.max(1, budgetPermits / (prefetchDepth + 1));
+        ExecutorService cellPool = cellMemoryBudget > 0 ? Executors.newFixedThreadPool(workerCount) : null;
+        List<Future<?>> runningCells = new ArrayList<>();
+        ExecutorService cellLoader = Executors.newSingleThreadExecutor();
+        Deque<LoadingCell> loadingCells = new ArrayDeque<>();
+        Iterator<CellIndex> cellIterator = new TreeSet<>(cells.keySet()).iterator();
+        Throwable computeException = null;
+        try {
+            computeRaysOutFactory.start(progressVisitor);
+            while (true) {
+                // Keep the current cell and at most cellPrefetchDepth next cells in memory
+                while (loadingCells.size() <= prefetchDepth && cellIterator.hasNext()) {
+                    int reservedPermits = 0;
+                    if (cellPool != null) {
+                        // The memory of the scene is reserved before loading it
+                        reservedPermits = Math.min(budgetPermits, loadPermits);
+                        if (loadingCells.isEmpty()) {
+                            // Only the running cells hold permits, they will release them
+                            try {
+                                memoryBudget.acquire(reservedPermits);
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                                throw new SQLException(ex);
+                            }
+                        } else if (!memoryBudget.tryAcquire(reservedPermits)) {
+                            // Load the next cell when the budget allows it
+                            break;
+                        }
+                    }
+                    CellIndex nextCell = cellIterator.next();
+                    loadingCells.add(new LoadingCell(nextCell,
+                            cellLoader.submit(() -> prepareCell(loaderConnection, nextCell, receivers)),
+                            reservedPermits));
+                }
+                LoadingCell loadingCell = loadingCells.poll();
+                if (loadingCell == null) {
+                    break;
+                }
+                SceneWithEmission scene;
+                try {
+                    scene = loadingCell.scene.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException(ex);
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof SQLException) {
+                        throw (SQLException) ex.getCause();
+                    }
+                    throw new SQLException(ex.getCause());
+                }
+                CellIndex cellIndex = loadingCell.cellIndex;
+                if (cellPool != null) {
+                    loadPermits = (int) Math.min(budgetPermits, Math.max(1, estimateSceneMemory(scene) / 1024));
+                }
+                if (cellPool != null && cells.get(cellIndex) <= smallCellReceiverCount) {
+                    // Run ray propagation along the other small cells
+                    final int scenePermits = reserveScenePermits(memoryBudget, loadingCell.permits, loadPermits,
+                            runningCells);
+                    runningCells.add(cellPool.submit(() -> {
+                        maximumRunningSmallCellCount.accumulateAndGet(runningSmallCellCount.incrementAndGet(),
+                                Math::max);
+                        try {
+                            evaluateCell(cellIndex, scene, progressVisitor, 1);
+                        } finally {
+                            runningSmallCellCount.decrementAndGet();
+                            memoryBudget.release(scenePermits);
+                        }
+                        return true;
+                    }));
+                    checkRunningCells(runningCells, false);
+                } else {
+                    // Run ray propagation using all threads
+                    checkRunningCells(runningCells, true);
+                    try {
+                        evaluateCell(cellIndex, scene, progressVisitor);
+                    } catch (IOException ex) {
+                        throw new SQLException(ex);
+                    } finally {
+                        memoryBudget.release(loadingCell.permits);
+                    }
+                }
+                if (progressLogger.isCanceled()) {
+                    // Computation has been canceled, exit the loop
+                    break;
+                }
+            }
+        } catch (Throwable ex) {
+            computeException = ex;
+            throw ex;
+        } finally {
+            for (LoadingCell pendingCell : loadingCells) {
+                pendingCell.scene.cancel(false);
+            }
+            cellLoader.shutdown();
+            try {
+                checkRunningCells(runningCells, true);
+            } catch (SQLException | RuntimeException ex) {
+                if (computeException == null) {
+                    throw ex;
+                }
+                // Do not hide the exception of the computation
+                computeException.addSuppressed(ex);
+            } finally {
+                if (cellPool != null) {
+                    cellPool.shutdown();
+                }
+                computeRaysOutFactory.stop();
+            }
+        }
+    }
+
+    /**
+     * Adjust the permits reserved before loading a small cell to the estimated footprint of its scene
+     * @param memoryBudget Memory budget semaphore
+     * @param reservedPermits Permits acquired before loading the scene
+     * @param scenePermits Permits of the loaded scene
+     * @param runningCells Running small cells, the only ones that can release permits
+     * @return Permits held by the cell, to release when it is computed
+     * @throws SQLException Exception raised by one of the running cell
+     */
+    private static int reserveScenePermits(Semaphore memoryBudget, int reservedPermits, int scenePermits,
+                                           List<Future<?>> runningCells) throws SQLException {
+        if (scenePermits <= reservedPermits) {
+            memoryBudget.release(reservedPermits - scenePermits);
+            return scenePermits;
+        }
+        try {
+            while (!memoryBudget.tryAcquire(scenePermits - reservedPermits, 50, TimeUnit.MILLISECONDS)) {
+                checkRunningCells(runningCells, false);
+                if (runningCells.isEmpty()) {
+                    // The other permits are held by the prefetched cells, the scene is already loaded
+                    return reservedPermits;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(ex);
+        }
+        return scenePermits;
+    }
+
+    /**
+     * Cell submitted to the loading thread
+     */
+    private static final class LoadingCell {
+        final CellIndex cellIndex;
+        final Future<SceneWithEmission> scene;
+        /** Memory budget permits reserved for this cell */
+        final int permits;
+
+        LoadingCell(CellIndex cellIndex, Future<SceneWithEmission> scene, int permits) {
+            this.cellIndex = cellIndex;
+            this.scene = scene;
+            this.permits = permits;
+        }
+    }
+
+    /**
+     * Remove the finished cells from the list and forward their exceptions
+     * @param runningCells Cells submitted to the cell thread pool
+     * @param waitForAll If true, wait for all the cells to finish
+     * @throws SQLException Exception raised by one of the cell computation
+     */
+    private static void checkRunningCells(List<Future<?>> runningCells, boolean waitForAll) throws SQLException {
+        Iterator<Future<?>> it = runningCells.iterator();
+        while (it.hasNext()) {
+            Future<?> runningCell = it.next();
+            if (waitForAll || runningCell.isDone()) {
+                try {
+                    runningCell.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException(ex);
+                } catch (ExecutionException ex) {
+                    throw new SQLException(ex.getCause());
+                }
+                it.remove();
+            }
+        }
+    }
+
     /**
      * A factory interface for initializing input propagation process data for noise map computation.
      */
@@ -59,6 +59,21 @@ public class NoiseMapDatabaseParameters {
         return maximumRaysOutputCount;
     }
     public int outputMaximumQueue = 50000;
+    /**
+     * Number of threads inserting rows into the receivers level table. Threads other than the main writer need a
+     * connection provided by {@link NoiseMapByReceiverMaker#getDataSource()}
+     */
+    public int writerThreadCount = 1;
+    /**
+     * If true and the database is PostgreSQL, the results rows are streamed with the COPY command instead of INSERT
+     * queries
+     */
+    public boolean postgreSQLCopy = false;
+    /**
+     * If true the CNOSSOS propagation model shares the mean planes, convex hulls and segments of the paths of one
+     * receiver, the hit count of this cache is written in the csv profiler output
+     */
+    public boolean pathCache = false;
 
     public boolean mergeSources = true;
 
@@ -67,6 +82,13 @@ public class NoiseMapDatabaseParameters {
     public File sceneExportFolder = null;
 
     public File sqlOutputFile;
+    /**
+     * If not null, the receivers levels and rays rows are written into Apache Arrow IPC files in this folder instead
+     * of the database tables
+     */
+    public File arrowOutputFolder = null;
+    /** Maximum number of rows in each Arrow file, a new file is started when this count is reached */
+    public long arrowOutputRowsPerFile = 10_000_000;
     public Boolean sqlOutputFileCompression = true;
     public Boolean dropResultsTable = true;
     public boolean computeLAEQOnly = false;
@@ -152,6 +174,84 @@ public class NoiseMapDatabaseParameters {
         this.outputMaximumQueue = outputMaximumQueue;
     }
 
+    /**
+     * @return Number of threads inserting rows into the receivers level table
+     */
+    public int getWriterThreadCount() {
+        return writerThreadCount;
+    }
+
+    /**
+     * Additional writers use their own connection from {@link NoiseMapByReceiverMaker#getDataSource()}. With a H2
+     * database each additional writer fill its own staging table, merged into the receivers level table at the end
+     * of the computation.
+     * @param writerThreadCount Number of threads inserting rows into the receivers level table
+     */
+    public void setWriterThreadCount(int writerThreadCount) {
+        this.writerThreadCount = writerThreadCount;
+    }
+
+    /**
+     * @return Folder of the Arrow output files, null if the results are written into the database
+     */
+    public File getArrowOutputFolder() {
+        return arrowOutputFolder;
+    }
+
+    /**
+     * Write the results into Arrow IPC files (one series of files per table, named TABLE_0.arrow, TABLE_1.arrow..)
+     * instead of the database tables. The frequency levels are stored as float columns and the geometries as WKB.
+     * @param arrowOutputFolder Folder of the Arrow output files, null to write the results into the database
+     */
+    public void setArrowOutputFolder(File arrowOutputFolder) {
+        this.arrowOutputFolder = arrowOutputFolder;
+    }
+
+    /**
+     * @return Maximum number of rows in each Arrow file
+     */
+    public long getArrowOutputRowsPerFile() {
+        return arrowOutputRowsPerFile;
+    }
+
+    /**
+     * @param arrowOutputRowsPerFile Maximum number of rows in each Arrow file
+     */
+    public void setArrowOutputRowsPerFile(long arrowOutputRowsPerFile) {
+        this.arrowOutputRowsPerFile = arrowOutputRowsPerFile;
+    }
+
+    /**
+     * @return True if the results rows are streamed with the COPY command when the database is PostgreSQL
+     */
+    public boolean isPostgreSQLCopy() {
+        return postgreSQLCopy;
+    }
+
+    /**
+     * COPY is a lot faster than batched INSERT queries for the receivers level and rays tables. This setting is
+     * ignored if the database is not PostgreSQL or if the results are written into a sql file.
+     * @param postgreSQLCopy True to stream the results rows with the COPY command when the database is PostgreSQL
+     */
+    public void setPostgreSQLCopy(boolean postgreSQLCopy) {
+        this.postgreSQLCopy = postgreSQLCopy;
+    }
+
+    /**
+     * @return True if the CNOSSOS propagation model shares the geometry of the paths of one receiver
+     */
+    public boolean isPathCache() {
+        return pathCache;
+    }
+
+    /**
+     * @param pathCache If true the CNOSSOS propagation model shares the mean planes, convex hulls and segments of the
+     *                  paths of one receiver
+     */
+    public void setPathCache(boolean pathCache) {
+        this.pathCache = pathCache;
+    }
+
     /**
      * @return maximum dB Error, stop calculation if the maximum sum of further sources contributions are smaller than this value
      */
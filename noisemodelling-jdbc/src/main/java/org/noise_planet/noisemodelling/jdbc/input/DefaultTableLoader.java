@@ -25,14 +25,26 @@ import org.noise_planet.noisemodelling.emission.railway.cnossos.RailWayCnossosPa
 import org.noise_planet.noisemodelling.jdbc.EmissionTableGenerator;
 import org.noise_planet.noisemodelling.jdbc.NoiseMapByReceiverMaker;
 import org.noise_planet.noisemodelling.jdbc.utils.CellIndex;
+import org.noise_planet.noisemodelling.jdbc.utils.DemTileCache;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.Building;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.PackedTin;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.ProfileBuilder;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.ProfileBuilderSnapshot;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.RasterDem;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.Wall;
 import org.noise_planet.noisemodelling.pathfinder.utils.AcousticIndicatorsFunctions;
 import org.noise_planet.noisemodelling.propagation.AttenuationParameters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.*;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -276,7 +288,21 @@ public class DefaultTableLoader implements NoiseMapByReceiverMaker.TableLoader {
         // between subdomains
         expandedCellEnvelop.expandBy(maximumPropagationDistance + 2 * maximumReflectionDistance);
 
-        ProfileBuilder profileBuilder = new ProfileBuilder();
+        File snapshotFile = null;
+        ProfileBuilder profileBuilder = null;
+        if(noiseMapByReceiverMaker.getProfileBuilderSnapshotFolder() != null) {
+            snapshotFile = getProfileBuilderSnapshotFile(noiseMapByReceiverMaker.getProfileBuilderSnapshotFolder(),
+                    cellIndex, expandedCellEnvelop);
+            profileBuilder = loadProfileBuilderSnapshot(snapshotFile);
+            if(profileBuilder != null && noiseMapByReceiverMaker.getDemRaster() != null) {
+                // the shared raster is not stored in the snapshot
+                profileBuilder.setRasterDem(noiseMapByReceiverMaker.getDemRaster());
+            }
+        }
+        boolean loadedSnapshot = profileBuilder != null;
+        if(!loadedSnapshot) {
+            profileBuilder = new ProfileBuilder();
+        }
         profileBuilder.setFrequencyArray(frequencyArray);
         SceneWithEmission scene = new SceneWithEmission(profileBuilder, noiseMapByReceiverMaker.getSceneInputSettings());
         scene.setDirectionAttributes(directionAttributes);
@@ -289,17 +315,25 @@ public class DefaultTableLoader implements NoiseMapByReceiverMaker.TableLoader {
         // feed freeFieldFinder for fast intersection query
         // optimization
 
-        //if we have topographic points data
-        fetchCellDem(connection, expandedCellEnvelop, scene.profileBuilder);
+        if(!loadedSnapshot) {
+            //if we have topographic points data
+            File demTileFile = fetchCellDem(connection, expandedCellEnvelop, scene.profileBuilder);
 
-        // Fetch buildings in extendedEnvelope
-        fetchCellBuildings(connection, noiseMapByReceiverMaker.getBuildingTableParameters(), expandedCellEnvelop,
-                scene.profileBuilder, geometryFactory);
+            // Fetch buildings in extendedEnvelope
+            fetchCellBuildings(connection, noiseMapByReceiverMaker.getBuildingTableParameters(), expandedCellEnvelop,
+                    scene.profileBuilder, geometryFactory);
 
-        // Fetch soil areas
-        fetchCellSoilAreas(connection, expandedCellEnvelop, scene.profileBuilder);
+            // Fetch soil areas
+            fetchCellSoilAreas(connection, expandedCellEnvelop, scene.profileBuilder);
 
-        scene.profileBuilder.finishFeeding();
+            scene.profileBuilder.finishFeeding();
+            if(demTileFile != null) {
+                DemTileCache.save(demTileFile, scene.profileBuilder.getTin());
+            }
+            if(snapshotFile != null) {
+                saveProfileBuilderSnapshot(scene.profileBuilder, snapshotFile);
+            }
+        }
 
         scene.reflexionOrder = noiseMapByReceiverMaker.getSoundReflectionOrder();
         scene.setBodyBarrier(noiseMapByReceiverMaker.isBodyBarrier());
@@ -617,14 +651,96 @@ public class DefaultTableLoader implements NoiseMapByReceiverMaker.TableLoader {
 
     }
 
+    /**
+     * @param folder Folder of the cell snapshots
+     * @param cellIndex Cell index
+     * @param fetchEnvelope Envelope of the fetched geometries
+     * @return Snapshot file of the cell, the name is a hash of the fetch envelope, the geometry table names and the
+     * parameters used to fetch them so a snapshot of another computation is not read
+     */
+    File getProfileBuilderSnapshotFile(File folder, CellIndex cellIndex, Envelope fetchEnvelope) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        BuildingTableParameters buildingTableParameters = noiseMapByReceiverMaker.getBuildingTableParameters();
+        for (String value : new String[] {buildingTableParameters.buildingsTableName,
+                buildingTableParameters.heightField, buildingTableParameters.alphaFieldName,
+                noiseMapByReceiverMaker.getDemTable(), noiseMapByReceiverMaker.getSoilTableName()}) {
+            // the separator keeps the values apart
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(10 * Double.BYTES);
+        buffer.putDouble(fetchEnvelope.getMinX()).putDouble(fetchEnvelope.getMaxX())
+                .putDouble(fetchEnvelope.getMinY()).putDouble(fetchEnvelope.getMaxY())
+                .putDouble(buildingTableParameters.defaultWallAbsorption).putDouble(groundSurfaceSplitSideLength);
+        RasterDem rasterDem = noiseMapByReceiverMaker.getDemRaster();
+        if(rasterDem != null) {
+            buffer.putDouble(rasterDem.getOriginX()).putDouble(rasterDem.getOriginY())
+                    .putDouble(rasterDem.getCellSize()).putInt(rasterDem.getColumns()).putInt(rasterDem.getRows());
+        }
+        buffer.flip();
+        digest.update(buffer);
+        return new File(folder, String.format(Locale.ROOT, "cell_%d_%d_%s%s", cellIndex.getLatitudeIndex(),
+                cellIndex.getLongitudeIndex(), HexFormat.of().formatHex(digest.digest()),
+                ProfileBuilderSnapshot.FILE_EXTENSION));
+    }
+
+    /**
+     * @param snapshotFile Snapshot of the cell profile builder
+     * @return The profile builder or null if the snapshot does not exist or cannot be read
+     */
+    private static ProfileBuilder loadProfileBuilderSnapshot(File snapshotFile) {
+        if(!snapshotFile.isFile()) {
+            return null;
+        }
+        try {
+            return ProfileBuilderSnapshot.read(snapshotFile);
+        } catch (IOException ex) {
+            LOGGER.warn("Ignore invalid profile builder snapshot " + snapshotFile, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Write the snapshot under a temporary name then rename it, so a partial snapshot is never read
+     * @param profileBuilder Profile builder with finished feeding
+     * @param snapshotFile Snapshot of the cell profile builder
+     */
+    private static void saveProfileBuilderSnapshot(ProfileBuilder profileBuilder, File snapshotFile) {
+        try {
+            Files.createDirectories(snapshotFile.getAbsoluteFile().getParentFile().toPath());
+            File temporaryFile = File.createTempFile(snapshotFile.getName(), ".tmp",
+                    snapshotFile.getAbsoluteFile().getParentFile());
+            try {
+                ProfileBuilderSnapshot.write(profileBuilder, temporaryFile);
+                Files.move(temporaryFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+        } catch (IOException ex) {
+            LOGGER.warn("Could not write the profile builder snapshot " + snapshotFile, ex);
+        }
+    }
+
     /**
      * Fetches digital elevation model (DEM) data for the specified cell envelope and adds it to the mesh.
      * @param connection the database connection to use for querying the DEM data.
      * @param fetchEnvelope  the envelope representing the cell to fetch DEM data for.
      * @param profileBuilder the profile builder mesh to which the DEM data will be added.
+     * @return The DEM tile cache file to write once the triangulation is computed by
+     * {@link ProfileBuilder#finishFeeding()}, null if the cache is disabled or the tile has been loaded from the cache
      * @throws SQLException if an SQL exception occurs while fetching the DEM data.
      */
-    public void fetchCellDem(Connection connection, Envelope fetchEnvelope, ProfileBuilder profileBuilder) throws SQLException {
+    public File fetchCellDem(Connection connection, Envelope fetchEnvelope, ProfileBuilder profileBuilder) throws SQLException {
+        if(noiseMapByReceiverMaker.getDemRaster() != null) {
+            profileBuilder.setRasterDem(noiseMapByReceiverMaker.getDemRaster());
+            return null;
+        }
         String demTable = noiseMapByReceiverMaker.getDemTable();
         if(!demTable.isEmpty()) {
             GeometryFactory geometryFactory = noiseMapByReceiverMaker.getGeometryFactory();
@@ -637,6 +753,7 @@ public class DefaultTableLoader implements NoiseMapByReceiverMaker.TableLoader {
             String topoGeomName = geomFields.get(0);
             double sumZ = 0;
             int topoCount = 0;
+            List<Coordinate> demPoints = new ArrayList<>();
             try (PreparedStatement st = connection.prepareStatement(
                     "SELECT " + TableLocation.quoteIdentifier(topoGeomName, dbType) + " FROM " +
                             demTable + " WHERE " +
@@ -654,7 +771,7 @@ public class DefaultTableLoader implements NoiseMapByReceiverMaker.TableLoader {
                             }
                             sumZ+=ptCoordinate.z;
                             topoCount+=1;
-                            profileBuilder.addTopographicPoint(ptCoordinate);
+                            demPoints.add(ptCoordinate);
                         }
                     }
                 }
@@ -668,10 +785,27 @@ public class DefaultTableLoader implements NoiseMapByReceiverMaker.TableLoader {
                 Coordinate[] coordinates = geometryFactory.toGeometry(extentedEnvelope).getCoordinates();
                 for (int i = 0; i < coordinates.length - 1; i++) {
                     Coordinate coordinate = coordinates[i];
-                    profileBuilder.addTopographicPoint(new Coordinate(coordinate.x, coordinate.y, averageZ));
+                    demPoints.add(new Coordinate(coordinate.x, coordinate.y, averageZ));
                 }
             }
+            File demCacheFolder = noiseMapByReceiverMaker.getDemCacheFolder();
+            if(demCacheFolder != null) {
+                File demTileFile = DemTileCache.getTileFile(demCacheFolder, demTable, fetchEnvelope, demPoints);
+                PackedTin tin = DemTileCache.load(demTileFile);
+                if(tin != null) {
+                    profileBuilder.setTin(tin);
+                    return null;
+                }
+                for (Coordinate demPoint : demPoints) {
+                    profileBuilder.addTopographicPoint(demPoint);
+                }
+                return demTileFile;
+            }
+            for (Coordinate demPoint : demPoints) {
+                profileBuilder.addTopographicPoint(demPoint);
+            }
         }
+        return null;
     }
 
 
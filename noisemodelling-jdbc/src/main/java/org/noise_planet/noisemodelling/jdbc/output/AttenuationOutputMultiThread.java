@@ -14,6 +14,7 @@ import org.noise_planet.noisemodelling.jdbc.NoiseMapDatabaseParameters;
 import org.noise_planet.noisemodelling.jdbc.input.SceneWithEmission;
 import org.noise_planet.noisemodelling.pathfinder.CutPlaneVisitor;
 import org.noise_planet.noisemodelling.pathfinder.CutPlaneVisitorFactory;
+import org.noise_planet.noisemodelling.pathfinder.utils.profiler.ReceiverStatsMetric;
 import org.noise_planet.noisemodelling.propagation.PropagationModel;
 import org.noise_planet.noisemodelling.propagation.PropagationModelCreator;
 import org.noise_planet.noisemodelling.propagation.cnossos.CnossosPropagationModel;
@@ -34,6 +35,8 @@ public class AttenuationOutputMultiThread implements CutPlaneVisitorFactory {
     public AtomicBoolean aborted = new AtomicBoolean(false);
     public AtomicInteger cutProfileCount = new AtomicInteger();
     public PropagationModelCreator propagationModelCreator;
+    /** If not null, receive the hit count of the path cache of the propagation models */
+    public ReceiverStatsMetric receiverStatsMetric = null;
 
     /**
      * Create NoiseMap constructor
@@ -16,11 +16,13 @@ import org.noise_planet.noisemodelling.jdbc.input.SceneDatabaseInputSettings;
 import org.noise_planet.noisemodelling.jdbc.input.SceneWithEmission;
 import org.noise_planet.noisemodelling.pathfinder.CutPlaneVisitor;
 import org.noise_planet.noisemodelling.pathfinder.PathFinder;
-import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutPointReceiver;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutPointSource;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutProfile;
 import org.noise_planet.noisemodelling.propagation.*;
 import org.noise_planet.noisemodelling.pathfinder.utils.AcousticIndicatorsFunctions;
+import org.noise_planet.noisemodelling.pathfinder.utils.profiler.ReceiverStatsMetric;
+import org.noise_planet.noisemodelling.propagation.cnossos.CnossosPathCache;
+import org.noise_planet.noisemodelling.propagation.cnossos.CnossosPropagationModel;
 import org.noise_planet.noisemodelling.propagation.AttenuationOutput;
 
 import java.util.*;
@@ -36,7 +38,6 @@ import static org.noise_planet.noisemodelling.pathfinder.utils.AcousticIndicator
  * for exporting result values in a thread safe way. It processes the receiver one at a time.
  */
 public class AttenuationOutputSingleThread implements CutPlaneVisitor {
-    private static final int UNKNOWN_SOURCE_ID = -1;
     AttenuationOutputMultiThread multiThread;
     NoiseMapDatabaseParameters dbSettings;
     PropagationModel propagationModel;
@@ -45,7 +46,7 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
     /**
      * Collected attenuation/noise level on the current receiver
      */
-    Map<Integer, TimePeriodParameters> receiverAttenuationList = new HashMap<>();
+    ReceiverLevelAccumulator receiverLevels;
 
     /**
      * MaxError DB Processing variable
@@ -56,15 +57,21 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
     /**
      * MaxError DB Processing variable
      * Favourable Free Field cumulated global power at receiver, only used to stop looking for far sources
-     * Key unique source point identifier
-     * Value maximum expected noise level in w
+     * Key period
+     * Value maximum expected noise level in w of each remaining source point, with the running sum
      */
-    Map<String, HashMap<SourcePointKey, Double>> maximumWjExpectedSplAtReceiver = new HashMap<>();
+    Map<String, RemainingPowerBudget> maximumWjExpectedSplAtReceiver = new HashMap<>();
 
     public AtomicInteger cutProfileCount = new AtomicInteger(0);
 
     ProgressVisitor progressVisitor;
 
+    /**
+     * Path cache counters already sent to the receiver stats metric
+     */
+    long reportedPathCacheHitCount = 0;
+    long reportedPathCacheMissCount = 0;
+
     /**
      * Constructs a AttenuationOutputSingleThread object with a multithreaded parent
      * AttenuationOutputMultiThread instance.
@@ -77,6 +84,8 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
         this.multiThread = multiThreadParent;
         this.dbSettings = multiThreadParent.noiseMapDatabaseParameters;
         this.progressVisitor = progressVisitor;
+        this.receiverLevels = new ReceiverLevelAccumulator(dbSettings.isMergeSources());
+        this.propagationModel = multiThreadParent.propagationModelCreator.create();
     }
 
     /**
@@ -90,81 +99,76 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
     }
 
     /**
-     * Compute the attenuation for a given geometrical cross-section and period and store the
-     * results.
+     * Compute the attenuation for a given geometrical cross-section and several periods. The periods are computed
+     * together so the propagation model computes the period independent terms once.
      *
      * @param cutProfile geometrical cross-section
-     * @param data attenuation computation parameters
-     * @param period period identifier
-     * @param emission source emission levels for the period
-     * @param sourcePk source identifier
-     * @return path search strategy
+     * @param periods identifier of each period, used for the export of the attenuation matrix
+     * @param parameters attenuation computation parameters of each period
+     * @return attenuation of each period
      */
-    private PathSearchStrategy processAndStoreAttenuation(CutProfile cutProfile, AttenuationParameters data,
-                                                          String period, double[] emission, long sourcePk) {
-        return processAndStoreAttenuation(cutProfile, data, period, emission, sourcePk, new ArrayList<>());
+    private List<List<AttenuationOutput>> computeAttenuationPerPeriod(CutProfile cutProfile, List<String> periods,
+                                                                      List<AttenuationParameters> parameters) {
+        List<List<AttenuationOutput>> attenuationPerPeriod = propagationModel.computeAttenuationPerPeriod(
+                multiThread.sceneWithEmission, cutProfile, parameters,
+                multiThread.noiseMapDatabaseParameters.exportAttenuationMatrix);
+        // export attenuation output per period if required
+        if(multiThread.noiseMapDatabaseParameters.exportRaysMethod == NoiseMapDatabaseParameters.ExportRaysMethods.TO_RAYS_TABLE &&
+                multiThread.noiseMapDatabaseParameters.exportAttenuationMatrix) {
+            for (int idPeriod = 0; idPeriod < periods.size(); idPeriod++) {
+                for (AttenuationOutput attenuationOutput : attenuationPerPeriod.get(idPeriod)) {
+                    attenuationOutput.setTimePeriod(periods.get(idPeriod));
+                    this.attenuationOutputs.add(attenuationOutput);
+                }
+            }
+        }
+        return attenuationPerPeriod;
     }
 
     /**
-     * Compute the attenuation for a given geometrical cross-section and period and store the
-     * results.
+     * Store the attenuation of a geometrical cross-section for a period.
      *
      * @param cutProfile geometrical cross-section
-     * @param data attenuation computation parameters
      * @param period period identifier
      * @param emission source emission levels for the period
      * @param sourcePk source identifier
-     * @param defaultAttenuation attenuation computed with default parameters
+     * @param attenuationList attenuation of the cross-section for this period
      * @return path search strategy
      */
-    private PathSearchStrategy processAndStoreAttenuation(CutProfile cutProfile, AttenuationParameters data,
-                                                          String period, double[] emission, long sourcePk,
-                                                          List<AttenuationOutput> defaultAttenuation) {
+    private PathSearchStrategy storeAttenuation(CutProfile cutProfile, String period, double[] emission,
+                                                long sourcePk, List<AttenuationOutput> attenuationList) {
         PathSearchStrategy strategy = PathSearchStrategy.CONTINUE;
         final SceneWithEmission scene = multiThread.sceneWithEmission;
-        // Avoid multiple attenuation computation with default attenuation parameters
-        List<AttenuationOutput> attenuationList;
-        if(!defaultAttenuation.isEmpty()){
-            attenuationList = defaultAttenuation;
-        } else {
-            attenuationList = propagationModel.computeAttenuation(scene, cutProfile, data,
-                    multiThread.noiseMapDatabaseParameters.exportAttenuationMatrix);
-            // export attenuation output per period if required
-            if(multiThread.noiseMapDatabaseParameters.exportRaysMethod == NoiseMapDatabaseParameters.ExportRaysMethods.TO_RAYS_TABLE &&
-                    multiThread.noiseMapDatabaseParameters.exportAttenuationMatrix) {
-                for (AttenuationOutput attenuationOutput : attenuationList) {
-                    attenuationOutput.setTimePeriod(period);
-                    this.attenuationOutputs.add(attenuationOutput);
-                }
-            }
-            defaultAttenuation.addAll(attenuationList);
-        }
         // export attenuation output (only the rays/propagation path export is requested)
         if(multiThread.noiseMapDatabaseParameters.exportRaysMethod == NoiseMapDatabaseParameters.ExportRaysMethods
                 .TO_RAYS_TABLE && this.attenuationOutputs.isEmpty()) {
             // Use only one ray as the ray is the same if we not keep absorption values
             this.attenuationOutputs.addAll(attenuationList);
         }
+        CutPointSource source = cutProfile.getSource();
+        int periodId = receiverLevels.getPeriodId(period);
         for (AttenuationOutput attenuationOutput : attenuationList) {
             double[] attenuationDb = attenuationOutput.getaGlobal();
-            double[] attenuation = dBToW(attenuationDb);
-            double[] levels;
+            // Add the noise level in W directly into the receiver levels of this source and period
+            double[] levels = receiverLevels.getLevels(source, periodId, attenuationDb.length);
             if(emission.length != 0 ) {
-                levels = multiplicationArray(attenuation, emission);
+                if (emission.length != attenuationDb.length) {
+                    throw new IllegalArgumentException("Not same size array");
+                }
+                double powerSum = 0;
+                for (int idFreq = 0; idFreq < attenuationDb.length; idFreq++) {
+                    double level = dBToW(attenuationDb[idFreq]) * emission[idFreq];
+                    levels[idFreq] += level;
+                    powerSum += level;
+                }
                 if (isMaximumErrorPruningEnabled()) {
-                    double powerSum = sumArray(levels);
                     wjAtReceiver.merge(period, powerSum, Double::sum);
                 }
             } else {
-                levels = attenuation;
+                for (int idFreq = 0; idFreq < attenuationDb.length; idFreq++) {
+                    levels[idFreq] += dBToW(attenuationDb[idFreq]);
+                }
             }
-            CutPointSource source = cutProfile.getSource();
-            CutPointReceiver receiver = cutProfile.getReceiver();
-            ReceiverNoiseLevel receiverNoiseLevel =
-                    new ReceiverNoiseLevel(new PathFinder.SourcePointInfo(source),
-                            new PathFinder.ReceiverPointInfo(receiver), period,
-                            levels);
-            processNoiseLevel(receiverNoiseLevel);
 
             // To reduce the computation time, we evaluate the potential remaining power
             // at the receiver and stop processing further sources if we are already close enough to
@@ -177,9 +181,10 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
                 SourcePointKey sourcePointKey = new SourcePointKey(source);
                 for (SceneWithEmission.PeriodEmission periodEmission : emissions) {
                     final String periodLabel = periodEmission.period;
-                    if (maximumWjExpectedSplAtReceiver.containsKey(periodLabel)) {
-                        maximumWjExpectedSplAtReceiver.get(periodLabel).remove(sourcePointKey);
-                        if (maximumWjExpectedSplAtReceiver.get(periodLabel).isEmpty()) {
+                    RemainingPowerBudget budget = maximumWjExpectedSplAtReceiver.get(periodLabel);
+                    if (budget != null) {
+                        budget.remove(sourcePointKey);
+                        if (budget.isEmpty()) {
                             maximumWjExpectedSplAtReceiver.remove(periodLabel);
                         }
                     }
@@ -188,15 +193,15 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
                     final String entryPeriod = entry.getKey();
                     final double levelAtReceiver = entry.getValue();
 
-                    if (!maximumWjExpectedSplAtReceiver.containsKey(entryPeriod)) {
+                    RemainingPowerBudget budget = maximumWjExpectedSplAtReceiver.get(entryPeriod);
+                    if (budget == null) {
                         // Nothing to evaluate here, as there is no expected further power for this period.
                         continue;
                     }
 
                     // Evaluate the current noise level at receiver compared to the final
                     // expected noise level at the receiver.
-                    double nonProcessedPower = maximumWjExpectedSplAtReceiver.get(entryPeriod).values().stream()
-                            .reduce(Double::sum).orElse(0.0);
+                    double nonProcessedPower = budget.getRemainingPower();
                     double maximumExpectedLevelInDb = AcousticIndicatorsFunctions.wToDb(levelAtReceiver + nonProcessedPower);
                     double dBDiff = maximumExpectedLevelInDb - wToDb(levelAtReceiver);
                     if (dBDiff > dbSettings.maximumError) {
@@ -213,35 +218,17 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
         return strategy;
     }
 
-    /**
-     * Update internal map with new attenuation
-     * @param noiseLevel receiver noise level
-     */
-    private void processNoiseLevel(ReceiverNoiseLevel noiseLevel) {
-        int keyToUpdate = UNKNOWN_SOURCE_ID;
-        if(!dbSettings.isMergeSources()) {
-            keyToUpdate = noiseLevel.source.sourceIndex;
-        }
-        TimePeriodParameters periodParameters = new TimePeriodParameters(
-                dbSettings.isMergeSources() ? new PathFinder.SourcePointInfo() : noiseLevel.source,
-                noiseLevel.period, noiseLevel.levels);
-
-        receiverAttenuationList.merge(keyToUpdate, periodParameters,
-                TimePeriodParameters::update);
-    }
-
     /**
      * Manage attenuation computation each time a cutProfile is found.
-     * Note: in the case of CNOSSOS propagation model, a new instance of PropagationModel needs to be
-     * created for each cutProfile to ensure a new computation of the cnossosPaths.
+     * Note: the PropagationModel of this thread is reset for each cutProfile to ensure a new computation of the
+     * cnossosPaths.
      *
      * @param cutProfile vertical profile
      * @return Search strategy
      */
     @Override
     public PathSearchStrategy onNewCutPlane(CutProfile cutProfile) {
-        // Create a PropagationModel instance
-        propagationModel = multiThread.propagationModelCreator.create();
+        propagationModel.reset();
         PathSearchStrategy strategy = PathSearchStrategy.CONTINUE;
         multiThread.cutProfileCount.addAndGet(1);
         final SceneWithEmission scene = multiThread.sceneWithEmission;
@@ -253,32 +240,52 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
         long sourcePk = source.sourcePk == -1 ? source.id : source.sourcePk;
         if(scene.wjSources.isEmpty()) {
             // No emission push only attenuation for each period
+            List<String> periods = new ArrayList<>();
+            List<AttenuationParameters> parameters = new ArrayList<>();
             if(!scene.cnossosParametersPerPeriod.isEmpty()) {
                 for (Map.Entry<String, AttenuationParameters> propagationParametersEntry :
                         scene.cnossosParametersPerPeriod.entrySet()) {
-                    strategy = processAndStoreAttenuation(cutProfile, propagationParametersEntry.getValue(),
-                            propagationParametersEntry.getKey(), new double[0], sourcePk);
+                    periods.add(propagationParametersEntry.getKey());
+                    parameters.add(propagationParametersEntry.getValue());
                 }
             } else {
-                strategy = processAndStoreAttenuation(cutProfile, scene.defaultCnossosParameters,
-                        "", new double[0], sourcePk);
+                periods.add("");
+                parameters.add(scene.defaultCnossosParameters);
+            }
+            List<List<AttenuationOutput>> attenuationPerPeriod = computeAttenuationPerPeriod(cutProfile, periods,
+                    parameters);
+            for (int idPeriod = 0; idPeriod < periods.size(); idPeriod++) {
+                strategy = storeAttenuation(cutProfile, periods.get(idPeriod), new double[0], sourcePk,
+                        attenuationPerPeriod.get(idPeriod));
             }
         } else {
             // Apply period attenuation to emission for each time period covered by the source emission
             if(scene.wjSources.containsKey(sourcePk)) {
                 ArrayList<SceneWithEmission.PeriodEmission> emissions = scene.wjSources.get(sourcePk);
-                List<AttenuationOutput>  defaultAttenuation = new ArrayList<>();
-                for (SceneWithEmission.PeriodEmission periodEmission : emissions) {
-                    String period = periodEmission.period;
-                    // look for specific atmospheric settings for this period
-                    if(scene.cnossosParametersPerPeriod.containsKey(period)) {
-                        strategy = processAndStoreAttenuation(cutProfile,
-                                scene.cnossosParametersPerPeriod.get(period), period,
-                                periodEmission.emission, sourcePk);
-                    } else {
-                        strategy = processAndStoreAttenuation(cutProfile, scene.defaultCnossosParameters,
-                                period, periodEmission.emission, sourcePk, defaultAttenuation);
+                // look for specific atmospheric settings for each period, the periods without specific settings
+                // share the attenuation computed with the default settings
+                List<String> periods = new ArrayList<>(emissions.size());
+                List<AttenuationParameters> parameters = new ArrayList<>(emissions.size());
+                int[] parametersIndex = new int[emissions.size()];
+                for (int idEmission = 0; idEmission < emissions.size(); idEmission++) {
+                    String period = emissions.get(idEmission).period;
+                    AttenuationParameters periodParameters = scene.cnossosParametersPerPeriod.getOrDefault(period,
+                            scene.defaultCnossosParameters);
+                    int index = periodParameters == scene.defaultCnossosParameters ?
+                            parameters.indexOf(periodParameters) : -1;
+                    if(index == -1) {
+                        index = parameters.size();
+                        periods.add(period);
+                        parameters.add(periodParameters);
                     }
+                    parametersIndex[idEmission] = index;
+                }
+                List<List<AttenuationOutput>> attenuationPerPeriod = computeAttenuationPerPeriod(cutProfile, periods,
+                        parameters);
+                for (int idEmission = 0; idEmission < emissions.size(); idEmission++) {
+                    SceneWithEmission.PeriodEmission periodEmission = emissions.get(idEmission);
+                    strategy = storeAttenuation(cutProfile, periodEmission.period, periodEmission.emission,
+                            sourcePk, attenuationPerPeriod.get(parametersIndex[idEmission]));
                 }
             }
         }
@@ -289,8 +296,7 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
     public void startReceiver(PathFinder.ReceiverPointInfo receiver, Collection<PathFinder.SourcePointInfo> sourceList,
             AtomicInteger cutProfileCount) {
         this.cutProfileCount = cutProfileCount;
-        // Create a PropagationModel instance
-        propagationModel = multiThread.propagationModelCreator.create();
+        propagationModel.reset();
         // Quickly evaluate the maximum expected power level at receiver location
         // using all nearby sources maximum emission in reflective direct field
         if(isMaximumErrorPruningEnabled() && !multiThread.sceneWithEmission.wjSources.isEmpty()) {
@@ -326,14 +332,8 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
                         }
                         double[] wjAtReceiver = multiplicationArray(attenuationPerPeriod, periodEmission.emission);
                         double sumPower = sumArray(wjAtReceiver);
-                        HashMap<SourcePointKey, Double> sourceLevel;
-                        if(!maximumWjExpectedSplAtReceiver.containsKey(periodEmission.period)) {
-                            sourceLevel = new HashMap<>();
-                            maximumWjExpectedSplAtReceiver.put(periodEmission.period, sourceLevel);
-                        } else {
-                            sourceLevel = maximumWjExpectedSplAtReceiver.get(periodEmission.period);
-                        }
-                        sourceLevel.merge(new SourcePointKey(sourcePointInfo), sumPower, Double::sum);
+                        maximumWjExpectedSplAtReceiver.computeIfAbsent(periodEmission.period,
+                                k -> new RemainingPowerBudget()).add(new SourcePointKey(sourcePointInfo), sumPower);
                     }
                 }
             }
@@ -346,20 +346,27 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
      * @param data receiver noise level in dB
      */
     public void pushInStack(ConcurrentLinkedDeque<ReceiverNoiseLevel> stack, ReceiverNoiseLevel data) {
-        while(multiThread.resultsCache.queueSize.get() > dbSettings.outputMaximumQueue) {
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException ex) {
-                multiThread.aborted.set(true);
-                break;
-            }
-            if(multiThread.aborted.get()) {
+        if(!awaitStackCapacity()) {
+            return;
+        }
+        stack.add(data);
+        multiThread.resultsCache.onPushed(1);
+    }
+
+    /**
+     * Park the thread while the results stacks are full
+     * @return False if the computation has been aborted
+     */
+    private boolean awaitStackCapacity() {
+        try {
+            if(!multiThread.resultsCache.awaitCapacity(dbSettings.outputMaximumQueue, multiThread.aborted)) {
                 progressVisitor.cancel();
-                return;
+                return false;
             }
+        } catch (InterruptedException ex) {
+            multiThread.aborted.set(true);
         }
-        stack.add(data);
-        multiThread.resultsCache.queueSize.incrementAndGet();
+        return true;
     }
 
     /**
@@ -368,17 +375,8 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
      * @param data rays
      */
     public void pushInStack(ConcurrentLinkedDeque<AttenuationOutput> stack, List<AttenuationOutput> data) {
-        while(multiThread.resultsCache.queueSize.get() > dbSettings.outputMaximumQueue) {
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException ex) {
-                multiThread.aborted.set(true);
-                break;
-            }
-            if(multiThread.aborted.get()) {
-                progressVisitor.cancel();
-                return;
-            }
+        if(!awaitStackCapacity()) {
+            return;
         }
         if(dbSettings.getMaximumRaysOutputCount() == 0 || multiThread.resultsCache.totalRaysInserted.get() < dbSettings.getMaximumRaysOutputCount()) {
             long newTotalRays = multiThread.resultsCache.totalRaysInserted.addAndGet(data.size());
@@ -392,7 +390,7 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
                 }
             }
             stack.addAll(data);
-            multiThread.resultsCache.queueSize.addAndGet(data.size());
+            multiThread.resultsCache.onPushed(data.size());
         }
     }
 
@@ -420,27 +418,34 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
         // Convert to dB then pushed cached entries for this receiver into multi-thread instance
         boolean computeLden = isComputeLden();
         Set<String> collectedPeriod = new HashSet<>();
-        for (Map.Entry<Integer, TimePeriodParameters> periodParametersEntry : receiverAttenuationList.entrySet()) {
-            TimePeriodParameters periodParameters = periodParametersEntry.getValue();
-            for (Map.Entry<String, double[]> levelsAtPeriod : periodParameters.levelsPerPeriod.entrySet()) {
-                pushInStack(multiThread.resultsCache.receiverLevels, new ReceiverNoiseLevel(periodParameters.source,
-                        receiver, levelsAtPeriod.getKey(),
-                        AcousticIndicatorsFunctions.wToDb(levelsAtPeriod.getValue())));
+        for (int slotIndex = 0; slotIndex < receiverLevels.getSlotCount(); slotIndex++) {
+            ReceiverLevelAccumulator.SourceLevels sourceLevels = receiverLevels.getSlot(slotIndex);
+            for (int periodId = 0; periodId < receiverLevels.getPeriodCount(); periodId++) {
+                double[] levelsAtPeriod = sourceLevels.getLevels(periodId);
+                if(levelsAtPeriod == null) {
+                    continue;
+                }
+                String period = receiverLevels.getPeriod(periodId);
+                pushInStack(multiThread.resultsCache.receiverLevels, new ReceiverNoiseLevel(sourceLevels.getSource(),
+                        receiver, period, AcousticIndicatorsFunctions.wToDb(levelsAtPeriod)));
                 if(dbSettings.isMergeSources()) {
-                    collectedPeriod.add(levelsAtPeriod.getKey());
+                    collectedPeriod.add(period);
                 }
             }
             if(computeLden) {
                 double[] lden = new double[0];
                 for (EmissionTableGenerator.STANDARD_PERIOD period : EmissionTableGenerator.STANDARD_PERIOD.values()) {
-                    double[] levels = periodParameters.levelsPerPeriod.getOrDefault(
-                            EmissionTableGenerator.STANDARD_PERIOD_VALUE[period.ordinal()], new double[0]);
+                    double[] levels = sourceLevels.getLevels(receiverLevels.findPeriodId(
+                            EmissionTableGenerator.STANDARD_PERIOD_VALUE[period.ordinal()]));
+                    if(levels == null) {
+                        levels = new double[0];
+                    }
                     // Apply period gain
                     lden = AcousticIndicatorsFunctions.sumArray(lden,
                             AcousticIndicatorsFunctions.multiplicationArray(levels,
                                     EmissionTableGenerator.RATIOS[period.ordinal()]));
                 }
-                pushInStack(multiThread.resultsCache.receiverLevels, new ReceiverNoiseLevel(periodParameters.source,
+                pushInStack(multiThread.resultsCache.receiverLevels, new ReceiverNoiseLevel(sourceLevels.getSource(),
                         receiver, EmissionTableGenerator.DEN_PERIOD,
                         AcousticIndicatorsFunctions.wToDb(lden)));
                 if(dbSettings.isMergeSources()) {
@@ -463,10 +468,31 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
                         new ReceiverNoiseLevel(new PathFinder.SourcePointInfo(), receiver, period, levels));
             }
         }
-        receiverAttenuationList.clear();
+        receiverLevels.reset();
         maximumWjExpectedSplAtReceiver.clear();
         wjAtReceiver.clear();
         this.attenuationOutputs.clear();
+        reportPathCacheRequests();
+    }
+
+    /**
+     * Send the path cache requests made since the previous receiver to the profiler
+     */
+    private void reportPathCacheRequests() {
+        ReceiverStatsMetric receiverStatsMetric = multiThread.receiverStatsMetric;
+        if(receiverStatsMetric == null || !(propagationModel instanceof CnossosPropagationModel)) {
+            return;
+        }
+        CnossosPathCache pathCache = ((CnossosPropagationModel) propagationModel).getPathCache();
+        if(pathCache == null) {
+            return;
+        }
+        long hitCount = pathCache.getHitCount();
+        long missCount = pathCache.getMissCount();
+        receiverStatsMetric.onPathCacheRequests(hitCount - reportedPathCacheHitCount,
+                missCount - reportedPathCacheMissCount);
+        reportedPathCacheHitCount = hitCount;
+        reportedPathCacheMissCount = missCount;
     }
 
     private boolean isComputeLden() {
@@ -479,41 +505,4 @@ public class AttenuationOutputSingleThread implements CutPlaneVisitor {
                 inputMode.equals(SceneDatabaseInputSettings.INPUT_MODE.INPUT_MODE_LW_DEN);
     }
 
-
-    /**
-     * representing the noise levels for different time periods.
-     */
-    public static class TimePeriodParameters {
-        public PathFinder.SourcePointInfo source = null;
-        /**
-         * Map of attenuation (attenuation not in dB but w)
-         */
-        public Map<String, double[]> levelsPerPeriod = new HashMap<>();
-
-        public TimePeriodParameters(PathFinder.SourcePointInfo source) {
-            this.source = source;
-        }
-
-        public TimePeriodParameters(PathFinder.SourcePointInfo source, String period, double[] attenuation) {
-            this.source = source;
-            levelsPerPeriod.put(period, attenuation);
-        }
-
-        public TimePeriodParameters() {
-        }
-
-        /**
-         * merge attenuation/noise level in w
-         * @param other noise level as a function of the period
-         * @return noise level as a function of the period
-         */
-        public TimePeriodParameters update(TimePeriodParameters other) {
-            for (Map.Entry<String, double[]> entry : other.levelsPerPeriod.entrySet()) {
-                levelsPerPeriod.merge(entry.getKey(), entry.getValue(),
-                        AcousticIndicatorsFunctions::sumArray);
-            }
-            return this;
-        }
-    }
-
 }
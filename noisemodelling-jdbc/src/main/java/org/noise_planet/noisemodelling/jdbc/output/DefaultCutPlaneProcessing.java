@@ -1,6 +1,8 @@
 package org.noise_planet.noisemodelling.jdbc.output;
 
 import org.h2gis.api.ProgressVisitor;
+import org.h2gis.utilities.dbtypes.DBTypes;
+import org.h2gis.utilities.dbtypes.DBUtils;
 import org.noise_planet.noisemodelling.jdbc.IComputeRaysOutFactory;
 import org.noise_planet.noisemodelling.jdbc.NoiseMapByReceiverMaker;
 import org.noise_planet.noisemodelling.jdbc.NoiseMapDatabaseParameters;
@@ -13,13 +15,17 @@ import org.noise_planet.noisemodelling.pathfinder.utils.profiler.ProgressMetric;
 import org.noise_planet.noisemodelling.pathfinder.utils.profiler.ReceiverStatsMetric;
 import org.noise_planet.noisemodelling.propagation.cnossos.CnossosPropagationModelCreator;
 import org.noise_planet.noisemodelling.propagation.PropagationModelCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DefaultCutPlaneProcessing implements IComputeRaysOutFactory {
+    Logger logger = LoggerFactory.getLogger(DefaultCutPlaneProcessing.class);
     ResultsCache resultsCache = new ResultsCache();
     final NoiseMapDatabaseParameters noiseMapDatabaseParameters;
     NoiseMapWriter noiseMapWriter;
@@ -31,6 +37,7 @@ public class DefaultCutPlaneProcessing implements IComputeRaysOutFactory {
     NoiseMapByReceiverMaker noiseMapByReceiverMaker;
     ThreadPool postProcessingThreadPool = new ThreadPool();
     Future<Boolean> noiseMapWriterFuture;
+    Future<?> profilerFuture;
     PropagationModelCreator propagationModelCreator = new CnossosPropagationModelCreator();
 
     /**
@@ -51,7 +58,17 @@ public class DefaultCutPlaneProcessing implements IComputeRaysOutFactory {
      */
     @Override
     public CutPlaneVisitorFactory create(SceneWithEmission scene) {
-        return new AttenuationOutputMultiThread(scene, propagationModelCreator, resultsCache, noiseMapDatabaseParameters, exitWhenDone, aborted);
+        PropagationModelCreator creator = propagationModelCreator;
+        if(noiseMapDatabaseParameters.isPathCache() && creator instanceof CnossosPropagationModelCreator &&
+                !((CnossosPropagationModelCreator) creator).isPathCache()) {
+            creator = new CnossosPropagationModelCreator(true);
+        }
+        AttenuationOutputMultiThread attenuationOutputMultiThread = new AttenuationOutputMultiThread(scene, creator,
+                resultsCache, noiseMapDatabaseParameters, exitWhenDone, aborted);
+        if(profilerThread != null) {
+            attenuationOutputMultiThread.receiverStatsMetric = profilerThread.getMetric(ReceiverStatsMetric.class);
+        }
+        return attenuationOutputMultiThread;
     }
 
     @Override
@@ -77,16 +94,49 @@ public class DefaultCutPlaneProcessing implements IComputeRaysOutFactory {
         exitWhenDone.set(false);
         if(profilerThread != null) {
             profilerThread.addMetric(new ProgressMetric(progressLogger));
-            postProcessingThreadPool.submit(profilerThread);
+            profilerFuture = postProcessingThreadPool.submit(profilerThread);
         }
         try {
             noiseMapWriter.init();
+            startAdditionalWriters();
         } catch (Exception ex) {
             throw new SQLException(ex);
         }
         noiseMapWriterFuture = postProcessingThreadPool.submitBlocking(noiseMapWriter);
     }
 
+    /**
+     * Start the additional receivers level writers, each one with its own connection.
+     * With H2 the additional writers fill staging tables, with other databases they insert directly in the
+     * receivers level table.
+     */
+    private void startAdditionalWriters() throws Exception {
+        int writerThreadCount = noiseMapDatabaseParameters.getWriterThreadCount();
+        if(writerThreadCount <= 1 || noiseMapDatabaseParameters.sqlOutputFile != null ||
+                noiseMapDatabaseParameters.arrowOutputFolder != null) {
+            return;
+        }
+        DataSource dataSource = noiseMapByReceiverMaker.getDataSource();
+        if(dataSource == null) {
+            logger.warn("Additional writers need a DataSource, only one writer thread will be used");
+            return;
+        }
+        DBTypes dbType = DBUtils.getDBType(connection);
+        boolean useStagingTables = dbType == DBTypes.H2 || dbType == DBTypes.H2GIS;
+        for (int idWriter = 1; idWriter < writerThreadCount; idWriter++) {
+            String stagingTable = useStagingTables ?
+                    noiseMapDatabaseParameters.receiversLevelTable + "_WRITER" + idWriter : null;
+            NoiseMapWriter worker = noiseMapWriter.createWorker(dataSource.getConnection(), stagingTable);
+            try {
+                worker.initWorker();
+            } catch (Exception ex) {
+                worker.connection.close();
+                throw ex;
+            }
+            noiseMapWriter.addWorker(worker, postProcessingThreadPool.submitBlocking(worker));
+        }
+    }
+
     /**
      * Write the last results and stop the sql writing thread
      * This method is blocked until the data is written or if there is an issue
@@ -94,10 +144,16 @@ public class DefaultCutPlaneProcessing implements IComputeRaysOutFactory {
     @Override
     public void stop() throws SQLException {
         exitWhenDone.set(true);
+        resultsCache.wakeUpWriter();
         try {
             if(noiseMapWriterFuture != null) {
                 noiseMapWriterFuture.get();
             }
+            // write the last line of the profiler with the remaining metrics values
+            if(profilerFuture != null) {
+                profilerThread.stop();
+                profilerFuture.get();
+            }
         } catch (Exception e) {
             throw new SQLException(e);
         }
@@ -14,11 +14,16 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import org.h2gis.utilities.dbtypes.DBTypes;
+import org.h2gis.utilities.dbtypes.DBUtils;
 import org.locationtech.jts.geom.*;
 import org.noise_planet.noisemodelling.jdbc.NoiseMapByReceiverMaker;
 import org.noise_planet.noisemodelling.jdbc.NoiseMapDatabaseParameters;
 import org.noise_planet.noisemodelling.jdbc.input.DefaultTableLoader;
 import org.noise_planet.noisemodelling.jdbc.input.SceneDatabaseInputSettings;
+import org.noise_planet.noisemodelling.jdbc.utils.ArrowFileWriter;
+import org.noise_planet.noisemodelling.jdbc.utils.ArrowPreparedStatements;
+import org.noise_planet.noisemodelling.jdbc.utils.CopyPreparedStatements;
 import org.noise_planet.noisemodelling.jdbc.utils.StringPreparedStatements;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.ProfileBuilder;
 import org.noise_planet.noisemodelling.pathfinder.utils.AcousticIndicatorsFunctions;
@@ -34,10 +39,14 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.GZIPOutputStream;
 
@@ -50,14 +59,30 @@ public class NoiseMapWriter implements Callable<Boolean> {
     static final int LOG_END_WRITING_DELAY = 15000;
     static final int BATCH_MAX_SIZE = 500;
     static final int WRITER_CACHE = 65536;
+    static final int ARROW_BATCH_SIZE = 16384;
     AtomicBoolean exitWhenDone;
     AtomicBoolean aborted;
     Logger LOGGER = LoggerFactory.getLogger(NoiseMapWriter.class);
     File sqlFilePath;
-    private Connection connection;
+    Connection connection;
     NoiseMapByReceiverMaker noiseMapByReceiverMaker;
     NoiseMapDatabaseParameters databaseParameters;
     ResultsCache resultsCache;
+    /** Table that receive the receivers levels rows of this writer */
+    String receiversLevelTable;
+    /** If true this writer is an additional writer that only process the receivers levels */
+    boolean receiverLevelsOnly = false;
+    /** If not null, this additional writer fill this table, then rows are moved into the main table at the end */
+    String stagingTable;
+    /** If true rows are streamed using the PostgreSQL COPY command */
+    boolean useCopy = false;
+    /** If not null the receivers levels are written into Arrow files instead of the database */
+    ArrowPreparedStatements receiversLevelArrow;
+    /** If not null the rays are written into Arrow files instead of the database */
+    ArrowPreparedStatements raysArrow;
+    /** Additional writers, with their own connection, that are joined by this writer before creating keys */
+    final List<NoiseMapWriter> workers = new ArrayList<>();
+    final List<Future<Boolean>> workerFutures = new ArrayList<>();
     Writer writer;
     ObjectWriter jsonWriter;
     int srid;
@@ -78,6 +103,7 @@ public class NoiseMapWriter implements Callable<Boolean> {
         this.noiseMapByReceiverMaker = noiseMapByReceiverMaker;
         databaseParameters = noiseMapByReceiverMaker.getNoiseMapDatabaseParameters();
         this.resultsCache = ResultsCache;
+        this.receiversLevelTable = databaseParameters.receiversLevelTable;
         this.srid = noiseMapByReceiverMaker.getGeometryFactory().getSRID();
         if(noiseMapByReceiverMaker.getPropagationProcessDataFactory() instanceof DefaultTableLoader) {
             aWeightingArray = ((DefaultTableLoader)noiseMapByReceiverMaker.getPropagationProcessDataFactory()).
@@ -91,6 +117,34 @@ public class NoiseMapWriter implements Callable<Boolean> {
         }
     }
 
+    /**
+     * Create an additional writer that insert receivers levels using another connection.
+     * @param workerConnection Connection owned by the additional writer, closed by this writer once joined
+     * @param stagingTable If not null, the rows are inserted into this table then moved into the receivers level table
+     *                     at the end of the computation
+     * @return The additional writer, to be registered with {@link #addWorker(NoiseMapWriter, Future)}
+     */
+    public NoiseMapWriter createWorker(Connection workerConnection, String stagingTable) {
+        NoiseMapWriter worker = new NoiseMapWriter(workerConnection, noiseMapByReceiverMaker, resultsCache,
+                exitWhenDone, aborted);
+        worker.receiverLevelsOnly = true;
+        worker.stagingTable = stagingTable;
+        if(stagingTable != null) {
+            worker.receiversLevelTable = stagingTable;
+        }
+        return worker;
+    }
+
+    /**
+     * Register a running additional writer, this writer will wait for its end before creating keys
+     * @param worker Additional writer
+     * @param workerFuture Result of the additional writer
+     */
+    public void addWorker(NoiseMapWriter worker, Future<Boolean> workerFuture) {
+        workers.add(worker);
+        workerFutures.add(workerFuture);
+    }
+
     public static ObjectWriter createJsonWriter() {
         ObjectMapper mapper = new ObjectMapper();
         mapper.addMixIn(Coordinate.class, CoordinateMixin.class);
@@ -128,19 +182,24 @@ public class NoiseMapWriter implements Callable<Boolean> {
     void processRaysStack(ConcurrentLinkedDeque<AttenuationOutput> stack) throws SQLException {
         boolean exportPeriod = !noiseMapByReceiverMaker.getSceneInputSettings().getInputMode().
                 equals(SceneDatabaseInputSettings.INPUT_MODE.INPUT_MODE_ATTENUATION);
-        StringBuilder query = new StringBuilder("INSERT INTO " + databaseParameters.raysTable +
-                "(the_geom , IDRECEIVER , IDSOURCE");
+        StringBuilder columns = new StringBuilder(databaseParameters.raysTable + "(the_geom , IDRECEIVER , IDSOURCE");
+        int columnCount = 4;
         if(databaseParameters.exportAttenuationOutput) {
-            query.append(", PATH");
+            columns.append(", PATH");
+            columnCount++;
         }
         if(databaseParameters.exportAttenuationMatrix) {
-            query.append(", LEQ");
+            columns.append(", LEQ");
+            columnCount++;
         }
         if(exportPeriod) {
-            query.append(", PERIOD");
+            columns.append(", PERIOD");
+            columnCount++;
         }
-        query.append(", METEO");
-        query.append(") VALUES (?, ?, ?");
+        columns.append(", METEO)");
+        StringBuilder query = new StringBuilder("INSERT INTO ");
+        query.append(columns);
+        query.append(" VALUES (?, ?, ?");
         if(databaseParameters.exportAttenuationOutput) {
             query.append(", ?");
         }
@@ -154,15 +213,18 @@ public class NoiseMapWriter implements Callable<Boolean> {
         query.append(");");
         // PK, GEOM, ID_RECEIVER, ID_SOURCE
         PreparedStatement ps;
-        if(sqlFilePath == null) {
+        if(raysArrow != null) {
+            ps = raysArrow;
+        } else if(useCopy) {
+            ps = CopyPreparedStatements.copyIn(connection, columns.toString(), columnCount);
+        } else if(sqlFilePath == null) {
             ps = connection.prepareStatement(query.toString());
         } else {
             ps = new StringPreparedStatements(writer, query.toString());
         }
         int batchSize = 0;
-        while(!stack.isEmpty()) {
-            AttenuationOutput row = stack.pop();
-            resultsCache.queueSize.decrementAndGet();
+        AttenuationOutput row;
+        while((row = stack.poll()) != null) {
             int parameterIndex = 1;
             LineString lineString = row.getLineString();
             lineString.setSRID(srid);
@@ -191,13 +253,17 @@ public class NoiseMapWriter implements Callable<Boolean> {
             if (batchSize >= BATCH_MAX_SIZE) {
                 ps.executeBatch();
                 ps.clearBatch();
+                resultsCache.onWritten(batchSize);
                 batchSize = 0;
             }
         }
         if (batchSize > 0) {
             ps.executeBatch();
+            resultsCache.onWritten(batchSize);
+        }
+        if(ps != raysArrow) {
+            ps.close();
         }
-
     }
 
     /**
@@ -217,32 +283,42 @@ public class NoiseMapWriter implements Callable<Boolean> {
         StringBuilder query = new StringBuilder("INSERT INTO ");
         query.append(tableName);
         query.append(" VALUES (? "); // ID_RECEIVER
+        int columnCount = 1;
         if(!databaseParameters.mergeSources) {
             query.append(", ?"); // ID_SOURCE
+            columnCount++;
         }
         if(exportPeriod) {
             query.append(", ?"); // PERIOD
+            columnCount++;
         }
         if(databaseParameters.exportReceiverPosition) {
             query.append(", ?"); // THE_GEOM
+            columnCount++;
         }
         if (!databaseParameters.computeLAEQOnly) {
             query.append(", ?".repeat(aWeightingArray.length)); // freq value LWXX
             query.append(", ?, ?);"); // laeq, leq
+            columnCount += aWeightingArray.length + 2;
         }else{
             query.append(", ?);"); // laeq, leq
+            columnCount++;
         }
         PreparedStatement ps;
-        if(sqlFilePath == null) {
+        if(receiversLevelArrow != null) {
+            ps = receiversLevelArrow;
+        } else if(useCopy) {
+            ps = CopyPreparedStatements.copyIn(connection, tableName, columnCount);
+        } else if(sqlFilePath == null) {
             ps = connection.prepareStatement(query.toString());
         } else {
             ps = new StringPreparedStatements(writer, query.toString());
         }
         int batchSize = 0;
         GeometryFactory factory = new GeometryFactory(new PrecisionModel(), srid);
-        while(!stack.isEmpty() && !aborted.get()) {
-            ReceiverNoiseLevel row = stack.pop();
-            resultsCache.queueSize.decrementAndGet();
+        ReceiverNoiseLevel row;
+        // Other writers may pop from the same stack, so the stack can be empty at any time
+        while(!aborted.get() && (row = stack.poll()) != null) {
             int parameterIndex = 1;
             ps.setLong(parameterIndex++, row.receiver.receiverPk);
             if(!databaseParameters.mergeSources) {
@@ -283,6 +359,7 @@ public class NoiseMapWriter implements Callable<Boolean> {
             if (batchSize >= BATCH_MAX_SIZE) {
                 ps.executeBatch();
                 ps.clearBatch();
+                resultsCache.onWritten(batchSize);
                 batchSize = 0;
                 long now = System.currentTimeMillis();
                 if(exitWhenDone.get() && now - lastInfoLog > LOG_END_WRITING_DELAY) {
@@ -293,6 +370,10 @@ public class NoiseMapWriter implements Callable<Boolean> {
         }
         if (batchSize > 0) {
             ps.executeBatch();
+            resultsCache.onWritten(batchSize);
+        }
+        if(ps != receiversLevelArrow) {
+            ps.close();
         }
     }
 
@@ -336,6 +417,70 @@ public class NoiseMapWriter implements Callable<Boolean> {
         return sb.toString();
     }
 
+    /**
+     * Arrow columns of the receivers level files, same columns as {@link #forgeCreateTable(String)}
+     * @return Columns of the receivers level files
+     */
+    private List<ArrowFileWriter.Column> forgeArrowColumns() {
+        boolean exportPeriod = !noiseMapByReceiverMaker.getSceneInputSettings().getInputMode().
+                equals(SceneDatabaseInputSettings.INPUT_MODE.INPUT_MODE_ATTENUATION);
+        List<ArrowFileWriter.Column> columns = new ArrayList<>();
+        columns.add(new ArrowFileWriter.Column("IDRECEIVER", ArrowFileWriter.ColumnType.INT64, false));
+        if(!databaseParameters.mergeSources) {
+            columns.add(new ArrowFileWriter.Column("IDSOURCE", ArrowFileWriter.ColumnType.INT64, false));
+        }
+        if(exportPeriod) {
+            columns.add(new ArrowFileWriter.Column("PERIOD", ArrowFileWriter.ColumnType.UTF8, false));
+        }
+        if(databaseParameters.exportReceiverPosition) {
+            columns.add(forgeArrowGeometryColumn());
+        }
+        if (!databaseParameters.computeLAEQOnly) {
+            for (int idfreq = 0; idfreq < aWeightingArray.length; idfreq++) {
+                columns.add(new ArrowFileWriter.Column(noiseMapByReceiverMaker.getFrequencyFieldPrepend() +
+                        frequencyArray.get(idfreq), ArrowFileWriter.ColumnType.FLOAT32, false));
+            }
+        }
+        columns.add(new ArrowFileWriter.Column("LAEQ", ArrowFileWriter.ColumnType.FLOAT32, false));
+        if (!databaseParameters.computeLAEQOnly) {
+            columns.add(new ArrowFileWriter.Column("LEQ", ArrowFileWriter.ColumnType.FLOAT32, false));
+        }
+        return columns;
+    }
+
+    /**
+     * Arrow columns of the rays files, same columns as the rays table without the primary key
+     * @return Columns of the rays files
+     */
+    private List<ArrowFileWriter.Column> forgeArrowRaysColumns() {
+        boolean exportPeriod = !noiseMapByReceiverMaker.getSceneInputSettings().getInputMode().
+                equals(SceneDatabaseInputSettings.INPUT_MODE.INPUT_MODE_ATTENUATION);
+        List<ArrowFileWriter.Column> columns = new ArrayList<>();
+        columns.add(forgeArrowGeometryColumn());
+        columns.add(new ArrowFileWriter.Column("IDRECEIVER", ArrowFileWriter.ColumnType.INT64, false));
+        columns.add(new ArrowFileWriter.Column("IDSOURCE", ArrowFileWriter.ColumnType.INT64, false));
+        if(databaseParameters.exportAttenuationOutput) {
+            columns.add(new ArrowFileWriter.Column("PATH", ArrowFileWriter.ColumnType.UTF8, true));
+        }
+        if(databaseParameters.exportAttenuationMatrix) {
+            columns.add(new ArrowFileWriter.Column("LEQ", ArrowFileWriter.ColumnType.FLOAT64, true));
+        }
+        if(exportPeriod) {
+            columns.add(new ArrowFileWriter.Column("PERIOD", ArrowFileWriter.ColumnType.UTF8, true));
+        }
+        columns.add(new ArrowFileWriter.Column("METEO", ArrowFileWriter.ColumnType.UTF8, true));
+        return columns;
+    }
+
+    /**
+     * @return WKB geometry column, tagged with the GeoArrow extension name and the coordinate reference system
+     */
+    private ArrowFileWriter.Column forgeArrowGeometryColumn() {
+        String crs = srid > 0 ? "{\"crs\":\"EPSG:" + srid + "\"}" : "{}";
+        return new ArrowFileWriter.Column("THE_GEOM", ArrowFileWriter.ColumnType.BINARY, true,
+                Map.of("ARROW:extension:name", "geoarrow.wkb", "ARROW:extension:metadata", crs));
+    }
+
     /**
      * Creates a primary key or index on the specified table depending on the configuration.
      * @param tableName Name of the table
@@ -380,6 +525,11 @@ public class NoiseMapWriter implements Callable<Boolean> {
      * @throws IOException if an I/O error occurs while processing the query
      */
     public void init() throws SQLException, IOException {
+        if(databaseParameters.arrowOutputFolder != null) {
+            initArrow();
+            return;
+        }
+        initCopy();
         if(databaseParameters.getExportRaysMethod() == NoiseMapDatabaseParameters.ExportRaysMethods.TO_RAYS_TABLE) {
             boolean exportPeriod = !noiseMapByReceiverMaker.getSceneInputSettings().getInputMode().
                     equals(SceneDatabaseInputSettings.INPUT_MODE.INPUT_MODE_ATTENUATION);
@@ -412,6 +562,100 @@ public class NoiseMapWriter implements Callable<Boolean> {
         processQuery(q);
     }
 
+    /**
+     * Prepare the Arrow files writers, the database tables are not created
+     * @throws IOException if the output folder cannot be created
+     */
+    private void initArrow() throws IOException {
+        File folder = databaseParameters.arrowOutputFolder;
+        if(!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Cannot create the folder " + folder.getAbsolutePath());
+        }
+        receiversLevelArrow = new ArrowPreparedStatements(folder, databaseParameters.receiversLevelTable,
+                forgeArrowColumns(), databaseParameters.arrowOutputRowsPerFile, ARROW_BATCH_SIZE);
+        if(databaseParameters.getExportRaysMethod() == NoiseMapDatabaseParameters.ExportRaysMethods.TO_RAYS_TABLE) {
+            raysArrow = new ArrowPreparedStatements(folder, databaseParameters.raysTable,
+                    forgeArrowRaysColumns(), databaseParameters.arrowOutputRowsPerFile, ARROW_BATCH_SIZE);
+        }
+    }
+
+    /**
+     * Write the last rows and the footer of the Arrow files
+     * @throws SQLException if an I/O error occurs while writing the files
+     */
+    void closeArrow() throws SQLException {
+        try {
+            if (receiversLevelArrow != null) {
+                receiversLevelArrow.close();
+            }
+        } finally {
+            if (raysArrow != null) {
+                raysArrow.close();
+            }
+        }
+    }
+
+    /**
+     * Use the COPY command if requested and if the database is PostgreSQL
+     * @throws SQLException if the database type cannot be read
+     */
+    private void initCopy() throws SQLException {
+        if(databaseParameters.isPostgreSQLCopy() && sqlFilePath == null) {
+            DBTypes dbType = DBUtils.getDBType(connection);
+            useCopy = dbType == DBTypes.POSTGIS || dbType == DBTypes.POSTGRESQL;
+            if(!useCopy) {
+                LOGGER.info("COPY output is only available with PostgreSQL, use INSERT queries");
+            }
+        }
+    }
+
+    /**
+     * Create the staging table of an additional writer
+     * @throws SQLException if an SQL exception occurs while executing the query
+     * @throws IOException if an I/O error occurs while processing the query
+     */
+    public void initWorker() throws SQLException, IOException {
+        initCopy();
+        if(stagingTable != null) {
+            processQuery(String.format("DROP TABLE IF EXISTS %s;", stagingTable));
+            processQuery(forgeCreateTable(stagingTable));
+        }
+    }
+
+    /**
+     * Wait for the additional writers, move the staging tables rows into the receivers level table and close the
+     * additional connections
+     * @throws SQLException if an SQL exception occurs while executing the query or in an additional writer
+     * @throws IOException if an I/O error occurs while processing the query
+     */
+    void joinWorkers() throws SQLException, IOException {
+        try {
+            for (Future<Boolean> workerFuture : workerFutures) {
+                try {
+                    workerFuture.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException(ex);
+                } catch (ExecutionException ex) {
+                    throw new SQLException(ex.getCause());
+                }
+            }
+            for (NoiseMapWriter worker : workers) {
+                if (worker.stagingTable != null) {
+                    processQuery(String.format("INSERT INTO %s SELECT * FROM %s;",
+                            databaseParameters.receiversLevelTable, worker.stagingTable));
+                    processQuery(String.format("DROP TABLE %s;", worker.stagingTable));
+                }
+            }
+        } finally {
+            for (NoiseMapWriter worker : workers) {
+                worker.connection.close();
+            }
+            workers.clear();
+            workerFutures.clear();
+        }
+    }
+
     /**
      * Main loop for processing attenuated paths and stacking results.
      * @throws SQLException if an SQL exception occurs while executing the query
@@ -420,14 +664,16 @@ public class NoiseMapWriter implements Callable<Boolean> {
         while (!aborted.get()) {
             try {
                 if(!resultsCache.receiverLevels.isEmpty()) {
-                    processStack(databaseParameters.receiversLevelTable, resultsCache.receiverLevels);
-                } else if(!resultsCache.attenuationOutputs.isEmpty()) {
+                    processStack(receiversLevelTable, resultsCache.receiverLevels);
+                } else if(!receiverLevelsOnly && !resultsCache.attenuationOutputs.isEmpty()) {
                     processRaysStack(resultsCache.attenuationOutputs);
                 } else {
                     if(exitWhenDone.get()) {
                         break;
+                    } else if(receiverLevelsOnly) {
+                        resultsCache.awaitData(resultsCache.receiverLevels::isEmpty);
                     } else {
-                        Thread.sleep(50);
+                        resultsCache.awaitData();
                     }
                 }
             } catch (InterruptedException ex) {
@@ -443,6 +689,9 @@ public class NoiseMapWriter implements Callable<Boolean> {
      * @throws IOException if an I/O error occurs while processing the query
      */
     void createKeys()  throws SQLException, IOException {
+        if(receiversLevelArrow != null) {
+            return;
+        }
         // Set primary keys
         LOGGER.info("Write done, apply primary keys");
         processQuery(forgePkTable(databaseParameters.receiversLevelTable));
@@ -468,9 +717,28 @@ public class NoiseMapWriter implements Callable<Boolean> {
     @Override
     public Boolean call() throws Exception {
         // Drop and create tables
-        if(sqlFilePath == null) {
+        if(receiverLevelsOnly) {
             try {
                 mainLoop();
+            } catch (Exception e) {
+                aborted.set(true);
+                throw e;
+            }
+        } else if(sqlFilePath == null) {
+            try {
+                try {
+                    mainLoop();
+                } catch (Exception e) {
+                    // stop the additional writers before joining them
+                    aborted.set(true);
+                    throw e;
+                } finally {
+                    try {
+                        joinWorkers();
+                    } finally {
+                        closeArrow();
+                    }
+                }
                 createKeys();
             } catch (Exception e) {
                 aborted.set(true);
@@ -0,0 +1,183 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.jdbc.output;
+
+import org.noise_planet.noisemodelling.pathfinder.PathFinder;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutPointSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Noise levels (in W) collected on the current receiver, indexed by source and by period identifier.
+ * The band arrays are allocated the first time a source slot and a period are used, then only reset by
+ * {@link #reset()} when the receiver is finalized, so no object is created for each attenuation.
+ * This class is not thread-safe.
+ */
+public class ReceiverLevelAccumulator {
+    /** Period label of each period identifier */
+    final List<String> periods = new ArrayList<>();
+    final Map<String, Integer> periodIds = new HashMap<>();
+    /** Slot index of each source index + 1 (0 is used for merged sources), -1 if not used by the current receiver */
+    int[] slotBySource = new int[0];
+    final List<SourceLevels> slots = new ArrayList<>();
+    int slotCount = 0;
+    final boolean mergeSources;
+
+    /**
+     * Levels of a source on the current receiver
+     */
+    public static final class SourceLevels {
+        PathFinder.SourcePointInfo source;
+        int sourceKey;
+        /** Levels in W for each period identifier, null if never allocated */
+        double[][] levels = new double[0][];
+        boolean[] hasLevels = new boolean[0];
+
+        /**
+         * @return Source point, or an empty source point if the sources are merged
+         */
+        public PathFinder.SourcePointInfo getSource() {
+            return source;
+        }
+
+        /**
+         * @param periodId Period identifier
+         * @return Levels in W or null if there is no level for this period
+         */
+        public double[] getLevels(int periodId) {
+            return periodId >= 0 && periodId < hasLevels.length && hasLevels[periodId] ? levels[periodId] : null;
+        }
+    }
+
+    /**
+     * @param mergeSources If true all sources share the same levels
+     */
+    public ReceiverLevelAccumulator(boolean mergeSources) {
+        this.mergeSources = mergeSources;
+    }
+
+    /**
+     * @param period Period label
+     * @return Identifier of this period, a new identifier is created if the period is unknown
+     */
+    public int getPeriodId(String period) {
+        Integer periodId = periodIds.get(period);
+        if(periodId == null) {
+            periodId = periods.size();
+            periods.add(period);
+            periodIds.put(period, periodId);
+        }
+        return periodId;
+    }
+
+    /**
+     * @param period Period label
+     * @return Identifier of this period or -1 if the period has never been used
+     */
+    public int findPeriodId(String period) {
+        return periodIds.getOrDefault(period, -1);
+    }
+
+    /**
+     * @param periodId Period identifier
+     * @return Period label
+     */
+    public String getPeriod(int periodId) {
+        return periods.get(periodId);
+    }
+
+    /**
+     * @return Number of known periods
+     */
+    public int getPeriodCount() {
+        return periods.size();
+    }
+
+    /**
+     * @return Number of sources having levels on the current receiver
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * @param slotIndex Index from 0 to {@link #getSlotCount()}
+     * @return Levels of the source
+     */
+    public SourceLevels getSlot(int slotIndex) {
+        return slots.get(slotIndex);
+    }
+
+    /**
+     * Get the levels array to increment for this source and period
+     * @param source Source of the attenuation
+     * @param periodId Period identifier from {@link #getPeriodId(String)}
+     * @param bandCount Number of frequency bands
+     * @return Levels in W
+     */
+    public double[] getLevels(CutPointSource source, int periodId, int bandCount) {
+        int sourceKey = mergeSources ? 0 : source.id + 1;
+        if(sourceKey >= slotBySource.length) {
+            int oldLength = slotBySource.length;
+            slotBySource = Arrays.copyOf(slotBySource, Math.max(sourceKey + 1, oldLength * 2));
+            Arrays.fill(slotBySource, oldLength, slotBySource.length, -1);
+        }
+        int slotIndex = slotBySource[sourceKey];
+        SourceLevels sourceLevels;
+        if(slotIndex < 0) {
+            slotIndex = slotCount++;
+            if(slotIndex < slots.size()) {
+                sourceLevels = slots.get(slotIndex);
+            } else {
+                sourceLevels = new SourceLevels();
+                slots.add(sourceLevels);
+            }
+            sourceLevels.sourceKey = sourceKey;
+            sourceLevels.source = mergeSources ? new PathFinder.SourcePointInfo() :
+                    new PathFinder.SourcePointInfo(source);
+            slotBySource[sourceKey] = slotIndex;
+        } else {
+            sourceLevels = slots.get(slotIndex);
+        }
+        if(periodId >= sourceLevels.levels.length) {
+            sourceLevels.levels = Arrays.copyOf(sourceLevels.levels, periods.size());
+            sourceLevels.hasLevels = Arrays.copyOf(sourceLevels.hasLevels, periods.size());
+        }
+        double[] levels = sourceLevels.levels[periodId];
+        if(levels == null || levels.length != bandCount) {
+            levels = new double[bandCount];
+            sourceLevels.levels[periodId] = levels;
+        }
+        sourceLevels.hasLevels[periodId] = true;
+        return levels;
+    }
+
+    /**
+     * Clear the levels of all the sources, keeping the allocated arrays for the next receiver
+     */
+    public void reset() {
+        for (int slotIndex = 0; slotIndex < slotCount; slotIndex++) {
+            SourceLevels sourceLevels = slots.get(slotIndex);
+            slotBySource[sourceLevels.sourceKey] = -1;
+            sourceLevels.source = null;
+            for (int periodId = 0; periodId < sourceLevels.hasLevels.length; periodId++) {
+                if(sourceLevels.hasLevels[periodId]) {
+                    Arrays.fill(sourceLevels.levels[periodId], 0);
+                    sourceLevels.hasLevels[periodId] = false;
+                }
+            }
+        }
+        slotCount = 0;
+    }
+}
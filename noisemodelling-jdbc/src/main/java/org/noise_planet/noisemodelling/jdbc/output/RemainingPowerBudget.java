@@ -0,0 +1,63 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.jdbc.output;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maximum expected power (in W) at the receiver of the source points not yet processed for one period, used by the
+ * maxError bookkeeping. The sum is updated each time a source point is added or removed, so reading the remaining
+ * power does not iterate over all the source points of the receiver.
+ */
+final class RemainingPowerBudget {
+    /** Maximum expected power of each remaining source point */
+    final Map<SourcePointKey, Double> sourcePower = new HashMap<>();
+    double remainingPower = 0;
+
+    /**
+     * @param sourcePointKey Source point
+     * @param power Maximum expected power of this source point at the receiver
+     */
+    void add(SourcePointKey sourcePointKey, double power) {
+        sourcePower.merge(sourcePointKey, power, Double::sum);
+        remainingPower += power;
+    }
+
+    /**
+     * The source point has been processed, its power is no longer expected
+     * @param sourcePointKey Source point
+     */
+    void remove(SourcePointKey sourcePointKey) {
+        Double power = sourcePower.remove(sourcePointKey);
+        if(power != null) {
+            if(sourcePower.isEmpty()) {
+                // avoid the accumulation of rounding errors
+                remainingPower = 0;
+            } else {
+                remainingPower = Math.max(0, remainingPower - power);
+            }
+        }
+    }
+
+    /**
+     * @return True if there is no more source point to process
+     */
+    boolean isEmpty() {
+        return sourcePower.isEmpty();
+    }
+
+    /**
+     * @return Sum of the maximum expected power of the remaining source points
+     */
+    double getRemainingPower() {
+        return remainingPower;
+    }
+}
@@ -14,12 +14,22 @@ import org.noise_planet.noisemodelling.propagation.ReceiverNoiseLevel;
 import org.noise_planet.noisemodelling.propagation.AttenuationOutput;
 
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Store results in memory, awaiting writing on sql database
+ * Store results in memory, awaiting writing on sql database.
+ * Producers are parked while the stacks are full and the writer is parked while the stacks are empty, each side is
+ * woken up by the other one.
  */
 public class ResultsCache implements ProfilerThread.Metric {
+    /** Maximum time between two checks of the abort/exit flags while waiting (milliseconds) */
+    static final long MAXIMUM_WAIT_MILLIS = 100;
     /**
      * As reading the size of the queue is a O(n) operation, this attribute store the current number of elements in the stacks
      */
@@ -27,17 +37,131 @@ public class ResultsCache implements ProfilerThread.Metric {
     public final AtomicLong totalRaysInserted = new AtomicLong(0);
     public final ConcurrentLinkedDeque<ReceiverNoiseLevel> receiverLevels = new ConcurrentLinkedDeque<>();
     public final ConcurrentLinkedDeque<AttenuationOutput> attenuationOutputs = new ConcurrentLinkedDeque<>();
+    /** Time spent by producers waiting for free space in the stacks since the last metric record (nanoseconds) */
+    public final AtomicLong producersWaitTime = new AtomicLong(0);
+    /** Time spent by the writer waiting for new data since the last metric record (nanoseconds) */
+    public final AtomicLong writerWaitTime = new AtomicLong(0);
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Condition queueNotFull = queueLock.newCondition();
+    private final Condition queueNotEmpty = queueLock.newCondition();
+    private final AtomicInteger waitingProducers = new AtomicInteger(0);
+    private final AtomicInteger waitingWriters = new AtomicInteger(0);
 
+    /**
+     * Block the calling producer thread until the number of elements in the stacks is below the limit
+     * @param maximumQueueSize Maximum number of elements in the stacks
+     * @param aborted Computation abort flag
+     * @return False if the computation has been aborted while waiting
+     * @throws InterruptedException If the thread has been interrupted while waiting
+     */
+    public boolean awaitCapacity(long maximumQueueSize, AtomicBoolean aborted) throws InterruptedException {
+        if(queueSize.get() <= maximumQueueSize) {
+            return true;
+        }
+        long start = System.nanoTime();
+        queueLock.lock();
+        waitingProducers.incrementAndGet();
+        try {
+            while (queueSize.get() > maximumQueueSize) {
+                if(aborted.get()) {
+                    return false;
+                }
+                queueNotFull.await(MAXIMUM_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        } finally {
+            waitingProducers.decrementAndGet();
+            queueLock.unlock();
+            producersWaitTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Must be called by producers after adding elements into the stacks
+     * @param count Number of added elements
+     */
+    public void onPushed(long count) {
+        queueSize.addAndGet(count);
+        if(waitingWriters.get() > 0) {
+            signalAll(queueNotEmpty);
+        }
+    }
+
+    /**
+     * Must be called by the writer after removing elements from the stacks
+     * @param count Number of removed elements
+     */
+    public void onWritten(long count) {
+        queueSize.addAndGet(-count);
+        if(waitingProducers.get() > 0) {
+            signalAll(queueNotFull);
+        }
+    }
+
+    /**
+     * @return True if there is no data to write
+     */
+    public boolean isEmpty() {
+        return receiverLevels.isEmpty() && attenuationOutputs.isEmpty();
+    }
+
+    /**
+     * Block the writer thread until new data is pushed, {@link #wakeUpWriter()} is called or the maximum wait time
+     * has elapsed
+     * @throws InterruptedException If the thread has been interrupted while waiting
+     */
+    public void awaitData() throws InterruptedException {
+        awaitData(this::isEmpty);
+    }
+
+    /**
+     * Block the writer thread until new data is pushed, {@link #wakeUpWriter()} is called or the maximum wait time
+     * has elapsed
+     * @param nothingToWrite Return true while the calling writer has no data to process
+     * @throws InterruptedException If the thread has been interrupted while waiting
+     */
+    public void awaitData(BooleanSupplier nothingToWrite) throws InterruptedException {
+        long start = System.nanoTime();
+        queueLock.lock();
+        waitingWriters.incrementAndGet();
+        try {
+            if(nothingToWrite.getAsBoolean()) {
+                queueNotEmpty.await(MAXIMUM_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            waitingWriters.decrementAndGet();
+            queueLock.unlock();
+            writerWaitTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Wake up the writer threads, in order to check the exit conditions
+     */
+    public void wakeUpWriter() {
+        signalAll(queueNotEmpty);
+    }
+
+    private void signalAll(Condition condition) {
+        queueLock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            queueLock.unlock();
+        }
+    }
 
     @Override
     public String[] getColumnNames() {
-        return new String[] {"jdbc_stack"};
+        return new String[] {"jdbc_stack", "jdbc_producers_wait_milliseconds", "jdbc_writer_wait_milliseconds"};
     }
 
     @Override
     public String[] getCurrentValues() {
         // Metric that return unprocessed data (not yet recorded in the database)
-        return new String[] {Long.toString(queueSize.get())};
+        return new String[] {Long.toString(queueSize.get()),
+                Long.toString(TimeUnit.NANOSECONDS.toMillis(producersWaitTime.getAndSet(0))),
+                Long.toString(TimeUnit.NANOSECONDS.toMillis(writerWaitTime.getAndSet(0)))};
     }
 
     @Override
@@ -0,0 +1,444 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+package org.noise_planet.noisemodelling.jdbc.utils;
+
+import com.google.flatbuffers.FlatBufferBuilder;
+import org.apache.arrow.flatbuf.Binary;
+import org.apache.arrow.flatbuf.Block;
+import org.apache.arrow.flatbuf.Buffer;
+import org.apache.arrow.flatbuf.Endianness;
+import org.apache.arrow.flatbuf.Field;
+import org.apache.arrow.flatbuf.FieldNode;
+import org.apache.arrow.flatbuf.FloatingPoint;
+import org.apache.arrow.flatbuf.Footer;
+import org.apache.arrow.flatbuf.Int;
+import org.apache.arrow.flatbuf.KeyValue;
+import org.apache.arrow.flatbuf.Message;
+import org.apache.arrow.flatbuf.MessageHeader;
+import org.apache.arrow.flatbuf.MetadataVersion;
+import org.apache.arrow.flatbuf.Precision;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.flatbuf.Schema;
+import org.apache.arrow.flatbuf.Type;
+import org.apache.arrow.flatbuf.Utf8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal writer of the Apache Arrow IPC file format (also known as Feather V2), without compression and without
+ * dictionaries. Rows are accumulated in column buffers and written as a record batch by {@link #writeBatch()}.
+ * Only the flatbuffers metadata classes of Arrow are used, so no off-heap memory allocator is required.
+ * @see <a href="https://arrow.apache.org/docs/format/Columnar.html#ipc-file-format">IPC File Format</a>
+ */
+public class ArrowFileWriter implements Closeable {
+    static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+    static final int CONTINUATION_TOKEN = 0xFFFFFFFF;
+    static final int ALIGNMENT = 8;
+
+    /**
+     * Supported types of columns
+     */
+    public enum ColumnType {INT64, FLOAT32, FLOAT64, UTF8, BINARY}
+
+    /**
+     * Column definition
+     */
+    public static class Column {
+        final String name;
+        final ColumnType type;
+        final boolean nullable;
+        final Map<String, String> metadata;
+
+        public Column(String name, ColumnType type, boolean nullable) {
+            this(name, type, nullable, Collections.emptyMap());
+        }
+
+        /**
+         * @param name Column name
+         * @param type Column type
+         * @param nullable True if the column can contain null values
+         * @param metadata Custom metadata of the field, ex. ARROW:extension:name for geometries
+         */
+        public Column(String name, ColumnType type, boolean nullable, Map<String, String> metadata) {
+            this.name = name;
+            this.type = type;
+            this.nullable = nullable;
+            this.metadata = metadata;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ColumnType getType() {
+            return type;
+        }
+    }
+
+    /**
+     * Values of a column for the current record batch
+     */
+    static class ColumnBuffer {
+        final ColumnType type;
+        ByteBuffer values = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        /** Offsets of variable length values */
+        ByteBuffer offsets;
+        final BitSet validity = new BitSet();
+        int nullCount = 0;
+
+        ColumnBuffer(ColumnType type) {
+            this.type = type;
+            if(type == ColumnType.UTF8 || type == ColumnType.BINARY) {
+                offsets = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+                offsets.putInt(0);
+            }
+        }
+
+        static ByteBuffer ensureCapacity(ByteBuffer buffer, int additionalBytes) {
+            if(buffer.remaining() >= additionalBytes) {
+                return buffer;
+            }
+            int capacity = Math.max(buffer.capacity() * 2, buffer.position() + additionalBytes);
+            ByteBuffer newBuffer = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            newBuffer.put(buffer);
+            return newBuffer;
+        }
+
+        void clear() {
+            values.clear();
+            if(offsets != null) {
+                offsets.clear();
+                offsets.putInt(0);
+            }
+            validity.clear();
+            nullCount = 0;
+        }
+    }
+
+    final List<Column> columns;
+    final ColumnBuffer[] buffers;
+    final boolean[] filled;
+    final OutputStream out;
+    final byte[] intBuffer = new byte[4];
+    final List<long[]> blocks = new ArrayList<>();
+    long position = 0;
+    int rowCount = 0;
+    long totalRowCount = 0;
+
+    /**
+     * Write the file header and the schema
+     * @param out Destination stream, closed with this writer
+     * @param columns Columns of the table
+     * @throws IOException If the header cannot be written
+     */
+    public ArrowFileWriter(OutputStream out, List<Column> columns) throws IOException {
+        this.out = out;
+        this.columns = new ArrayList<>(columns);
+        buffers = new ColumnBuffer[columns.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new ColumnBuffer(columns.get(i).type);
+        }
+        filled = new boolean[columns.size()];
+        write(MAGIC, 0, MAGIC.length);
+        pad(MAGIC.length);
+        FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+        int schema = createSchema(builder);
+        builder.finish(Message.createMessage(builder, MetadataVersion.V5, MessageHeader.Schema, schema, 0, 0));
+        writeMessage(builder.sizedByteArray(), Collections.emptyList(), 0);
+    }
+
+    /**
+     * @return Columns of the table
+     */
+    public List<Column> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * @return Number of rows not yet written in a record batch
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return Number of rows added to this file
+     */
+    public long getTotalRowCount() {
+        return totalRowCount;
+    }
+
+    private ColumnBuffer fixedValue(int column, int size) {
+        ColumnBuffer buffer = buffers[column];
+        buffer.values = ColumnBuffer.ensureCapacity(buffer.values, size);
+        buffer.validity.set(rowCount);
+        filled[column] = true;
+        return buffer;
+    }
+
+    public void setLong(int column, long value) {
+        fixedValue(column, Long.BYTES).values.putLong(value);
+    }
+
+    public void setFloat(int column, float value) {
+        fixedValue(column, Float.BYTES).values.putFloat(value);
+    }
+
+    public void setDouble(int column, double value) {
+        fixedValue(column, Double.BYTES).values.putDouble(value);
+    }
+
+    public void setString(int column, String value) {
+        if(value == null) {
+            setNull(column);
+        } else {
+            setBytes(column, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public void setBytes(int column, byte[] value) {
+        if(value == null) {
+            setNull(column);
+            return;
+        }
+        ColumnBuffer buffer = buffers[column];
+        buffer.values = ColumnBuffer.ensureCapacity(buffer.values, value.length);
+        buffer.values.put(value);
+        buffer.offsets = ColumnBuffer.ensureCapacity(buffer.offsets, Integer.BYTES);
+        buffer.offsets.putInt(buffer.values.position());
+        buffer.validity.set(rowCount);
+        filled[column] = true;
+    }
+
+    public void setNull(int column) {
+        if(!columns.get(column).nullable) {
+            throw new IllegalArgumentException("Column " + columns.get(column).name + " is not nullable");
+        }
+        ColumnBuffer buffer = buffers[column];
+        switch (buffer.type) {
+            case INT64:
+            case FLOAT64:
+                buffer.values = ColumnBuffer.ensureCapacity(buffer.values, Long.BYTES);
+                buffer.values.putLong(0);
+                break;
+            case FLOAT32:
+                buffer.values = ColumnBuffer.ensureCapacity(buffer.values, Integer.BYTES);
+                buffer.values.putInt(0);
+                break;
+            default:
+                buffer.offsets = ColumnBuffer.ensureCapacity(buffer.offsets, Integer.BYTES);
+                buffer.offsets.putInt(buffer.values.position());
+        }
+        buffer.nullCount++;
+        filled[column] = true;
+    }
+
+    /**
+     * Terminate the current row, the columns that have not been set are null
+     */
+    public void endRow() {
+        for (int column = 0; column < filled.length; column++) {
+            if(!filled[column]) {
+                setNull(column);
+            }
+            filled[column] = false;
+        }
+        rowCount++;
+        totalRowCount++;
+    }
+
+    /**
+     * Write the pending rows as a record batch
+     * @throws IOException If the batch cannot be written
+     */
+    public void writeBatch() throws IOException {
+        if(rowCount == 0) {
+            return;
+        }
+        List<ByteBuffer> body = new ArrayList<>();
+        for (ColumnBuffer buffer : buffers) {
+            if(buffer.nullCount > 0) {
+                byte[] bitmap = buffer.validity.toByteArray();
+                ByteBuffer validity = ByteBuffer.allocate((rowCount + 7) / 8);
+                validity.put(bitmap, 0, Math.min(bitmap.length, validity.capacity()));
+                validity.flip();
+                body.add(validity);
+            } else {
+                body.add(ByteBuffer.allocate(0));
+            }
+            if(buffer.offsets != null) {
+                body.add(buffer.offsets.duplicate().flip());
+            }
+            body.add(buffer.values.duplicate().flip());
+        }
+        FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+        long bodyLength = 0;
+        long[] bufferOffsets = new long[body.size()];
+        for (int i = 0; i < body.size(); i++) {
+            bufferOffsets[i] = bodyLength;
+            bodyLength += align(body.get(i).remaining());
+        }
+        RecordBatch.startBuffersVector(builder, body.size());
+        for (int i = body.size() - 1; i >= 0; i--) {
+            Buffer.createBuffer(builder, bufferOffsets[i], body.get(i).remaining());
+        }
+        int buffersVector = builder.endVector();
+        RecordBatch.startNodesVector(builder, buffers.length);
+        for (int i = buffers.length - 1; i >= 0; i--) {
+            FieldNode.createFieldNode(builder, rowCount, buffers[i].nullCount);
+        }
+        int nodesVector = builder.endVector();
+        RecordBatch.startRecordBatch(builder);
+        RecordBatch.addLength(builder, rowCount);
+        RecordBatch.addNodes(builder, nodesVector);
+        RecordBatch.addBuffers(builder, buffersVector);
+        int recordBatch = RecordBatch.endRecordBatch(builder);
+        builder.finish(Message.createMessage(builder, MetadataVersion.V5, MessageHeader.RecordBatch, recordBatch,
+                bodyLength, 0));
+        blocks.add(writeMessage(builder.sizedByteArray(), body, bodyLength));
+        for (ColumnBuffer buffer : buffers) {
+            buffer.clear();
+        }
+        rowCount = 0;
+    }
+
+    /**
+     * Write the pending rows, the footer and close the stream
+     * @throws IOException If the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeBatch();
+            // end of stream marker
+            writeInt(CONTINUATION_TOKEN);
+            writeInt(0);
+            FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+            int schema = createSchema(builder);
+            Footer.startRecordBatchesVector(builder, blocks.size());
+            for (int i = blocks.size() - 1; i >= 0; i--) {
+                long[] block = blocks.get(i);
+                Block.createBlock(builder, block[0], (int) block[1], block[2]);
+            }
+            int recordBatches = builder.endVector();
+            Footer.startDictionariesVector(builder, 0);
+            int dictionaries = builder.endVector();
+            builder.finish(Footer.createFooter(builder, MetadataVersion.V5, schema, dictionaries, recordBatches, 0));
+            byte[] footer = builder.sizedByteArray();
+            write(footer, 0, footer.length);
+            writeInt(footer.length);
+            write(MAGIC, 0, MAGIC.length);
+        } finally {
+            out.close();
+        }
+    }
+
+    private int createSchema(FlatBufferBuilder builder) {
+        int[] fields = new int[columns.size()];
+        for (int i = 0; i < fields.length; i++) {
+            Column column = columns.get(i);
+            int name = builder.createString(column.name);
+            byte typeType;
+            int type;
+            switch (column.type) {
+                case INT64:
+                    typeType = Type.Int;
+                    type = Int.createInt(builder, 64, true);
+                    break;
+                case FLOAT32:
+                    typeType = Type.FloatingPoint;
+                    type = FloatingPoint.createFloatingPoint(builder, Precision.SINGLE);
+                    break;
+                case FLOAT64:
+                    typeType = Type.FloatingPoint;
+                    type = FloatingPoint.createFloatingPoint(builder, Precision.DOUBLE);
+                    break;
+                case UTF8:
+                    typeType = Type.Utf8;
+                    Utf8.startUtf8(builder);
+                    type = Utf8.endUtf8(builder);
+                    break;
+                default:
+                    typeType = Type.Binary;
+                    Binary.startBinary(builder);
+                    type = Binary.endBinary(builder);
+            }
+            int metadata = 0;
+            if(!column.metadata.isEmpty()) {
+                int[] keyValues = new int[column.metadata.size()];
+                int idKeyValue = 0;
+                for (Map.Entry<String, String> entry : column.metadata.entrySet()) {
+                    int key = builder.createString(entry.getKey());
+                    int value = builder.createString(entry.getValue());
+                    keyValues[idKeyValue++] = KeyValue.createKeyValue(builder, key, value);
+                }
+                metadata = Field.createCustomMetadataVector(builder, keyValues);
+            }
+            int children = Field.createChildrenVector(builder, new int[0]);
+            fields[i] = Field.createField(builder, name, column.nullable, typeType, type, 0, children, metadata);
+        }
+        int fieldsVector = Schema.createFieldsVector(builder, fields);
+        return Schema.createSchema(builder, Endianness.Little, fieldsVector, 0, 0);
+    }
+
+    /**
+     * Write an encapsulated message
+     * @return File block of the message (offset, metadata length, body length)
+     */
+    private long[] writeMessage(byte[] metadata, List<ByteBuffer> body, long bodyLength) throws IOException {
+        long offset = position;
+        int paddedLength = (int) align(metadata.length + 2 * Integer.BYTES) - 2 * Integer.BYTES;
+        writeInt(CONTINUATION_TOKEN);
+        writeInt(paddedLength);
+        write(metadata, 0, metadata.length);
+        pad(metadata.length);
+        for (ByteBuffer buffer : body) {
+            int length = buffer.remaining();
+            write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            pad(length);
+        }
+        return new long[]{offset, paddedLength + 2 * Integer.BYTES, bodyLength};
+    }
+
+    static long align(long length) {
+        return (length + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private void pad(long length) throws IOException {
+        int padding = (int) (align(length) - length);
+        for (int i = 0; i < padding; i++) {
+            out.write(0);
+        }
+        position += padding;
+    }
+
+    private void write(byte[] data, int offset, int length) throws IOException {
+        out.write(data, offset, length);
+        position += length;
+    }
+
+    private void writeInt(int value) throws IOException {
+        intBuffer[0] = (byte) value;
+        intBuffer[1] = (byte) (value >>> 8);
+        intBuffer[2] = (byte) (value >>> 16);
+        intBuffer[3] = (byte) (value >>> 24);
+        write(intBuffer, 0, intBuffer.length);
+    }
+}
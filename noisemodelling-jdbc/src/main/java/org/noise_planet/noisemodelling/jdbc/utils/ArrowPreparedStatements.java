@@ -0,0 +1,143 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+package org.noise_planet.noisemodelling.jdbc.utils;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKBWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * This class implements PreparedStatement in order to write the rows into Apache Arrow IPC files instead of a
+ * database table. The parameters must be set in the same order than the columns. A new file is started each time
+ * the maximum number of rows per file is reached, files are named tableName_0.arrow, tableName_1.arrow..
+ * Geometries are stored as WKB. The statement can be reused after executeBatch, the last file is written on close.
+ */
+public class ArrowPreparedStatements extends StringPreparedStatements {
+    public static final String FILE_EXTENSION = ".arrow";
+    static final int FILE_BUFFER_SIZE = 65536;
+    final File directory;
+    final String tableName;
+    final List<ArrowFileWriter.Column> columns;
+    final long rowsPerFile;
+    final int rowsPerBatch;
+    final WKBWriter wkbWriter = new WKBWriter(3);
+    ArrowFileWriter fileWriter;
+    int fileIndex = 0;
+
+    /**
+     * @param directory Folder of the arrow files
+     * @param tableName Prefix of the file names
+     * @param columns Columns of the files
+     * @param rowsPerFile Maximum number of rows in a file
+     * @param rowsPerBatch Number of rows of a record batch
+     */
+    public ArrowPreparedStatements(File directory, String tableName, List<ArrowFileWriter.Column> columns,
+                                   long rowsPerFile, int rowsPerBatch) {
+        super(Writer.nullWriter(), "");
+        this.directory = directory;
+        this.tableName = tableName;
+        this.columns = columns;
+        this.rowsPerFile = rowsPerFile;
+        this.rowsPerBatch = rowsPerBatch;
+    }
+
+    /**
+     * @param index File index
+     * @return Arrow file path
+     */
+    public File getFile(int index) {
+        return new File(directory, tableName + "_" + index + FILE_EXTENSION);
+    }
+
+    /**
+     * @return Number of created files
+     */
+    public int getFileCount() {
+        return fileWriter == null ? fileIndex : fileIndex + 1;
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        try {
+            if (fileWriter == null) {
+                fileWriter = new ArrowFileWriter(new BufferedOutputStream(new FileOutputStream(getFile(fileIndex)),
+                        FILE_BUFFER_SIZE), columns);
+            }
+            for (int column = 0; column < columns.size(); column++) {
+                Object data = parameters.get(column + 1);
+                if (data == null) {
+                    fileWriter.setNull(column);
+                    continue;
+                }
+                switch (columns.get(column).getType()) {
+                    case INT64:
+                        fileWriter.setLong(column, ((Number) data).longValue());
+                        break;
+                    case FLOAT32:
+                        fileWriter.setFloat(column, ((Number) data).floatValue());
+                        break;
+                    case FLOAT64:
+                        fileWriter.setDouble(column, ((Number) data).doubleValue());
+                        break;
+                    case UTF8:
+                        fileWriter.setString(column, data.toString());
+                        break;
+                    default:
+                        if (data instanceof Geometry) {
+                            fileWriter.setBytes(column, wkbWriter.write((Geometry) data));
+                        } else if (data instanceof byte[]) {
+                            fileWriter.setBytes(column, (byte[]) data);
+                        } else {
+                            throw new SQLException("Unsupported binary value for column " +
+                                    columns.get(column).getName());
+                        }
+                }
+            }
+            parameters.clear();
+            fileWriter.endRow();
+            if (fileWriter.getRowCount() >= rowsPerBatch) {
+                fileWriter.writeBatch();
+            }
+            if (fileWriter.getTotalRowCount() >= rowsPerFile) {
+                fileWriter.close();
+                fileWriter = null;
+                fileIndex++;
+            }
+        } catch (IOException | ClassCastException | IllegalArgumentException ex) {
+            throw new SQLException(ex.getLocalizedMessage(), ex);
+        }
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        // rows are written by record batches of rowsPerBatch rows
+        return new int[0];
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (fileWriter != null) {
+            try {
+                fileWriter.close();
+            } catch (IOException ex) {
+                throw new SQLException(ex.getLocalizedMessage(), ex);
+            } finally {
+                fileWriter = null;
+                fileIndex++;
+            }
+        }
+    }
+}
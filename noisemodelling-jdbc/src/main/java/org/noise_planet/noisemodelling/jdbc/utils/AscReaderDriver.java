@@ -17,6 +17,7 @@ import org.h2gis.utilities.TableLocation;
 import org.h2gis.utilities.dbtypes.DBTypes;
 import org.h2gis.utilities.dbtypes.DBUtils;
 import org.locationtech.jts.geom.*;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.RasterDem;
 
 import java.io.*;
 import java.sql.*;
@@ -381,6 +382,79 @@ public class AscReaderDriver {
         }
     }
 
+    /**
+     * Read the asc file as a regular grid elevation model, without database. The extract envelope and the down
+     * scale parameters are applied.
+     *
+     * @param fileName asc or gz file
+     * @return Elevation model with the samples located on the center of the cells
+     * @throws IOException if the file cannot be read or is not valid
+     */
+    public RasterDem readRasterDem(File fileName) throws IOException {
+        try (FileInputStream inputStream = new FileInputStream(fileName)) {
+            if (fileName.getName().toLowerCase().endsWith(".gz")) {
+                return readRasterDem(new GZIPInputStream(inputStream));
+            } else {
+                return readRasterDem(inputStream);
+            }
+        }
+    }
+
+    /**
+     * Read the ascii file from inputstream as a regular grid elevation model
+     *
+     * @param inputStream asc content
+     * @return Elevation model with the samples located on the center of the cells
+     * @throws IOException if the content is not valid
+     */
+    public RasterDem readRasterDem(InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new BufferedInputStream(inputStream, BUFFER_SIZE), encoding));
+        try {
+            Scanner scanner = new Scanner(reader);
+            readHeader(scanner);
+            int firstRow = 0;
+            int firstCol = 0;
+            int lastRow = nrows - 1;
+            int lastCol = ncols - 1;
+            if (extractEnvelope != null) {
+                firstCol = Math.max(0, (int) Math.floor((extractEnvelope.getMinX() - xValue) / cellSize));
+                lastCol = Math.min(ncols - 1, (int) Math.ceil((extractEnvelope.getMaxX() - xValue) / cellSize));
+                firstRow = Math.max(0, nrows - (int) Math.ceil((extractEnvelope.getMaxY() - (yValue - cellSize * nrows)) / cellSize));
+                lastRow = Math.min(nrows - 1, nrows - (int) Math.ceil((extractEnvelope.getMinY() - (yValue - cellSize * nrows)) / cellSize));
+            }
+            // As the database import, keep the rows and columns that are a multiple of downScale
+            firstCol = Math.floorDiv(firstCol + downScale - 1, downScale) * downScale;
+            firstRow = Math.floorDiv(firstRow + downScale - 1, downScale) * downScale;
+            int columns = (lastCol - firstCol) / downScale + 1;
+            int rows = (lastRow - firstRow) / downScale + 1;
+            if (lastCol < firstCol || lastRow < firstRow || columns < 2 || rows < 2) {
+                throw new IOException("The extracted raster must contain at least 2x2 cells");
+            }
+            float[] z = new float[columns * rows];
+            for (int i = 0; i <= lastRow; i++) {
+                for (int j = 0; j < ncols; j++) {
+                    if (readFirst) {
+                        lastWord = scanner.next();
+                    } else {
+                        readFirst = true;
+                    }
+                    if (i >= firstRow && j >= firstCol && j <= lastCol && i % downScale == 0 && j % downScale == 0) {
+                        double value = Double.parseDouble(lastWord);
+                        // rows of the asc file start from the north
+                        int row = rows - 1 - (i - firstRow) / downScale;
+                        z[row * columns + (j - firstCol) / downScale] = Math.abs(noData - value) != 0 ?
+                                (float) value : Float.NaN;
+                    }
+                }
+            }
+            double originX = xValue + firstCol * cellSize + cellSize / 2;
+            double originY = yValue - (firstRow + (rows - 1) * downScale) * cellSize - cellSize / 2;
+            return new RasterDem(originX, originY, cellSize * downScale, columns, rows, z);
+        } catch (NoSuchElementException | NumberFormatException ex) {
+            throw new IOException("Unexpected word " + lastWord, ex);
+        }
+    }
+
     /**
      * Use to set the z conversion type 1 = integer 2 = double
      *
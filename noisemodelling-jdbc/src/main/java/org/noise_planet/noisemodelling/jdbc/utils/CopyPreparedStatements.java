@@ -0,0 +1,107 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+package org.noise_planet.noisemodelling.jdbc.utils;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ByteOrderValues;
+import org.locationtech.jts.io.WKBWriter;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * This class implements PreparedStatement in order to stream rows with the PostgreSQL COPY command in the CSV format,
+ * instead of sending INSERT queries. Geometries are encoded as hexadecimal EWKB.
+ * The parameters must be set in the same order than the COPY columns. The COPY is done when the statement is closed.
+ */
+public class CopyPreparedStatements extends StringPreparedStatements {
+    static final int COPY_BUFFER_SIZE = 65536;
+    WKBWriter wkbWriter = new WKBWriter(3, ByteOrderValues.LITTLE_ENDIAN, true);
+    int columnCount;
+
+    /**
+     * @param w Destination of the CSV rows
+     * @param columnCount Number of parameters of each row
+     */
+    public CopyPreparedStatements(Writer w, int columnCount) {
+        super(w, "");
+        this.columnCount = columnCount;
+    }
+
+    /**
+     * Start a COPY on the provided PostgreSQL connection
+     * @param connection PostgreSQL connection
+     * @param tableAndColumns Table name, optionally followed by the list of columns in parenthesis
+     * @param columnCount Number of parameters of each row
+     * @return PreparedStatement that stream the rows into the COPY
+     * @throws SQLException If the connection is not a PostgreSQL connection
+     */
+    public static CopyPreparedStatements copyIn(Connection connection, String tableAndColumns, int columnCount) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        PGCopyOutputStream copyOutputStream = new PGCopyOutputStream(pgConnection,
+                "COPY " + tableAndColumns + " FROM STDIN WITH (FORMAT csv)", COPY_BUFFER_SIZE);
+        return new CopyPreparedStatements(new BufferedWriter(new OutputStreamWriter(copyOutputStream,
+                StandardCharsets.UTF_8), COPY_BUFFER_SIZE), columnCount);
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        StringBuilder row = new StringBuilder();
+        for (int paramIndex = 1; paramIndex <= columnCount; paramIndex++) {
+            if(paramIndex > 1) {
+                row.append(',');
+            }
+            Object data = parameters.get(paramIndex);
+            if(data == null) {
+                // empty unquoted value is NULL in CSV format
+                continue;
+            }
+            if(data instanceof Number) {
+                row.append(data);
+            } else if(data instanceof Geometry) {
+                row.append(WKBWriter.toHex(wkbWriter.write((Geometry) data)));
+            } else {
+                row.append('"');
+                row.append(data.toString().replace("\"", "\"\""));
+                row.append('"');
+            }
+        }
+        parameters.clear();
+        row.append('\n');
+        try {
+            w.write(row.toString());
+        } catch (IOException ex) {
+            throw new SQLException(ex.getLocalizedMessage(), ex);
+        }
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        try {
+            w.flush();
+        } catch (IOException ex) {
+            throw new SQLException(ex.getLocalizedMessage(), ex);
+        }
+        return new int[0];
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            // End the COPY command
+            w.close();
+        } catch (IOException ex) {
+            throw new SQLException(ex.getLocalizedMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+package org.noise_planet.noisemodelling.jdbc.utils;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.PackedTin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cache of the triangulated digital elevation model of the computation cells, stored in a folder.
+ * A tile file is identified by the DEM table name and a hash of the cell fetch envelope and of the DEM points of the
+ * cell. The fetch envelope is specific to each cell, so the neighbouring cells do not share a tile: a tile is only
+ * reused when the same cell is computed again, by a next run with the same grid, the same propagation distances and
+ * unchanged DEM points.
+ */
+public final class DemTileCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DemTileCache.class);
+    public static final String FILE_EXTENSION = ".tin";
+
+    private DemTileCache() {
+    }
+
+    /**
+     * @param folder Cache folder
+     * @param demTable DEM table name
+     * @param cellEnvelope Envelope of the fetched DEM points
+     * @param demPoints DEM points to triangulate
+     * @return Tile file of these DEM points, may not exist
+     */
+    public static File getTileFile(File folder, String demTable, Envelope cellEnvelope, List<Coordinate> demPoints) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        digest.update(demTable.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Double.BYTES * 256);
+        buffer.putDouble(cellEnvelope.getMinX()).putDouble(cellEnvelope.getMaxX())
+                .putDouble(cellEnvelope.getMinY()).putDouble(cellEnvelope.getMaxY());
+        for (Coordinate point : demPoints) {
+            if (buffer.remaining() < 3 * Double.BYTES) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            buffer.putDouble(point.x).putDouble(point.y).putDouble(point.z);
+        }
+        buffer.flip();
+        digest.update(buffer);
+        String tableName = demTable.replaceAll("[^A-Za-z0-9_-]", "_").toLowerCase(Locale.ROOT);
+        return new File(folder, tableName + "_" + HexFormat.of().formatHex(digest.digest()) + FILE_EXTENSION);
+    }
+
+    /**
+     * @param tileFile Tile file
+     * @return The triangulation or null if the tile does not exist or cannot be read
+     */
+    public static PackedTin load(File tileFile) {
+        if (!tileFile.isFile()) {
+            return null;
+        }
+        try {
+            return PackedTin.read(tileFile);
+        } catch (IOException ex) {
+            LOGGER.warn("Ignore invalid DEM tile cache file " + tileFile, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Store the triangulation, the file is written under a temporary name then renamed so concurrent runs never
+     * read a partial tile.
+     * @param tileFile Tile file
+     * @param tin Triangulation, nothing is written if null
+     */
+    public static void save(File tileFile, PackedTin tin) {
+        if (tin == null) {
+            return;
+        }
+        File parent = tileFile.getParentFile();
+        try {
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+            File temporaryFile = File.createTempFile(tileFile.getName(), ".tmp", parent);
+            try {
+                tin.write(temporaryFile);
+                Files.move(temporaryFile.toPath(), tileFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+        } catch (IOException ex) {
+            LOGGER.warn("Could not write the DEM tile cache file " + tileFile, ex);
+        }
+    }
+}
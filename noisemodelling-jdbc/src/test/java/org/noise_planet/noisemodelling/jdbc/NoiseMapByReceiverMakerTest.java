@@ -12,12 +12,16 @@ package org.noise_planet.noisemodelling.jdbc;
 import com.bedatadriven.jackson.datatype.jts.JtsModule;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
 import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.functions.factory.H2GISDBFactory;
 import org.h2gis.utilities.JDBCUtilities;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
@@ -27,6 +31,7 @@ import org.noise_planet.noisemodelling.jdbc.input.DefaultTableLoader;
 import org.noise_planet.noisemodelling.jdbc.input.SceneDatabaseInputSettings;
 import org.noise_planet.noisemodelling.jdbc.input.SceneWithEmission;
 import org.noise_planet.noisemodelling.jdbc.output.NoiseMapWriter;
+import org.noise_planet.noisemodelling.jdbc.utils.ArrowPreparedStatements;
 import org.noise_planet.noisemodelling.jdbc.utils.CellIndex;
 import org.noise_planet.noisemodelling.jdbc.utils.IsoSurface;
 import org.noise_planet.noisemodelling.pathfinder.utils.geometry.CoordinateMixin;
@@ -38,6 +43,11 @@ import org.noise_planet.noisemodelling.pathfinder.utils.geometry.Orientation;
 import org.noise_planet.noisemodelling.propagation.cnossos.CnossosAttenuationOutput;
 import org.noise_planet.noisemodelling.propagation.cnossos.PointPath;
 
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -425,6 +435,298 @@ public class NoiseMapByReceiverMakerTest {
     }
 
 
+    /**
+     * Create the roads, buildings and receivers used by the cells tests
+     * @param connection Database connection
+     */
+    private static void createCellsTestTables(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute(String.format("CALL SHPREAD('%s', 'LW_ROADS')", NoiseMapByReceiverMakerTest.class.getResource("lw_roads.shp").getFile()));
+            st.execute("CREATE TABLE SOURCES_GEOM(PK SERIAL PRIMARY KEY, THE_GEOM GEOMETRY) AS SELECT PK, THE_GEOM FROM LW_ROADS");
+            st.execute("CREATE TABLE SOURCES_EMISSION(PERIOD VARCHAR, IDSOURCE INT, HZ63 REAL, LW125 REAL, LW250 REAL, LW500 REAL, LW1000 REAL, LW2000 REAL, LW4000 REAL, LW8000 REAL)");
+            st.execute("INSERT INTO SOURCES_EMISSION SELECT 'D', PK, LWD63, LWD125, LWD250, LWD500, LWD1000, LWD2000, LWD4000, LWD8000 FROM LW_ROADS");
+
+            st.execute(String.format("CALL SHPREAD('%s', 'BUILDINGS')", NoiseMapByReceiverMakerTest.class.getResource("buildings.shp").getFile()));
+
+            int srid = org.h2gis.utilities.GeometryTableUtilities.getSRID(connection, "BUILDINGS");
+            IsoSurface isoSurface = new IsoSurface(IsoSurface.NF31_133_ISO, srid);
+            DelaunayReceiversMaker delaunayReceiversMaker = new DelaunayReceiversMaker("BUILDINGS", "SOURCES_GEOM");
+            delaunayReceiversMaker.setMaximumArea(0);
+            delaunayReceiversMaker.setGridDim(1);
+            delaunayReceiversMaker.run(connection, "RECEIVERS", isoSurface.getTriangleTable(), new EmptyProgressVisitor());
+            st.execute("DELETE FROM RECEIVERS WHERE MOD(PK, 10) <> 0");
+        }
+    }
+
+    /**
+     * @param gridDim Number of cells along each axis
+     * @param receiversLevelTable Output table of the receivers levels
+     * @return Noise map of the tables created by {@link #createCellsTestTables(Connection)}
+     */
+    private static NoiseMapByReceiverMaker createCellsTestMaker(int gridDim, String receiversLevelTable) {
+        NoiseMapByReceiverMaker noiseMapByReceiverMaker = new NoiseMapByReceiverMaker("BUILDINGS",
+                "SOURCES_GEOM", "RECEIVERS");
+
+        noiseMapByReceiverMaker.setFrequencyFieldPrepend("LW");
+        noiseMapByReceiverMaker.setMaximumPropagationDistance(100);
+        noiseMapByReceiverMaker.setSoundReflectionOrder(0);
+        noiseMapByReceiverMaker.setComputeHorizontalDiffraction(false);
+        noiseMapByReceiverMaker.setComputeVerticalDiffraction(false);
+        noiseMapByReceiverMaker.setGridDim(gridDim);
+        noiseMapByReceiverMaker.setSourcesEmissionTableName("SOURCES_EMISSION");
+        noiseMapByReceiverMaker.getNoiseMapDatabaseParameters().receiversLevelTable = receiversLevelTable;
+        return noiseMapByReceiverMaker;
+    }
+
+    /**
+     * @param connection Database connection
+     * @param receiversLevelTable Table of the receivers levels, with a single period
+     * @return Levels of each receiver, fails if a receiver has more than one row
+     */
+    private static Map<Long, double[]> fetchReceiverLevels(Connection connection, String receiversLevelTable)
+            throws SQLException {
+        Map<Long, double[]> receiverLevels = new HashMap<>();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT * FROM " + receiversLevelTable)) {
+            List<Integer> levelColumns = new ArrayList<>();
+            for (int column = 1; column <= rs.getMetaData().getColumnCount(); column++) {
+                if (rs.getMetaData().getColumnType(column) == java.sql.Types.REAL) {
+                    levelColumns.add(column);
+                }
+            }
+            while (rs.next()) {
+                double[] levels = new double[levelColumns.size()];
+                for (int i = 0; i < levels.length; i++) {
+                    levels[i] = rs.getDouble(levelColumns.get(i));
+                }
+                long receiverId = rs.getLong("IDRECEIVER");
+                assertNull(receiverLevels.put(receiverId, levels), "Duplicate receiver " + receiverId);
+            }
+        }
+        return receiverLevels;
+    }
+
+    /**
+     * Check that the levels of each receiver are the same in the two tables
+     */
+    private static void assertSameReceiverLevels(Connection connection, String expectedTable, String actualTable)
+            throws SQLException {
+        Map<Long, double[]> expected = fetchReceiverLevels(connection, expectedTable);
+        Map<Long, double[]> actual = fetchReceiverLevels(connection, actualTable);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<Long, double[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), actual.get(entry.getKey()), 1e-3,
+                    "Receiver " + entry.getKey());
+        }
+    }
+
+    /**
+     * Cells loaded in advance on a second connection must give the same receivers levels than the sequential run
+     */
+    @Test
+    public void testCellPrefetch() throws SQLException {
+        DataSource dataSource = JDBCUtilities.wrapSpatialDataSource(H2GISDBFactory.createDataSource(
+                NoiseMapByReceiverMakerTest.class.getSimpleName() + "_prefetch", true, ""));
+        try (Connection prefetchConnection = dataSource.getConnection()) {
+            createCellsTestTables(prefetchConnection);
+
+            NoiseMapByReceiverMaker sequentialMaker = createCellsTestMaker(3, "RECEIVERS_LEVEL_SEQUENTIAL");
+            sequentialMaker.setCellPrefetchDepth(0);
+            sequentialMaker.run(dataSource, new RootProgressVisitor(1, true, 5));
+
+            NoiseMapByReceiverMaker noiseMapByReceiverMaker = createCellsTestMaker(3, "RECEIVERS_LEVEL");
+            noiseMapByReceiverMaker.setCellPrefetchDepth(2);
+            noiseMapByReceiverMaker.run(dataSource, new RootProgressVisitor(1, true, 5));
+
+            // Each receiver is evaluated only once among all the cells, with the scene of its cell
+            assertEquals(JDBCUtilities.getRowCount(prefetchConnection, "RECEIVERS"),
+                    JDBCUtilities.getRowCount(prefetchConnection, "RECEIVERS_LEVEL"));
+            assertSameReceiverLevels(prefetchConnection, "RECEIVERS_LEVEL_SEQUENTIAL", "RECEIVERS_LEVEL");
+        }
+    }
+
+    /**
+     * Small cells computed at the same time must give the same receivers levels than the sequential run
+     */
+    @Test
+    public void testSmallCellsMemoryBudget() throws SQLException {
+        DataSource dataSource = JDBCUtilities.wrapSpatialDataSource(H2GISDBFactory.createDataSource(
+                NoiseMapByReceiverMakerTest.class.getSimpleName() + "_multicell", true, ""));
+        try (Connection multiCellConnection = dataSource.getConnection()) {
+            createCellsTestTables(multiCellConnection);
+
+            NoiseMapByReceiverMaker sequentialMaker = createCellsTestMaker(3, "RECEIVERS_LEVEL_SEQUENTIAL");
+            sequentialMaker.run(dataSource, new RootProgressVisitor(1, true, 5));
+
+            NoiseMapByReceiverMaker noiseMapByReceiverMaker = createCellsTestMaker(3, "RECEIVERS_LEVEL");
+            // All the cells are small cells computed at the same time
+            noiseMapByReceiverMaker.setThreadCount(4);
+            noiseMapByReceiverMaker.setCellPrefetchDepth(8);
+            noiseMapByReceiverMaker.setCellMemoryBudget(64 * 1024 * 1024);
+            noiseMapByReceiverMaker.setSmallCellReceiverCount(Integer.MAX_VALUE);
+            noiseMapByReceiverMaker.run(dataSource, new RootProgressVisitor(1, true, 5));
+
+            assertTrue(noiseMapByReceiverMaker.getMaximumRunningSmallCellCount() > 1);
+            // Each receiver is evaluated only once among all the cells, with the scene of its cell
+            assertEquals(JDBCUtilities.getRowCount(multiCellConnection, "RECEIVERS"),
+                    JDBCUtilities.getRowCount(multiCellConnection, "RECEIVERS_LEVEL"));
+            assertSameReceiverLevels(multiCellConnection, "RECEIVERS_LEVEL_SEQUENTIAL", "RECEIVERS_LEVEL");
+        }
+    }
+
+    /**
+     * Receivers levels inserted by several writers must be all merged into the receivers level table
+     */
+    @Test
+    public void testParallelWriters() throws SQLException {
+        DataSource dataSource = JDBCUtilities.wrapSpatialDataSource(H2GISDBFactory.createDataSource(
+                NoiseMapByReceiverMakerTest.class.getSimpleName() + "_writers", true, ""));
+        try (Connection writersConnection = dataSource.getConnection()) {
+            createCellsTestTables(writersConnection);
+
+            NoiseMapByReceiverMaker singleWriterMaker = createCellsTestMaker(1, "RECEIVERS_LEVEL_SINGLE_WRITER");
+            singleWriterMaker.getNoiseMapDatabaseParameters().setWriterThreadCount(1);
+            singleWriterMaker.run(dataSource, new RootProgressVisitor(1, true, 5));
+
+            NoiseMapByReceiverMaker noiseMapByReceiverMaker = createCellsTestMaker(1, "RECEIVERS_LEVEL");
+            noiseMapByReceiverMaker.getNoiseMapDatabaseParameters().setWriterThreadCount(3);
+            noiseMapByReceiverMaker.run(dataSource, new RootProgressVisitor(1, true, 5));
+
+            // The rows of all the writers are merged into the receivers level table, each receiver once
+            assertEquals(JDBCUtilities.getRowCount(writersConnection, "RECEIVERS"),
+                    JDBCUtilities.getRowCount(writersConnection, "RECEIVERS_LEVEL"));
+            assertSameReceiverLevels(writersConnection, "RECEIVERS_LEVEL_SINGLE_WRITER", "RECEIVERS_LEVEL");
+            // Staging tables of additional writers must be removed
+            for (int writer = 1; writer < 3; writer++) {
+                assertFalse(JDBCUtilities.tableExists(writersConnection, "RECEIVERS_LEVEL_WRITER" + writer));
+            }
+        }
+    }
+
+    /**
+     * The hit count of the path cache enabled in the database parameters must be written in the profiler output
+     */
+    @Test
+    public void testPathCacheProfiler(@TempDir File folder) throws SQLException, IOException {
+        try (Statement st = connection.createStatement()) {
+            st.execute(String.format("CALL SHPREAD('%s', 'LW_ROADS')", NoiseMapByReceiverMakerTest.class.getResource("lw_roads.shp").getFile()));
+            st.execute("CREATE TABLE SOURCES_GEOM(PK SERIAL PRIMARY KEY, THE_GEOM GEOMETRY) AS SELECT PK, THE_GEOM FROM LW_ROADS");
+            st.execute("CREATE TABLE SOURCES_EMISSION(PERIOD VARCHAR, IDSOURCE INT, HZ63 REAL, LW125 REAL, LW250 REAL, LW500 REAL, LW1000 REAL, LW2000 REAL, LW4000 REAL, LW8000 REAL)");
+            st.execute("INSERT INTO SOURCES_EMISSION SELECT 'D', PK, LWD63, LWD125, LWD250, LWD500, LWD1000, LWD2000, LWD4000, LWD8000 FROM LW_ROADS");
+
+            st.execute(String.format("CALL SHPREAD('%s', 'BUILDINGS')", NoiseMapByReceiverMakerTest.class.getResource("buildings.shp").getFile()));
+
+            int srid = org.h2gis.utilities.GeometryTableUtilities.getSRID(connection, "BUILDINGS");
+            IsoSurface isoSurface = new IsoSurface(IsoSurface.NF31_133_ISO, srid);
+            DelaunayReceiversMaker delaunayReceiversMaker = new DelaunayReceiversMaker("BUILDINGS", "SOURCES_GEOM");
+            delaunayReceiversMaker.setMaximumArea(0);
+            delaunayReceiversMaker.setGridDim(1);
+            delaunayReceiversMaker.run(connection, "RECEIVERS", isoSurface.getTriangleTable(), new EmptyProgressVisitor());
+            st.execute("DELETE FROM RECEIVERS WHERE MOD(PK, 10) <> 0");
+
+            NoiseMapByReceiverMaker noiseMapByReceiverMaker = new NoiseMapByReceiverMaker("BUILDINGS",
+                    "SOURCES_GEOM", "RECEIVERS");
+
+            noiseMapByReceiverMaker.setFrequencyFieldPrepend("LW");
+            noiseMapByReceiverMaker.setMaximumPropagationDistance(100);
+            noiseMapByReceiverMaker.setSoundReflectionOrder(0);
+            noiseMapByReceiverMaker.setComputeHorizontalDiffraction(false);
+            noiseMapByReceiverMaker.setComputeVerticalDiffraction(true);
+            noiseMapByReceiverMaker.setGridDim(1);
+            noiseMapByReceiverMaker.setSourcesEmissionTableName("SOURCES_EMISSION");
+            File profilerFile = new File(folder, "profile.csv");
+            noiseMapByReceiverMaker.getNoiseMapDatabaseParameters().CSVProfilerOutputPath = profilerFile;
+            noiseMapByReceiverMaker.getNoiseMapDatabaseParameters().setPathCache(true);
+
+            noiseMapByReceiverMaker.run(connection, new EmptyProgressVisitor());
+
+            List<String> lines = Files.readAllLines(profilerFile.toPath());
+            assertTrue(lines.size() >= 2);
+            List<String> columns = Arrays.asList(lines.get(0).split(","));
+            int hitColumn = columns.indexOf("path_cache_hit_count");
+            int missColumn = columns.indexOf("path_cache_miss_count");
+            assertTrue(hitColumn >= 0);
+            assertTrue(columns.contains("path_cache_hit_rate_percentage"));
+            long hitCount = 0;
+            long missCount = 0;
+            for (String line : lines.subList(1, lines.size())) {
+                String[] values = line.split(",");
+                hitCount += Long.parseLong(values[hitColumn]);
+                missCount += Long.parseLong(values[missColumn]);
+            }
+            assertTrue(missCount > 0);
+            assertTrue(hitCount > 0);
+        }
+    }
+
+    /**
+     * Receivers levels written into Arrow files instead of the database
+     */
+    @Test
+    public void testArrowOutput(@TempDir File folder) throws SQLException {
+        DataSource dataSource = JDBCUtilities.wrapSpatialDataSource(H2GISDBFactory.createDataSource(
+                NoiseMapByReceiverMakerTest.class.getSimpleName() + "_arrow", true, ""));
+        try (Connection arrowConnection = dataSource.getConnection();
+             Statement st = arrowConnection.createStatement()) {
+            st.execute(String.format("CALL SHPREAD('%s', 'LW_ROADS')", NoiseMapByReceiverMakerTest.class.getResource("lw_roads.shp").getFile()));
+            st.execute("CREATE TABLE SOURCES_GEOM(PK SERIAL PRIMARY KEY, THE_GEOM GEOMETRY) AS SELECT PK, THE_GEOM FROM LW_ROADS");
+            st.execute("CREATE TABLE SOURCES_EMISSION(PERIOD VARCHAR, IDSOURCE INT, HZ63 REAL, LW125 REAL, LW250 REAL, LW500 REAL, LW1000 REAL, LW2000 REAL, LW4000 REAL, LW8000 REAL)");
+            st.execute("INSERT INTO SOURCES_EMISSION SELECT 'D', PK, LWD63, LWD125, LWD250, LWD500, LWD1000, LWD2000, LWD4000, LWD8000 FROM LW_ROADS");
+
+            st.execute(String.format("CALL SHPREAD('%s', 'BUILDINGS')", NoiseMapByReceiverMakerTest.class.getResource("buildings.shp").getFile()));
+
+            int srid = org.h2gis.utilities.GeometryTableUtilities.getSRID(arrowConnection, "BUILDINGS");
+            IsoSurface isoSurface = new IsoSurface(IsoSurface.NF31_133_ISO, srid);
+            DelaunayReceiversMaker delaunayReceiversMaker = new DelaunayReceiversMaker("BUILDINGS", "SOURCES_GEOM");
+            delaunayReceiversMaker.setMaximumArea(0);
+            delaunayReceiversMaker.setGridDim(1);
+            delaunayReceiversMaker.run(arrowConnection, "RECEIVERS", isoSurface.getTriangleTable(), new EmptyProgressVisitor());
+            st.execute("DELETE FROM RECEIVERS WHERE MOD(PK, 10) <> 0");
+
+            NoiseMapByReceiverMaker noiseMapByReceiverMaker = new NoiseMapByReceiverMaker("BUILDINGS",
+                    "SOURCES_GEOM", "RECEIVERS");
+
+            noiseMapByReceiverMaker.setFrequencyFieldPrepend("LW");
+            noiseMapByReceiverMaker.setMaximumPropagationDistance(100);
+            noiseMapByReceiverMaker.setSoundReflectionOrder(0);
+            noiseMapByReceiverMaker.setComputeHorizontalDiffraction(false);
+            noiseMapByReceiverMaker.setComputeVerticalDiffraction(false);
+            noiseMapByReceiverMaker.setGridDim(1);
+            noiseMapByReceiverMaker.getNoiseMapDatabaseParameters().setArrowOutputFolder(folder);
+            noiseMapByReceiverMaker.getNoiseMapDatabaseParameters().setArrowOutputRowsPerFile(50);
+            noiseMapByReceiverMaker.setSourcesEmissionTableName("SOURCES_EMISSION");
+
+            noiseMapByReceiverMaker.run(dataSource, new RootProgressVisitor(1, true, 5));
+
+            int receiversRowCount = JDBCUtilities.getRowCount(arrowConnection, "RECEIVERS");
+            String receiversLevelTable = noiseMapByReceiverMaker.getNoiseMapDatabaseParameters().receiversLevelTable;
+
+            // The rows are split into several files
+            assertTrue(new File(folder, receiversLevelTable + "_1" + ArrowPreparedStatements.FILE_EXTENSION).exists());
+            assertEquals(receiversRowCount, countArrowRows(folder, receiversLevelTable));
+        }
+    }
+
+    private static int countArrowRows(File folder, String tableName) {
+        int rowCount = 0;
+        try (BufferAllocator allocator = new RootAllocator()) {
+            File file;
+            for (int fileIndex = 0; (file = new File(folder, tableName + "_" + fileIndex +
+                    ArrowPreparedStatements.FILE_EXTENSION)).exists(); fileIndex++) {
+                try (FileInputStream fileInputStream = new FileInputStream(file);
+                     ArrowFileReader reader = new ArrowFileReader(fileInputStream.getChannel(), allocator)) {
+                    while (reader.loadNextBatch()) {
+                        rowCount += reader.getVectorSchemaRoot().getRowCount();
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        return rowCount;
+    }
+
     @Test
     public void testEmissionLwTable() throws SQLException {
         try (Statement st = connection.createStatement()) {
@@ -0,0 +1,60 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.jdbc.output;
+
+import org.junit.jupiter.api.Test;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutPointSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReceiverLevelAccumulatorTest {
+
+    @Test
+    public void testArraysReusedAfterReset() {
+        ReceiverLevelAccumulator accumulator = new ReceiverLevelAccumulator(false);
+        CutPointSource source = new CutPointSource();
+        source.id = 12;
+        int day = accumulator.getPeriodId("D");
+        int night = accumulator.getPeriodId("N");
+        assertEquals(day, accumulator.getPeriodId("D"));
+        double[] levels = accumulator.getLevels(source, day, 2);
+        levels[0] += 1;
+        accumulator.getLevels(source, day, 2)[0] += 2;
+        assertEquals(1, accumulator.getSlotCount());
+        assertArrayEquals(new double[]{3, 0}, accumulator.getSlot(0).getLevels(day));
+        assertNull(accumulator.getSlot(0).getLevels(night));
+        assertEquals(12, accumulator.getSlot(0).getSource().sourceIndex);
+
+        accumulator.reset();
+        assertEquals(0, accumulator.getSlotCount());
+        CutPointSource otherSource = new CutPointSource();
+        otherSource.id = 3;
+        // the band array of the first slot is reused for the next receiver
+        double[] otherLevels = accumulator.getLevels(otherSource, day, 2);
+        assertSame(levels, otherLevels);
+        assertArrayEquals(new double[]{0, 0}, otherLevels);
+        assertEquals(3, accumulator.getSlot(0).getSource().sourceIndex);
+    }
+
+    @Test
+    public void testMergeSources() {
+        ReceiverLevelAccumulator accumulator = new ReceiverLevelAccumulator(true);
+        CutPointSource source = new CutPointSource();
+        source.id = 1;
+        CutPointSource otherSource = new CutPointSource();
+        otherSource.id = 2;
+        int period = accumulator.getPeriodId("");
+        accumulator.getLevels(source, period, 1)[0] += 1;
+        accumulator.getLevels(otherSource, period, 1)[0] += 1;
+        assertEquals(1, accumulator.getSlotCount());
+        assertEquals(2, accumulator.getSlot(0).getLevels(period)[0]);
+        assertEquals(-1, accumulator.getSlot(0).getSource().sourceIndex);
+    }
+}
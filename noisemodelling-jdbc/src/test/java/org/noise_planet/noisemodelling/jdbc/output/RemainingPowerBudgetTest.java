@@ -0,0 +1,46 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.jdbc.output;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutPointSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RemainingPowerBudgetTest {
+
+    private static SourcePointKey sourcePoint(long sourcePk, double x) {
+        CutPointSource source = new CutPointSource();
+        source.sourcePk = sourcePk;
+        source.coordinate = new Coordinate(x, 0, 0);
+        return new SourcePointKey(source);
+    }
+
+    @Test
+    public void testRunningSum() {
+        RemainingPowerBudget budget = new RemainingPowerBudget();
+        budget.add(sourcePoint(1, 0), 1e-3);
+        budget.add(sourcePoint(1, 5), 2e-3);
+        budget.add(sourcePoint(2, 0), 4e-3);
+        // same source point merged
+        budget.add(sourcePoint(2, 0), 1e-3);
+        assertEquals(8e-3, budget.getRemainingPower(), 1e-12);
+        budget.remove(sourcePoint(2, 0));
+        assertEquals(3e-3, budget.getRemainingPower(), 1e-12);
+        // already removed, nothing change
+        budget.remove(sourcePoint(2, 0));
+        assertEquals(3e-3, budget.getRemainingPower(), 1e-12);
+        budget.remove(sourcePoint(1, 0));
+        budget.remove(sourcePoint(1, 5));
+        assertTrue(budget.isEmpty());
+        assertEquals(0, budget.getRemainingPower());
+    }
+}
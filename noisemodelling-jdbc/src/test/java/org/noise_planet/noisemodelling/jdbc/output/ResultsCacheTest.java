@@ -0,0 +1,75 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.jdbc.output;
+
+import org.junit.jupiter.api.Test;
+import org.noise_planet.noisemodelling.propagation.AttenuationOutput;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultsCacheTest {
+
+    @Test
+    public void testProducerParkedUntilWritten() throws Exception {
+        ResultsCache resultsCache = new ResultsCache();
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        resultsCache.onPushed(10);
+        CompletableFuture<Boolean> producer = CompletableFuture.supplyAsync(() -> {
+            try {
+                return resultsCache.awaitCapacity(5, aborted);
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        Thread.sleep(ResultsCache.MAXIMUM_WAIT_MILLIS * 2);
+        assertFalse(producer.isDone());
+        resultsCache.onWritten(5);
+        assertTrue(producer.get(5, TimeUnit.SECONDS));
+        assertEquals(5, resultsCache.queueSize.get());
+    }
+
+    @Test
+    public void testProducerReleasedOnAbort() throws Exception {
+        ResultsCache resultsCache = new ResultsCache();
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        resultsCache.onPushed(10);
+        CompletableFuture<Boolean> producer = CompletableFuture.supplyAsync(() -> {
+            try {
+                return resultsCache.awaitCapacity(5, aborted);
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        aborted.set(true);
+        assertFalse(producer.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWriterWokenOnPush() throws Exception {
+        ResultsCache resultsCache = new ResultsCache();
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try {
+                while (resultsCache.isEmpty()) {
+                    resultsCache.awaitData();
+                }
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        resultsCache.attenuationOutputs.add(new AttenuationOutput());
+        resultsCache.onPushed(1);
+        writer.get(5, TimeUnit.SECONDS);
+        assertTrue(resultsCache.writerWaitTime.get() >= 0);
+    }
+}
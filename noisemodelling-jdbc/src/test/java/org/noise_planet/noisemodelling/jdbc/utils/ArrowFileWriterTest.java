@@ -0,0 +1,119 @@
+package org.noise_planet.noisemodelling.jdbc.utils;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArrowFileWriterTest {
+
+    static final List<ArrowFileWriter.Column> COLUMNS = Arrays.asList(
+            new ArrowFileWriter.Column("IDRECEIVER", ArrowFileWriter.ColumnType.INT64, false),
+            new ArrowFileWriter.Column("PERIOD", ArrowFileWriter.ColumnType.UTF8, true),
+            new ArrowFileWriter.Column("THE_GEOM", ArrowFileWriter.ColumnType.BINARY, true,
+                    Map.of("ARROW:extension:name", "geoarrow.wkb")),
+            new ArrowFileWriter.Column("LW63", ArrowFileWriter.ColumnType.FLOAT32, false));
+
+    @Test
+    public void testReadWithArrow(@TempDir File folder) throws IOException {
+        File file = new File(folder, "test.arrow");
+        try (ArrowFileWriter writer = new ArrowFileWriter(new FileOutputStream(file), COLUMNS)) {
+            for (int i = 0; i < 25; i++) {
+                writer.setLong(0, i);
+                if (i % 3 == 0) {
+                    writer.setNull(1);
+                } else {
+                    writer.setString(1, "DEN" + i);
+                }
+                writer.setBytes(2, new byte[]{(byte) i, (byte) (i + 1)});
+                writer.setFloat(3, i + 0.5f);
+                writer.endRow();
+                if (i == 9) {
+                    // two record batches
+                    writer.writeBatch();
+                }
+            }
+        }
+        try (BufferAllocator allocator = new RootAllocator();
+             FileInputStream fileInputStream = new FileInputStream(file);
+             ArrowFileReader reader = new ArrowFileReader(fileInputStream.getChannel(), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals("geoarrow.wkb", root.getSchema().findField("THE_GEOM").getMetadata().get("ARROW:extension:name"));
+            assertEquals(2, reader.getRecordBlocks().size());
+            int row = 0;
+            while (reader.loadNextBatch()) {
+                BigIntVector ids = (BigIntVector) root.getVector("IDRECEIVER");
+                VarCharVector periods = (VarCharVector) root.getVector("PERIOD");
+                VarBinaryVector geoms = (VarBinaryVector) root.getVector("THE_GEOM");
+                Float4Vector levels = (Float4Vector) root.getVector("LW63");
+                for (int i = 0; i < root.getRowCount(); i++, row++) {
+                    assertEquals(row, ids.get(i));
+                    if (row % 3 == 0) {
+                        assertTrue(periods.isNull(i));
+                    } else {
+                        assertEquals("DEN" + row, periods.getObject(i).toString());
+                    }
+                    assertArrayEquals(new byte[]{(byte) row, (byte) (row + 1)}, geoms.get(i));
+                    assertEquals(row + 0.5f, levels.get(i));
+                }
+            }
+            assertEquals(25, row);
+        }
+    }
+
+    @Test
+    public void testRollFiles(@TempDir File folder) throws SQLException, IOException, ParseException {
+        GeometryFactory factory = new GeometryFactory();
+        ArrowPreparedStatements ps = new ArrowPreparedStatements(folder, "RECEIVERS_LEVEL", COLUMNS, 10, 4);
+        for (int i = 0; i < 25; i++) {
+            ps.setLong(1, i);
+            ps.setString(2, "D");
+            ps.setObject(3, factory.createPoint(new Coordinate(i, 2, 3)));
+            ps.setDouble(4, 60.0);
+            ps.addBatch();
+        }
+        ps.close();
+        assertEquals(3, ps.getFileCount());
+        WKBReader wkbReader = new WKBReader();
+        int row = 0;
+        try (BufferAllocator allocator = new RootAllocator()) {
+            for (int fileIndex = 0; fileIndex < ps.getFileCount(); fileIndex++) {
+                try (FileInputStream fileInputStream = new FileInputStream(ps.getFile(fileIndex));
+                     ArrowFileReader reader = new ArrowFileReader(fileInputStream.getChannel(), allocator)) {
+                    VectorSchemaRoot root = reader.getVectorSchemaRoot();
+                    while (reader.loadNextBatch()) {
+                        VarBinaryVector geoms = (VarBinaryVector) root.getVector("THE_GEOM");
+                        for (int i = 0; i < root.getRowCount(); i++, row++) {
+                            Geometry geometry = wkbReader.read(geoms.get(i));
+                            assertEquals(row, geometry.getCoordinate().x);
+                            assertEquals(3, geometry.getCoordinate().getZ());
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(25, row);
+    }
+}
@@ -29,6 +29,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.locationtech.jts.geom.Envelope;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.RasterDem;
 
 import java.io.File;
 import java.io.IOException;
@@ -84,6 +85,20 @@ public class AscReaderDriverTest {
         }
     }
 
+    @Test
+    public void testReadPrecipRasterDem() throws IOException {
+        AscReaderDriver reader = new AscReaderDriver();
+        RasterDem dem = reader.readRasterDem(new File(AscReaderDriverTest.class.getResource("precip30min.asc").getFile()));
+        assertEquals(15, dem.getColumns());
+        assertEquals(20, dem.getRows());
+        // Check first read cell
+        assertEquals(234, dem.getZ(-179.75, -80.25), 1e-6);
+        // Check last read cell
+        assertEquals(114, dem.getZ(-172.75, -89.75), 1e-6);
+        // Check nodata cell
+        assertTrue(Double.isNaN(dem.getZ(-177.25, -84.25)));
+    }
+
 
     /**
      * Test reading two time the same asc by pushing more lines
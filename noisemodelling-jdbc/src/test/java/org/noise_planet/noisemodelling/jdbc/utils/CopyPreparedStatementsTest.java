@@ -0,0 +1,40 @@
+package org.noise_planet.noisemodelling.jdbc.utils;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.io.ByteOrderValues;
+import org.locationtech.jts.io.WKBWriter;
+
+import java.io.StringWriter;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CopyPreparedStatementsTest {
+
+    @Test
+    public void testCsvRows() throws SQLException {
+        StringWriter sb = new StringWriter();
+        PreparedStatement p = new CopyPreparedStatements(sb, 5);
+        GeometryFactory f = new GeometryFactory();
+        Point point = f.createPoint(new Coordinate(1, 2, 3));
+        point.setSRID(2154);
+        p.setInt(1, 15);
+        p.setString(2, "Test \" Hello");
+        p.setObject(3, point);
+        p.setDouble(4, 15.2);
+        p.addBatch();
+        p.setInt(1, 16);
+        p.setString(2, "D");
+        p.setObject(3, null);
+        p.setDouble(4, -1.5);
+        p.setString(5, "A");
+        p.addBatch();
+        p.executeBatch();
+        String hexPoint = WKBWriter.toHex(new WKBWriter(3, ByteOrderValues.LITTLE_ENDIAN, true).write(point));
+        assertEquals("15,\"Test \"\" Hello\"," + hexPoint + ",15.2,\n16,\"D\",,-1.5,\"A\"\n", sb.toString());
+    }
+}
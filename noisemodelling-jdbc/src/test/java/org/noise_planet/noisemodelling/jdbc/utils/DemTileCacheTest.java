@@ -0,0 +1,47 @@
+package org.noise_planet.noisemodelling.jdbc.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.PackedTin;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.ProfileBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DemTileCacheTest {
+
+    @Test
+    public void testTileKeyAndReload(@TempDir File folder) {
+        List<Coordinate> demPoints = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            demPoints.add(new Coordinate((i * 37) % 100, (i * 53) % 100, i % 7));
+        }
+        Envelope envelope = new Envelope(0, 100, 0, 100);
+        File tileFile = DemTileCache.getTileFile(folder, "PUBLIC.DEM", envelope, demPoints);
+        assertEquals(tileFile, DemTileCache.getTileFile(folder, "PUBLIC.DEM", envelope, demPoints));
+        assertTrue(tileFile.getName().startsWith("public_dem_"));
+        assertNull(DemTileCache.load(tileFile));
+
+        ProfileBuilder profileBuilder = new ProfileBuilder();
+        demPoints.forEach(profileBuilder::addTopographicPoint);
+        profileBuilder.finishFeeding();
+        DemTileCache.save(tileFile, profileBuilder.getTin());
+        PackedTin tin = DemTileCache.load(tileFile);
+        assertNotNull(tin);
+
+        ProfileBuilder cachedProfileBuilder = new ProfileBuilder();
+        cachedProfileBuilder.setTin(tin);
+        cachedProfileBuilder.finishFeeding();
+        Coordinate point = new Coordinate(42.5, 17.25);
+        assertEquals(profileBuilder.getZGround(point), cachedProfileBuilder.getZGround(point), 1e-12);
+
+        // a changed DEM point gives another tile
+        demPoints.get(3).z += 1;
+        assertNotEquals(tileFile, DemTileCache.getTileFile(folder, "PUBLIC.DEM", envelope, demPoints));
+    }
+}
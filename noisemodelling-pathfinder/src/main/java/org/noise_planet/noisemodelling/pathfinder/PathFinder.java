@@ -21,6 +21,7 @@ import org.locationtech.jts.math.Vector3D;
 import org.locationtech.jts.triangulate.quadedge.Vertex;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.ProfileBuilder;
 import org.noise_planet.noisemodelling.pathfinder.path.*;
+import org.noise_planet.noisemodelling.pathfinder.path.MirrorReceiversCache;
 import org.noise_planet.noisemodelling.pathfinder.path.MirrorReceiversCompute;
 import org.noise_planet.noisemodelling.pathfinder.path.MirrorReceiver;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.*;
@@ -66,6 +67,10 @@ public class PathFinder {
 
     /** Number of thread used for ray computation. */
     private int threadCount ;
+    /** If greater than 0, workers fetch receivers by chunk of this size from a shared cursor instead of a fixed range */
+    private int receiverChunkSize = 0;
+    /** If true, each thread shares the image receivers and the walls between its receivers */
+    private boolean shareMirrorReceivers = false;
     private ProfilerThread profilerThread;
 
     /**
@@ -114,11 +119,52 @@ public class PathFinder {
         this.threadCount = threadCount;
     }
 
+    /**
+     * @return Number of receivers fetched at once by each worker, 0 if the receivers are split into threadCount
+     * contiguous ranges
+     */
+    public int getReceiverChunkSize() {
+        return receiverChunkSize;
+    }
+
+    /**
+     * Dense areas can keep one thread busy long after the others have finished their receivers range.
+     * With a chunk size greater than 0 each worker takes the next receivers from a shared cursor until all the
+     * receivers have been processed.
+     * @param receiverChunkSize Number of receivers fetched at once by each worker, 0 to split the receivers into
+     *                          threadCount contiguous ranges
+     */
+    public void setReceiverChunkSize(int receiverChunkSize) {
+        this.receiverChunkSize = receiverChunkSize;
+    }
+
+    /**
+     * @return True if each thread shares the image receivers and the walls between its receivers
+     */
+    public boolean isShareMirrorReceivers() {
+        return shareMirrorReceivers;
+    }
+
+    /**
+     * Facade receivers are stacked vertically and close to each other, with this option the image receivers are
+     * computed once for all the receivers of a thread having the same X and Y, and the walls are fetched once for
+     * the close receivers.
+     * @param shareMirrorReceivers True to share the image receivers computation between receivers
+     * @see MirrorReceiversCache
+     */
+    public void setShareMirrorReceivers(boolean shareMirrorReceivers) {
+        this.shareMirrorReceivers = shareMirrorReceivers;
+    }
+
     /**
      * Run computation and store the results in the given output.
      * @param computeRaysOut Result output.
      */
     public void run(CutPlaneVisitorFactory computeRaysOut) {
+        if(receiverChunkSize > 0) {
+            runWithSharedCursor(computeRaysOut);
+            return;
+        }
         ThreadPool threadManager = new ThreadPool(threadCount, threadCount + 1, Long.MAX_VALUE, TimeUnit.SECONDS);
         int maximumReceiverBatch = (int) ceil(data.receivers.size() / (double) threadCount);
         int endReceiverRange = 0;
@@ -164,6 +210,47 @@ public class PathFinder {
 
     }
 
+    /**
+     * Run computation, each worker keep its own visitor and fetch the next receivers from a shared cursor
+     * @param computeRaysOut Result output.
+     */
+    private void runWithSharedCursor(CutPlaneVisitorFactory computeRaysOut) {
+        ProgressVisitor cellProgress = progressVisitor == null ? new EmptyProgressVisitor() : progressVisitor.subProcess(data.receivers.size());
+        AtomicInteger receiverCursor = new AtomicInteger(0);
+        int workerCount = max(1, min(threadCount, (int) ceil(data.receivers.size() / (double) receiverChunkSize)));
+        if (workerCount == 1) {
+            try {
+                new ThreadPathFinder(receiverCursor, receiverChunkSize, this, cellProgress,
+                        computeRaysOut.subProcess(cellProgress), data).call();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+        ThreadPool threadManager = new ThreadPool(workerCount, workerCount + 1, Long.MAX_VALUE, TimeUnit.SECONDS);
+        List<Future<Boolean>> tasks = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount && !cellProgress.isCanceled(); i++) {
+            tasks.add(threadManager.submitBlocking(new ThreadPathFinder(receiverCursor, receiverChunkSize, this,
+                    cellProgress, computeRaysOut.subProcess(cellProgress), data)));
+        }
+        threadManager.shutdown();
+        try {
+            if(!threadManager.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Timeout elapsed before termination.");
+            }
+        } catch (InterruptedException ex) {
+            LOGGER.error(ex.getLocalizedMessage(), ex);
+        }
+        // Must raise an exception if one the thread raised an exception
+        for (Future<Boolean> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
     /**
      * Compute the rays to the given receiver.
      * @param receiverPointInfo     Receiver point.
@@ -171,6 +258,19 @@ public class PathFinder {
      * @param visitor Progress visitor used for cancellation and progression managing.
      */
     public void computeRaysAtPosition(ReceiverPointInfo receiverPointInfo, CutPlaneVisitor dataOut, ProgressVisitor visitor) {
+        computeRaysAtPosition(receiverPointInfo, dataOut, visitor, null);
+    }
+
+    /**
+     * Compute the rays to the given receiver.
+     * @param receiverPointInfo     Receiver point.
+     * @param dataOut Computation output.
+     * @param visitor Progress visitor used for cancellation and progression managing.
+     * @param mirrorReceiversCache Image receivers shared with the other receivers of the thread, null to compute
+     *                             the image receivers of this receiver only
+     */
+    public void computeRaysAtPosition(ReceiverPointInfo receiverPointInfo, CutPlaneVisitor dataOut,
+                                      ProgressVisitor visitor, MirrorReceiversCache mirrorReceiversCache) {
 
         if(data.profileBuilder.hasDem()) {
             // Check if the receiver has been positioned below the ground
@@ -190,7 +290,13 @@ public class PathFinder {
         MirrorReceiversCompute receiverMirrorIndex = null;
 
         long reflectionPreprocessTime = 0;
-        if(data.reflexionOrder > 0) {
+        if(data.reflexionOrder > 0 && mirrorReceiversCache != null) {
+            receiverMirrorIndex = mirrorReceiversCache.getMirrorReceivers(receiverPointInfo.position);
+            if(profilerThread != null) {
+                reflectionPreprocessTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - start,
+                        TimeUnit.NANOSECONDS);
+            }
+        } else if(data.reflexionOrder > 0) {
             Envelope receiverPropagationEnvelope = new Envelope(receiverPointInfo.getCoordinates());
             receiverPropagationEnvelope.expandBy(data.maxSrcDist);
             List<Wall> buildWalls = data.profileBuilder.getWallsIn(receiverPropagationEnvelope);
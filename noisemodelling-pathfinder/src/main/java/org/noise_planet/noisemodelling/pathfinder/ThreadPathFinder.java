@@ -10,9 +10,11 @@
 package org.noise_planet.noisemodelling.pathfinder;
 
 import org.h2gis.api.ProgressVisitor;
+import org.noise_planet.noisemodelling.pathfinder.path.MirrorReceiversCache;
 import org.noise_planet.noisemodelling.pathfinder.path.Scene;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.noise_planet.noisemodelling.pathfinder.PathFinder.LOGGER;
 
@@ -27,7 +29,11 @@ public final class ThreadPathFinder implements Callable<Boolean> {
     ProgressVisitor visitor;
     CutPlaneVisitor dataOut;
     Scene data;
-
+    /** If not null, receivers ranges are fetched from this shared cursor instead of startReceiver/endReceiver */
+    AtomicInteger receiverCursor;
+    int receiverChunkSize;
+    /** Image receivers shared between the receivers of this thread, null if not enabled */
+    MirrorReceiversCache mirrorReceiversCache;
 
     /**
      * Create the ThreadPathFinder constructor
@@ -47,6 +53,28 @@ public final class ThreadPathFinder implements Callable<Boolean> {
         this.visitor = visitor;
         this.dataOut = dataOut;
         this.data = data;
+        if(propagationProcess.isShareMirrorReceivers()) {
+            this.mirrorReceiversCache = new MirrorReceiversCache(data);
+        }
+    }
+
+    /**
+     * Create a ThreadPathFinder that fetch small receiver ranges from a cursor shared with the other workers.
+     * A worker that falls into a dense area will not delay the end of the cell as the other workers pick the remaining
+     * receivers.
+     * @param receiverCursor Index of the next receiver to process, shared between workers
+     * @param receiverChunkSize Number of receivers taken from the cursor on each fetch
+     * @param propagationProcess
+     * @param visitor
+     * @param dataOut
+     * @param data
+     */
+    public ThreadPathFinder(AtomicInteger receiverCursor, int receiverChunkSize, PathFinder propagationProcess,
+                            ProgressVisitor visitor, CutPlaneVisitor dataOut,
+                            Scene data) {
+        this(0, 0, propagationProcess, visitor, dataOut, data);
+        this.receiverCursor = receiverCursor;
+        this.receiverChunkSize = Math.max(1, receiverChunkSize);
     }
 
     /**
@@ -55,23 +83,16 @@ public final class ThreadPathFinder implements Callable<Boolean> {
     @Override
     public Boolean call() throws Exception {
         try {
-            for (int idReceiver = startReceiver; idReceiver < endReceiver; idReceiver++) {
-                if (visitor != null) {
-                    if (visitor.isCanceled()) {
+            if (receiverCursor == null) {
+                processRange(startReceiver, endReceiver);
+            } else {
+                final int receiverCount = data.receivers.size();
+                while (visitor == null || !visitor.isCanceled()) {
+                    int chunkStart = receiverCursor.getAndAdd(receiverChunkSize);
+                    if (chunkStart >= receiverCount) {
                         break;
                     }
-                }
-                long receiverPk = idReceiver;
-                if(idReceiver < data.receiversPk.size()) {
-                    receiverPk = data.receiversPk.get(idReceiver);
-                }
-                PathFinder.ReceiverPointInfo rcv = new PathFinder.ReceiverPointInfo(idReceiver, receiverPk, data.receivers.get(idReceiver));
-
-
-                propagationProcess.computeRaysAtPosition(rcv, dataOut, visitor);
-
-                if (visitor != null) {
-                    visitor.endStep();
+                    processRange(chunkStart, Math.min(chunkStart + receiverChunkSize, receiverCount));
                 }
             }
         } catch (Exception ex) {
@@ -83,4 +104,31 @@ public final class ThreadPathFinder implements Callable<Boolean> {
         }
         return true;
     }
+
+    /**
+     * Compute the cut planes of the receivers in the provided range
+     * @param rangeStart First receiver index (included)
+     * @param rangeEnd Last receiver index (excluded)
+     */
+    private void processRange(int rangeStart, int rangeEnd) {
+        for (int idReceiver = rangeStart; idReceiver < rangeEnd; idReceiver++) {
+            if (visitor != null) {
+                if (visitor.isCanceled()) {
+                    break;
+                }
+            }
+            long receiverPk = idReceiver;
+            if(idReceiver < data.receiversPk.size()) {
+                receiverPk = data.receiversPk.get(idReceiver);
+            }
+            PathFinder.ReceiverPointInfo rcv = new PathFinder.ReceiverPointInfo(idReceiver, receiverPk, data.receivers.get(idReceiver));
+
+
+            propagationProcess.computeRaysAtPosition(rcv, dataOut, visitor, mirrorReceiversCache);
+
+            if (visitor != null) {
+                visitor.endStep();
+            }
+        }
+    }
 }
\ No newline at end of file
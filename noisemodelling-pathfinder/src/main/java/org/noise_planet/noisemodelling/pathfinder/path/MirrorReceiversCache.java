@@ -0,0 +1,95 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.pathfinder.path;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.Wall;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Image receivers shared between the receivers processed by one thread.
+ * The image receivers only depend on the receiver X and Y, so the receivers of a vertical stack (facade receivers
+ * of each floor) reuse the image receivers of the first computed one. The walls are fetched once for an area larger
+ * than the propagation distance, the next receivers of this area select their walls from this list.
+ * One instance must not be used by several threads.
+ */
+public class MirrorReceiversCache {
+    /** Extension of the wall search area around the receiver propagation area (m) */
+    public static final double DEFAULT_WALL_SEARCH_MARGIN = 25;
+    /** Number of receiver positions kept in the cache */
+    public static final int DEFAULT_CAPACITY = 64;
+    private final Scene data;
+    private final double wallSearchMargin;
+    private final Map<Coordinate, MirrorReceiversCompute> mirrorReceivers;
+    private Envelope wallsEnvelope = null;
+    private List<Wall> walls = new ArrayList<>();
+    int wallQueryCount = 0;
+    int mirrorReceiversComputeCount = 0;
+
+    /**
+     * @param data Scene of the receivers
+     */
+    public MirrorReceiversCache(Scene data) {
+        this(data, DEFAULT_WALL_SEARCH_MARGIN, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param data Scene of the receivers
+     * @param wallSearchMargin Extension of the wall search area around the receiver propagation area (m)
+     * @param capacity Number of receiver positions kept in the cache
+     */
+    public MirrorReceiversCache(Scene data, double wallSearchMargin, int capacity) {
+        this.data = data;
+        this.wallSearchMargin = wallSearchMargin;
+        this.mirrorReceivers = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Coordinate, MirrorReceiversCompute> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param receiver Receiver position
+     * @return Image receivers of this receiver
+     */
+    public MirrorReceiversCompute getMirrorReceivers(Coordinate receiver) {
+        // Coordinate equality only use X and Y
+        MirrorReceiversCompute receiverMirrorIndex = mirrorReceivers.get(receiver);
+        if(receiverMirrorIndex != null) {
+            return receiverMirrorIndex.withReceiver(receiver);
+        }
+        Envelope receiverPropagationEnvelope = new Envelope(receiver);
+        receiverPropagationEnvelope.expandBy(data.maxSrcDist);
+        if(wallsEnvelope == null || !wallsEnvelope.contains(receiverPropagationEnvelope)) {
+            wallsEnvelope = new Envelope(receiverPropagationEnvelope);
+            wallsEnvelope.expandBy(wallSearchMargin);
+            walls = data.profileBuilder.getWallsIn(wallsEnvelope);
+            wallQueryCount++;
+        }
+        // same walls than ProfileBuilder#getWallsIn(receiverPropagationEnvelope)
+        List<Wall> buildWalls = new ArrayList<>();
+        for (Wall wall : walls) {
+            if(receiverPropagationEnvelope.intersects(wall.line.p0, wall.line.p1)) {
+                buildWalls.add(wall);
+            }
+        }
+        receiverMirrorIndex = new MirrorReceiversCompute(buildWalls, receiver, data.reflexionOrder,
+                data.maxSrcDist, data.maxRefDist);
+        mirrorReceiversComputeCount++;
+        mirrorReceivers.put(new Coordinate(receiver.x, receiver.y), receiverMirrorIndex);
+        return receiverMirrorIndex;
+    }
+}
@@ -11,27 +11,35 @@ package org.noise_planet.noisemodelling.pathfinder.path;
 
 import org.locationtech.jts.algorithm.Intersection;
 import org.locationtech.jts.algorithm.LineIntersector;
+import org.locationtech.jts.algorithm.Orientation;
 import org.locationtech.jts.algorithm.RobustLineIntersector;
 import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LineSegment;
 import org.locationtech.jts.geom.Polygon;
-import org.locationtech.jts.index.ItemVisitor;
-import org.locationtech.jts.index.strtree.STRtree;
 import org.locationtech.jts.io.WKTWriter;
 import org.locationtech.jts.math.Vector2D;
 import org.locationtech.jts.operation.buffer.BufferParameters;
 import org.locationtech.jts.triangulate.quadedge.Vertex;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.PackedRTree;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.ProfileBuilder;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.Wall;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Image receivers of a receiver, computed by mirroring the receiver on the walls up to the reflection order.
+ * The image receivers are stored in primitive arrays, image i is the mirror of the receiver or of its parent image
+ * imageParent[i] on the wall imageWall[i]. The visibility cone of an image receiver is the area behind its wall, between
+ * the two half-lines from the image to the wall ends, and closer to the image than the maximum propagation distance.
+ * It is not stored but evaluated analytically from the image position and its wall.
+ */
 public class MirrorReceiversCompute {
     private static final double DEFAULT_CIRCLE_POINT_ANGLE = Math.PI / 24;
-    STRtree mirrorReceiverTree;
+    /** Images receivers indexed by the envelope of their visibility cone */
+    PackedRTree mirrorReceiverTree;
     public static final int DEFAULT_MIRROR_RECEIVER_CAPACITY = 50000;
     private int mirrorReceiverCapacity = DEFAULT_MIRROR_RECEIVER_CAPACITY;
     private final Coordinate receiverCoordinate;
@@ -39,6 +47,15 @@ public class MirrorReceiversCompute {
     private final double maximumDistanceFromWall;
     private final double maximumPropagationDistance;
     int numberOfImageReceivers = 0;
+    double[] imageX = new double[16];
+    double[] imageY = new double[16];
+    /** Index of the parent image, -1 if the image is the mirror of the receiver */
+    int[] imageParent = new int[16];
+    /** Index of the reflecting wall in buildWalls */
+    int[] imageWall = new int[16];
+    /** Envelope of the visibility cone of each image, minX, minY, maxX, maxY */
+    double[] imageConeBounds = new double[64];
+    private final PackedRTree.QueryBuffer queryBuffer = new PackedRTree.QueryBuffer();
 
     public static Polygon createWallReflectionVisibilityCone(Coordinate receiverImage, LineSegment wall,
                                                              double maximumPropagationDistance,
@@ -96,70 +113,294 @@ public class MirrorReceiversCompute {
     public MirrorReceiversCompute(List<Wall> buildWalls, Coordinate receiverCoordinates,
                                   int reflectionOrder, double maximumPropagationDistance,
                                   double maximumDistanceFromWall) {
-        GeometryFactory gf = new GeometryFactory();
         this.receiverCoordinate = receiverCoordinates;
         this.buildWalls = buildWalls;
         this.maximumDistanceFromWall = maximumDistanceFromWall;
         this.maximumPropagationDistance = maximumPropagationDistance;
-        mirrorReceiverTree = new STRtree();
-        ArrayList<MirrorReceiver> parentsToProcess = new ArrayList<>();
-        for(int currentDepth = 0; currentDepth < reflectionOrder; currentDepth++) {
-            if(currentDepth == 0) {
-                parentsToProcess.add(null);
-            }
-            ArrayList<MirrorReceiver> nextParentsToProcess = new ArrayList<>();
-            for(MirrorReceiver parent : parentsToProcess) {
-                for (Wall wall : buildWalls) {
-                    if(parent != null) {
-                        // check if the wall is visible from the previous image receiver
-                        if(!parent.getImageReceiverVisibilityCone().intersects(
-                                wall.getLineSegment().toGeometry(new GeometryFactory()))) {
-                            continue; // this wall is out of the bound of the receiver visibility
+        int parentsStart = 0;
+        int parentsEnd = 0;
+        Coordinate receiverImage = new Coordinate();
+        Coordinate rcvMirror = new Coordinate();
+        try {
+            for (int currentDepth = 0; currentDepth < reflectionOrder; currentDepth++) {
+                // the parents of the first depth is the receiver itself
+                int parent = currentDepth == 0 ? -1 : parentsStart;
+                int lastParent = currentDepth == 0 ? 0 : parentsEnd;
+                for (; parent < lastParent; parent++) {
+                    receiverImage.x = parent == -1 ? receiverCoordinates.x : imageX[parent];
+                    receiverImage.y = parent == -1 ? receiverCoordinates.y : imageY[parent];
+                    for (int wallIndex = 0; wallIndex < buildWalls.size(); wallIndex++) {
+                        LineSegment wall = buildWalls.get(wallIndex).getLineSegment();
+                        if (parent != -1) {
+                            if (wallIndex == imageWall[parent]) {
+                                continue;
+                            }
+                            // check if the wall is visible from the previous image receiver
+                            if (!isSegmentInCone(imageX[parent], imageY[parent],
+                                    buildWalls.get(imageWall[parent]).getLineSegment(), maximumPropagationDistance,
+                                    wall.p0.x, wall.p0.y, wall.p1.x, wall.p1.y)) {
+                                continue; // this wall is out of the bound of the receiver visibility
+                            }
                         }
-                    }
-                    Coordinate receiverImage;
-                    if (parent != null) {
-                        if(wall == parent.getWall()) {
+                        //Calculate the coordinate of projection
+                        double wallX = wall.p1.x - wall.p0.x;
+                        double wallY = wall.p1.y - wall.p0.y;
+                        double wallLengthSquared = wallX * wallX + wallY * wallY;
+                        if (wallLengthSquared == 0) {
                             continue;
-                        } else {
-                            receiverImage = parent.getReceiverPos();
                         }
-                    } else {
-                        receiverImage = receiverCoordinates;
-                    }
-                    //Calculate the coordinate of projection
-                    Coordinate proj = wall.getLineSegment().project(receiverImage);
-                    Coordinate rcvMirror = new Coordinate(2 * proj.x - receiverImage.x,
-                            2 * proj.y - receiverImage.y, receiverImage.z);
-                    if(wall.getLineSegment().distance(rcvMirror) > maximumPropagationDistance) {
-                        // wall is too far from the receiver image, there is no receiver image
-                        continue;
-                    }
-                    // Walls that belong to a building (polygon) does not create image receiver
-                    // from the two sides of the wall
-                    // Exterior polygons are CW we can check if the receiver is on the reflective side of the wall
-                    // (on the exterior side of the wall)
-                    if(wall.getType() == ProfileBuilder.IntersectionType.BUILDING &&
-                            !wallPointTest(wall.getLineSegment(), receiverImage)) {
-                        continue;
-                    }
-                    // create the visibility cone of this receiver image
-                    Polygon imageReceiverVisibilityCone = createWallReflectionVisibilityCone(rcvMirror,
-                            wall.getLineSegment(), maximumPropagationDistance, maximumDistanceFromWall);
-                    MirrorReceiver receiverResultNext = new MirrorReceiver(rcvMirror, parent, wall);
-                    receiverResultNext.setImageReceiverVisibilityCone(imageReceiverVisibilityCone);
-                    mirrorReceiverTree.insert(imageReceiverVisibilityCone.getEnvelopeInternal(),receiverResultNext.copyWithoutCone());
-                    nextParentsToProcess.add(receiverResultNext);
-                    numberOfImageReceivers++;
-                    if(numberOfImageReceivers >= mirrorReceiverCapacity) {
-                        return;
+                        double r = ((receiverImage.x - wall.p0.x) * wallX + (receiverImage.y - wall.p0.y) * wallY)
+                                / wallLengthSquared;
+                        rcvMirror.x = 2 * (wall.p0.x + r * wallX) - receiverImage.x;
+                        rcvMirror.y = 2 * (wall.p0.y + r * wallY) - receiverImage.y;
+                        if (segmentDistanceSquared(rcvMirror.x, rcvMirror.y, wall.p0.x, wall.p0.y, wall.p1.x,
+                                wall.p1.y) > maximumPropagationDistance * maximumPropagationDistance) {
+                            // wall is too far from the receiver image, there is no receiver image
+                            continue;
+                        }
+                        // Walls that belong to a building (polygon) does not create image receiver
+                        // from the two sides of the wall
+                        // Exterior polygons are CW we can check if the receiver is on the reflective side of the wall
+                        // (on the exterior side of the wall)
+                        if (buildWalls.get(wallIndex).getType() == ProfileBuilder.IntersectionType.BUILDING &&
+                                !wallPointTest(wall, receiverImage)) {
+                            continue;
+                        }
+                        // the image receiver on the wall line does not see anything behind the wall
+                        if (Orientation.index(wall.p0, wall.p1, rcvMirror) == Orientation.COLLINEAR) {
+                            continue;
+                        }
+                        addImageReceiver(rcvMirror.x, rcvMirror.y, parent, wallIndex, wall);
+                        if (numberOfImageReceivers >= mirrorReceiverCapacity) {
+                            return;
+                        }
                     }
                 }
+                parentsStart = currentDepth == 0 ? 0 : parentsEnd;
+                parentsEnd = numberOfImageReceivers;
+            }
+        } finally {
+            int[] ids = new int[numberOfImageReceivers];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = i;
+            }
+            mirrorReceiverTree = new PackedRTree(Arrays.copyOf(imageConeBounds, numberOfImageReceivers * 4), ids,
+                    PackedRTree.DEFAULT_NODE_SIZE);
+        }
+    }
+
+    /**
+     * Share the image receivers of another receiver located at the same X and Y
+     * @param other Computed image receivers
+     * @param receiverCoordinate Receiver position
+     */
+    private MirrorReceiversCompute(MirrorReceiversCompute other, Coordinate receiverCoordinate) {
+        this.receiverCoordinate = receiverCoordinate;
+        this.buildWalls = other.buildWalls;
+        this.maximumDistanceFromWall = other.maximumDistanceFromWall;
+        this.maximumPropagationDistance = other.maximumPropagationDistance;
+        this.mirrorReceiverCapacity = other.mirrorReceiverCapacity;
+        this.numberOfImageReceivers = other.numberOfImageReceivers;
+        this.imageX = other.imageX;
+        this.imageY = other.imageY;
+        this.imageParent = other.imageParent;
+        this.imageWall = other.imageWall;
+        this.imageConeBounds = other.imageConeBounds;
+        this.mirrorReceiverTree = other.mirrorReceiverTree;
+    }
+
+    /**
+     * The image receivers depend only on the receiver X and Y, the Z of the receiver is given to the image receivers
+     * @param receiverCoordinate Receiver position with the same X and Y
+     * @return Image receivers of this receiver, sharing the images computed by this instance
+     */
+    public MirrorReceiversCompute withReceiver(Coordinate receiverCoordinate) {
+        if(receiverCoordinate.x != this.receiverCoordinate.x || receiverCoordinate.y != this.receiverCoordinate.y) {
+            throw new IllegalArgumentException("The receiver must be at the same X and Y");
+        }
+        return new MirrorReceiversCompute(this, receiverCoordinate);
+    }
+
+    private void addImageReceiver(double x, double y, int parent, int wallIndex, LineSegment wall) {
+        int image = numberOfImageReceivers++;
+        if (image == imageX.length) {
+            int capacity = imageX.length * 2;
+            imageX = Arrays.copyOf(imageX, capacity);
+            imageY = Arrays.copyOf(imageY, capacity);
+            imageParent = Arrays.copyOf(imageParent, capacity);
+            imageWall = Arrays.copyOf(imageWall, capacity);
+            imageConeBounds = Arrays.copyOf(imageConeBounds, capacity * 4);
+        }
+        imageX[image] = x;
+        imageY[image] = y;
+        imageParent[image] = parent;
+        imageWall[image] = wallIndex;
+        computeConeEnvelope(x, y, wall, maximumPropagationDistance, imageConeBounds, image * 4);
+    }
+
+    /**
+     * Envelope of the visibility cone of an image receiver. It contains the part of the wall closer than the maximum
+     * propagation distance and the part of the circle of the maximum propagation distance between the two half-lines.
+     * @param x Image receiver X
+     * @param y Image receiver Y
+     * @param wall Reflecting wall
+     * @param maximumPropagationDistance Radius of the cone
+     * @param bounds Output minX, minY, maxX, maxY
+     * @param offset Position of minX in bounds
+     */
+    static void computeConeEnvelope(double x, double y, LineSegment wall, double maximumPropagationDistance,
+                                    double[] bounds, int offset) {
+        double radius = maximumPropagationDistance;
+        double ax = wall.p0.x - x;
+        double ay = wall.p0.y - y;
+        double bx = wall.p1.x - x;
+        double by = wall.p1.y - y;
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        // Part of the wall inside the circle, parameters of the intersections of the wall line with the circle
+        double dx = bx - ax;
+        double dy = by - ay;
+        double a = dx * dx + dy * dy;
+        double b = ax * dx + ay * dy;
+        double c = ax * ax + ay * ay - radius * radius;
+        double discriminant = b * b - a * c;
+        if (discriminant >= 0 && a > 0) {
+            double root = Math.sqrt(discriminant);
+            double t0 = Math.max(0, (-b - root) / a);
+            double t1 = Math.min(1, (-b + root) / a);
+            if (t0 <= t1) {
+                minX = Math.min(ax + t0 * dx, ax + t1 * dx);
+                maxX = Math.max(ax + t0 * dx, ax + t1 * dx);
+                minY = Math.min(ay + t0 * dy, ay + t1 * dy);
+                maxY = Math.max(ay + t0 * dy, ay + t1 * dy);
+            }
+        }
+        // Ends of the arc
+        double lengthA = Math.sqrt(ax * ax + ay * ay);
+        double lengthB = Math.sqrt(bx * bx + by * by);
+        if (lengthA > 0) {
+            minX = Math.min(minX, ax * radius / lengthA);
+            maxX = Math.max(maxX, ax * radius / lengthA);
+            minY = Math.min(minY, ay * radius / lengthA);
+            maxY = Math.max(maxY, ay * radius / lengthA);
+        }
+        if (lengthB > 0) {
+            minX = Math.min(minX, bx * radius / lengthB);
+            maxX = Math.max(maxX, bx * radius / lengthB);
+            minY = Math.min(minY, by * radius / lengthB);
+            maxY = Math.max(maxY, by * radius / lengthB);
+        }
+        // Extremities of the circle along the axis if the arc contains them
+        double sign = Math.signum(ax * by - ay * bx);
+        if (isInSector(ax, ay, bx, by, sign, radius, 0)) {
+            maxX = radius;
+        }
+        if (isInSector(ax, ay, bx, by, sign, -radius, 0)) {
+            minX = -radius;
+        }
+        if (isInSector(ax, ay, bx, by, sign, 0, radius)) {
+            maxY = radius;
+        }
+        if (isInSector(ax, ay, bx, by, sign, 0, -radius)) {
+            minY = -radius;
+        }
+        bounds[offset] = x + minX;
+        bounds[offset + 1] = y + minY;
+        bounds[offset + 2] = x + maxX;
+        bounds[offset + 3] = y + maxY;
+    }
+
+    private static boolean isInSector(double ax, double ay, double bx, double by, double sign, double px, double py) {
+        return sign * (ax * py - ay * px) >= 0 && sign * (px * by - py * bx) >= 0;
+    }
+
+    /**
+     * Test if a segment intersects the visibility cone of an image receiver. The cone is the intersection of the angular
+     * sector between the two half-lines from the image to the wall ends, of the half-plane behind the wall and of the
+     * disc of the maximum propagation distance, so the segment is clipped by the three constraints.
+     * @param x Image receiver X
+     * @param y Image receiver Y
+     * @param wall Reflecting wall of the image receiver
+     * @param maximumPropagationDistance Radius of the cone
+     * @param x0 Segment first point X
+     * @param y0 Segment first point Y
+     * @param x1 Segment last point X
+     * @param y1 Segment last point Y
+     * @return True if the segment intersects the cone, boundary included
+     */
+    public static boolean isSegmentInCone(double x, double y, LineSegment wall, double maximumPropagationDistance,
+                                          double x0, double y0, double x1, double y1) {
+        double ax = wall.p0.x - x;
+        double ay = wall.p0.y - y;
+        double bx = wall.p1.x - x;
+        double by = wall.p1.y - y;
+        double sign = Math.signum(ax * by - ay * bx);
+        if (sign == 0) {
+            // the image is on the wall line
+            return false;
+        }
+        // segment relative to the image, p(t) = p + t * d with t in [0, 1]
+        double px = x0 - x;
+        double py = y0 - y;
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double wallX = bx - ax;
+        double wallY = by - ay;
+        // Each constraint is alpha + beta * t >= 0, the range [tMin, tMax] of the segment satisfying all of them is
+        // the part of the segment inside the angular sector and behind the wall
+        double tMin = 0;
+        double tMax = 1;
+        for (int constraint = 0; constraint < 3; constraint++) {
+            double alpha;
+            double beta;
+            if (constraint == 0) {
+                // on the left of the half-line to the first wall end for a counter clockwise sector
+                alpha = sign * (ax * py - ay * px);
+                beta = sign * (ax * dy - ay * dx);
+            } else if (constraint == 1) {
+                // on the right of the half-line to the last wall end
+                alpha = sign * (px * by - py * bx);
+                beta = sign * (dx * by - dy * bx);
+            } else {
+                // behind the wall, on the other side of the wall line than the image
+                alpha = sign * (wallY * (px - ax) - wallX * (py - ay));
+                beta = sign * (wallY * dx - wallX * dy);
+            }
+            if (beta == 0) {
+                if (alpha < 0) {
+                    return false;
+                }
+            } else if (beta > 0) {
+                tMin = Math.max(tMin, -alpha / beta);
+            } else {
+                tMax = Math.min(tMax, -alpha / beta);
+            }
+            if (tMin > tMax) {
+                return false;
             }
-            parentsToProcess = nextParentsToProcess;
         }
-        mirrorReceiverTree.build();
+        // closest point of the remaining part of the segment to the image
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared > 0 ? -(px * dx + py * dy) / lengthSquared : 0;
+        t = Math.max(tMin, Math.min(tMax, t));
+        double cx = px + t * dx;
+        double cy = py + t * dy;
+        return cx * cx + cy * cy <= maximumPropagationDistance * maximumPropagationDistance;
+    }
+
+    private static double segmentDistanceSquared(double x, double y, double x0, double y0, double x1, double y1) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared > 0 ? ((x - x0) * dx + (y - y0) * dy) / lengthSquared : 0;
+        t = Math.max(0, Math.min(1, t));
+        double cx = x0 + t * dx - x;
+        double cy = y0 + t * dy - y;
+        return cx * cx + cy * cy;
     }
+
     /**
      * Occlusion test between one wall and a viewer.
      * Simple Feature Access (ISO 19125-1) say that:
@@ -169,8 +410,7 @@ public class MirrorReceiversCompute {
      * @return True if the wall is oriented to the point, false if the wall Occlusion Culling (transparent)
      */
     public static boolean wallPointTest(LineSegment wall1, Coordinate pt) {
-        return org.locationtech.jts.algorithm.Orientation.isCCW(new Coordinate[]{wall1.getCoordinate(0),
-                wall1.getCoordinate(1), pt, wall1.getCoordinate(0)});
+        return Orientation.index(wall1.p0, wall1.p1, pt) == Orientation.COUNTERCLOCKWISE;
     }
 
     public int getMirrorReceiverCapacity() {
@@ -246,74 +486,78 @@ public class MirrorReceiversCompute {
         if(Double.isNaN(sourcePosition.z)) {
             throw new IllegalArgumentException("Not supported NaN z value");
         }
-        Envelope env = new Envelope(sourcePosition);
-        ReceiverImageVisitor receiverImageVisitor = new ReceiverImageVisitor(buildWalls, sourcePosition,
-                receiverCoordinate, maximumDistanceFromWall, maximumPropagationDistance);
-        mirrorReceiverTree.query(env, receiverImageVisitor);
-        return receiverImageVisitor.result;
-    }
-
-    private static class ReceiverImageVisitor implements ItemVisitor {
         List<MirrorReceiver> result = new ArrayList<>();
-        List<Wall> buildWalls;
-        Coordinate source;
-        Coordinate receiver;
-        LineSegment sourceReceiverSegment;
-        double maximumDistanceFromSegment;
-        double maximumPropagationDistance;
-        int visitedNode = 0;
-
-        public ReceiverImageVisitor(List<Wall> buildWalls, Coordinate source, Coordinate receiver,
-                                    double maximumDistanceFromSegment,
-                                    double maximumPropagationDistance) {
-            this.buildWalls = buildWalls;
-            this.source = source;
-            this.receiver = receiver;
-            this.sourceReceiverSegment = new LineSegment(source, receiver);
-            this.maximumDistanceFromSegment = maximumDistanceFromSegment;
-            this.maximumPropagationDistance = maximumPropagationDistance;
+        mirrorReceiverTree.query(sourcePosition.x, sourcePosition.y, sourcePosition.x, sourcePosition.y, queryBuffer);
+        // keep the order of creation of the image receivers
+        int[] images = new int[queryBuffer.size()];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = queryBuffer.get(i);
         }
+        Arrays.sort(images);
+        LineSegment sourceReceiverSegment = new LineSegment(sourcePosition, receiverCoordinate);
+        LineIntersector li = new RobustLineIntersector();
+        Coordinate imagePosition = new Coordinate();
+        for (int image : images) {
+            if (isReflectionPossible(image, sourcePosition, sourceReceiverSegment, li, imagePosition)) {
+                result.add(getMirrorReceiver(image));
+            }
+        }
+        return result;
+    }
 
-        @Override
-        public void visitItem(Object item) {
-            visitedNode++;
-            // try to exclude walls without taking into account the topography and other factors
-            // we intentionnaly do not check for wall height here as meteo conditions might virtually raise or lower the wall.
-
-            MirrorReceiver receiverImage = (MirrorReceiver) item;
-            // Check propagation distance
-            if(receiverImage.getReceiverPos().distance3D(source) < maximumPropagationDistance) {
-                // Check distance of walls
-                MirrorReceiver currentReceiverImage = receiverImage;
-                Coordinate reflectionPoint = source;
-                while (currentReceiverImage != null) {
-                    final Wall currentWall = currentReceiverImage.getWall();
-                    final LineSegment currentWallLineSegment = currentWall.getLineSegment();
-                    if (currentWallLineSegment.distance(sourceReceiverSegment) > maximumDistanceFromSegment) {
-                        return;
-                    }
-                    // Check if reflection is placed on the wall segment
-                    LineSegment srcMirrRcvLine = new LineSegment(currentReceiverImage.getReceiverPos(), reflectionPoint);
-                    LineIntersector li = new RobustLineIntersector();
-                    li.computeIntersection(currentWallLineSegment.p0, currentWallLineSegment.p1,
-                            srcMirrRcvLine.p0, srcMirrRcvLine.p1);
-                    if(!li.hasIntersection()) {
-                        // No reflection on this wall
-                        return;
-                    } else {
-                        // Set the height for the reflection point.
-                        // intersect3D's height is actually sitting vertically between the two lines.
-                        // But we want the reflection point to be on the line between the source and the receiver image
-                        // So we need to recompute the Z value on the srcMirrRcvLine at intersection coordinates
-                        Coordinate intersectionPoint = li.getIntersection(0);
-                        double zIntersect = Vertex.interpolateZ(intersectionPoint, srcMirrRcvLine.p0, srcMirrRcvLine.p1);
-                        reflectionPoint = new Coordinate(intersectionPoint.x, intersectionPoint.y, zIntersect);
-                    }
-                    currentReceiverImage = currentReceiverImage.getParentMirror();
-                }
-                // not rejected
-                result.add(receiverImage);
+    /**
+     * try to exclude walls without taking into account the topography and other factors
+     * we intentionnaly do not check for wall height here as meteo conditions might virtually raise or lower the wall.
+     * @param image Image receiver index
+     * @param source Source position
+     * @return True if the source is closer than the maximum propagation distance, if all the walls are close to the
+     * direct path and if all the reflections are placed on the walls
+     */
+    private boolean isReflectionPossible(int image, Coordinate source, LineSegment sourceReceiverSegment,
+                                         LineIntersector li, Coordinate imagePosition) {
+        // Check propagation distance
+        imagePosition.setCoordinate(receiverCoordinate);
+        imagePosition.x = imageX[image];
+        imagePosition.y = imageY[image];
+        if (!(imagePosition.distance3D(source) < maximumPropagationDistance)) {
+            return false;
+        }
+        // Check distance of walls
+        int currentImage = image;
+        Coordinate reflectionPoint = source;
+        while (currentImage != -1) {
+            final LineSegment currentWallLineSegment = buildWalls.get(imageWall[currentImage]).getLineSegment();
+            if (currentWallLineSegment.distance(sourceReceiverSegment) > maximumDistanceFromWall) {
+                return false;
+            }
+            // Check if reflection is placed on the wall segment
+            imagePosition.x = imageX[currentImage];
+            imagePosition.y = imageY[currentImage];
+            li.computeIntersection(currentWallLineSegment.p0, currentWallLineSegment.p1, imagePosition,
+                    reflectionPoint);
+            if (!li.hasIntersection()) {
+                // No reflection on this wall
+                return false;
             }
+            // Set the height for the reflection point.
+            // intersect3D's height is actually sitting vertically between the two lines.
+            // But we want the reflection point to be on the line between the source and the receiver image
+            // So we need to recompute the Z value on the srcMirrRcvLine at intersection coordinates
+            Coordinate intersectionPoint = li.getIntersection(0);
+            double zIntersect = Vertex.interpolateZ(intersectionPoint, imagePosition, reflectionPoint);
+            reflectionPoint = new Coordinate(intersectionPoint.x, intersectionPoint.y, zIntersect);
+            currentImage = imageParent[currentImage];
         }
+        return true;
+    }
+
+    /**
+     * @param image Image receiver index
+     * @return The image receiver and its parents
+     */
+    private MirrorReceiver getMirrorReceiver(int image) {
+        return new MirrorReceiver(new Coordinate(imageX[image], imageY[image], receiverCoordinate.z),
+                imageParent[image] == -1 ? null : getMirrorReceiver(imageParent[image]),
+                buildWalls.get(imageWall[image]));
     }
 }
@@ -88,7 +88,14 @@ public final class BuildingIntersectionPathVisitor implements ItemVisitor {
      */
     @Override
     public void visitItem(Object item) {
-        int id = (Integer) item;
+        visitObstruction((Integer) item);
+    }
+
+    /**
+     *
+     * @param id the index of the processed obstruction to be visited
+     */
+    public void visitObstruction(int id) {
         if(!itemProcessed.contains(id)) {
             itemProcessed.add(id);
             LineObstruction processedObstruction = profileBuilder.getProcessedObstructions().get(id);
@@ -11,8 +11,11 @@ package org.noise_planet.noisemodelling.pathfinder.profilebuilder;
 
 import org.locationtech.jts.geom.Geometry;
 
+import java.io.Serializable;
 
-public class GroundAbsorption {
+
+public class GroundAbsorption implements Serializable {
+    private static final long serialVersionUID = 1L;
     /** Ground effect area footprint. */
     final Geometry geom;
     /** Ground effect coefficient. */
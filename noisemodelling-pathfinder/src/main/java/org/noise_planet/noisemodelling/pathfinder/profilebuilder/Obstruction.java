@@ -1,12 +1,14 @@
 package org.noise_planet.noisemodelling.pathfinder.profilebuilder;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Obstruction object
  */
-public class Obstruction {
+public class Obstruction implements Serializable {
+    private static final long serialVersionUID = 1L;
     public static final double DEFAULT_G = 100000;
 
     /** Obstruction alpha value. */
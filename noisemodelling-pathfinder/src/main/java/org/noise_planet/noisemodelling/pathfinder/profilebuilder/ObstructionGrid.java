@@ -0,0 +1,180 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.pathfinder.profilebuilder;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.LineSegment;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Uniform grid of the processed obstructions of a {@link ProfileBuilder}, walked cell by cell along a ray.
+ * An obstruction is stored in all the cells covered by its envelope. The obstruction indexes of all cells are stored
+ * in a single array, cell i owning the range [cellStart[i], cellStart[i + 1]).
+ * This class is immutable and can be shared between threads.
+ */
+final class ObstructionGrid implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Maximum number of cells, limit the memory used by sparse obstructions */
+    static final int MAXIMUM_CELL_COUNT = 1 << 22;
+    final double minX;
+    final double minY;
+    final double cellSize;
+    final int columns;
+    final int rows;
+    final int[] cellStart;
+    final int[] cellObstructions;
+
+    /**
+     * @param obstructions Processed obstructions, the index in the list is the stored value
+     * @param tolerance Obstructions are stored in the cells closer than this distance to their envelope
+     */
+    ObstructionGrid(List<LineObstruction> obstructions, double tolerance) {
+        Envelope envelope = new Envelope();
+        for (LineObstruction obstruction : obstructions) {
+            envelope.expandToInclude(obstruction.line.p0);
+            envelope.expandToInclude(obstruction.line.p1);
+        }
+        if(envelope.isNull()) {
+            envelope.expandToInclude(0, 0);
+        }
+        envelope.expandBy(tolerance);
+        minX = envelope.getMinX();
+        minY = envelope.getMinY();
+        double size = Math.sqrt(envelope.getArea() / Math.max(1, obstructions.size()));
+        size = Math.max(size, Math.max(envelope.getWidth(), envelope.getHeight()) / Math.sqrt(MAXIMUM_CELL_COUNT));
+        if(!(size > 0)) {
+            size = Math.max(1, Math.max(envelope.getWidth(), envelope.getHeight()));
+        }
+        cellSize = size;
+        columns = Math.max(1, (int) Math.ceil(envelope.getWidth() / cellSize));
+        rows = Math.max(1, (int) Math.ceil(envelope.getHeight() / cellSize));
+        // Count the obstructions of each cell then fill the cells
+        cellStart = new int[columns * rows + 1];
+        for (LineObstruction obstruction : obstructions) {
+            LineSegment line = obstruction.line;
+            int maxColumn = getColumn(Math.max(line.p0.x, line.p1.x) + tolerance);
+            int maxRow = getRow(Math.max(line.p0.y, line.p1.y) + tolerance);
+            for (int row = getRow(Math.min(line.p0.y, line.p1.y) - tolerance); row <= maxRow; row++) {
+                for (int column = getColumn(Math.min(line.p0.x, line.p1.x) - tolerance); column <= maxColumn; column++) {
+                    cellStart[row * columns + column + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        cellObstructions = new int[cellStart[columns * rows]];
+        int[] cellFill = new int[columns * rows];
+        for (int obstruction = 0; obstruction < obstructions.size(); obstruction++) {
+            LineSegment line = obstructions.get(obstruction).line;
+            int maxColumn = getColumn(Math.max(line.p0.x, line.p1.x) + tolerance);
+            int maxRow = getRow(Math.max(line.p0.y, line.p1.y) + tolerance);
+            for (int row = getRow(Math.min(line.p0.y, line.p1.y) - tolerance); row <= maxRow; row++) {
+                for (int column = getColumn(Math.min(line.p0.x, line.p1.x) - tolerance); column <= maxColumn; column++) {
+                    int cell = row * columns + column;
+                    cellObstructions[cellStart[cell] + cellFill[cell]++] = obstruction;
+                }
+            }
+        }
+    }
+
+    private int getColumn(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - minX) / cellSize)));
+    }
+
+    private int getRow(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) / cellSize)));
+    }
+
+    /**
+     * Visit the obstructions of the cells crossed by the segment, from p0 to p1. Each obstruction is visited once,
+     * in the order of the first crossed cell that contains it. The walk stops as soon as the visitor returns false,
+     * the cells farther along the segment are not read.
+     * @param x0 Segment first point X
+     * @param y0 Segment first point Y
+     * @param x1 Segment last point X
+     * @param y1 Segment last point Y
+     * @param state Stamps of the visited obstructions, must have been started by the caller
+     * @param visitor Called with the obstruction index, return false to stop the walk
+     * @return False if the walk has been stopped by the visitor
+     */
+    boolean traverse(double x0, double y0, double x1, double y1, ObstructionQueryState state, IntPredicate visitor) {
+        // Segment in grid coordinates
+        double gx = (x0 - minX) / cellSize;
+        double gy = (y0 - minY) / cellSize;
+        double dx = (x1 - x0) / cellSize;
+        double dy = (y1 - y0) / cellSize;
+        // Clip the segment to the grid extent (Liang-Barsky)
+        double tMin = 0;
+        double tMax = 1;
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {gx, columns - gx, gy, rows - gy};
+        for (int i = 0; i < 4; i++) {
+            if(p[i] == 0) {
+                if(q[i] < 0) {
+                    return true;
+                }
+            } else {
+                double t = q[i] / p[i];
+                if(p[i] < 0) {
+                    tMin = Math.max(tMin, t);
+                } else {
+                    tMax = Math.min(tMax, t);
+                }
+            }
+        }
+        if(tMin > tMax) {
+            return true;
+        }
+        // Walk through the grid cells, from a grid line crossing to the next one
+        int column = Math.max(0, Math.min(columns - 1, (int) Math.floor(gx + tMin * dx)));
+        int row = Math.max(0, Math.min(rows - 1, (int) Math.floor(gy + tMin * dy)));
+        int lastColumn = Math.max(0, Math.min(columns - 1, (int) Math.floor(gx + tMax * dx)));
+        int lastRow = Math.max(0, Math.min(rows - 1, (int) Math.floor(gy + tMax * dy)));
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        double tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+        double tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+        double tNextX = dx == 0 ? Double.POSITIVE_INFINITY : (column + (dx > 0 ? 1 : 0) - gx) / dx;
+        double tNextY = dy == 0 ? Double.POSITIVE_INFINITY : (row + (dy > 0 ? 1 : 0) - gy) / dy;
+        while (true) {
+            int cell = row * columns + column;
+            for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                int obstruction = cellObstructions[i];
+                if(state.process(obstruction) && !visitor.test(obstruction)) {
+                    return false;
+                }
+            }
+            if(column == lastColumn && row == lastRow) {
+                break;
+            }
+            if(tNextX < tNextY) {
+                if(tNextX > tMax) {
+                    break;
+                }
+                column += stepX;
+                tNextX += tDeltaX;
+            } else {
+                if(tNextY > tMax) {
+                    break;
+                }
+                row += stepY;
+                tNextY += tDeltaY;
+            }
+            if(column < 0 || column >= columns || row < 0 || row >= rows) {
+                break;
+            }
+        }
+        return true;
+    }
+}
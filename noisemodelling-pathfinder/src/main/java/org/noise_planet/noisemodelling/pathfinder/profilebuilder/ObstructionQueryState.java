@@ -0,0 +1,53 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.pathfinder.profilebuilder;
+
+import java.util.Arrays;
+
+/**
+ * Working state of the obstruction queries of a profile, reused by a thread for all its profiles.
+ * An obstruction is processed by the current profile if its stamp equals the profile epoch, so starting a new
+ * profile does not clear the array.
+ */
+final class ObstructionQueryState {
+    /** Epoch of the last profile that processed each obstruction */
+    int[] stamps = new int[0];
+    int epoch = 0;
+    /** Obstructions found by the last RTree query */
+    final PackedRTree.QueryBuffer queryBuffer = new PackedRTree.QueryBuffer();
+
+    /**
+     * Start a new profile, no obstruction is processed
+     * @param obstructionCount Number of processed obstructions of the profile builder
+     */
+    void start(int obstructionCount) {
+        if(stamps.length < obstructionCount) {
+            stamps = new int[obstructionCount];
+            epoch = 0;
+        }
+        if(epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            epoch = 0;
+        }
+        epoch++;
+    }
+
+    /**
+     * @param obstruction Obstruction index
+     * @return True if the obstruction was not processed yet by the current profile, it is now processed
+     */
+    boolean process(int obstruction) {
+        if(stamps[obstruction] == epoch) {
+            return false;
+        }
+        stamps[obstruction] = epoch;
+        return true;
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.pathfinder.profilebuilder;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Static RTree of integer identifiers, packed in primitive arrays.
+ * The items are sorted along a Hilbert curve then grouped by nodeSize to build each level, the leaves first and the
+ * root last. Node i owns the bounds [4 * i, 4 * i + 4) (minX, minY, maxX, maxY); the id of a leaf is the item
+ * identifier, the id of an upper node is the index of its first child.
+ * This class is immutable and can be shared between threads, the queries write their results in a
+ * {@link QueryBuffer} owned by the caller.
+ */
+public class PackedRTree implements Serializable {
+    private static final long serialVersionUID = 1L;
+    public static final int DEFAULT_NODE_SIZE = 16;
+    /** Order of the Hilbert curve, the positions along the curve fit in a positive int */
+    private static final int HILBERT_ORDER = 15;
+    private static final int HILBERT_MAX = (1 << HILBERT_ORDER) - 1;
+    final int nodeSize;
+    final int itemCount;
+    final double[] bounds;
+    final int[] ids;
+    /** End node index (exclusive) of each level, leaves first */
+    final int[] levelEnds;
+
+    /**
+     * @param itemBounds Bounds of the items minX, minY, maxX, maxY
+     * @param itemIds Identifier of the items
+     * @param nodeSize Maximum number of children of a node
+     */
+    public PackedRTree(double[] itemBounds, int[] itemIds, int nodeSize) {
+        if(itemBounds.length != itemIds.length * 4) {
+            throw new IllegalArgumentException("Expected 4 bounds per item");
+        }
+        if(nodeSize < 2) {
+            throw new IllegalArgumentException("Node size must be greater than 1");
+        }
+        this.nodeSize = nodeSize;
+        this.itemCount = itemIds.length;
+        if(itemCount == 0) {
+            bounds = new double[0];
+            ids = new int[0];
+            levelEnds = new int[0];
+            return;
+        }
+        int[] levels = new int[32];
+        int levelCount = 0;
+        int count = itemCount;
+        int nodeCount = itemCount;
+        levels[levelCount++] = nodeCount;
+        do {
+            count = (count + nodeSize - 1) / nodeSize;
+            nodeCount += count;
+            levels[levelCount++] = nodeCount;
+        } while (count != 1);
+        levelEnds = Arrays.copyOf(levels, levelCount);
+        bounds = new double[nodeCount * 4];
+        ids = new int[nodeCount];
+        // Sort the items along the Hilbert curve of the global extent
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int item = 0; item < itemCount; item++) {
+            minX = Math.min(minX, itemBounds[item * 4]);
+            minY = Math.min(minY, itemBounds[item * 4 + 1]);
+            maxX = Math.max(maxX, itemBounds[item * 4 + 2]);
+            maxY = Math.max(maxY, itemBounds[item * 4 + 3]);
+        }
+        double width = maxX - minX;
+        double height = maxY - minY;
+        long[] keys = new long[itemCount];
+        for (int item = 0; item < itemCount; item++) {
+            double centerX = (itemBounds[item * 4] + itemBounds[item * 4 + 2]) / 2;
+            double centerY = (itemBounds[item * 4 + 1] + itemBounds[item * 4 + 3]) / 2;
+            int x = width > 0 ? (int) Math.floor(HILBERT_MAX * (centerX - minX) / width) : 0;
+            int y = height > 0 ? (int) Math.floor(HILBERT_MAX * (centerY - minY) / height) : 0;
+            keys[item] = ((long) hilbert(x, y) << 32) | item;
+        }
+        Arrays.sort(keys);
+        for (int node = 0; node < itemCount; node++) {
+            int item = (int) keys[node];
+            System.arraycopy(itemBounds, item * 4, bounds, node * 4, 4);
+            ids[node] = itemIds[item];
+        }
+        // Build the upper levels
+        int childStart = 0;
+        for (int level = 1; level < levelEnds.length; level++) {
+            int childEnd = levelEnds[level - 1];
+            int node = childEnd;
+            for (int child = childStart; child < childEnd; child += nodeSize, node++) {
+                int lastChild = Math.min(child + nodeSize, childEnd);
+                double nodeMinX = Double.POSITIVE_INFINITY;
+                double nodeMinY = Double.POSITIVE_INFINITY;
+                double nodeMaxX = Double.NEGATIVE_INFINITY;
+                double nodeMaxY = Double.NEGATIVE_INFINITY;
+                for (int i = child; i < lastChild; i++) {
+                    nodeMinX = Math.min(nodeMinX, bounds[i * 4]);
+                    nodeMinY = Math.min(nodeMinY, bounds[i * 4 + 1]);
+                    nodeMaxX = Math.max(nodeMaxX, bounds[i * 4 + 2]);
+                    nodeMaxY = Math.max(nodeMaxY, bounds[i * 4 + 3]);
+                }
+                bounds[node * 4] = nodeMinX;
+                bounds[node * 4 + 1] = nodeMinY;
+                bounds[node * 4 + 2] = nodeMaxX;
+                bounds[node * 4 + 3] = nodeMaxY;
+                ids[node] = child;
+            }
+            childStart = childEnd;
+        }
+    }
+
+    /**
+     * @return Number of items
+     */
+    public int size() {
+        return itemCount;
+    }
+
+    /**
+     * Find the items whose bounds intersect the envelope
+     * @param minX Envelope min X
+     * @param minY Envelope min Y
+     * @param maxX Envelope max X
+     * @param maxY Envelope max Y
+     * @param result Cleared then filled with the identifiers of the found items
+     * @return Number of found items
+     */
+    public int query(double minX, double minY, double maxX, double maxY, QueryBuffer result) {
+        return query(minX, minY, maxX, maxY, 0, 0, 0, 0, 0, false, result);
+    }
+
+    /**
+     * Find the items whose bounds intersect the segment, or are closer to the segment line than the tolerance
+     * @param x0 Segment first point X
+     * @param y0 Segment first point Y
+     * @param x1 Segment last point X
+     * @param y1 Segment last point Y
+     * @param tolerance Distance from the segment line under which bounds are considered intersecting
+     * @param result Cleared then filled with the identifiers of the found items
+     * @return Number of found items
+     */
+    public int querySegment(double x0, double y0, double x1, double y1, double tolerance, QueryBuffer result) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        // compare with the cross product in order to avoid the square root of the segment length
+        double crossTolerance = tolerance * (Math.abs(dx) + Math.abs(dy));
+        return query(Math.min(x0, x1), Math.min(y0, y1), Math.max(x0, x1), Math.max(y0, y1),
+                x0, y0, dx, dy, crossTolerance, true, result);
+    }
+
+    private int query(double minX, double minY, double maxX, double maxY, double x0, double y0, double dx,
+                      double dy, double crossTolerance, boolean segment, QueryBuffer result) {
+        result.size = 0;
+        if(itemCount == 0) {
+            return 0;
+        }
+        int stackSize = 0;
+        int[] stack = result.stack;
+        stack[stackSize++] = levelEnds[levelEnds.length - 1] - 1;
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            int i = node * 4;
+            if(bounds[i] > maxX || bounds[i + 1] > maxY || bounds[i + 2] < minX || bounds[i + 3] < minY) {
+                continue;
+            }
+            if(segment && isBoxOnOneSide(bounds[i], bounds[i + 1], bounds[i + 2], bounds[i + 3], x0, y0, dx, dy,
+                    crossTolerance)) {
+                continue;
+            }
+            if(node < itemCount) {
+                result.add(ids[node]);
+            } else {
+                int childEnd = getLevelEnd(ids[node]);
+                int lastChild = Math.min(ids[node] + nodeSize, childEnd);
+                if(stack.length < stackSize + nodeSize) {
+                    stack = Arrays.copyOf(stack, Math.max(stack.length * 2, stackSize + nodeSize));
+                    result.stack = stack;
+                }
+                for (int child = lastChild - 1; child >= ids[node]; child--) {
+                    stack[stackSize++] = child;
+                }
+            }
+        }
+        return result.size;
+    }
+
+    /**
+     * @return True if the four corners of the box are on the same side of the segment line
+     */
+    private static boolean isBoxOnOneSide(double minX, double minY, double maxX, double maxY, double x0, double y0,
+                                          double dx, double dy, double crossTolerance) {
+        double c0 = dx * (minY - y0) - dy * (minX - x0);
+        double c1 = dx * (minY - y0) - dy * (maxX - x0);
+        double c2 = dx * (maxY - y0) - dy * (minX - x0);
+        double c3 = dx * (maxY - y0) - dy * (maxX - x0);
+        return (c0 > crossTolerance && c1 > crossTolerance && c2 > crossTolerance && c3 > crossTolerance) ||
+                (c0 < -crossTolerance && c1 < -crossTolerance && c2 < -crossTolerance && c3 < -crossTolerance);
+    }
+
+    private int getLevelEnd(int node) {
+        for (int levelEnd : levelEnds) {
+            if(node < levelEnd) {
+                return levelEnd;
+            }
+        }
+        return levelEnds[levelEnds.length - 1];
+    }
+
+    /**
+     * Position of the point on the Hilbert curve
+     * @param x X in [0, HILBERT_MAX]
+     * @param y Y in [0, HILBERT_MAX]
+     * @return Distance along the curve
+     */
+    static int hilbert(int x, int y) {
+        int d = 0;
+        for (int s = 1 << (HILBERT_ORDER - 1); s > 0; s >>= 1) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += s * s * ((3 * rx) ^ ry);
+            if(ry == 0) {
+                if(rx == 1) {
+                    x = HILBERT_MAX - x;
+                    y = HILBERT_MAX - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Reusable result of the queries, one instance must not be used by several threads
+     */
+    public static final class QueryBuffer {
+        int[] items = new int[64];
+        int size = 0;
+        int[] stack = new int[64];
+
+        void add(int id) {
+            if(size == items.length) {
+                items = Arrays.copyOf(items, items.length * 2);
+            }
+            items[size++] = id;
+        }
+
+        /**
+         * @return Number of items found by the last query
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param index Result index in [0, size)
+         * @return Item identifier
+         */
+        public int get(int index) {
+            return items[index];
+        }
+    }
+}
@@ -0,0 +1,418 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.pathfinder.profilebuilder;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.noise_planet.noisemodelling.pathfinder.delaunay.Triangle;
+import org.noise_planet.noisemodelling.pathfinder.utils.geometry.JTSUtility;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Topographic triangulation stored in primitive arrays.
+ * The vertices are stored as x,y,z triplets, the triangles and their neighbors as vertex and triangle index
+ * triplets. The neighbor i of a triangle is the triangle sharing the edge opposite to the vertex i, -1 if there is
+ * no neighbor on this edge. The walk through the triangles does not create any object.
+ * This class is immutable and can be shared between threads.
+ */
+public class PackedTin implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** First bytes of the triangulation files */
+    static final int FILE_MAGIC = 0x4E4D544E;
+    static final int FILE_VERSION = 1;
+    static final int FILE_HEADER_SIZE = 4 * Integer.BYTES;
+    static final int FILE_BUFFER_SIZE = 65536;
+    /** Vertices coordinates x0,y0,z0,x1,y1,z1.. */
+    final double[] vertices;
+    /** Vertex index of the triangles a0,b0,c0,a1,b1,c1.. */
+    final int[] triangles;
+    /** Triangle index of the triangle neighbors, the neighbor i is opposite to the vertex i */
+    final int[] neighbors;
+
+    /**
+     * @param vertices Vertices coordinates x0,y0,z0,x1,y1,z1..
+     * @param triangles Vertex index of the triangles a0,b0,c0,a1,b1,c1..
+     * @param neighbors Triangle index of the triangle neighbors, -1 if none
+     */
+    public PackedTin(double[] vertices, int[] triangles, int[] neighbors) {
+        if(vertices.length % 3 != 0 || triangles.length % 3 != 0 || neighbors.length != triangles.length) {
+            throw new IllegalArgumentException("Inconsistent triangulation arrays length");
+        }
+        this.vertices = vertices;
+        this.triangles = triangles;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * Pack the output of the delaunay triangulation
+     * @param vertices Vertices
+     * @param triangles Triangles
+     * @param neighbors Neighbors of each triangle
+     */
+    public PackedTin(List<Coordinate> vertices, List<Triangle> triangles, List<Triangle> neighbors) {
+        this(new double[vertices.size() * 3], new int[triangles.size() * 3], new int[triangles.size() * 3]);
+        for (int i = 0; i < vertices.size(); i++) {
+            Coordinate vertex = vertices.get(i);
+            this.vertices[i * 3] = vertex.x;
+            this.vertices[i * 3 + 1] = vertex.y;
+            this.vertices[i * 3 + 2] = vertex.z;
+        }
+        for (int i = 0; i < triangles.size(); i++) {
+            Triangle triangle = triangles.get(i);
+            Triangle neighbor = neighbors.get(i);
+            for (int j = 0; j < 3; j++) {
+                this.triangles[i * 3 + j] = triangle.get(j);
+                this.neighbors[i * 3 + j] = neighbor.get(j);
+            }
+        }
+    }
+
+    /**
+     * @return Number of triangles
+     */
+    public int getTriangleCount() {
+        return triangles.length / 3;
+    }
+
+    /**
+     * @return Number of vertices
+     */
+    public int getVertexCount() {
+        return vertices.length / 3;
+    }
+
+    /**
+     * @param triangle Triangle index
+     * @param i Vertex of the triangle [0-2]
+     * @return Vertex index
+     */
+    public int getVertexIndex(int triangle, int i) {
+        return triangles[triangle * 3 + i];
+    }
+
+    /**
+     * @param triangle Triangle index
+     * @param i Neighbor of the triangle [0-2], opposite to the vertex i
+     * @return Neighbor triangle index or -1
+     */
+    public int getNeighbor(int triangle, int i) {
+        return neighbors[triangle * 3 + i];
+    }
+
+    public double getX(int vertex) {
+        return vertices[vertex * 3];
+    }
+
+    public double getY(int vertex) {
+        return vertices[vertex * 3 + 1];
+    }
+
+    public double getZ(int vertex) {
+        return vertices[vertex * 3 + 2];
+    }
+
+    /**
+     * @param vertex Vertex index
+     * @return New coordinate of the vertex
+     */
+    public Coordinate getVertex(int vertex) {
+        return new Coordinate(getX(vertex), getY(vertex), getZ(vertex));
+    }
+
+    /**
+     * @param triangle Triangle index
+     * @return New coordinates of the triangle vertices
+     */
+    public Coordinate[] getTriangleVertices(int triangle) {
+        return new Coordinate[] {getVertex(getVertexIndex(triangle, 0)), getVertex(getVertexIndex(triangle, 1)),
+                getVertex(getVertexIndex(triangle, 2))};
+    }
+
+    /**
+     * @param triangle Triangle index
+     * @return Envelope of the triangle
+     */
+    public Envelope getTriangleEnvelope(int triangle) {
+        int a = getVertexIndex(triangle, 0);
+        int b = getVertexIndex(triangle, 1);
+        int c = getVertexIndex(triangle, 2);
+        return new Envelope(Math.min(getX(a), Math.min(getX(b), getX(c))),
+                Math.max(getX(a), Math.max(getX(b), getX(c))),
+                Math.min(getY(a), Math.min(getY(b), getY(c))),
+                Math.max(getY(a), Math.max(getY(b), getY(c))));
+    }
+
+    /**
+     * @return New list of the vertices
+     */
+    public List<Coordinate> getVertexList() {
+        List<Coordinate> vertexList = new ArrayList<>(getVertexCount());
+        for (int i = 0; i < getVertexCount(); i++) {
+            vertexList.add(getVertex(i));
+        }
+        return vertexList;
+    }
+
+    /**
+     * @return New list of the triangles
+     */
+    public List<Triangle> getTriangleList() {
+        List<Triangle> triangleList = new ArrayList<>(getTriangleCount());
+        for (int i = 0; i < getTriangleCount(); i++) {
+            triangleList.add(new Triangle(getVertexIndex(i, 0), getVertexIndex(i, 1), getVertexIndex(i, 2)));
+        }
+        return triangleList;
+    }
+
+    /**
+     * Distance of the point to the triangle in barycentric coordinates, see
+     * {@link JTSUtility#dotInTri(Coordinate, Coordinate, Coordinate, Coordinate, java.util.concurrent.atomic.AtomicReference)}
+     * @param triangle Triangle index
+     * @param x Point X
+     * @param y Point Y
+     * @return 0 if the point is inside the triangle, sum of the barycentric coordinates overflow otherwise
+     */
+    public double getBarycentricError(int triangle, double x, double y) {
+        int a = getVertexIndex(triangle, 0);
+        int b = getVertexIndex(triangle, 1);
+        int c = getVertexIndex(triangle, 2);
+        double ax = getX(a);
+        double ay = getY(a);
+        double v0x = getX(c) - ax;
+        double v0y = getY(c) - ay;
+        double v1x = getX(b) - ax;
+        double v1y = getY(b) - ay;
+        double v2x = x - ax;
+        double v2y = y - ay;
+        double dot00 = v0x * v0x + v0y * v0y;
+        double dot01 = v0x * v1x + v0y * v1y;
+        double dot02 = v0x * v2x + v0y * v2y;
+        double dot11 = v1x * v1x + v1y * v1y;
+        double dot12 = v1x * v2x + v1y * v2y;
+        double invDenom = 1 / (dot00 * dot11 - dot01 * dot01);
+        double u = (dot11 * dot02 - dot01 * dot12) * invDenom;
+        double v = (dot00 * dot12 - dot01 * dot02) * invDenom;
+        double err = Math.max(0, -u);
+        err += Math.max(0, -v);
+        err += Math.max(0, (u + v) - 1);
+        // NaN if the triangle is degenerated
+        return Double.isNaN(err) ? Double.MAX_VALUE : err;
+    }
+
+    /**
+     * @param triangle Triangle index
+     * @param x Point X
+     * @param y Point Y
+     * @return True if the point is inside the triangle, with a tolerance of
+     * {@link JTSUtility#TRIANGLE_INTERSECTION_EPSILON}
+     */
+    public boolean contains(int triangle, double x, double y) {
+        return getBarycentricError(triangle, x, y) < JTSUtility.TRIANGLE_INTERSECTION_EPSILON;
+    }
+
+    /**
+     * Z of the plane of the triangle at the given location, same as
+     * {@link org.locationtech.jts.triangulate.quadedge.Vertex#interpolateZ(Coordinate, Coordinate, Coordinate, Coordinate)}
+     * @param triangle Triangle index
+     * @param x Point X
+     * @param y Point Y
+     * @return Interpolated Z
+     */
+    public double interpolateZ(int triangle, double x, double y) {
+        int v0 = getVertexIndex(triangle, 0);
+        int v1 = getVertexIndex(triangle, 1);
+        int v2 = getVertexIndex(triangle, 2);
+        double x0 = getX(v0);
+        double y0 = getY(v0);
+        double a = getX(v1) - x0;
+        double b = getX(v2) - x0;
+        double c = getY(v1) - y0;
+        double d = getY(v2) - y0;
+        double det = a * d - b * c;
+        double dx = x - x0;
+        double dy = y - y0;
+        double t = (d * dx - b * dy) / det;
+        double u = (-c * dx + a * dy) / det;
+        double z0 = getZ(v0);
+        return z0 + t * (getZ(v1) - z0) + u * (getZ(v2) - z0);
+    }
+
+    /**
+     * Intersection of the segment p0 p1 with the edge of the triangle opposite to the given vertex. As
+     * {@link org.locationtech.jts.geom.LineSegment#closestPoints(org.locationtech.jts.geom.LineSegment)} the
+     * segments are considered intersecting if their distance is lower than
+     * {@link JTSUtility#TRIANGLE_INTERSECTION_EPSILON}.
+     * @param triangle Triangle index
+     * @param edge Edge index, edge i is opposite to the vertex i
+     * @param p0x Segment first point X
+     * @param p0y Segment first point Y
+     * @param p1x Segment last point X
+     * @param p1y Segment last point Y
+     * @param intersection Output array of length 3, X and Y of the intersection on the segment p0 p1 and Z
+     *                     interpolated on the triangle edge
+     * @return True if the segment intersects the edge
+     */
+    public boolean intersectEdge(int triangle, int edge, double p0x, double p0y, double p1x, double p1y,
+                                 double[] intersection) {
+        int va = getVertexIndex(triangle, (edge + 1) % 3);
+        int vb = getVertexIndex(triangle, (edge + 2) % 3);
+        double ax = getX(va);
+        double ay = getY(va);
+        double bx = getX(vb);
+        double by = getY(vb);
+        double dx = p1x - p0x;
+        double dy = p1y - p0y;
+        double ex = bx - ax;
+        double ey = by - ay;
+        double px = 0;
+        double py = 0;
+        boolean found = false;
+        double denominator = dx * ey - dy * ex;
+        if(denominator != 0) {
+            double wx = ax - p0x;
+            double wy = ay - p0y;
+            double t = (wx * ey - wy * ex) / denominator;
+            double u = (wx * dy - wy * dx) / denominator;
+            if(t >= 0 && t <= 1 && u >= 0 && u <= 1) {
+                px = p0x + t * dx;
+                py = p0y + t * dy;
+                found = true;
+            }
+        }
+        if(!found) {
+            // No proper intersection, the closest points contains at least one end point
+            double segmentLength2 = dx * dx + dy * dy;
+            double edgeLength2 = ex * ex + ey * ey;
+            // edge vertex A projected on segment
+            double f = clampedProjectionFactor(ax - p0x, ay - p0y, dx, dy, segmentLength2);
+            px = p0x + f * dx;
+            py = p0y + f * dy;
+            double minDistance = distance(px, py, ax, ay);
+            // edge vertex B projected on segment
+            f = clampedProjectionFactor(bx - p0x, by - p0y, dx, dy, segmentLength2);
+            double qx = p0x + f * dx;
+            double qy = p0y + f * dy;
+            double dist = distance(qx, qy, bx, by);
+            if(dist < minDistance) {
+                minDistance = dist;
+                px = qx;
+                py = qy;
+            }
+            // segment p0 projected on edge
+            f = clampedProjectionFactor(p0x - ax, p0y - ay, ex, ey, edgeLength2);
+            dist = distance(p0x, p0y, ax + f * ex, ay + f * ey);
+            if(dist < minDistance) {
+                minDistance = dist;
+                px = p0x;
+                py = p0y;
+            }
+            // segment p1 projected on edge
+            f = clampedProjectionFactor(p1x - ax, p1y - ay, ex, ey, edgeLength2);
+            dist = distance(p1x, p1y, ax + f * ex, ay + f * ey);
+            if(dist < minDistance) {
+                minDistance = dist;
+                px = p1x;
+                py = p1y;
+            }
+            if(!(minDistance < JTSUtility.TRIANGLE_INTERSECTION_EPSILON)) {
+                return false;
+            }
+        }
+        // Z interpolated along the edge, as Vertex.interpolateZ(p, a, b)
+        double az = getZ(va);
+        intersection[0] = px;
+        intersection[1] = py;
+        intersection[2] = az + (getZ(vb) - az) * (distance(px, py, ax, ay) / Math.sqrt(ex * ex + ey * ey));
+        return true;
+    }
+
+    /**
+     * Write the triangulation into a binary file, see {@link #read(File)}
+     * @param file Output file
+     * @throws IOException on write error
+     */
+    public void write(File file) throws IOException {
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file), FILE_BUFFER_SIZE))) {
+            outputStream.writeInt(FILE_MAGIC);
+            outputStream.writeInt(FILE_VERSION);
+            outputStream.writeInt(getVertexCount());
+            outputStream.writeInt(getTriangleCount());
+            for (double value : vertices) {
+                outputStream.writeDouble(value);
+            }
+            for (int value : triangles) {
+                outputStream.writeInt(value);
+            }
+            for (int value : neighbors) {
+                outputStream.writeInt(value);
+            }
+        }
+    }
+
+    /**
+     * Read a triangulation written by {@link #write(File)}. The file is memory mapped and bulk copied into the arrays.
+     * @param file Input file
+     * @return The triangulation
+     * @throws IOException if the file cannot be read or is not a triangulation file
+     */
+    public static PackedTin read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.remaining() < FILE_HEADER_SIZE || buffer.getInt() != FILE_MAGIC) {
+                throw new IOException("Not a triangulation file " + file);
+            }
+            int version = buffer.getInt();
+            if(version != FILE_VERSION) {
+                throw new IOException("Unsupported triangulation file version " + version);
+            }
+            int vertexCount = buffer.getInt();
+            int triangleCount = buffer.getInt();
+            if(vertexCount < 0 || triangleCount < 0 || buffer.remaining() !=
+                    (long) vertexCount * 3 * Double.BYTES + (long) triangleCount * 6 * Integer.BYTES) {
+                throw new IOException("Truncated triangulation file " + file);
+            }
+            double[] vertices = new double[vertexCount * 3];
+            int[] triangles = new int[triangleCount * 3];
+            int[] neighbors = new int[triangleCount * 3];
+            buffer.asDoubleBuffer().get(vertices);
+            buffer.position(buffer.position() + vertices.length * Double.BYTES);
+            buffer.asIntBuffer().get(triangles);
+            buffer.position(buffer.position() + triangles.length * Integer.BYTES);
+            buffer.asIntBuffer().get(neighbors);
+            return new PackedTin(vertices, triangles, neighbors);
+        }
+    }
+
+    private static double clampedProjectionFactor(double vx, double vy, double dx, double dy, double length2) {
+        if(length2 == 0) {
+            return 0;
+        }
+        double f = (vx * dx + vy * dy) / length2;
+        return f < 0 ? 0 : Math.min(f, 1);
+    }
+
+    private static double distance(double x0, double y0, double x1, double y1) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -24,14 +24,12 @@ import org.noise_planet.noisemodelling.pathfinder.delaunay.LayerTinfour;
 import org.noise_planet.noisemodelling.pathfinder.delaunay.Triangle;
 import org.noise_planet.noisemodelling.pathfinder.path.Scene;
 import org.noise_planet.noisemodelling.pathfinder.utils.AcousticIndicatorsFunctions;
-import org.noise_planet.noisemodelling.pathfinder.utils.IntegerTuple;
-import org.noise_planet.noisemodelling.pathfinder.utils.geometry.JTSUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 
 import static java.lang.Double.NaN;
 import static java.lang.Double.isNaN;
@@ -40,7 +38,8 @@ import static org.locationtech.jts.algorithm.Orientation.isCCW;
 /**
  * Builder constructing profiles from buildings, topography, and ground effects.
  */
-public class ProfileBuilder {
+public class ProfileBuilder implements Serializable {
+    private static final long serialVersionUID = 1L;
     public static final double epsilon = 1e-7;
     public static final double MILLIMETER = 0.001;
     public static final double LEFT_SIDE = Math.PI / 2;
@@ -51,6 +50,8 @@ public class ProfileBuilder {
     /** {@link Geometry} factory. */
     private static final GeometryFactory FACTORY = new GeometryFactory();
     private static final double DELTA = 1e-3;
+    /** Order of the triangle sides tested while walking through the DEM: AB, BC then CA */
+    private static final int[] TRIANGLE_WALK_SIDES = new int[] {2, 0, 1};
 
     /** If true, no more data can be added. */
     private boolean isFeedingFinished = false;
@@ -76,8 +77,8 @@ public class ProfileBuilder {
     /** Building RTree. */
     private final STRtree wallTree = new STRtree(TREE_NODE_CAPACITY);
     /** RTree with Buildings's walls linestrings, walls linestring, GroundEffect linestrings
-     * The object is an integer. It's an index of the array {@link #processedObstructions} */
-    public STRtree rtree;
+     * The item is an index of the array {@link #processedObstructions} */
+    public PackedRTree rtree;
     private STRtree groundEffectsRtree = new STRtree(TREE_NODE_CAPACITY);
 
 
@@ -85,14 +86,29 @@ public class ProfileBuilder {
     private final List<Coordinate> topoPoints = new ArrayList<>();
     /** List of topographic lines. */
     private final List<LineString> topoLines = new ArrayList<>();
-    /** Topographic triangle facets. */
-    private List<Triangle> topoTriangles = new ArrayList<>();
-    /** Topographic triangle neighbors. */
-    private List<Triangle> topoNeighbors = new ArrayList<>();
-    /** Topographic Vertices .*/
-    private List<Coordinate> vertices = new ArrayList<>();
+    /** Topographic triangles, neighbors and vertices, null if there is no DEM. */
+    private PackedTin topoTin;
+    /** Topographic triangles built from topoTin on the first call of {@link #getTriangles()} */
+    private transient List<Triangle> topoTriangles;
+    /** Topographic vertices built from topoTin on the first call of {@link #getVertices()} */
+    private transient List<Coordinate> topoVertices;
     /** Topographic RTree. */
     private STRtree topoTree;
+    /** Grid locating the DEM triangle of a point, null if disabled */
+    private TinGridIndex topoGridIndex;
+    /** If true the DEM triangles are located using a uniform grid instead of the RTree */
+    private boolean topoGridIndexEnabled = true;
+    /** Regular grid DEM, used instead of the triangulation of the topographic points and lines if set. Shared between
+     * the cells, so it is not stored in the snapshots */
+    private transient RasterDem rasterDem;
+    /** Visited triangles of the DEM walk, one per thread and shared by all the instances */
+    private static final ThreadLocal<TriangleWalkState> TRIANGLE_WALK_STATE = ThreadLocal.withInitial(TriangleWalkState::new);
+    /** Grid of the processed obstructions walked along the profiles, null if disabled */
+    private ObstructionGrid obstructionGrid;
+    /** If true the obstructions crossed by a profile are found using a uniform grid instead of the RTree */
+    private boolean obstructionGridEnabled = true;
+    /** Processed obstructions and query buffer of the profiles, one per thread and shared by all the instances */
+    private static final ThreadLocal<ObstructionQueryState> OBSTRUCTION_QUERY_STATE = ThreadLocal.withInitial(ObstructionQueryState::new);
 
     /** List of ground effects. */
     private final List<GroundAbsorption> groundAbsorptions = new ArrayList<>();
@@ -156,6 +172,73 @@ public class ProfileBuilder {
 
     }
 
+    /**
+     * @param topoGridIndexEnabled If true (default) a uniform grid of the DEM triangles is created by
+     *                             {@link #finishFeeding()} to locate the triangle of a point in near constant time,
+     *                             if false the triangle RTree is queried.
+     */
+    public void setTopoGridIndexEnabled(boolean topoGridIndexEnabled) {
+        this.topoGridIndexEnabled = topoGridIndexEnabled;
+    }
+
+    /**
+     * @return True if the DEM triangles are located using a uniform grid
+     */
+    public boolean isTopoGridIndexEnabled() {
+        return topoGridIndexEnabled;
+    }
+
+    /**
+     * @param obstructionGridEnabled If true (default) a uniform grid of the buildings, walls and ground effect lines
+     *                               is created by {@link #finishFeeding()}, the cells crossed by a profile are walked
+     *                               from the source to the receiver. If false the RTree is queried with parts of the
+     *                               profile line.
+     */
+    public void setObstructionGridEnabled(boolean obstructionGridEnabled) {
+        this.obstructionGridEnabled = obstructionGridEnabled;
+    }
+
+    /**
+     * @return True if the obstructions crossed by a profile are found using a uniform grid
+     */
+    public boolean isObstructionGridEnabled() {
+        return obstructionGridEnabled;
+    }
+
+    /**
+     * Use a regular grid elevation model. The profiles are sampled directly on the grid and the topographic points
+     * and lines are not triangulated.
+     * @param rasterDem Regular grid elevation model, shared without copy
+     */
+    public void setRasterDem(RasterDem rasterDem) {
+        this.rasterDem = rasterDem;
+    }
+
+    /**
+     * @return Regular grid elevation model or null
+     */
+    public RasterDem getRasterDem() {
+        return rasterDem;
+    }
+
+    /**
+     * Use a precomputed triangulation of the topography, the topographic points and lines are then not triangulated
+     * by {@link #finishFeeding()}.
+     * @param tin Triangulation, see {@link #getTin()}
+     */
+    public void setTin(PackedTin tin) {
+        this.topoTin = tin;
+        this.topoTriangles = null;
+        this.topoVertices = null;
+    }
+
+    /**
+     * @return True if {@link #finishFeeding()} has been called
+     */
+    public boolean isFeedingFinished() {
+        return isFeedingFinished;
+    }
+
     public static void initializeFrequencyArrayFromReference(List<Integer> frequencyArray,
                                                              List<Double> exactFrequencyArray,
                                                              List<Double> aWeightingArray) {
@@ -678,19 +761,41 @@ public class ProfileBuilder {
     }
 
     /**
-     * Retrieve the topographic triangles.
+     * Retrieve the topographic triangles. The list is built from {@link #getTin()} on the first call then the same
+     * list is returned, changing it does not change the triangulation.
      * @return The topographic triangles.
      */
     public List<Triangle> getTriangles() {
+        if(topoTriangles == null) {
+            topoTriangles = topoTin == null ? new ArrayList<>() : topoTin.getTriangleList();
+        }
         return topoTriangles;
     }
 
     /**
-     * Retrieve the topographic vertices.
+     * Retrieve the topographic vertices. The list is built from {@link #getTin()} on the first call then the same
+     * list is returned, changing it does not change the triangulation.
      * @return The topographic vertices.
      */
     public List<Coordinate> getVertices() {
-        return vertices;
+        if(topoVertices == null) {
+            topoVertices = topoTin == null ? new ArrayList<>() : topoTin.getVertexList();
+        }
+        return topoVertices;
+    }
+
+    /**
+     * @return The topographic triangulation, null if there is no DEM
+     */
+    public PackedTin getTin() {
+        return topoTin;
+    }
+
+    /**
+     * @return Number of topographic triangles
+     */
+    public int getTriangleCount() {
+        return topoTin == null ? 0 : topoTin.getTriangleCount();
     }
 
     /**
@@ -721,7 +826,7 @@ public class ProfileBuilder {
         isFeedingFinished = true;
 
         //Process topographic points and lines
-        if(topoPoints.size()+topoLines.size() > 1) {
+        if(rasterDem == null && topoTin == null && topoPoints.size()+topoLines.size() > 1) {
             //Feed the Delaunay layer
             LayerDelaunay layerDelaunay = new LayerTinfour();
             layerDelaunay.setRetrieveNeighbors(true);
@@ -750,35 +855,23 @@ public class ProfileBuilder {
                 return null;
             }
             try {
-                topoTriangles = layerDelaunay.getTriangles();
-                topoNeighbors = layerDelaunay.getNeighbors();
+                setTin(new PackedTin(layerDelaunay.getVertices(), layerDelaunay.getTriangles(),
+                        layerDelaunay.getNeighbors()));
             } catch (LayerDelaunayError e) {
                 LOGGER.error("Error while getting triangles", e);
                 return null;
             }
+        }
+        if(rasterDem == null && topoTin != null) {
             //Feed the RTree
             topoTree = new STRtree(topoNodeCapacity);
-            try {
-                vertices = layerDelaunay.getVertices();
-            } catch (LayerDelaunayError e) {
-                LOGGER.error("Error while getting vertices", e);
-                return null;
-            }
-            // wallIndex set will merge shared triangle segments
-            Set<IntegerTuple> wallIndex = new HashSet<>();
-            for (int i = 0; i < topoTriangles.size(); i++) {
-                final Triangle tri = topoTriangles.get(i);
-                wallIndex.add(new IntegerTuple(tri.getA(), tri.getB(), i));
-                wallIndex.add(new IntegerTuple(tri.getB(), tri.getC(), i));
-                wallIndex.add(new IntegerTuple(tri.getC(), tri.getA(), i));
-                // Insert triangle in rtree
-                Coordinate vA = vertices.get(tri.getA());
-                Coordinate vB = vertices.get(tri.getB());
-                Coordinate vC = vertices.get(tri.getC());
-                Envelope env = FACTORY.createLineString(new Coordinate[]{vA, vB, vC}).getEnvelopeInternal();
-                topoTree.insert(env, i);
+            for (int i = 0; i < topoTin.getTriangleCount(); i++) {
+                topoTree.insert(topoTin.getTriangleEnvelope(i), i);
             }
             topoTree.build();
+            if(topoGridIndexEnabled) {
+                topoGridIndex = new TinGridIndex(topoTin);
+            }
         }
 
         for (Building b : buildings) {
@@ -792,7 +885,6 @@ public class ProfileBuilder {
             }
         }
         //Process buildings
-        rtree = new STRtree(buildingNodeCapacity);
         buildingsWideAnglePoints.clear();
         for (int j = 0; j < buildings.size(); j++) {
             Building building = buildings.get(j);
@@ -805,7 +897,6 @@ public class ProfileBuilder {
                 w.setPrimaryKey(building.getPrimaryKey());
                 w.copyAlphas(building);
                 processedObstructions.add(w);
-                rtree.insert(lineSegment.toGeometry(FACTORY).getEnvelopeInternal(), processedObstructions.size()-1);
             }
         }
         for (int j = 0; j < walls.size(); j++) {
@@ -817,7 +908,6 @@ public class ProfileBuilder {
                 w.copyAlphas(wall);
                 w.setPrimaryKey(wall.primaryKey);
                 processedObstructions.add(w);
-                rtree.insert(lineSegment.toGeometry(FACTORY).getEnvelopeInternal(), processedObstructions.size()-1);
             }
         }
         // Set buildings and walls unmodifiable
@@ -843,11 +933,23 @@ public class ProfileBuilder {
                 for (int k = 0; k < coords.length - 1; k++) {
                     LineSegment line = new LineSegment(coords[k], coords[k + 1]);
                     processedObstructions.add(new GroundLine(line, j).setProcessedObstructionIndex(processedObstructions.size()));
-                    rtree.insert(new Envelope(line.p0, line.p1), processedObstructions.size() - 1);
                 }
             }
         }
-        rtree.build();
+        double[] obstructionBounds = new double[processedObstructions.size() * 4];
+        int[] obstructionIds = new int[processedObstructions.size()];
+        for (int i = 0; i < processedObstructions.size(); i++) {
+            LineSegment line = processedObstructions.get(i).line;
+            obstructionBounds[i * 4] = Math.min(line.p0.x, line.p1.x);
+            obstructionBounds[i * 4 + 1] = Math.min(line.p0.y, line.p1.y);
+            obstructionBounds[i * 4 + 2] = Math.max(line.p0.x, line.p1.x);
+            obstructionBounds[i * 4 + 3] = Math.max(line.p0.y, line.p1.y);
+            obstructionIds[i] = i;
+        }
+        rtree = new PackedRTree(obstructionBounds, obstructionIds, PackedRTree.DEFAULT_NODE_SIZE);
+        if(obstructionGridEnabled && !processedObstructions.isEmpty()) {
+            obstructionGrid = new ObstructionGrid(processedObstructions, epsilon);
+        }
         groundEffectsRtree.build();
         // initialize with default frequencies
         setFrequencyArray(frequencyArray);
@@ -879,9 +981,10 @@ public class ProfileBuilder {
      */
     public List<Wall> getWallsIn(Envelope env) {
         List<Wall> list = new ArrayList<>();
-        List<Integer> indexes = rtree.query(env);
-        for(int i : indexes) {
-            LineObstruction obstruction = getProcessedObstructions().get(i);
+        PackedRTree.QueryBuffer indexes = OBSTRUCTION_QUERY_STATE.get().queryBuffer;
+        rtree.query(env.getMinX(), env.getMinY(), env.getMaxX(), env.getMaxY(), indexes);
+        for(int j = 0; j < indexes.size(); j++) {
+            LineObstruction obstruction = getProcessedObstructions().get(indexes.get(j));
             if(obstruction instanceof Wall) {
                 list.add((Wall) obstruction);
             }
@@ -953,7 +1056,7 @@ public class ProfileBuilder {
         }
 
         //Fetch topography evolution between sourceCoordinate and receiverCoordinate
-        if(topoTree != null) {
+        if(hasDem()) {
             addTopoCutPts(sourceCoordinate, receiverCoordinate, profile, stopAtObstacleOverSourceReceiver);
             if(stopAtObstacleOverSourceReceiver && profile.hasTopographyIntersection) {
                 return profile;
@@ -1143,60 +1246,32 @@ public class ProfileBuilder {
      *                                        receiverCoordinate, stop computing and set #CutProfile.hasBuildingInter to buildings in profile data
      */
     private void addGroundBuildingCutPts(LineSegment fullLine, CutProfile profile, boolean stopAtObstacleOverSourceReceiver) {
-        // Collect all objects where envelope intersects all sub-segments of fullLine
-        Set<Integer> processed = new HashSet<>();
-
-        // Segmented fullLine, this is the query for rTree indexes
-        // Split line into segments for structures based on RTree in order to limit the number of queries
-        // (for large area of the line segment envelope)
-        List<LineSegment> lines = splitSegment(fullLine.p0, fullLine.p1, maxLineLength);
+        // Collect all objects where bounds intersect all sub-segments of fullLine
+        ObstructionQueryState queryState = OBSTRUCTION_QUERY_STATE.get();
+        queryState.start(processedObstructions.size());
         List<CutPoint> newCutPoints = new LinkedList<>();
         try {
+            if (obstructionGrid != null) {
+                // Obstructions of the grid cells crossed by the line, from p0 to p1, the walk ends at the first
+                // obstacle over the source-receiver line if requested
+                obstructionGrid.traverse(fullLine.p0.x, fullLine.p0.y, fullLine.p1.x, fullLine.p1.y, queryState,
+                        i -> processObstruction(i, fullLine, newCutPoints, stopAtObstacleOverSourceReceiver, profile));
+                return;
+            }
+            PackedRTree.QueryBuffer queryBuffer = queryState.queryBuffer;
+            // Segmented fullLine, this is the query for rTree indexes
+            // Split line into segments for structures based on RTree in order to limit the number of queries
+            // (for large area of the line segment envelope)
+            List<LineSegment> lines = splitSegment(fullLine.p0, fullLine.p1, maxLineLength);
             for (int j = 0; j < lines.size()
                     && !(profile.hasBuildingIntersection && stopAtObstacleOverSourceReceiver); j++) {
                 LineSegment line = lines.get(j);
-                for (Object result : rtree.query(new Envelope(line.p0, line.p1))) {
-                    if (!(result instanceof Integer) || processed.contains((Integer) result)) {
-                        continue;
-                    }
-                    processed.add((Integer) result);
-                    int i = (Integer) result;
-                    LineObstruction facetLine = processedObstructions.get(i);
-                    Coordinate intersection = fullLine.intersection(facetLine.line);
-                    if (intersection != null) {
-                        intersection = new Coordinate(intersection);
-                        if (!isNaN(facetLine.line.p0.z) && !isNaN(facetLine.line.p1.z)) {
-                            // same z in the line, so useless to compute interpolation between points
-                            if (Double.compare(facetLine.line.p0.z, facetLine.line.p1.z) == 0) {
-                                intersection.z = facetLine.line.p0.z;
-                            } else {
-                                intersection.z = Vertex.interpolateZ(intersection, facetLine.line.p0, facetLine.line.p1);
-                            }
-                        }
-                        if (facetLine instanceof Wall) {
-                            Wall facetWall = (Wall) facetLine;
-                            switch (facetWall.type) {
-                                case BUILDING:
-                                    if (!processBuilding(i, intersection, facetWall, fullLine, newCutPoints,
-                                            stopAtObstacleOverSourceReceiver, profile)) {
-                                        return;
-                                    }
-                                    break;
-                                case WALL:
-                                    if (!processWall(i, intersection, facetWall, fullLine, newCutPoints,
-                                            stopAtObstacleOverSourceReceiver, profile)) {
-                                        return;
-                                    }
-                                    break;
-                            }
-                        }
-                        if (facetLine instanceof GroundLine) {
-                            GroundLine facetGroundLine = (GroundLine) facetLine;
-                            if (!processGroundEffect(i, intersection, facetGroundLine, fullLine, newCutPoints,
-                                    stopAtObstacleOverSourceReceiver, profile)) {
-                                return;
-                            }
-                        }
+                rtree.querySegment(line.p0.x, line.p0.y, line.p1.x, line.p1.y, epsilon, queryBuffer);
+                for (int k = 0; k < queryBuffer.size(); k++) {
+                    int i = queryBuffer.get(k);
+                    if (queryState.process(i) && !processObstruction(i, fullLine, newCutPoints,
+                            stopAtObstacleOverSourceReceiver, profile)) {
+                        return;
                     }
                 }
             }
@@ -1205,9 +1280,60 @@ public class ProfileBuilder {
         }
     }
 
+    /**
+     * Add the cut points of the intersection between the line and a processed obstruction
+     * @param i Index of the processed obstruction
+     * @param fullLine P0 to P1 query for the profile of buildings
+     * @param newCutPoints Cut points to add to the profile (out)
+     * @param stopAtObstacleOverSourceReceiver If an obstacle is found higher than then segment sourceCoordinate
+     *                                        receiverCoordinate, stop computing
+     * @param profile Object to feed the results (out)
+     * @return False if the computation of the profile must stop
+     */
+    private boolean processObstruction(int i, LineSegment fullLine, List<CutPoint> newCutPoints,
+                                       boolean stopAtObstacleOverSourceReceiver, CutProfile profile) {
+        LineObstruction facetLine = processedObstructions.get(i);
+        Coordinate intersection = fullLine.intersection(facetLine.line);
+        if (intersection != null) {
+            intersection = new Coordinate(intersection);
+            if (!isNaN(facetLine.line.p0.z) && !isNaN(facetLine.line.p1.z)) {
+                // same z in the line, so useless to compute interpolation between points
+                if (Double.compare(facetLine.line.p0.z, facetLine.line.p1.z) == 0) {
+                    intersection.z = facetLine.line.p0.z;
+                } else {
+                    intersection.z = Vertex.interpolateZ(intersection, facetLine.line.p0, facetLine.line.p1);
+                }
+            }
+            if (facetLine instanceof Wall) {
+                Wall facetWall = (Wall) facetLine;
+                switch (facetWall.type) {
+                    case BUILDING:
+                        if (!processBuilding(i, intersection, facetWall, fullLine, newCutPoints,
+                                stopAtObstacleOverSourceReceiver, profile)) {
+                            return false;
+                        }
+                        break;
+                    case WALL:
+                        if (!processWall(i, intersection, facetWall, fullLine, newCutPoints,
+                                stopAtObstacleOverSourceReceiver, profile)) {
+                            return false;
+                        }
+                        break;
+                }
+            }
+            if (facetLine instanceof GroundLine) {
+                GroundLine facetGroundLine = (GroundLine) facetLine;
+                if (!processGroundEffect(i, intersection, facetGroundLine, fullLine, newCutPoints,
+                        stopAtObstacleOverSourceReceiver, profile)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     Coordinate[] getTriangleVertices(int triIndex) {
-        final Triangle tri = topoTriangles.get(triIndex);
-        return new Coordinate[] {this.vertices.get(tri.getA()), this.vertices.get(tri.getB()), this.vertices.get(tri.getC())};
+        return topoTin.getTriangleVertices(triIndex);
     }
     /**
      * Compute the next triangle index.Find the shortest intersection point of
@@ -1215,78 +1341,36 @@ public class ProfileBuilder {
      *
      * @param triIndex        Triangle index
      * @param propagationLine Propagation line
+     * @param walkState Visited triangles, the intersection with the next triangle is written into
+     *                  {@link TriangleWalkState#intersection}
      * @return Next triangle to the specified direction, -1 if there is no
      * triangle neighbor.
      */
     private int getNextTri(final int triIndex,
                            final LineSegment propagationLine,
-                           HashSet<Integer> navigationHistory, final Coordinate segmentIntersection) {
-        final Triangle tri = topoTriangles.get(triIndex);
-        final Triangle triNeighbors = topoNeighbors.get(triIndex);
+                           final TriangleWalkState walkState) {
+        final double[] edgeIntersection = walkState.edgeIntersection;
         int nearestIntersectionSide = -1;
-        int idNeighbor;
-
         double nearestIntersectionPtDist = Double.MAX_VALUE;
-        // Find intersection pt
-        final Coordinate aTri = this.vertices.get(tri.getA());
-        final Coordinate bTri = this.vertices.get(tri.getB());
-        final Coordinate cTri = this.vertices.get(tri.getC());
-        double distline_line;
-        // Intersection First Side
-        idNeighbor = triNeighbors.get(2);
-        if (!navigationHistory.contains(idNeighbor)) {
-            LineSegment triSegment = new LineSegment(aTri, bTri);
-            Coordinate[] closestPoints = propagationLine.closestPoints(triSegment);
-            Coordinate intersectionTest = null;
-            if(closestPoints.length == 2 && closestPoints[0].distance(closestPoints[1]) < JTSUtility.TRIANGLE_INTERSECTION_EPSILON) {
-                intersectionTest = new Coordinate(closestPoints[0].x, closestPoints[0].y, Vertex.interpolateZ(closestPoints[0], triSegment.p0, triSegment.p1));
-            }
-            if(intersectionTest != null) {
-                distline_line = propagationLine.p1.distance(intersectionTest);
-                if (distline_line < nearestIntersectionPtDist) {
-                    segmentIntersection.setCoordinate(intersectionTest);
-                    nearestIntersectionPtDist = distline_line;
-                    nearestIntersectionSide = 2;
-                }
-            }
-        }
-        // Intersection Second Side
-        idNeighbor = triNeighbors.get(0);
-        if (!navigationHistory.contains(idNeighbor)) {
-            LineSegment triSegment = new LineSegment(bTri, cTri);
-            Coordinate[] closestPoints = propagationLine.closestPoints(triSegment);
-            Coordinate intersectionTest = null;
-            if(closestPoints.length == 2 && closestPoints[0].distance(closestPoints[1]) < JTSUtility.TRIANGLE_INTERSECTION_EPSILON) {
-                intersectionTest = new Coordinate(closestPoints[0].x, closestPoints[0].y, Vertex.interpolateZ(closestPoints[0], triSegment.p0, triSegment.p1));
-            }
-            if(intersectionTest != null) {
-                distline_line = propagationLine.p1.distance(intersectionTest);
+        final Coordinate p0 = propagationLine.p0;
+        final Coordinate p1 = propagationLine.p1;
+        // Sides AB, BC then CA, the side i is opposite to the vertex i
+        for (int side : TRIANGLE_WALK_SIDES) {
+            int idNeighbor = topoTin.getNeighbor(triIndex, side);
+            if (!walkState.isVisited(idNeighbor) &&
+                    topoTin.intersectEdge(triIndex, side, p0.x, p0.y, p1.x, p1.y, edgeIntersection)) {
+                double dx = p1.x - edgeIntersection[0];
+                double dy = p1.y - edgeIntersection[1];
+                double distline_line = Math.sqrt(dx * dx + dy * dy);
                 if (distline_line < nearestIntersectionPtDist) {
-                    segmentIntersection.setCoordinate(intersectionTest);
+                    System.arraycopy(edgeIntersection, 0, walkState.intersection, 0, 3);
                     nearestIntersectionPtDist = distline_line;
-                    nearestIntersectionSide = 0;
-                }
-            }
-        }
-        // Intersection Third Side
-        idNeighbor = triNeighbors.get(1);
-        if (!navigationHistory.contains(idNeighbor)) {
-            LineSegment triSegment = new LineSegment(cTri, aTri);
-            Coordinate[] closestPoints = propagationLine.closestPoints(triSegment);
-            Coordinate intersectionTest = null;
-            if(closestPoints.length == 2 && closestPoints[0].distance(closestPoints[1]) < JTSUtility.TRIANGLE_INTERSECTION_EPSILON) {
-                intersectionTest = new Coordinate(closestPoints[0].x, closestPoints[0].y, Vertex.interpolateZ(closestPoints[0], triSegment.p0, triSegment.p1));
-            }
-            if(intersectionTest != null) {
-                distline_line = propagationLine.p1.distance(intersectionTest);
-                if (distline_line < nearestIntersectionPtDist) {
-                    segmentIntersection.setCoordinate(intersectionTest);
-                    nearestIntersectionSide = 1;
+                    nearestIntersectionSide = side;
                 }
             }
         }
         if(nearestIntersectionSide > -1) {
-            return triNeighbors.get(nearestIntersectionSide);
+            return topoTin.getNeighbor(triIndex, nearestIntersectionSide);
         } else {
             return -1;
         }
@@ -1299,9 +1383,7 @@ public class ProfileBuilder {
      * @return triangle vertices
      */
     Coordinate[] getTriangle(int triIndex) {
-        final Triangle tri = this.topoTriangles.get(triIndex);
-        return new Coordinate[]{this.vertices.get(tri.getA()),
-                this.vertices.get(tri.getB()), this.vertices.get(tri.getC())};
+        return topoTin.getTriangleVertices(triIndex);
     }
 
 
@@ -1311,9 +1393,8 @@ public class ProfileBuilder {
      * @return triangle vertices
      */
     Coordinate[] getClosedTriangle(int triIndex) {
-        final Triangle tri = this.topoTriangles.get(triIndex);
-        return new Coordinate[]{this.vertices.get(tri.getA()), this.vertices.get(tri.getB()),
-                this.vertices.get(tri.getC()), this.vertices.get(tri.getA())};
+        Coordinate[] triangle = topoTin.getTriangleVertices(triIndex);
+        return new Coordinate[]{triangle[0], triangle[1], triangle[2], triangle[0]};
     }
 
     /**
@@ -1324,6 +1405,9 @@ public class ProfileBuilder {
      */
 
     public int getTriangleIdByCoordinate(Coordinate pt) {
+        if(topoGridIndex != null) {
+            return topoGridIndex.findTriangle(pt.x, pt.y, 1);
+        }
         Envelope ptEnv = new Envelope(pt);
         ptEnv.expandBy(1);
         var res = topoTree.query(new Envelope(ptEnv));
@@ -1331,11 +1415,9 @@ public class ProfileBuilder {
         int minDistanceTriangle = -1;
         for(Object objInd : res) {
             int triId = (Integer) objInd;
-            Coordinate[] tri = getTriangle(triId);
-            AtomicReference<Double> err = new AtomicReference<>(0.);
-            JTSUtility.dotInTri(pt, tri[0], tri[1], tri[2], err);
-            if (err.get() < minDistance) {
-                minDistance = err.get();
+            double err = topoTin.getBarycentricError(triId, pt.x, pt.y);
+            if (err < minDistance) {
+                minDistance = err;
                 minDistanceTriangle = triId;
             }
         }
@@ -1430,6 +1512,9 @@ public class ProfileBuilder {
      * @return True if the segment p1-p2 is not intersecting with DEM
      */
     public boolean fetchTopographicProfile(List<Coordinate> outputPoints,Coordinate p1, Coordinate p2, boolean stopAtObstacleOverSourceReceiver) {
+        if(rasterDem != null) {
+            return rasterDem.fetchTopographicProfile(outputPoints, p1, p2, stopAtObstacleOverSourceReceiver);
+        }
         if(topoTree == null) {
             return true;
         }
@@ -1451,28 +1536,32 @@ public class ProfileBuilder {
                 return true;
             }
         }
-        HashSet<Integer> navigationHistory = new HashSet<Integer>();
+        TriangleWalkState walkState = TRIANGLE_WALK_STATE.get();
+        walkState.start(topoTin.getTriangleCount());
         int navigationTri = curTriP1;
         // Add p1 coordinate
-        Coordinate[] triangleVertex = getTriangleVertices(curTriP1);
-        outputPoints.add(new Coordinate(p1.x, p1.y, Vertex.interpolateZ(p1, triangleVertex[0], triangleVertex[1], triangleVertex[2])));
+        outputPoints.add(new Coordinate(p1.x, p1.y, topoTin.interpolateZ(curTriP1, p1.x, p1.y)));
         boolean freeField = true;
+        final double[] intersectionPt = walkState.intersection;
+        final double propaLength = p1.distance(p2);
         while (navigationTri != -1) {
-            navigationHistory.add(navigationTri);
-            Coordinate intersectionPt = new Coordinate();
-            int propaTri = this.getNextTri(navigationTri, propaLine, navigationHistory, intersectionPt);
+            walkState.visit(navigationTri);
+            intersectionPt[2] = NaN;
+            int propaTri = this.getNextTri(navigationTri, propaLine, walkState);
             if(propaTri == -1) {
                 // Add p2 coordinate
-                triangleVertex = getTriangleVertices(navigationTri);
-                outputPoints.add(new Coordinate(p2.x, p2.y, Vertex.interpolateZ(p2, triangleVertex[0], triangleVertex[1], triangleVertex[2])));
+                outputPoints.add(new Coordinate(p2.x, p2.y, topoTin.interpolateZ(navigationTri, p2.x, p2.y)));
             } else {
                 // Found next triangle (if propaTri >= 0)
                 // extract X,Y,Z values of intersection with triangle segment
-                if(!Double.isNaN(intersectionPt.z)) {
-                    outputPoints.add(intersectionPt);
-                    Coordinate closestPointOnPropagationLine = propaLine.closestPoint(intersectionPt);
-                    double interpolatedZ = Vertex.interpolateZ(closestPointOnPropagationLine, propaLine.p0, propaLine.p1);
-                    if(interpolatedZ < intersectionPt.z) {
+                if(!Double.isNaN(intersectionPt[2])) {
+                    outputPoints.add(new Coordinate(intersectionPt[0], intersectionPt[1], intersectionPt[2]));
+                    // the intersection is located on the propagation line
+                    double dx = intersectionPt[0] - p1.x;
+                    double dy = intersectionPt[1] - p1.y;
+                    double interpolatedZ = propaLength == 0 ? p1.z :
+                            p1.z + (p2.z - p1.z) * (Math.sqrt(dx * dx + dy * dy) / propaLength);
+                    if(interpolatedZ < intersectionPt[2]) {
                         freeField = false;
                         if(stopAtObstacleOverSourceReceiver) {
                             return false;
@@ -1498,7 +1587,7 @@ public class ProfileBuilder {
      * @return True if digital elevation model has been added
      */
     public boolean hasDem() {
-        return topoTree != null && !topoTree.isEmpty();
+        return rasterDem != null || (topoTree != null && !topoTree.isEmpty());
     }
 
     /**
@@ -1506,9 +1595,9 @@ public class ProfileBuilder {
      */
     public MultiPolygon demAsMultiPolygon() {
         GeometryFactory GF = new GeometryFactory();
-        if(!topoTriangles.isEmpty()) {
-            List<Polygon> polyTri = new ArrayList<>(topoTriangles.size());
-            for (int i = 0; i < topoTriangles.size(); i++) {
+        if(topoTin != null && topoTin.getTriangleCount() > 0) {
+            List<Polygon> polyTri = new ArrayList<>(topoTin.getTriangleCount());
+            for (int i = 0; i < topoTin.getTriangleCount(); i++) {
                 polyTri.add(GF.createPolygon(getClosedTriangle(i)));
             }
             return GF.createMultiPolygon(polyTri.toArray(Polygon[]::new));
@@ -1535,16 +1624,16 @@ public class ProfileBuilder {
      * @return Altitude in meters from sea level
      */
     public double getZGround(Coordinate coordinate, AtomicInteger triangleHint) {
+        if(rasterDem != null) {
+            double z = rasterDem.getZ(coordinate.x, coordinate.y);
+            return Double.isNaN(z) ? 0.0 : z;
+        }
         if(topoTree == null) {
             return 0.0;
         }
         int i = triangleHint.get();
-        if(i >= 0 && i < topoTriangles.size()) {
-            final Triangle tri = topoTriangles.get(i);
-            final Coordinate p1 = vertices.get(tri.getA());
-            final Coordinate p2 = vertices.get(tri.getB());
-            final Coordinate p3 = vertices.get(tri.getC());
-            if(!JTSUtility.dotInTri(coordinate, p1, p2, p3)) {
+        if(i >= 0 && i < topoTin.getTriangleCount()) {
+            if(!topoTin.contains(i, coordinate.x, coordinate.y)) {
                 i = -1;
             }
         }
@@ -1554,13 +1643,9 @@ public class ProfileBuilder {
                 return 0.0;
             }
         }
-        final Triangle tri = topoTriangles.get(i);
-        final Coordinate p1 = vertices.get(tri.getA());
-        final Coordinate p2 = vertices.get(tri.getB());
-        final Coordinate p3 = vertices.get(tri.getC());
-        if(JTSUtility.dotInTri(coordinate, p1, p2, p3)) {
+        if(topoTin.contains(i, coordinate.x, coordinate.y)) {
             triangleHint.set(i);
-            return Vertex.interpolateZ(coordinate, p1, p2, p3);
+            return topoTin.interpolateZ(i, coordinate.x, coordinate.y);
         } else {
             return 0.0;
         }
@@ -1644,11 +1729,14 @@ public class ProfileBuilder {
     public void getWallsOnPath(Coordinate p1, Coordinate p2, BuildingIntersectionPathVisitor visitor) {
         // Update intersection line test in the rtree visitor
         try {
+            PackedRTree.QueryBuffer queryBuffer = OBSTRUCTION_QUERY_STATE.get().queryBuffer;
             List<LineSegment> lines = splitSegment(p1, p2, maxLineLength);
             for(LineSegment segment : lines) {
                 visitor.setIntersectionLine(segment);
-                Envelope pathEnv = new Envelope(segment.p0, segment.p1);
-                rtree.query(pathEnv, visitor);
+                rtree.querySegment(segment.p0.x, segment.p0.y, segment.p1.x, segment.p1.y, epsilon, queryBuffer);
+                for (int i = 0; i < queryBuffer.size(); i++) {
+                    visitor.visitObstruction(queryBuffer.get(i));
+                }
             }
         } catch (IllegalStateException ex) {
             //Ignore
@@ -0,0 +1,133 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.pathfinder.profilebuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary file of a {@link ProfileBuilder} once {@link ProfileBuilder#finishFeeding()} has been called.
+ * The file contains the buildings, walls, processed obstructions, RTrees, topography, ground absorptions and wide
+ * angle points, so a loaded builder can be used for propagation without fetching the input tables nor processing
+ * the geometries again. The file is memory mapped on read.
+ * The regular grid DEM is shared between the cells and is not stored, it must be set again on the loaded builder
+ * with {@link ProfileBuilder#setRasterDem(RasterDem)}.
+ * A snapshot must be read by the same NoiseModelling version than the one that wrote it.
+ */
+public final class ProfileBuilderSnapshot {
+    public static final String FILE_EXTENSION = ".nmpb";
+    /** First bytes of the snapshot files */
+    static final int FILE_MAGIC = 0x4E4D5042;
+    static final int FILE_VERSION = 1;
+    static final int FILE_BUFFER_SIZE = 65536;
+    /** Only the classes of a profile builder can be read from a snapshot */
+    static final ObjectInputFilter CLASS_FILTER = ObjectInputFilter.Config.createFilter(
+            "java.lang.*;java.util.*;org.locationtech.jts.**;org.noise_planet.noisemodelling.pathfinder.**;!*");
+
+    private ProfileBuilderSnapshot() {
+    }
+
+    /**
+     * @param profileBuilder Profile builder with finished feeding
+     * @param file Output file
+     * @throws IOException on write error
+     * @throws IllegalStateException if the feeding of the profile builder is not finished
+     */
+    public static void write(ProfileBuilder profileBuilder, File file) throws IOException {
+        if(!profileBuilder.isFeedingFinished()) {
+            throw new IllegalStateException("finishFeeding must be called before writing the snapshot");
+        }
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file), FILE_BUFFER_SIZE))) {
+            outputStream.writeInt(FILE_MAGIC);
+            outputStream.writeInt(FILE_VERSION);
+            outputStream.flush();
+            DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(outputStream);
+            ObjectOutputStream objectOutputStream = new ObjectOutputStream(deflaterOutputStream);
+            objectOutputStream.writeObject(profileBuilder);
+            objectOutputStream.flush();
+            deflaterOutputStream.finish();
+        }
+    }
+
+    /**
+     * @param file Snapshot file
+     * @return Profile builder ready for propagation
+     * @throws IOException if the file cannot be read, is not a snapshot of this version or contains classes not
+     * allowed by {@link #CLASS_FILTER}
+     */
+    public static ProfileBuilder read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != FILE_MAGIC) {
+                throw new IOException("Not a profile builder snapshot " + file);
+            }
+            int version = buffer.getInt();
+            if(version != FILE_VERSION) {
+                throw new IOException("Unsupported profile builder snapshot version " + version);
+            }
+            try (ObjectInputStream objectInputStream = new ObjectInputStream(new InflaterInputStream(
+                    new ByteBufferInputStream(buffer), new Inflater(), FILE_BUFFER_SIZE))) {
+                objectInputStream.setObjectInputFilter(CLASS_FILTER);
+                return (ProfileBuilder) objectInputStream.readObject();
+            } catch (ClassNotFoundException | ClassCastException ex) {
+                throw new IOException("Invalid profile builder snapshot " + file, ex);
+            }
+        }
+    }
+
+    /**
+     * Read the content of a byte buffer
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if(len == 0) {
+                return 0;
+            }
+            if(!buffer.hasRemaining()) {
+                return -1;
+            }
+            int length = Math.min(len, buffer.remaining());
+            buffer.get(b, off, length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
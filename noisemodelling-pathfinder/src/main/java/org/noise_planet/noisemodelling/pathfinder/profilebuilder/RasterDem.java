@@ -0,0 +1,215 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.pathfinder.profilebuilder;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+import java.util.List;
+
+/**
+ * Digital elevation model stored as a regular grid of altitude samples.
+ * The sample (column, row) is located at (originX + column * cellSize, originY + row * cellSize), the row 0 is the
+ * southern row. Altitudes between the samples are bilinear interpolated, NaN is used for samples without data.
+ * This class is immutable and can be shared between threads and {@link ProfileBuilder} instances.
+ */
+public class RasterDem {
+    final double originX;
+    final double originY;
+    final double cellSize;
+    final int columns;
+    final int rows;
+    /** Altitudes, row major from the southern row */
+    final float[] z;
+
+    /**
+     * @param originX X of the south west sample
+     * @param originY Y of the south west sample
+     * @param cellSize Distance between two samples
+     * @param columns Number of samples along X
+     * @param rows Number of samples along Y
+     * @param z Altitudes, row major from the southern row, NaN for no data
+     */
+    public RasterDem(double originX, double originY, double cellSize, int columns, int rows, float[] z) {
+        if(columns < 2 || rows < 2) {
+            throw new IllegalArgumentException("The raster must contain at least 2x2 samples");
+        }
+        if(!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be greater than 0");
+        }
+        if(z.length != (long) columns * rows) {
+            throw new IllegalArgumentException("Expected " + (long) columns * rows + " altitudes, got " + z.length);
+        }
+        this.originX = originX;
+        this.originY = originY;
+        this.cellSize = cellSize;
+        this.columns = columns;
+        this.rows = rows;
+        this.z = z;
+    }
+
+    public double getOriginX() {
+        return originX;
+    }
+
+    public double getOriginY() {
+        return originY;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return Envelope of the samples
+     */
+    public Envelope getEnvelope() {
+        return new Envelope(originX, originX + (columns - 1) * cellSize, originY, originY + (rows - 1) * cellSize);
+    }
+
+    /**
+     * @param column Column index
+     * @param row Row index, 0 is the southern row
+     * @return Altitude of the sample, NaN if no data
+     */
+    public double getSample(int column, int row) {
+        return z[row * columns + column];
+    }
+
+    /**
+     * @param x X coordinate
+     * @param y Y coordinate
+     * @return Bilinear interpolated altitude, NaN if the location is outside the raster or near a sample without data
+     */
+    public double getZ(double x, double y) {
+        double gx = (x - originX) / cellSize;
+        double gy = (y - originY) / cellSize;
+        if(!(gx >= 0 && gy >= 0 && gx <= columns - 1 && gy <= rows - 1)) {
+            return Double.NaN;
+        }
+        int column = Math.min(columns - 2, (int) gx);
+        int row = Math.min(rows - 2, (int) gy);
+        double fx = gx - column;
+        double fy = gy - row;
+        int index = row * columns + column;
+        double z00 = z[index];
+        double z10 = z[index + 1];
+        double z01 = z[index + columns];
+        double z11 = z[index + columns + 1];
+        return (z00 * (1 - fx) + z10 * fx) * (1 - fy) + (z01 * (1 - fx) + z11 * fx) * fy;
+    }
+
+    /**
+     * Fetch the ground altitude along the segment p1 p2. A point is added at each crossing between the segment and
+     * the raster grid lines, where the slope of the ground changes. The segment is clipped to the raster extent,
+     * the first and last points are located on p1 and p2 with the altitude of the clipped segment ends.
+     * @param outputPoints Points with ground altitude from p1 to p2
+     * @param p1 first point
+     * @param p2 second point
+     * @param stopAtObstacleOverSourceReceiver Stop fetching the ground if the segment p1-p2 is below the ground
+     * @return True if the segment p1-p2 is not intersecting with DEM
+     */
+    public boolean fetchTopographicProfile(List<Coordinate> outputPoints, Coordinate p1, Coordinate p2,
+                                           boolean stopAtObstacleOverSourceReceiver) {
+        // Segment in grid coordinates
+        double x0 = (p1.x - originX) / cellSize;
+        double y0 = (p1.y - originY) / cellSize;
+        double dx = (p2.x - p1.x) / cellSize;
+        double dy = (p2.y - p1.y) / cellSize;
+        // Clip the segment to the raster extent (Liang-Barsky)
+        double tMin = 0;
+        double tMax = 1;
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {x0, columns - 1 - x0, y0, rows - 1 - y0};
+        for (int i = 0; i < 4; i++) {
+            if(p[i] == 0) {
+                if(q[i] < 0) {
+                    return true;
+                }
+            } else {
+                double t = q[i] / p[i];
+                if(p[i] < 0) {
+                    tMin = Math.max(tMin, t);
+                } else {
+                    tMax = Math.min(tMax, t);
+                }
+            }
+        }
+        if(tMin > tMax) {
+            return true;
+        }
+        double zStart = getZAt(x0, y0, dx, dy, tMin);
+        if(Double.isNaN(zStart)) {
+            return true;
+        }
+        outputPoints.add(new Coordinate(p1.x, p1.y, zStart));
+        boolean freeField = true;
+        // Walk through the grid cells, from a grid line crossing to the next one
+        double tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+        double tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+        double tNextX = nextCrossing(x0, dx, tMin);
+        double tNextY = nextCrossing(y0, dy, tMin);
+        while (true) {
+            double t = Math.min(tNextX, tNextY);
+            if(!(t < tMax)) {
+                break;
+            }
+            if(tNextX <= t) {
+                tNextX += tDeltaX;
+            }
+            if(tNextY <= t) {
+                tNextY += tDeltaY;
+            }
+            double groundZ = getZAt(x0, y0, dx, dy, t);
+            if(!Double.isNaN(groundZ)) {
+                outputPoints.add(new Coordinate(p1.x + t * (p2.x - p1.x), p1.y + t * (p2.y - p1.y), groundZ));
+                if(p1.z + (p2.z - p1.z) * t < groundZ) {
+                    freeField = false;
+                    if(stopAtObstacleOverSourceReceiver) {
+                        return false;
+                    }
+                }
+            }
+        }
+        double zEnd = getZAt(x0, y0, dx, dy, tMax);
+        outputPoints.add(new Coordinate(p2.x, p2.y, Double.isNaN(zEnd) ? zStart : zEnd));
+        return freeField;
+    }
+
+    private double getZAt(double x0, double y0, double dx, double dy, double t) {
+        // clamp to the raster extent to avoid rounding issues on the borders
+        double gx = Math.max(0, Math.min(columns - 1, x0 + t * dx));
+        double gy = Math.max(0, Math.min(rows - 1, y0 + t * dy));
+        return getZ(originX + gx * cellSize, originY + gy * cellSize);
+    }
+
+    /**
+     * @param origin Segment origin along one axis in grid coordinates
+     * @param delta Segment direction along the axis
+     * @param tStart Parameter of the walk start
+     * @return Parameter of the first grid line crossing after tStart
+     */
+    private static double nextCrossing(double origin, double delta, double tStart) {
+        if(delta == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double position = origin + tStart * delta;
+        double nextLine = delta > 0 ? Math.floor(position) + 1 : Math.ceil(position) - 1;
+        return (nextLine - origin) / delta;
+    }
+}
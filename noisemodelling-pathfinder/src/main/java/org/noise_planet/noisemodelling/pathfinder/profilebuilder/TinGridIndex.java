@@ -0,0 +1,152 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.pathfinder.profilebuilder;
+
+import org.locationtech.jts.geom.Envelope;
+
+import java.io.Serializable;
+
+/**
+ * Uniform grid of the triangles of a {@link PackedTin}, used to find the triangle containing a point.
+ * The cell size is chosen to have about one triangle per cell. The triangle indexes of all cells are stored in a
+ * single array, cell i owning the range [cellStart[i], cellStart[i + 1]).
+ * This class is immutable and can be shared between threads.
+ */
+public class TinGridIndex implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Maximum number of cells, limit the memory used by degenerated triangulations */
+    static final int MAXIMUM_CELL_COUNT = 1 << 24;
+    final PackedTin tin;
+    final double minX;
+    final double minY;
+    final double maxX;
+    final double maxY;
+    final double cellSize;
+    final int columns;
+    final int rows;
+    final int[] cellStart;
+    final int[] cellTriangles;
+
+    /**
+     * @param tin Triangulation to index
+     */
+    public TinGridIndex(PackedTin tin) {
+        this.tin = tin;
+        int triangleCount = tin.getTriangleCount();
+        Envelope envelope = new Envelope();
+        for (int vertex = 0; vertex < tin.getVertexCount(); vertex++) {
+            envelope.expandToInclude(tin.getX(vertex), tin.getY(vertex));
+        }
+        if(envelope.isNull()) {
+            envelope.expandToInclude(0, 0);
+        }
+        minX = envelope.getMinX();
+        minY = envelope.getMinY();
+        maxX = envelope.getMaxX();
+        maxY = envelope.getMaxY();
+        double size = Math.sqrt(envelope.getArea() / Math.max(1, triangleCount));
+        size = Math.max(size, Math.max(envelope.getWidth(), envelope.getHeight()) / Math.sqrt(MAXIMUM_CELL_COUNT));
+        if(!(size > 0)) {
+            size = Math.max(1, Math.max(envelope.getWidth(), envelope.getHeight()));
+        }
+        cellSize = size;
+        columns = Math.max(1, (int) Math.ceil(envelope.getWidth() / cellSize));
+        rows = Math.max(1, (int) Math.ceil(envelope.getHeight() / cellSize));
+        // Count the triangles of each cell then fill the cells
+        cellStart = new int[columns * rows + 1];
+        for (int triangle = 0; triangle < triangleCount; triangle++) {
+            Envelope triangleEnvelope = tin.getTriangleEnvelope(triangle);
+            int maxColumn = getColumn(triangleEnvelope.getMaxX());
+            int maxRow = getRow(triangleEnvelope.getMaxY());
+            for (int row = getRow(triangleEnvelope.getMinY()); row <= maxRow; row++) {
+                for (int column = getColumn(triangleEnvelope.getMinX()); column <= maxColumn; column++) {
+                    cellStart[row * columns + column + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        cellTriangles = new int[cellStart[columns * rows]];
+        int[] cellFill = new int[columns * rows];
+        for (int triangle = 0; triangle < triangleCount; triangle++) {
+            Envelope triangleEnvelope = tin.getTriangleEnvelope(triangle);
+            int maxColumn = getColumn(triangleEnvelope.getMaxX());
+            int maxRow = getRow(triangleEnvelope.getMaxY());
+            for (int row = getRow(triangleEnvelope.getMinY()); row <= maxRow; row++) {
+                for (int column = getColumn(triangleEnvelope.getMinX()); column <= maxColumn; column++) {
+                    int cell = row * columns + column;
+                    cellTriangles[cellStart[cell] + cellFill[cell]++] = triangle;
+                }
+            }
+        }
+    }
+
+    private int getColumn(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - minX) / cellSize)));
+    }
+
+    private int getRow(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) / cellSize)));
+    }
+
+    /**
+     * Find the triangle containing the point. If no triangle contains the point, the triangle having the lowest
+     * barycentric error among the triangles with an envelope closer than the search distance is returned.
+     * @param x Point X
+     * @param y Point Y
+     * @param searchDistance Maximum distance between the point and the envelope of the returned triangle
+     * @return Triangle index or -1 if no triangle is near the point
+     */
+    public int findTriangle(double x, double y, double searchDistance) {
+        if(x < minX - searchDistance || x > maxX + searchDistance || y < minY - searchDistance ||
+                y > maxY + searchDistance) {
+            return -1;
+        }
+        // Most points are inside a triangle of their own cell
+        int cell = getRow(y) * columns + getColumn(x);
+        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+            int triangle = cellTriangles[i];
+            if(tin.getBarycentricError(triangle, x, y) == 0) {
+                return triangle;
+            }
+        }
+        double minError = Double.MAX_VALUE;
+        int minErrorTriangle = -1;
+        int maxColumn = getColumn(x + searchDistance);
+        int maxRow = getRow(y + searchDistance);
+        for (int row = getRow(y - searchDistance); row <= maxRow; row++) {
+            for (int column = getColumn(x - searchDistance); column <= maxColumn; column++) {
+                cell = row * columns + column;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int triangle = cellTriangles[i];
+                    if(isEnvelopeNear(triangle, x, y, searchDistance)) {
+                        double error = tin.getBarycentricError(triangle, x, y);
+                        if (error < minError) {
+                            minError = error;
+                            minErrorTriangle = triangle;
+                        }
+                    }
+                }
+            }
+        }
+        return minErrorTriangle;
+    }
+
+    private boolean isEnvelopeNear(int triangle, double x, double y, double searchDistance) {
+        int a = tin.getVertexIndex(triangle, 0);
+        int b = tin.getVertexIndex(triangle, 1);
+        int c = tin.getVertexIndex(triangle, 2);
+        return Math.min(tin.getX(a), Math.min(tin.getX(b), tin.getX(c))) <= x + searchDistance &&
+                Math.max(tin.getX(a), Math.max(tin.getX(b), tin.getX(c))) >= x - searchDistance &&
+                Math.min(tin.getY(a), Math.min(tin.getY(b), tin.getY(c))) <= y + searchDistance &&
+                Math.max(tin.getY(a), Math.max(tin.getY(b), tin.getY(c))) >= y - searchDistance;
+    }
+}
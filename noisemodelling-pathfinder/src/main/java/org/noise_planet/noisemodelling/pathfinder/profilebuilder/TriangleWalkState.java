@@ -0,0 +1,58 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.pathfinder.profilebuilder;
+
+import java.util.Arrays;
+
+/**
+ * Working state of a walk through the DEM triangles, reused by a thread for all its profiles.
+ * A triangle is visited by the current walk if its stamp equals the walk epoch, so starting a new walk does not
+ * clear the array.
+ */
+final class TriangleWalkState {
+    /** Epoch of the last walk that visited each triangle */
+    int[] stamps = new int[0];
+    int epoch = 0;
+    /** Intersection with the next triangle x,y,z */
+    final double[] intersection = new double[3];
+    /** Intersection with the tested triangle edge x,y,z */
+    final double[] edgeIntersection = new double[3];
+
+    /**
+     * Start a new walk, no triangle is visited
+     * @param triangleCount Number of triangles of the DEM
+     */
+    void start(int triangleCount) {
+        if(stamps.length != triangleCount) {
+            stamps = new int[triangleCount];
+            epoch = 0;
+        }
+        if(epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            epoch = 0;
+        }
+        epoch++;
+    }
+
+    /**
+     * @param triangle Triangle index, -1 is never visited
+     * @return True if the triangle has been visited by the current walk
+     */
+    boolean isVisited(int triangle) {
+        return triangle >= 0 && stamps[triangle] == epoch;
+    }
+
+    /**
+     * @param triangle Triangle index
+     */
+    void visit(int triangle) {
+        stamps[triangle] = epoch;
+    }
+}
@@ -12,6 +12,7 @@ package org.noise_planet.noisemodelling.pathfinder.utils.profiler;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Generate stats about receiver computation time
@@ -25,6 +26,8 @@ public class ReceiverStatsMetric implements ProfilerThread.Metric {
     private DescriptiveStatistics collectSourcesTime = new DescriptiveStatistics();
     private DescriptiveStatistics precomputeReflectionTime = new DescriptiveStatistics();
     private DescriptiveStatistics sourcesPerReceiver = new DescriptiveStatistics();
+    private AtomicLong pathCacheHitCount = new AtomicLong();
+    private AtomicLong pathCacheMissCount = new AtomicLong();
 
     public ReceiverStatsMetric() {
     }
@@ -49,7 +52,7 @@ public class ReceiverStatsMetric implements ProfilerThread.Metric {
 
     @Override
     public String[] getColumnNames() {
-        return new String[] {"receiver_min_milliseconds","receiver_median_milliseconds","receiver_mean_milliseconds","receiver_max_milliseconds", "receiver_collect_sources_max_milliseconds", "receiver_precompute_reflection_max_milliseconds", "receiver_median_profiles_count", "receiver_max_profiles_count", "receiver_processed_sources_percentage_mean", "receiver_median_point_sources_in_range"};
+        return new String[] {"receiver_min_milliseconds","receiver_median_milliseconds","receiver_mean_milliseconds","receiver_max_milliseconds", "receiver_collect_sources_max_milliseconds", "receiver_precompute_reflection_max_milliseconds", "receiver_median_profiles_count", "receiver_max_profiles_count", "receiver_processed_sources_percentage_mean", "receiver_median_point_sources_in_range", "path_cache_hit_count", "path_cache_miss_count", "path_cache_hit_rate_percentage"};
     }
 
     public void onEndComputation(ReceiverComputationTime receiverComputationTime) {
@@ -62,8 +65,21 @@ public class ReceiverStatsMetric implements ProfilerThread.Metric {
                 numberOfProcessSources));
     }
 
+    /**
+     * Add the requests made to the path cache of a propagation model since the previous call
+     * @param hitCount Number of values found in the cache
+     * @param missCount Number of values computed because they were not found in the cache
+     */
+    public void onPathCacheRequests(long hitCount, long missCount) {
+        pathCacheHitCount.addAndGet(hitCount);
+        pathCacheMissCount.addAndGet(missCount);
+    }
+
     @Override
     public String[] getCurrentValues() {
+        long hitCount = pathCacheHitCount.getAndSet(0);
+        long missCount = pathCacheMissCount.getAndSet(0);
+        long requestCount = hitCount + missCount;
         String[] res = new String[] {
                 Integer.toString((int) computationTime.getMin()),
                 Integer.toString((int) computationTime.getPercentile(50)),
@@ -74,7 +90,10 @@ public class ReceiverStatsMetric implements ProfilerThread.Metric {
                 Integer.toString((int) computationCutProfiles.getPercentile(50)),
                 Integer.toString((int) computationCutProfiles.getMax()),
                 Integer.toString((int) computationProcessSourcesPercentage.getMean()),
-                Integer.toString((int) sourcesPerReceiver.getPercentile(50))
+                Integer.toString((int) sourcesPerReceiver.getPercentile(50)),
+                Long.toString(hitCount),
+                Long.toString(missCount),
+                Integer.toString(requestCount == 0 ? 0 : (int) (hitCount * 100 / requestCount))
         };
         computationTime.clear();
         computationCutProfiles.clear();
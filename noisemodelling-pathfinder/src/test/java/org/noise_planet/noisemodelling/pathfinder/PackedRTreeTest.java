@@ -0,0 +1,76 @@
+package org.noise_planet.noisemodelling.pathfinder;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.LineSegment;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.PackedRTree;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedRTreeTest {
+
+    @Test
+    public void testQueryMatchesBruteForce() {
+        Random random = new Random(42);
+        int itemCount = 1000;
+        LineSegment[] segments = new LineSegment[itemCount];
+        double[] bounds = new double[itemCount * 4];
+        int[] ids = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            Coordinate p0 = new Coordinate(random.nextDouble() * 1000, random.nextDouble() * 1000);
+            Coordinate p1 = new Coordinate(p0.x + random.nextDouble() * 30 - 15, p0.y + random.nextDouble() * 30 - 15);
+            segments[i] = new LineSegment(p0, p1);
+            bounds[i * 4] = Math.min(p0.x, p1.x);
+            bounds[i * 4 + 1] = Math.min(p0.y, p1.y);
+            bounds[i * 4 + 2] = Math.max(p0.x, p1.x);
+            bounds[i * 4 + 3] = Math.max(p0.y, p1.y);
+            ids[i] = i + 10;
+        }
+        PackedRTree tree = new PackedRTree(bounds, ids, PackedRTree.DEFAULT_NODE_SIZE);
+        assertEquals(itemCount, tree.size());
+        PackedRTree.QueryBuffer buffer = new PackedRTree.QueryBuffer();
+        for (int test = 0; test < 100; test++) {
+            LineSegment query = new LineSegment(new Coordinate(random.nextDouble() * 1000, random.nextDouble() * 1000),
+                    new Coordinate(random.nextDouble() * 1000, random.nextDouble() * 1000));
+            Envelope envelope = new Envelope(query.p0, query.p1);
+            Set<Integer> expectedEnvelope = new TreeSet<>();
+            Set<Integer> expectedIntersections = new TreeSet<>();
+            for (int i = 0; i < itemCount; i++) {
+                if (envelope.intersects(new Envelope(segments[i].p0, segments[i].p1))) {
+                    expectedEnvelope.add(i + 10);
+                }
+                if (query.intersection(segments[i]) != null) {
+                    expectedIntersections.add(i + 10);
+                }
+            }
+            tree.query(envelope.getMinX(), envelope.getMinY(), envelope.getMaxX(), envelope.getMaxY(), buffer);
+            assertEquals(expectedEnvelope, toSet(buffer));
+            tree.querySegment(query.p0.x, query.p0.y, query.p1.x, query.p1.y, 1e-7, buffer);
+            Set<Integer> found = toSet(buffer);
+            assertEquals(buffer.size(), found.size());
+            assertTrue(found.containsAll(expectedIntersections));
+            assertTrue(expectedEnvelope.containsAll(found));
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        PackedRTree tree = new PackedRTree(new double[0], new int[0], PackedRTree.DEFAULT_NODE_SIZE);
+        PackedRTree.QueryBuffer buffer = new PackedRTree.QueryBuffer();
+        assertEquals(0, tree.query(0, 0, 10, 10, buffer));
+        assertEquals(0, tree.querySegment(0, 0, 10, 10, 0, buffer));
+    }
+
+    private static Set<Integer> toSet(PackedRTree.QueryBuffer buffer) {
+        Set<Integer> set = new TreeSet<>();
+        for (int i = 0; i < buffer.size(); i++) {
+            set.add(buffer.get(i));
+        }
+        return set;
+    }
+}
@@ -0,0 +1,95 @@
+package org.noise_planet.noisemodelling.pathfinder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineSegment;
+import org.locationtech.jts.triangulate.quadedge.Vertex;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.PackedTin;
+import org.noise_planet.noisemodelling.pathfinder.utils.geometry.JTSUtility;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedTinTest {
+
+    /**
+     * Two triangles sharing the edge B-C
+     */
+    private static PackedTin createTin() {
+        double[] vertices = new double[] {0, 0, 0, 10, 0, 5, 0, 10, 10, 10, 10, 2};
+        int[] triangles = new int[] {0, 1, 2, 3, 2, 1};
+        int[] neighbors = new int[] {1, -1, -1, 0, -1, -1};
+        return new PackedTin(vertices, triangles, neighbors);
+    }
+
+    @Test
+    public void testInterpolateZ() {
+        PackedTin tin = createTin();
+        Coordinate[] triangle = tin.getTriangleVertices(0);
+        Coordinate p = new Coordinate(2.5, 3.1);
+        assertEquals(Vertex.interpolateZ(p, triangle[0], triangle[1], triangle[2]), tin.interpolateZ(0, p.x, p.y),
+                1e-12);
+        assertTrue(tin.contains(0, p.x, p.y));
+        assertFalse(tin.contains(1, p.x, p.y));
+        assertEquals(0, tin.getBarycentricError(0, p.x, p.y));
+        assertTrue(tin.getBarycentricError(1, p.x, p.y) > 0);
+    }
+
+    @Test
+    public void testIntersectEdge() {
+        PackedTin tin = createTin();
+        double[] intersection = new double[3];
+        LineSegment propagationLine = new LineSegment(new Coordinate(1, 1), new Coordinate(9, 8));
+        // edge B-C is opposite to the vertex A
+        assertTrue(tin.intersectEdge(0, 0, 1, 1, 9, 8, intersection));
+        Coordinate b = tin.getVertex(1);
+        Coordinate c = tin.getVertex(2);
+        Coordinate[] closestPoints = propagationLine.closestPoints(new LineSegment(b, c));
+        assertEquals(closestPoints[0].x, intersection[0], 1e-12);
+        assertEquals(closestPoints[0].y, intersection[1], 1e-12);
+        assertEquals(Vertex.interpolateZ(closestPoints[0], b, c), intersection[2], 1e-12);
+        // edge A-B is not crossed
+        assertFalse(tin.intersectEdge(0, 2, 1, 1, 9, 8, intersection));
+        // segment touching the edge C-A at its end point
+        assertTrue(tin.intersectEdge(0, 1, 5, 5, 0, 5, intersection));
+        assertEquals(0, intersection[0], JTSUtility.TRIANGLE_INTERSECTION_EPSILON);
+        assertEquals(5, intersection[1], JTSUtility.TRIANGLE_INTERSECTION_EPSILON);
+        assertEquals(5, intersection[2], 1e-12);
+    }
+
+    @Test
+    public void testNeighbors() {
+        PackedTin tin = createTin();
+        assertEquals(2, tin.getTriangleCount());
+        assertEquals(4, tin.getVertexCount());
+        assertEquals(1, tin.getNeighbor(0, 0));
+        assertEquals(0, tin.getNeighbor(1, 0));
+        assertEquals(-1, tin.getNeighbor(1, 2));
+        assertEquals(2, tin.getTriangleList().size());
+    }
+
+    @Test
+    public void testWriteRead(@TempDir File folder) throws IOException {
+        PackedTin tin = createTin();
+        File file = new File(folder, "test.tin");
+        tin.write(file);
+        PackedTin readTin = PackedTin.read(file);
+        assertEquals(tin.getTriangleCount(), readTin.getTriangleCount());
+        assertEquals(tin.getVertexCount(), readTin.getVertexCount());
+        for (int triangle = 0; triangle < tin.getTriangleCount(); triangle++) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(tin.getVertexIndex(triangle, i), readTin.getVertexIndex(triangle, i));
+                assertEquals(tin.getNeighbor(triangle, i), readTin.getNeighbor(triangle, i));
+            }
+        }
+        for (int vertex = 0; vertex < tin.getVertexCount(); vertex++) {
+            assertEquals(tin.getVertex(vertex), readTin.getVertex(vertex));
+            assertEquals(tin.getZ(vertex), readTin.getZ(vertex));
+        }
+        assertThrows(IOException.class, () -> PackedTin.read(new File(PackedTinTest.class.getResource(
+                "PackedTinTest.class").getFile())));
+    }
+}
@@ -1610,6 +1610,55 @@ public class PathFinderTest {
     }
 
 
+    /**
+     * Receivers fetched by chunks from a shared cursor must produce the same cut profiles than the receivers split into
+     * a single range
+     */
+    @Test
+    public void testReceiverChunkScheduling() throws Exception {
+        ProfileBuilder profileBuilder = new ProfileBuilder()
+                .addBuilding(new Coordinate[]{
+                        new Coordinate(55, 5, 10),
+                        new Coordinate(65, 5, 10),
+                        new Coordinate(65, 15, 10),
+                        new Coordinate(55, 15, 10),
+                });
+        profileBuilder.finishFeeding();
+
+        ProfileBuilderDecorator decorator = new ProfileBuilderDecorator(profileBuilder)
+                .addSource(50, 10, 1)
+                .hEdgeDiff(true)
+                .vEdgeDiff(true)
+                .setGs(0.5);
+        for (int i = 0; i < 37; i++) {
+            decorator.addReceiver(70 + i, 10 + (i % 5), 4);
+        }
+        Scene rayData = decorator.build();
+
+        DefaultCutPlaneVisitor expectedOut = new DefaultCutPlaneVisitor(true);
+        PathFinder computeRays = new PathFinder(rayData);
+        computeRays.setThreadCount(1);
+        computeRays.run(expectedOut);
+
+        DefaultCutPlaneVisitor chunkOut = new DefaultCutPlaneVisitor(true);
+        computeRays = new PathFinder(rayData);
+        computeRays.setThreadCount(4);
+        computeRays.setReceiverChunkSize(3);
+        computeRays.run(chunkOut);
+
+        assertEquals(expectedOut.pathCount.get(), chunkOut.pathCount.get());
+        Map<Integer, Integer> expectedProfilesPerReceiver = new HashMap<>();
+        for (CutProfile cutProfile : expectedOut.getCutProfiles()) {
+            expectedProfilesPerReceiver.merge(cutProfile.getReceiver().id, 1, Integer::sum);
+        }
+        Map<Integer, Integer> chunkProfilesPerReceiver = new HashMap<>();
+        for (CutProfile cutProfile : chunkOut.getCutProfiles()) {
+            chunkProfilesPerReceiver.merge(cutProfile.getReceiver().id, 1, Integer::sum);
+        }
+        assertEquals(37, expectedProfilesPerReceiver.size());
+        assertEquals(expectedProfilesPerReceiver, chunkProfilesPerReceiver);
+    }
+
     public static void assertZProfil(List<Coordinate> expectedZProfile, List<Coordinate> actualZ_profile) {
         assertZProfil(expectedZProfile, actualZ_profile, DELTA_COORDS);
     }
@@ -10,25 +10,41 @@
 package org.noise_planet.noisemodelling.pathfinder;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.locationtech.jts.geom.*;
 import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKTReader;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.Building;
 import org.noise_planet.noisemodelling.pathfinder.path.Scene;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutPoint;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutPointWall;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutProfile;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.ProfileBuilder;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.ProfileBuilderSnapshot;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.RasterDem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.zip.DeflaterOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.noise_planet.noisemodelling.pathfinder.PathFinderTest.assertZProfil;
 
 /**
@@ -100,6 +116,9 @@ public class ProfileBuilderTest {
         profileBuilder.finishFeeding();
 
         assertEquals(11, profileBuilder.getTriangles().size());
+        // The lists are built once from the packed triangulation
+        assertSame(profileBuilder.getTriangles(), profileBuilder.getTriangles());
+        assertSame(profileBuilder.getVertices(), profileBuilder.getVertices());
     }
 
     /**
@@ -359,4 +378,240 @@ public class ProfileBuilderTest {
 
 
     }
+
+    /**
+     * The grid index of the DEM triangles must find the same altitudes than the RTree
+     */
+    @Test
+    public void testTopoGridIndex() {
+        Random random = new Random(42);
+        ProfileBuilder gridBuilder = new ProfileBuilder();
+        ProfileBuilder treeBuilder = new ProfileBuilder();
+        treeBuilder.setTopoGridIndexEnabled(false);
+        for (int i = 0; i < 500; i++) {
+            Coordinate point = new Coordinate(random.nextDouble() * 1000, random.nextDouble() * 500,
+                    random.nextDouble() * 50);
+            gridBuilder.addTopographicPoint(point);
+            treeBuilder.addTopographicPoint(point);
+        }
+        gridBuilder.finishFeeding();
+        treeBuilder.finishFeeding();
+        for (int i = 0; i < 2000; i++) {
+            // also test points outside the DEM
+            Coordinate point = new Coordinate(random.nextDouble() * 1010 - 5, random.nextDouble() * 510 - 5);
+            assertEquals(treeBuilder.getZGround(point), gridBuilder.getZGround(point), 1e-9);
+            assertEquals(treeBuilder.getTriangleIdByCoordinate(point) == -1,
+                    gridBuilder.getTriangleIdByCoordinate(point) == -1);
+        }
+    }
+
+    /**
+     * The obstructions found by walking the obstruction grid must be the ones found with the RTree
+     */
+    @Test
+    public void testObstructionGrid() throws ParseException {
+        Random random = new Random(42);
+        ProfileBuilder gridBuilder = new ProfileBuilder();
+        ProfileBuilder treeBuilder = new ProfileBuilder();
+        treeBuilder.setObstructionGridEnabled(false);
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                double minX = x * 20 + random.nextDouble() * 5;
+                double minY = y * 20 + random.nextDouble() * 5;
+                double maxX = minX + 2 + random.nextDouble() * 10;
+                double maxY = minY + 2 + random.nextDouble() * 10;
+                double height = 5 + random.nextDouble() * 20;
+                Geometry building = READER.read(String.format(Locale.ROOT,
+                        "POLYGON((%f %f %f,%f %f %f,%f %f %f,%f %f %f,%f %f %f))", minX, minY, height, maxX, minY,
+                        height, maxX, maxY, height, minX, maxY, height, minX, minY, height));
+                gridBuilder.addBuilding(building, -1);
+                treeBuilder.addBuilding(building, -1);
+            }
+        }
+        Coordinate[] wall = new Coordinate[]{new Coordinate(17, 3, 8), new Coordinate(18, 150, 8)};
+        gridBuilder.addWall(wall, -1);
+        treeBuilder.addWall(wall, -1);
+        Geometry groundEffect = READER.read("POLYGON((30 30, 130 30, 130 90, 30 90, 30 30))");
+        gridBuilder.addGroundEffect(groundEffect, 0.5);
+        treeBuilder.addGroundEffect(groundEffect, 0.5);
+        gridBuilder.finishFeeding();
+        treeBuilder.finishFeeding();
+        for (int i = 0; i < 200; i++) {
+            Coordinate source = new Coordinate(random.nextDouble() * 220 - 10, random.nextDouble() * 220 - 10, 1);
+            Coordinate receiver = new Coordinate(random.nextDouble() * 220 - 10, random.nextDouble() * 220 - 10, 4);
+            if (i % 10 == 0) {
+                // axis aligned profile
+                receiver.y = source.y;
+            }
+            CutProfile expected = treeBuilder.getProfile(source, receiver);
+            CutProfile actual = gridBuilder.getProfile(source, receiver);
+            assertEquals(expected.cutPoints.size(), actual.cutPoints.size());
+            for (int j = 0; j < expected.cutPoints.size(); j++) {
+                assertEquals(expected.cutPoints.get(j).getClass(), actual.cutPoints.get(j).getClass());
+                assertEquals(expected.cutPoints.get(j).getCoordinate(), actual.cutPoints.get(j).getCoordinate());
+            }
+            assertEquals(treeBuilder.getProfile(source, receiver, 0, true).hasBuildingIntersection,
+                    gridBuilder.getProfile(source, receiver, 0, true).hasBuildingIntersection);
+        }
+    }
+
+    /**
+     * The grid walk must end at the first obstacle over the source-receiver line
+     */
+    @Test
+    public void testObstructionGridStopAtObstacle() throws ParseException {
+        ProfileBuilder profileBuilder = new ProfileBuilder();
+        for (int k = 0; k < 10; k++) {
+            profileBuilder.addBuilding(READER.read(String.format(Locale.ROOT,
+                    "POLYGON((%d -5 20,%d -5 20,%d 5 20,%d 5 20,%d -5 20))", k * 20 + 5, k * 20 + 15, k * 20 + 15,
+                    k * 20 + 5, k * 20 + 5)), -1);
+        }
+        profileBuilder.finishFeeding();
+        Coordinate source = new Coordinate(0, 0, 1);
+        Coordinate receiver = new Coordinate(200, 0, 1);
+        CutProfile fullProfile = profileBuilder.getProfile(source, receiver, 0, false);
+        assertEquals(20, fullProfile.cutPoints.stream().filter(p -> p instanceof CutPointWall).count());
+        CutProfile stoppedProfile = profileBuilder.getProfile(source, receiver, 0, true);
+        assertTrue(stoppedProfile.hasBuildingIntersection);
+        // only the walls of the first building have been processed
+        assertTrue(stoppedProfile.cutPoints.stream().filter(p -> p instanceof CutPointWall)
+                .allMatch(p -> p.getCoordinate().x < 25));
+    }
+
+    /**
+     * Profiles sampled on a regular grid DEM
+     */
+    @Test
+    public void testRasterDem() {
+        // plane z = x / 10 + y / 20 sampled every 5 m
+        int columns = 21;
+        int rows = 11;
+        float[] z = new float[columns * rows];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                z[row * columns + column] = (float) (column * 5 / 10.0 + row * 5 / 20.0);
+            }
+        }
+        ProfileBuilder profileBuilder = new ProfileBuilder();
+        profileBuilder.setRasterDem(new RasterDem(0, 0, 5, columns, rows, z));
+        profileBuilder.finishFeeding();
+        assertTrue(profileBuilder.hasDem());
+        assertEquals(3.5, profileBuilder.getZGround(new Coordinate(20, 30)), 1e-6);
+        List<Coordinate> points = new ArrayList<>();
+        Coordinate p1 = new Coordinate(2, 3, 20);
+        Coordinate p2 = new Coordinate(97, 44, 20);
+        assertTrue(profileBuilder.fetchTopographicProfile(points, p1, p2, false));
+        // one point for each crossed grid line plus the two extremities
+        assertEquals(2 + 19 + 8, points.size());
+        for (Coordinate point : points) {
+            assertEquals(point.x / 10 + point.y / 20, point.z, 1e-6);
+        }
+        assertEquals(p1.x, points.get(0).x);
+        assertEquals(p2.x, points.get(points.size() - 1).x);
+        // segment below the ground
+        points.clear();
+        assertFalse(profileBuilder.fetchTopographicProfile(points, new Coordinate(2, 3, 1),
+                new Coordinate(97, 44, 1), true));
+        // segment outside the DEM
+        points.clear();
+        assertTrue(profileBuilder.fetchTopographicProfile(points, new Coordinate(200, 3, 1),
+                new Coordinate(300, 44, 1), false));
+        assertTrue(points.isEmpty());
+    }
+
+    /**
+     * A profile builder read from a snapshot must give the same profiles
+     */
+    @Test
+    public void testSnapshot(@TempDir File folder) throws ParseException, IOException {
+        ProfileBuilder profileBuilder = new ProfileBuilder(3, 3, 3, 2);
+        profileBuilder.addBuilding(READER.read("POLYGON((1 1 10,5 1 10,5 5 10,1 5 10,1 1 10))"), -1);
+        profileBuilder.addBuilding(READER.read("POLYGON((10 10 23,15 10 23,15 15 23,10 15 23,10 10 23))"), -1);
+        profileBuilder.addWall(new Coordinate[]{new Coordinate(6, 0, 4), new Coordinate(8, 3, 4)}, -1);
+        profileBuilder.addTopographicLine((LineString) READER.read("LINESTRING (4 1 1.5, 5 7 1.0, 8 9 1.5)"));
+        profileBuilder.addTopographicPoint(new Coordinate(0, 0, 2.5));
+        profileBuilder.addTopographicPoint(new Coordinate(20, 0, 2.0));
+        profileBuilder.addTopographicPoint(new Coordinate(20, 20, 3.0));
+        profileBuilder.addTopographicPoint(new Coordinate(0, 20, 2.0));
+        profileBuilder.addGroundEffect(READER.read("POLYGON((0 0, 8 0, 8 8, 0 8, 0 0))"), 0.5);
+        assertThrows(IllegalStateException.class, () -> ProfileBuilderSnapshot.write(profileBuilder,
+                new File(folder, "unfinished" + ProfileBuilderSnapshot.FILE_EXTENSION)));
+        profileBuilder.finishFeeding();
+        File file = new File(folder, "cell" + ProfileBuilderSnapshot.FILE_EXTENSION);
+        ProfileBuilderSnapshot.write(profileBuilder, file);
+        ProfileBuilder readProfileBuilder = ProfileBuilderSnapshot.read(file);
+        assertTrue(readProfileBuilder.isFeedingFinished());
+        assertEquals(profileBuilder.getBuildingCount(), readProfileBuilder.getBuildingCount());
+        assertEquals(profileBuilder.getTriangleCount(), readProfileBuilder.getTriangleCount());
+        Coordinate source = new Coordinate(0.5, 0.5, 1);
+        Coordinate receiver = new Coordinate(18, 17, 4);
+        CutProfile expected = profileBuilder.getProfile(source, receiver);
+        CutProfile actual = readProfileBuilder.getProfile(source, receiver);
+        assertEquals(expected.cutPoints.size(), actual.cutPoints.size());
+        for (int i = 0; i < expected.cutPoints.size(); i++) {
+            CutPoint expectedPoint = expected.cutPoints.get(i);
+            CutPoint actualPoint = actual.cutPoints.get(i);
+            assertEquals(expectedPoint.getClass(), actualPoint.getClass());
+            assertEquals(expectedPoint.getCoordinate(), actualPoint.getCoordinate());
+            assertEquals(expectedPoint.getzGround(), actualPoint.getzGround(), 1e-12);
+            assertEquals(expectedPoint.getGroundCoefficient(), actualPoint.getGroundCoefficient(), 1e-12);
+        }
+        assertEquals(profileBuilder.getZGround(receiver), readProfileBuilder.getZGround(receiver), 1e-12);
+    }
+
+    /**
+     * The regular grid DEM is not stored in the snapshot, the loaded builder use the shared instance
+     */
+    @Test
+    public void testSnapshotRasterDem(@TempDir File folder) throws ParseException, IOException {
+        // plane z = x / 10 + y / 20 sampled every 5 m
+        int columns = 21;
+        int rows = 11;
+        float[] z = new float[columns * rows];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                z[row * columns + column] = (float) (column * 5 / 10.0 + row * 5 / 20.0);
+            }
+        }
+        RasterDem rasterDem = new RasterDem(0, 0, 5, columns, rows, z);
+        ProfileBuilder profileBuilder = new ProfileBuilder();
+        profileBuilder.addBuilding(READER.read("POLYGON((40 20 10,60 20 10,60 30 10,40 30 10,40 20 10))"), -1);
+        profileBuilder.setRasterDem(rasterDem);
+        profileBuilder.finishFeeding();
+        File file = new File(folder, "raster" + ProfileBuilderSnapshot.FILE_EXTENSION);
+        ProfileBuilderSnapshot.write(profileBuilder, file);
+        ProfileBuilder readProfileBuilder = ProfileBuilderSnapshot.read(file);
+        assertNull(readProfileBuilder.getRasterDem());
+        readProfileBuilder.setRasterDem(rasterDem);
+        assertSame(rasterDem, readProfileBuilder.getRasterDem());
+        Coordinate source = new Coordinate(10, 25, 6);
+        Coordinate receiver = new Coordinate(90, 30, 8);
+        CutProfile expected = profileBuilder.getProfile(source, receiver);
+        CutProfile actual = readProfileBuilder.getProfile(source, receiver);
+        assertEquals(expected.cutPoints.size(), actual.cutPoints.size());
+        for (int i = 0; i < expected.cutPoints.size(); i++) {
+            assertEquals(expected.cutPoints.get(i).getCoordinate(), actual.cutPoints.get(i).getCoordinate());
+            assertEquals(expected.cutPoints.get(i).getzGround(), actual.cutPoints.get(i).getzGround(), 1e-12);
+        }
+        assertEquals(profileBuilder.getZGround(receiver), readProfileBuilder.getZGround(receiver), 1e-12);
+    }
+
+    /**
+     * A snapshot containing other classes than the profile builder ones must not be deserialized
+     */
+    @Test
+    public void testSnapshotClassFilter(@TempDir File folder) throws IOException {
+        File file = new File(folder, "forged" + ProfileBuilderSnapshot.FILE_EXTENSION);
+        try (DataOutputStream outputStream = new DataOutputStream(new FileOutputStream(file))) {
+            // snapshot header
+            outputStream.writeInt(0x4E4D5042);
+            outputStream.writeInt(1);
+            DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(outputStream);
+            ObjectOutputStream objectOutputStream = new ObjectOutputStream(deflaterOutputStream);
+            objectOutputStream.writeObject(new java.text.SimpleDateFormat());
+            objectOutputStream.flush();
+            deflaterOutputStream.finish();
+        }
+        assertThrows(InvalidClassException.class, () -> ProfileBuilderSnapshot.read(file));
+    }
 }
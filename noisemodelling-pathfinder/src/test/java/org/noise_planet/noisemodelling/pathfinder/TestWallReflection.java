@@ -14,6 +14,7 @@ import org.locationtech.jts.geom.*;
 import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKTReader;
 import org.noise_planet.noisemodelling.pathfinder.path.MirrorReceiver;
+import org.noise_planet.noisemodelling.pathfinder.path.MirrorReceiversCache;
 import org.noise_planet.noisemodelling.pathfinder.path.MirrorReceiversCompute;
 import org.noise_planet.noisemodelling.pathfinder.path.Scene;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutPoint;
@@ -87,6 +88,37 @@ public class TestWallReflection {
         assertTrue(polygon.intersects(factory.createPoint(new Coordinate(100, 145, 0))));
     }
 
+    /**
+     * The analytic visibility cone must contain the polygon visibility cone
+     */
+    @Test
+    public void testAnalyticVisibilityCone() {
+        Random random = new Random(42);
+        GeometryFactory factory = new GeometryFactory();
+        for (int i = 0; i < 2000; i++) {
+            Coordinate receiverImage = new Coordinate(random.nextDouble() * 100, random.nextDouble() * 100);
+            LineSegment wall = new LineSegment(new Coordinate(random.nextDouble() * 100, random.nextDouble() * 100),
+                    new Coordinate(random.nextDouble() * 100, random.nextDouble() * 100));
+            LineSegment segment = new LineSegment(
+                    new Coordinate(random.nextDouble() * 200 - 50, random.nextDouble() * 200 - 50),
+                    new Coordinate(random.nextDouble() * 200 - 50, random.nextDouble() * 200 - 50));
+            Polygon cone = MirrorReceiversCompute.createWallReflectionVisibilityCone(receiverImage, wall, 60, 60);
+            if (cone.intersects(segment.toGeometry(factory))) {
+                assertTrue(MirrorReceiversCompute.isSegmentInCone(receiverImage.x, receiverImage.y, wall, 60,
+                        segment.p0.x, segment.p0.y, segment.p1.x, segment.p1.y));
+            }
+        }
+        // segment in front of the wall
+        assertFalse(MirrorReceiversCompute.isSegmentInCone(0, 0, new LineSegment(-5, 10, 5, 10), 100,
+                -1, 5, 1, 5));
+        // segment behind the wall
+        assertTrue(MirrorReceiversCompute.isSegmentInCone(0, 0, new LineSegment(-5, 10, 5, 10), 100,
+                -1, 15, 1, 15));
+        // segment behind the wall but too far
+        assertFalse(MirrorReceiversCompute.isSegmentInCone(0, 0, new LineSegment(-5, 10, 5, 10), 100,
+                -1, 115, 1, 115));
+    }
+
     @Test
     public void testCubicBuildingReflectionWithinMaxReflectionDistance() {
         // This test reproduces a case where a valid reflection was previously discarded because the
@@ -215,6 +247,56 @@ public class TestWallReflection {
     }
 
 
+    /**
+     * Image receivers shared between receivers of a vertical stack and close receivers must be the same as the image
+     * receivers computed for each receiver
+     */
+    @Test
+    public void testMirrorReceiversCache() throws ParseException, IOException, SQLException {
+        ProfileBuilder profileBuilder = new ProfileBuilder();
+        Csv csv = new Csv();
+        WKTReader wktReader = new WKTReader();
+        try(ResultSet rs = csv.read(new FileReader(
+                TestWallReflection.class.getResource("testNReflexionBuildings.csv").getFile()),
+                new String[]{"geom", "id"})) {
+            assertTrue(rs.next()); //skip column name
+            while(rs.next()) {
+                Geometry geometry = wktReader.read(rs.getString(1));
+                Coordinate[] coordinates = Arrays.stream(geometry.getCoordinates())
+                        .map(c -> new Coordinate(c.x, c.y, 30.0)).toArray(Coordinate[]::new);
+                profileBuilder.addBuilding(coordinates, rs.getInt(2));
+            }
+        }
+        profileBuilder.finishFeeding();
+        Scene inputData = new Scene(profileBuilder);
+        inputData.maxRefDist = 80;
+        inputData.maxSrcDist = 180;
+        inputData.setReflexionOrder(2);
+        Coordinate source = new Coordinate(599095.21, 646283.77, 1);
+        MirrorReceiversCache cache = new MirrorReceiversCache(inputData);
+        for (int position = 0; position < 3; position++) {
+            for (int floor = 0; floor < 4; floor++) {
+                Coordinate receiver = new Coordinate(599093.85 + position * 3, 646227.90, 4 + floor * 3);
+                Envelope receiverPropagationEnvelope = new Envelope(receiver);
+                receiverPropagationEnvelope.expandBy(inputData.maxSrcDist);
+                List<MirrorReceiver> expected = new MirrorReceiversCompute(
+                        profileBuilder.getWallsIn(receiverPropagationEnvelope), receiver, inputData.reflexionOrder,
+                        inputData.maxSrcDist, inputData.maxRefDist).findCloseMirrorReceivers(source);
+                List<MirrorReceiver> actual = cache.getMirrorReceivers(receiver).findCloseMirrorReceivers(source);
+                assertFalse(expected.isEmpty());
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    MirrorReceiver expectedImage = expected.get(i);
+                    MirrorReceiver actualImage = actual.stream().filter(m -> m.getReceiverPos().equals2D(
+                            expectedImage.getReceiverPos(), 1e-9)).findFirst().orElseThrow();
+                    assertEquals(expectedImage.getReceiverPos().z, actualImage.getReceiverPos().z);
+                    assertEquals(expectedImage.getWall().getProcessedObstructionIndex(),
+                            actualImage.getWall().getProcessedObstructionIndex());
+                }
+            }
+        }
+    }
+
     @Test
     public void testNReflexionWithDem() throws ParseException, IOException, SQLException {
         GeometryFactory factory = new GeometryFactory();
@@ -0,0 +1,75 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.propagation;
+
+import java.util.List;
+
+/**
+ * Frequency band values of a set of {@link AttenuationParameters}, computed once in primitive arrays.
+ * The arrays are indexed by frequency band and must not be modified, so one instance is shared by all the threads
+ * computing the same period.
+ * @see AttenuationParameters#getBandTable()
+ */
+public final class AttenuationBandTable {
+    /** Sound speed used by the CNOSSOS wavelengths of the diffraction terms (m/s) */
+    public static final double CNOSSOS_CELERITY = 340.0;
+    /** Nominal frequency of each band (Hz) */
+    public final double[] frequencies;
+    /** Exact frequency of each band (Hz) */
+    public final double[] exactFrequencies;
+    /** Wavelength of each band with the CNOSSOS sound speed (m) */
+    public final double[] wavelengths;
+    /** Wave number of each band with the celerity of the parameters, 2 pi f / c (rad/m) */
+    public final double[] waveNumbers;
+    /** Atmospheric absorption of each band (dB/km) */
+    public final double[] alphaAtmo;
+    /** Frequency power terms of the ground effect equation (2.5.17), fm^2.5, fm^1.5 and fm^0.75 */
+    public final double[] groundFm25;
+    public final double[] groundFm15;
+    public final double[] groundFm075;
+    /** Probability of favourable conditions of each wind rose sector */
+    public final double[] windRose;
+    /** Sound speed of the parameters (m/s) */
+    public final double celerity;
+
+    AttenuationBandTable(AttenuationParameters parameters) {
+        List<Integer> frequencyList = parameters.getFrequencies();
+        List<Double> exactFrequencyList = parameters.getFrequenciesExact();
+        int size = frequencyList.size();
+        celerity = parameters.getCelerity();
+        frequencies = new double[size];
+        exactFrequencies = new double[size];
+        wavelengths = new double[size];
+        waveNumbers = new double[size];
+        groundFm25 = new double[size];
+        groundFm15 = new double[size];
+        groundFm075 = new double[size];
+        for (int i = 0; i < size; i++) {
+            int fm = frequencyList.get(i);
+            frequencies[i] = fm;
+            exactFrequencies[i] = exactFrequencyList.get(i);
+            wavelengths[i] = CNOSSOS_CELERITY / fm;
+            waveNumbers[i] = 2 * Math.PI * fm / celerity;
+            groundFm25[i] = Math.pow(fm, 2.5);
+            groundFm15[i] = Math.pow(fm, 1.5);
+            groundFm075[i] = Math.pow(fm, 0.75);
+        }
+        // the getters return copies
+        alphaAtmo = parameters.getAlpha_atmo();
+        windRose = parameters.getWindRose();
+    }
+
+    /**
+     * @return Number of frequency bands
+     */
+    public int size() {
+        return frequencies.length;
+    }
+}
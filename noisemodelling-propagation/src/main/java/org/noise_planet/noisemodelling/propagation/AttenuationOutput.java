@@ -81,6 +81,9 @@ public class AttenuationOutput {
      */
     public double[] getaGlobal() { return aGlobal; }
 
+    /**
+     * @return ray from source to receiver through potential reflexion and diffraction points
+     */
     public LineString getLineString() {
         return lineString;
     }
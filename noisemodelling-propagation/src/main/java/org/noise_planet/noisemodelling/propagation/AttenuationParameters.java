@@ -40,7 +40,7 @@ public class AttenuationParameters {
      * The value is typically used as a constant for computations requiring the speed of sound.
      * Standard conditions assume a temperature of 15°C at sea level atmospheric pressure.
      */
-    public double celerity = 340;
+    private double celerity = 340;
     /**
      * Represents the relative humidity in percentage, ranging from 0 to 100.
      * This variable is utilized in various calculations related to atmospheric
@@ -51,17 +51,15 @@ public class AttenuationParameters {
      * Standard atmosphere atm (Pa)
      */
     public double pressure = Pref;
-    public double[] alpha_atmo;
-    /** Frequency power terms of the ground effect equation (2.5.15), one value per frequency band */
-    public double[] groundFm25;
-    public double[] groundFm15;
-    public double[] groundFm075;
+    private double[] alpha_atmo;
     public double defaultOccurrence = 0.5;
 
     public boolean gDisc = true;     // choose between accept G discontinuity or not
     public boolean prime2520 = false; // choose to use prime values to compute eq. 2.5.20
+    /** Band values of the current parameters, built on first use and cleared by the setters */
+    private volatile AttenuationBandTable bandTable = null;
     /** probability occurrence favourable condition */
-    public double[] windRose  = DEFAULT_WIND_ROSE;
+    private double[] windRose  = DEFAULT_WIND_ROSE;
     // Wind rose for each directions
     private static final double angle_section = (2 * Math.PI) / DEFAULT_WIND_ROSE.length;
 
@@ -98,12 +96,10 @@ public class AttenuationParameters {
         this.humidity = other.humidity;
         this.pressure = other.pressure;
         this.alpha_atmo = other.alpha_atmo;
-        this.groundFm25 = other.groundFm25;
-        this.groundFm15 = other.groundFm15;
-        this.groundFm075 = other.groundFm075;
         this.defaultOccurrence = other.defaultOccurrence;
         this.gDisc = other.gDisc;
         this.prime2520 = other.prime2520;
+        this.bandTable = other.bandTable;
         this.windRose = other.windRose;
     }
 
@@ -121,15 +117,6 @@ public class AttenuationParameters {
     }
 
     protected void init() {
-        groundFm25 = new double[freq_lvl.size()];
-        groundFm15 = new double[freq_lvl.size()];
-        groundFm075 = new double[freq_lvl.size()];
-        for (int idFreq = 0; idFreq < freq_lvl.size(); idFreq++) {
-            int fm = freq_lvl.get(idFreq);
-            groundFm25[idFreq] = Math.pow(fm, 2.5);
-            groundFm15[idFreq] = Math.pow(fm, 1.5);
-            groundFm075[idFreq] = Math.pow(fm, 0.75);
-        }
         this.setTemperature(temperature);
     }
 
@@ -161,6 +148,7 @@ public class AttenuationParameters {
 
         this.humidity = humidity;
         this.alpha_atmo = getAtmoCoeffArray(freq_lvl_exact,  temperature,  pressure,  humidity);
+        bandTable = null;
         return this;
     }
 
@@ -170,18 +158,26 @@ public class AttenuationParameters {
     public AttenuationParameters setPressure(double pressure) {
         this.pressure = pressure;
         this.alpha_atmo = getAtmoCoeffArray(freq_lvl_exact,  temperature,  pressure,  humidity);
+        bandTable = null;
         return this;
     }
 
+    /**
+     * @return Copy of the probability of favourable conditions of each wind rose sector
+     */
     public double[] getWindRose() {
-        return windRose;
+        return windRose.clone();
     }
 
+    /**
+     * @param windRose Probability of favourable conditions of each wind rose sector, the array is copied
+     */
     public void setWindRose(double[] windRose) {
         if(windRose.length != this.windRose.length) {
             throw new IllegalArgumentException(String.format("Wind roses length is not compatible %d!=%d",windRose.length,this.windRose.length));
         }
-        this.windRose = windRose;
+        this.windRose = windRose.clone();
+        bandTable = null;
     }
 
     public double getTemperature() {
@@ -245,9 +241,25 @@ public class AttenuationParameters {
         this.temperature = temperature;
         this.celerity = computeCelerity(temperature + K_0);
         this.alpha_atmo = getAtmoCoeffArray(freq_lvl_exact,  temperature,  pressure,  humidity);
+        bandTable = null;
         return this;
     }
 
+    /**
+     * The table is built on the first call after a change of the parameters, then shared by the threads computing the
+     * attenuation with these parameters. The values copied in the table can only be changed through the setters,
+     * which clear the table.
+     * @return Frequency band values of these parameters in primitive arrays
+     */
+    public AttenuationBandTable getBandTable() {
+        AttenuationBandTable table = bandTable;
+        if(table == null) {
+            table = new AttenuationBandTable(this);
+            bandTable = table;
+        }
+        return table;
+    }
+
     public static double[] getAtmoCoeffArray(List<Double> freq_lvl, double temperature, double pressure, double humidity){
         double[] alpha_atmo;
         // Compute atmospheric alpha value by specified frequency band
@@ -260,10 +272,10 @@ public class AttenuationParameters {
 
     /**
      * get the atmospheric attenuation coefficient in dB/km at the nominal centre frequency for each frequency band, in accordance with ISO 9613-1.
-     * @return alpha_atmo
+     * @return Copy of alpha_atmo
      */
     public double[] getAlpha_atmo() {
-        return alpha_atmo;
+        return alpha_atmo.clone();
     }
 
 
@@ -35,20 +35,20 @@ public class AttenuationVisitor implements CutPlaneVisitor {
     public AttenuationVisitor(AttenuationComputeOutput multiThreadParent) {
         this.multiThreadParent = multiThreadParent;
         this.keepRays = multiThreadParent.exportPaths;
+        this.propagationModel = multiThreadParent.propagationModelCreator.create();
     }
 
     /**
      * Manage attenuation computation each time a cutProfile is found.
-     * Note: in the case of CNOSSOS propagation model, a new instance of PropagationModel needs to be
-     * created for each cutProfile to ensure a new computation of the cnossosPaths.
+     * Note: the PropagationModel of this thread is reset for each cutProfile to ensure a new computation of the
+     * cnossosPaths.
      *
      * @param cutProfile vertical profile
      * @return Search strategy
      */
     @Override
     public PathSearchStrategy onNewCutPlane(CutProfile cutProfile) {
-        // Create a PropagationModel instance
-        propagationModel = multiThreadParent.propagationModelCreator.create();
+        propagationModel.reset();
         multiThreadParent.cutProfileCount.addAndGet(1);
         final SceneWithAttenuation scene = multiThreadParent.scene;
         if(scene.getCloseReceiverReflectionWallDistance() > 0
@@ -57,10 +57,18 @@ public class AttenuationVisitor implements CutPlaneVisitor {
         }
         // Push attenuation for each period
         if(!multiThreadParent.scene.cnossosParametersPerPeriod.isEmpty()) {
+            List<String> periods = new ArrayList<>(multiThreadParent.scene.cnossosParametersPerPeriod.size());
+            List<AttenuationParameters> parameters = new ArrayList<>(periods.size());
             for (Map.Entry<String, AttenuationParameters> cnossosParametersEntry :
                     multiThreadParent.scene.cnossosParametersPerPeriod.entrySet()) {
-                processAndStoreAttenuation(scene, cutProfile, cnossosParametersEntry.getKey(),
-                        cnossosParametersEntry.getValue());
+                periods.add(cnossosParametersEntry.getKey());
+                parameters.add(cnossosParametersEntry.getValue());
+            }
+            // compute the periods together in order to share the period independent terms
+            List<List<AttenuationOutput>> attenuationPerPeriod = propagationModel.computeAttenuationPerPeriod(scene,
+                    cutProfile, parameters, multiThreadParent.exportAttenuationMatrix);
+            for (int idPeriod = 0; idPeriod < periods.size(); idPeriod++) {
+                storeAttenuation(cutProfile, periods.get(idPeriod), attenuationPerPeriod.get(idPeriod));
             }
         } else {
             processAndStoreAttenuation(scene, cutProfile, "",
@@ -88,6 +96,17 @@ public class AttenuationVisitor implements CutPlaneVisitor {
                                             String period, AttenuationParameters AttenuationParameters) {
         List<AttenuationOutput> attenuationList = propagationModel.computeAttenuation(scene, cutProfile,
                 AttenuationParameters,multiThreadParent.exportAttenuationMatrix);
+        storeAttenuation(cutProfile, period, attenuationList);
+    }
+
+    /**
+     * Store the attenuation of a cut profile
+     *
+     * @param cutProfile Geometrical cross-section
+     * @param period Period identifier
+     * @param attenuationList Attenuation of the cut profile for this period
+     */
+    private void storeAttenuation(CutProfile cutProfile, String period, List<AttenuationOutput> attenuationList) {
         for (AttenuationOutput attenuationOutput : attenuationList) {
             double[] aGlobalMeteo = attenuationOutput.getaGlobal();
             if (aGlobalMeteo != null && aGlobalMeteo.length > 0) {
@@ -13,16 +13,25 @@ import org.noise_planet.noisemodelling.pathfinder.PathFinder;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutProfile;
 import org.noise_planet.noisemodelling.propagation.cnossos.CnossosPath;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Interface for point to point propagation models.
- * Note : the instances of the different implementations of
- * the interface are thread-safe.
+ * Note : the instances may keep a state related to the current cut profile, so an instance must be confined to one
+ * thread. The same instance can be reused for all the cut profiles of the thread by calling {@link #reset()} before
+ * each new cut profile.
  * @author Martin Glesser
  */
 public interface PropagationModel {
 
+    /**
+     * Forget the state related to the previous cut profile. Called before the computation of a new cut profile, the
+     * internal buffers can be kept for the next computations.
+     */
+    default void reset() {
+    }
+
     /**
      * Compute the attenuation for a given cut-profile
      *
@@ -36,6 +45,27 @@ public interface PropagationModel {
                                       AttenuationParameters attenuationParameters,
                                       boolean isExportAttenuationMatrix);
 
+    /**
+     * Compute the attenuation for a given cut-profile with several attenuation parameters, typically one per period.
+     * The default implementation computes each parameters independently, the models can share the terms that do not
+     * depend on the parameters.
+     *
+     * @param scene Geometrical information about the propagation scene
+     * @param cutProfile Geometrical cross-section
+     * @param attenuationParameters parameters of each computation
+     * @param isExportAttenuationMatrix if true, store intermediate values in AttenuationOutput for debugging purpose
+     * @return List of AttenuationOutput objects of each parameters, in the order of the attenuationParameters list
+     */
+    default List<List<AttenuationOutput>> computeAttenuationPerPeriod(SceneWithAttenuation scene, CutProfile cutProfile,
+                                                     List<AttenuationParameters> attenuationParameters,
+                                                     boolean isExportAttenuationMatrix) {
+        List<List<AttenuationOutput>> attenuationOutputs = new ArrayList<>(attenuationParameters.size());
+        for (AttenuationParameters parameters : attenuationParameters) {
+            attenuationOutputs.add(computeAttenuation(scene, cutProfile, parameters, isExportAttenuationMatrix));
+        }
+        return attenuationOutputs;
+    }
+
     /**
      * Compute attenuation along direct path between source and receiver
      *
@@ -0,0 +1,92 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.propagation.cnossos;
+
+import static java.lang.Math.log10;
+
+/**
+ * Frequency band loops of the CNOSSOS attenuation, on primitive arrays with one value per band.
+ * The loops have no branch depending on other bands and no boxed value, so they are unrolled and vectorized by the JIT
+ * for the 8 octave bands and the 24 third-octave bands.
+ * The sum of a level with the logarithm of a coefficient replaces the conversion of the level to energy, the product
+ * by the coefficient and the conversion back to decibel.
+ */
+public final class AttenuationBandKernel {
+
+    private AttenuationBandKernel() {
+    }
+
+    /**
+     * Eq. 2.5.12 AAtm of each band
+     * @param alphaAtmosphericKm Absorption per km of each band
+     * @param distance Distance (m)
+     * @param aAtm Output array
+     */
+    public static void aAtm(double[] alphaAtmosphericKm, double distance, double[] aAtm) {
+        double distanceKm = distance / 1000.;
+        for (int i = 0; i < aAtm.length; i++) {
+            aAtm[i] = alphaAtmosphericKm[i] * distanceKm;
+        }
+    }
+
+    /**
+     * Eq. 2.5.21 or 2.5.37 diffraction attenuation of each band
+     * @param lambda Wavelength of each band (m)
+     * @param cSecond C'' coefficient
+     * @param delta Path difference (m)
+     * @param deltaDif Output array, 10 log10(3 + 40 / lambda C'' delta) or 0 if the test form is lower than -2
+     */
+    public static void deltaDif(double[] lambda, double cSecond, double delta, double[] deltaDif) {
+        double factor = 40.0 * cSecond * delta;
+        for (int i = 0; i < deltaDif.length; i++) {
+            double testForm = factor / lambda[i];
+            deltaDif[i] = testForm >= -2 ? 10 * log10(3 + testForm) : 0;
+        }
+    }
+
+    /**
+     * Eq. 2.5.6 and 2.5.8 global attenuation of each band
+     * @param aDiv Geometrical divergence
+     * @param aAtm Atmospheric absorption
+     * @param aBoundary Ground and diffraction attenuation
+     * @param aRef Reflection attenuation
+     * @param aRetroDiff Retro-diffraction attenuation
+     * @param deltaBodyScreen Body screen correction
+     * @param aGlobal Output array
+     */
+    public static void aGlobal(double[] aDiv, double[] aAtm, double[] aBoundary, double[] aRef, double[] aRetroDiff,
+                               double[] deltaBodyScreen, double[] aGlobal) {
+        for (int i = 0; i < aGlobal.length; i++) {
+            aGlobal[i] = -(aDiv[i] + aAtm[i] + aBoundary[i] - aRef[i] + aRetroDiff[i] - deltaBodyScreen[i]);
+        }
+    }
+
+    /**
+     * Multiply the energy of each band by a coefficient
+     * @param levels Levels in dB, updated in place
+     * @param coefficient Energy coefficient, a null coefficient gives negative infinity levels
+     */
+    public static void multiplyEnergy(double[] levels, double coefficient) {
+        double offset = 10 * log10(coefficient);
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] += offset;
+        }
+    }
+
+    /**
+     * @param levels Levels in dB, updated in place
+     * @param attenuation Attenuation in dB added to each band
+     */
+    public static void add(double[] levels, double[] attenuation) {
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] += attenuation[i];
+        }
+    }
+}
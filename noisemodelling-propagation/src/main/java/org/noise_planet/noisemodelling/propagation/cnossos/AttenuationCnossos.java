@@ -12,6 +12,7 @@ package org.noise_planet.noisemodelling.propagation.cnossos;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.math.Vector3D;
 import org.noise_planet.noisemodelling.pathfinder.utils.geometry.Orientation;
+import org.noise_planet.noisemodelling.propagation.AttenuationBandTable;
 import org.noise_planet.noisemodelling.propagation.AttenuationParameters;
 import org.noise_planet.noisemodelling.propagation.MeteoType;
 import org.noise_planet.noisemodelling.propagation.SceneWithAttenuation;
@@ -20,7 +21,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static java.lang.Math.*;
 import static org.noise_planet.noisemodelling.pathfinder.utils.AcousticIndicatorsFunctions.*;
@@ -51,16 +51,6 @@ public class AttenuationCnossos {
         return 20*log10(distance)+11;
     }
 
-    /**
-     * Compute the attenuation of atmospheric absorption
-     * @param dist       Propagation distance
-     * @param alpha_atmo Atmospheric alpha (dB/km)
-     * @return atmospheric absorption
-     */
-    private static double getAAtm(double dist, double alpha_atmo) {
-        return alpha_atmo * dist / 1000.;
-    }
-
 
     /**
      * Eq. 2.5.15:
@@ -74,17 +64,18 @@ public class AttenuationCnossos {
     public static double[] getAGroundCore(CnossosPath cnossosPath, SegmentPath segmentPath,
                                           CnossosAttenuationOutput attenuationOutput, AttenuationParameters data) {
 
-        double[] aGround = new double[data.getFrequencies().size()];
+        AttenuationBandTable bands = data.getBandTable();
+        double[] aGround = new double[bands.size()];
         double aGroundMin;
         double AGround;
 
-        for(int idfreq = 0; idfreq < data.getFrequencies().size(); idfreq++) {
-            int fm = data.getFrequencies().get(idfreq);
+        for(int idfreq = 0; idfreq < bands.size(); idfreq++) {
+            double fm = bands.frequencies[idfreq];
             double gw = segmentPath.gw;
             double dp = segmentPath.dp;
 
             //NF S 31-133 page 41 c
-            double k = 2 * Math.PI * fm / data.getCelerity();
+            double k = bands.waveNumbers[idfreq];
             //NF S 31-113 page 41 w
             //eq 2.5.17
             double w = 0.0185 * pow(fm, 2.5) * pow(gw, 2.6) /
@@ -139,11 +130,11 @@ public class AttenuationCnossos {
      * @return list double with the values of ARef
      */
     private static double[] getARef(CnossosPath cnossosPath, AttenuationParameters data) {
-        double[] aRef = new double[data.getFrequencies().size()];
-        Arrays.fill(aRef, 0.0);
+        int bandCount = data.getBandTable().size();
+        double[] aRef = new double[bandCount];
         for (PointPath pointPath : cnossosPath.getPointList()) {
             if(pointPath.type.equals(REFL)) {
-                for (int idf = 0; idf < data.getFrequencies().size(); idf++) {
+                for (int idf = 0; idf < bandCount; idf++) {
                     List<Double> alpha = pointPath.alphaWall;
                     if (alpha != null && !alpha.isEmpty()) {
                         aRef[idf] += 10 * log10(1 - alpha.get(idf));
@@ -171,7 +162,7 @@ public class AttenuationCnossos {
         } else {
             double aGroundMin = getAGroundMin(segmentPath, cnossosPath);
 
-            double[] aGround = new double[data.getFrequencies().size()];
+            double[] aGround = new double[data.getBandTable().size()];
             Arrays.fill(aGround, aGroundMin);
 
             //For testing purpose
@@ -211,7 +202,7 @@ public class AttenuationCnossos {
      * @return list double with the values of ADiv
      */
     public static double[] aDiv(CnossosPath cnossosPath, AttenuationParameters data) {
-        double[] aDiv = new double[data.getFrequencies().size()];
+        double[] aDiv = new double[data.getBandTable().size()];
         long difVPointCount = cnossosPath.getPointList().stream().
                 filter(pointPath -> pointPath.type.equals(DIFV)).count();
         Arrays.fill(aDiv, getADiv(difVPointCount == 0 ? cnossosPath.getSRSegment().d : cnossosPath.getSRSegment().dc));
@@ -225,23 +216,18 @@ public class AttenuationCnossos {
      * @return list double with the values of AAtm
      */
     public static double[] aAtm(double[] alphaAtmosphericKm, double distance) {
-        // init
         double[] aAtm = new double[alphaAtmosphericKm.length];
-        // init atmosphere
-        for (int idfreq = 0; idfreq < aAtm.length; idfreq++) {
-            aAtm[idfreq] = getAAtm(distance, alphaAtmosphericKm[idfreq]);
-        }
+        AttenuationBandKernel.aAtm(alphaAtmosphericKm, distance, aAtm);
         return aAtm;
     }
 
     /**
      *
      * @param pp Cnossos path
-     * @param freq Frequency
+     * @param lambda Wavelength (m)
      * @return true if the r-criterion is valid
      */
-    private static boolean isValidRcrit(CnossosPath pp, int freq) {
-        double lambda = 340.0/freq;
+    private static boolean isValidRcrit(CnossosPath pp, double lambda) {
         // Eq 2.5.21: if delta >= 0, diffraction always applies; Rayleigh criterion only for delta < 0
         return pp.delta >= 0 || (pp.delta > -lambda / 20 && pp.delta > lambda / 4 - pp.deltaPrime);
     }
@@ -255,21 +241,36 @@ public class AttenuationCnossos {
      */
     public static double[] aBoundary(CnossosPath path, CnossosAttenuationOutput attenuationOutput,
                                      AttenuationParameters data) {
-        double[] aGround = new double[data.getFrequencies().size()];
-        double[] aDif = new double[data.getFrequencies().size()];
-        List<PointPath> diffPts = path.getPointList().stream().
-                filter(pointPath -> pointPath.type.equals(DIFH_RCRIT) || pointPath.type.equals(DIFH)
-                        || pointPath.type.equals(DIFV)).collect(Collectors.toList());
-        attenuationOutput.aBoundary.init(data.getFrequencies().size());
+        AttenuationBandTable bands = data.getBandTable();
+        double[] aGround = new double[bands.size()];
+        double[] aDif = new double[bands.size()];
+        double[] lambda = bands.wavelengths;
+        // The first diffraction point, with and without the points that only diffract if the Rayleigh criterion is valid
+        PointPath firstDiffraction = null;
+        PointPath firstDiffractionNoRCriterion = null;
+        long difHCount = 0;
+        long difVCount = 0;
+        for (PointPath pointPath : path.getPointList()) {
+            if(pointPath.type.equals(DIFH) || pointPath.type.equals(DIFV)) {
+                if(firstDiffractionNoRCriterion == null) {
+                    firstDiffractionNoRCriterion = pointPath;
+                }
+                if(pointPath.type.equals(DIFH)) {
+                    difHCount++;
+                } else {
+                    difVCount++;
+                }
+            }
+            if(firstDiffraction == null && (pointPath.type.equals(DIFH_RCRIT) || pointPath.type.equals(DIFH)
+                    || pointPath.type.equals(DIFV))) {
+                firstDiffraction = pointPath;
+            }
+        }
+        attenuationOutput.aBoundary.init(bands.size());
         // Without diff
-        for(int i=0; i<data.getFrequencies().size(); i++) {
-            int finalI = i;
-            boolean isValidRCriterion = isValidRcrit(path, data.getFrequencies().get(finalI));
-            PointPath first = diffPts.stream()
-                    .filter(pp -> pp.type.equals(PointPath.POINT_TYPE.DIFH) || pp.type.equals(DIFV) ||
-                            (pp.type.equals(DIFH_RCRIT) && isValidRCriterion ))
-                    .findFirst()
-                    .orElse(null);
+        for(int i=0; i<bands.size(); i++) {
+            boolean isValidRCriterion = isValidRcrit(path, lambda[i]);
+            PointPath first = isValidRCriterion ? firstDiffraction : firstDiffractionNoRCriterion;
             aGround[i] = path.isFavourable() ?
                     aGroundF(path, path.getSRSegment(), attenuationOutput, data, i) :
                     aGroundH(path, path.getSRSegment(), attenuationOutput, data, i);
@@ -277,7 +278,7 @@ public class AttenuationCnossos {
                 attenuationOutput.groundAttenuation.aGround[i] = aGround[i];
             }
             if (first != null) {
-                aDif[i] = aDif(path, attenuationOutput, data, i, first.type);
+                aDif[i] = aDif(path, attenuationOutput, data, i, first.type, lambda[i], difHCount, difVCount);
                 if(!first.type.equals(DIFV) && isValidRCriterion) {
                     aGround[i] = 0.;
                 }
@@ -289,8 +290,8 @@ public class AttenuationCnossos {
         if(attenuationOutput.keepAbsorption) {
             attenuationOutput.aDif = aDif;
         }
-        double[] aBoundary = new double[data.getFrequencies().size()];
-        for(int i=0; i<data.getFrequencies().size(); i++) {
+        double[] aBoundary = new double[bands.size()];
+        for(int i=0; i<bands.size(); i++) {
             aBoundary[i] = aGround[i] + aDif[i];
         }
         return aBoundary;
@@ -305,8 +306,18 @@ public class AttenuationCnossos {
      * @return list double with the values of deltaRetrodif
      */
     public static double[] deltaRetrodif(CnossosPath reflect, AttenuationParameters data) {
-        double[] retroDiff = new double[data.getFrequencies().size()];
-        Arrays.fill(retroDiff, 0.);
+        return deltaRetrodif(reflect, data.getBandTable().wavelengths);
+    }
+
+    /**
+     * Compute deltaRetrodif
+     * Figure 2.5.36
+     * @param reflect Cnossos propagation path
+     * @param lambda Wavelength of each frequency band (m)
+     * @return list double with the values of deltaRetrodif
+     */
+    public static double[] deltaRetrodif(CnossosPath reflect, double[] lambda) {
+        double[] retroDiff = new double[lambda.length];
         final Coordinate originalS = reflect.getSRSegment().s;
         final Coordinate originalR = reflect.getSRSegment().r;
         final double SR = originalS.distance(originalR);
@@ -340,18 +351,12 @@ public class AttenuationCnossos {
                     double SpR = gamma * asin(s.distance(r) / gamma);
                     double deltaPrime = -(SpO + OpR - SpR);
                     if (e < 0.3) {
-                        for (int i = 0; i < data.getFrequencies().size(); i++) {
-                            double lambda = 340.0 / data.getFrequencies().get(i);
-                            double testForm = 40.0 / lambda * deltaPrime;
-                            double dLRetro = testForm >= -2 ? 10 * ch * log10(3 + testForm) : 0; // 2.5.37
-                            retroDiff[i] = dLRetro;
-                        }
+                        AttenuationBandKernel.deltaDif(lambda, 1, deltaPrime, retroDiff); // 2.5.37
                     } else {
-                        for (int i = 0; i < data.getFrequencies().size(); i++) {
-                            double lambda = 340.0 / data.getFrequencies().get(i);
-                            double x = 5.0 * lambda / e;
+                        for (int i = 0; i < lambda.length; i++) {
+                            double x = 5.0 * lambda[i] / e;
                             double Csecond = (1.0 + x * x) / (1.0/3.0 + x * x);
-                            double testForm = 40.0 / lambda * Csecond * deltaPrime;
+                            double testForm = 40.0 / lambda[i] * Csecond * deltaPrime;
                             double dLRetro = testForm >= -2 ? 10 * ch * log10(3 + testForm) : 0; // 2.5.37
                             retroDiff[i] = dLRetro;
                         }
@@ -360,12 +365,7 @@ public class AttenuationCnossos {
                 } else {
                     //2.5.36 altered with ISO/TR 17534-4:2020-11 Chapter  5.15
                     double deltaPrime = s.distance(r) - s.distance(p) - p.distance(r);
-                    for (int i = 0; i < data.getFrequencies().size(); i++) {
-                        double lambda = 340.0 / data.getFrequencies().get(i);
-                        double testForm = 40.0 / lambda * deltaPrime;
-                        double dLRetro = testForm >= -2 ? 10 * ch * log10(3 + testForm) : 0; // 2.5.37
-                        retroDiff[i] = dLRetro;
-                    }
+                    AttenuationBandKernel.deltaDif(lambda, 1, deltaPrime, retroDiff); // 2.5.37
                 }
             }
         }
@@ -379,17 +379,18 @@ public class AttenuationCnossos {
      * @param data Attenuation parameters
      * @param frequencyIndex Index of frequency
      * @param type Type of diffraction
+     * @param lambda Wavelength of the frequency (m)
+     * @param difHCount Number of horizontal diffraction points of the path
+     * @param difVCount Number of vertical diffraction points of the path
      * @return the value of ADiv
      */
     private static double aDif(CnossosPath cnossosPath, CnossosAttenuationOutput attenuationOutput,
-                               AttenuationParameters data, int frequencyIndex, PointPath.POINT_TYPE type) {
+                               AttenuationParameters data, int frequencyIndex, PointPath.POINT_TYPE type,
+                               double lambda, long difHCount, long difVCount) {
         SegmentPath first = cnossosPath.getSegmentList().getFirst();
         SegmentPath last = cnossosPath.getSegmentList().getLast();
 
         double ch = 1.;
-        double lambda = 340.0 / data.getFrequencies().get(frequencyIndex);
-        long difHCount = cnossosPath.getPointList().stream().filter(pointPath -> pointPath.type.equals(DIFH)).count();
-        long difVCount = cnossosPath.getPointList().stream().filter(pointPath -> pointPath.type.equals(DIFV)).count();
         double cSecond = (type.equals(PointPath.POINT_TYPE.DIFH) && difHCount <= 1) || (type.equals(DIFV) && difVCount <= 1) || cnossosPath.e <= 0.3 ? 1. :
                 (1+pow(5*lambda/ cnossosPath.e, 2))/(1./3+pow(5*lambda/ cnossosPath.e, 2));
 
@@ -497,14 +498,13 @@ public class AttenuationCnossos {
      */
     private static double[] computeCfKValues(CnossosPath cnossosPath, SegmentPath path,
                                              AttenuationParameters data, int idFreq, boolean forceGPath) {
-        int fm = data.getFrequencies().get(idFreq);
-        double c = data.getCelerity();
+        AttenuationBandTable bands = data.getBandTable();
         double dp = path.dp;
-        double k = 2*PI*fm/c;
+        double k = bands.waveNumbers[idFreq];
         double gw = forceGPath ? path.gPath : cnossosPath.isFavourable() ? path.gPath : path.gPathPrime;
         double gw26 = pow(gw, 2.6);
-        double w = 0.0185 * data.groundFm25[idFreq] * gw26 /
-                (data.groundFm15[idFreq] * gw26 + 1.3e3 * data.groundFm075[idFreq] * pow(gw, 1.3) + 1.16e6);
+        double w = 0.0185 * bands.groundFm25[idFreq] * gw26 /
+                (bands.groundFm15[idFreq] * gw26 + 1.3e3 * bands.groundFm075[idFreq] * pow(gw, 1.3) + 1.16e6);
         double cf = dp * (1 + 3 * w * dp * exp(-sqrt(w * dp))) / (1 + w * dp);
         return new double[]{cf, k, w};
     }
@@ -611,22 +611,18 @@ public class AttenuationCnossos {
             return;
         }
         CnossosPath cnossosPath = attenuationOutput.propagationPath;
-        // cache frequencies
-        double[] frequencies = new double[0];
-        if(scene != null) {
-            frequencies =  scene.profileBuilder.frequencyArray.stream().mapToDouble(value -> value).toArray();
-        }
+        AttenuationBandTable bands = data.getBandTable();
         // Compute receiver/source attenuation
         if(exportAttenuationMatrix) {
             attenuationOutput.keepAbsorption = true;
-            attenuationOutput.groundAttenuation.init(data.getFrequencies().size());
-            attenuationOutput.init(data.getFrequencies().size());
+            attenuationOutput.groundAttenuation.init(bands.size());
+            attenuationOutput.init(bands.size());
         }
 
         //ADiv computation
         double[] aDiv = AttenuationCnossos.aDiv(cnossosPath, data);
         //AAtm computation
-        double[] aAtm = AttenuationCnossos.aAtm(data.getAlpha_atmo(), cnossosPath.getSRSegment().d);
+        double[] aAtm = aAtm(bands.alphaAtmo, cnossosPath.getSRSegment().d);
         //Reflexion computation
         double[] aRef = getARef(cnossosPath, data);
         //For testing purpose
@@ -636,9 +632,142 @@ public class AttenuationCnossos {
         double[] aRetroDiff;
         //ABoundary computation
         double[] aBoundary;
-        double[] aGlobalMeteo = new double[data.getFrequencies().size()];
-        double[] deltaBodyScreen = new double[data.getFrequencies().size()];
+        double[] aGlobalMeteo = new double[bands.size()];
+        double[] deltaBodyScreen = deltaBodyScreen(cnossosPath, bands);
+
+        int roseIndex = getRoseIndex(attenuationOutput);
+        if(!cnossosPath.isFavourable()) {
+            // Homogenous conditions
+            if (bands.windRose[roseIndex] != 1) {
+                aBoundary = AttenuationCnossos.aBoundary(cnossosPath, attenuationOutput,data);
+                aRetroDiff = AttenuationCnossos.deltaRetrodif(cnossosPath, bands.wavelengths);
+                AttenuationBandKernel.aGlobal(aDiv, aAtm, aBoundary, aRef, aRetroDiff, deltaBodyScreen,
+                        aGlobalMeteo); // Eq. 2.5.6
+                //For testing purpose
+                if(exportAttenuationMatrix) {
+                    attenuationOutput.aRetroDiff = aRetroDiff.clone();
+                    attenuationOutput.double_aBoundary = aBoundary.clone();
+                    attenuationOutput.aGlobalRaw = aGlobalMeteo.clone();
+                }
+            }
+        } else {
+            // Favourable conditions
+            if (bands.windRose[roseIndex] != 0) {
+                cnossosPath.setFavourable(true);
+                attenuationOutput.setMeteoType(MeteoType.FAVOURABLE);
+                aBoundary = AttenuationCnossos.aBoundary(cnossosPath, attenuationOutput, data);
+                aRetroDiff = AttenuationCnossos.deltaRetrodif(cnossosPath, bands.wavelengths);
+                AttenuationBandKernel.aGlobal(aDiv, aAtm, aBoundary, aRef, aRetroDiff, deltaBodyScreen,
+                        aGlobalMeteo); // Eq. 2.5.8
+                //For debugging purpose
+                if(exportAttenuationMatrix) {
+                    attenuationOutput.double_aBoundary = aBoundary.clone();
+                    attenuationOutput.aRetroDiff = aRetroDiff.clone();
+                    attenuationOutput.aGlobalRaw = aGlobalMeteo.clone();
+                }
+            }
+        }
+
+        //For testing purpose
+        if(exportAttenuationMatrix) {
+            attenuationOutput.keepAbsorption = true;
+            attenuationOutput.aDiv = aDiv.clone();
+            attenuationOutput.aAtm = aAtm.clone();
+        }
+
+        // Keep global attenuation
+        attenuationOutput.aGlobal = applyRayConditions(aGlobalMeteo, bands, bands.windRose[roseIndex], scene,
+                attenuationOutput, exportAttenuationMatrix);
+    }
+
+    /**
+     * Compute the attenuation of one propagation path with several attenuation parameters, one for each period.
+     * The terms that only depend on the path geometry (divergence, reflections, retro-diffraction and body screen) are
+     * computed once. The ground and diffraction terms only depend on the sound speed, the G discontinuity and the
+     * prime 2.5.20 options of the parameters, they are computed once for each combination of these values. The
+     * atmospheric absorption and the meteorological conditions are computed for each period.
+     * The intermediate values are not exported, use
+     * {@link #computeCnossosAttenuation(AttenuationParameters, SceneWithAttenuation, CnossosAttenuationOutput, boolean)}
+     * for each period to get them.
+     *
+     * @param parameters Attenuation parameters of each period
+     * @param scene Scene with attenuation data
+     * @param attenuationOutputs Output of each period, with the same propagation path
+     */
+    public static void computeCnossosAttenuation(List<AttenuationParameters> parameters, SceneWithAttenuation scene,
+                                                 List<CnossosAttenuationOutput> attenuationOutputs) {
+        if(parameters.size() != attenuationOutputs.size()) {
+            throw new IllegalArgumentException("Expected one attenuation output per attenuation parameters");
+        }
+        if(parameters.isEmpty()) {
+            return;
+        }
+        AttenuationBandTable firstBands = parameters.getFirst().getBandTable();
+        for (AttenuationParameters data : parameters) {
+            if(!Arrays.equals(firstBands.frequencies, data.getBandTable().frequencies)) {
+                // the geometric terms can not be shared between different frequency bands
+                for (int idPeriod = 0; idPeriod < parameters.size(); idPeriod++) {
+                    computeCnossosAttenuation(parameters.get(idPeriod), scene, attenuationOutputs.get(idPeriod),
+                            false);
+                }
+                return;
+            }
+        }
+        CnossosAttenuationOutput firstOutput = attenuationOutputs.getFirst();
+        CnossosPath cnossosPath = firstOutput.propagationPath;
+        // Period independent terms
+        double[] aDiv = AttenuationCnossos.aDiv(cnossosPath, parameters.getFirst());
+        double[] aRef = getARef(cnossosPath, parameters.getFirst());
+        double[] deltaBodyScreen = deltaBodyScreen(cnossosPath, firstBands);
+        int roseIndex = getRoseIndex(firstOutput);
+        double[] aRetroDiff = null;
+        // Ground and diffraction terms of each sound speed, G discontinuity and prime 2.5.20 options
+        AttenuationParameters[] boundaryParameters = new AttenuationParameters[parameters.size()];
+        double[][] boundaryAttenuation = new double[parameters.size()][];
+        int boundaryCount = 0;
+        for (int idPeriod = 0; idPeriod < parameters.size(); idPeriod++) {
+            AttenuationParameters data = parameters.get(idPeriod);
+            CnossosAttenuationOutput attenuationOutput = attenuationOutputs.get(idPeriod);
+            AttenuationBandTable bands = data.getBandTable();
+            double[] aGlobalMeteo = new double[bands.size()];
+            double favourableProbability = bands.windRose[roseIndex];
+            if(cnossosPath.isFavourable() ? favourableProbability != 0 : favourableProbability != 1) {
+                if(cnossosPath.isFavourable()) {
+                    attenuationOutput.setMeteoType(MeteoType.FAVOURABLE);
+                }
+                double[] aBoundary = null;
+                for (int idBoundary = 0; idBoundary < boundaryCount; idBoundary++) {
+                    AttenuationParameters other = boundaryParameters[idBoundary];
+                    if(other.getCelerity() == data.getCelerity() && other.isgDisc() == data.isgDisc() &&
+                            other.isPrime2520() == data.isPrime2520()) {
+                        aBoundary = boundaryAttenuation[idBoundary];
+                        break;
+                    }
+                }
+                if(aBoundary == null) {
+                    aBoundary = AttenuationCnossos.aBoundary(cnossosPath, attenuationOutput, data);
+                    boundaryParameters[boundaryCount] = data;
+                    boundaryAttenuation[boundaryCount++] = aBoundary;
+                }
+                if(aRetroDiff == null) {
+                    aRetroDiff = AttenuationCnossos.deltaRetrodif(cnossosPath, bands.wavelengths);
+                }
+                AttenuationBandKernel.aGlobal(aDiv, aAtm(bands.alphaAtmo, cnossosPath.getSRSegment().d), aBoundary,
+                        aRef, aRetroDiff, deltaBodyScreen, aGlobalMeteo); // Eq. 2.5.6 and 2.5.8
+            }
+            attenuationOutput.aGlobal = applyRayConditions(aGlobalMeteo, bands, favourableProbability, scene,
+                    attenuationOutput, false);
+        }
+    }
 
+    /**
+     * Compute the correction of the multiple reflections between a vehicle body and a close noise barrier
+     * @param cnossosPath Cnossos propagation path
+     * @param bands Frequency band values
+     * @return deltaBodyScreen of each band, 0 if there is no body barrier
+     */
+    private static double[] deltaBodyScreen(CnossosPath cnossosPath, AttenuationBandTable bands) {
+        double[] deltaBodyScreen = new double[bands.size()];
         List<PointPath> ptList = cnossosPath.getPointList();
 
         // todo get hRail from input data
@@ -651,13 +780,13 @@ public class AttenuationCnossos {
 
                 int n = 3;
                 Coordinate rcv = ptList.getLast().coordinate;
-                double[][] deltaGeo = new double[n+1][data.getFrequencies().size()];
-                double[][] deltaAbs = new double[n+1][data.getFrequencies().size()];
-                double[][] deltaDif = new double[n+1][data.getFrequencies().size()];
-                double[][] deltaRef = new double[n+1][data.getFrequencies().size()];
-                double[][] deltaRetroDifi = new double[n+1][data.getFrequencies().size()];
-                double[][] deltaRetroDif = new double[n+1][data.getFrequencies().size()];
-                double[] deltaL = new double[data.getFrequencies().size()];
+                double[][] deltaGeo = new double[n+1][bands.size()];
+                double[][] deltaAbs = new double[n+1][bands.size()];
+                double[][] deltaDif = new double[n+1][bands.size()];
+                double[][] deltaRef = new double[n+1][bands.size()];
+                double[][] deltaRetroDifi = new double[n+1][bands.size()];
+                double[][] deltaRetroDif = new double[n+1][bands.size()];
+                double[] deltaL = new double[bands.size()];
                 Arrays.fill(deltaL, dBToW(0.0));
 
                 double db = pDif.coordinate.x;
@@ -671,12 +800,12 @@ public class AttenuationCnossos {
                 double hr = ptList.getLast().altitude + ptList.getLast().coordinate.y-h0;
                 double[] r = new double[4];
                 if (db<5*hb) {
-                    for (int idfreq = 0; idfreq < data.getFrequencies().size(); idfreq++) {
+                    for (int idfreq = 0; idfreq < bands.size(); idfreq++) {
                         if (pDif.alphaWall.get(idfreq)<0.8){
 
                             double dif0 =0 ;
                             double ch = 1.;
-                            double lambda = 340.0 / data.getFrequencies().get(idfreq);
+                            double lambda = bands.wavelengths[idfreq];
                             double hi = hs;
                             double cSecond = 1;
 
@@ -742,64 +871,46 @@ public class AttenuationCnossos {
             }
 
         }
+        return deltaBodyScreen;
+    }
 
+    /**
+     * @param attenuationOutput Output of the attenuation computation
+     * @return Index of the wind rose sector of the propagation direction
+     */
+    private static int getRoseIndex(CnossosAttenuationOutput attenuationOutput) {
         // restore the Map relative propagation direction from the emission propagation relative to the sound source orientation
         // just swap the inverse boolean parameter
         // @see ComputeCnossosRays#computeOrientation
         Vector3D fieldVectorPropagation = Orientation.rotate(attenuationOutput.getCutProfile().getSourceOrientation(),
                 Orientation.toVector(attenuationOutput.getCutProfile().getRaySourceReceiverDirectivity()), false);
-        int roseIndex = AttenuationParameters.getRoseIndex(Math.atan2(fieldVectorPropagation.getY(), fieldVectorPropagation.getX()));
-        if(!cnossosPath.isFavourable()) {
-            // Homogenous conditions
-            if (data.getWindRose()[roseIndex] != 1) {
-                aBoundary = AttenuationCnossos.aBoundary(cnossosPath, attenuationOutput,data);
-                aRetroDiff = AttenuationCnossos.deltaRetrodif(cnossosPath, data);
-                for (int idfreq = 0; idfreq < data.getFrequencies().size(); idfreq++) {
-                    aGlobalMeteo[idfreq] = -(aDiv[idfreq] + aAtm[idfreq] + aBoundary[idfreq] - aRef[idfreq] + aRetroDiff[idfreq] - deltaBodyScreen[idfreq]); // Eq. 2.5.6
-                }
-                //For testing purpose
-                if(exportAttenuationMatrix) {
-                    attenuationOutput.aRetroDiff = aRetroDiff.clone();
-                    attenuationOutput.double_aBoundary = aBoundary.clone();
-                    attenuationOutput.aGlobalRaw = aGlobalMeteo.clone();
-                }
-            }
-        } else {
-            // Favourable conditions
-            if (data.getWindRose()[roseIndex] != 0) {
-                cnossosPath.setFavourable(true);
-                attenuationOutput.setMeteoType(MeteoType.FAVOURABLE);
-                aBoundary = AttenuationCnossos.aBoundary(cnossosPath, attenuationOutput, data);
-                aRetroDiff = AttenuationCnossos.deltaRetrodif(cnossosPath, data);
-                for (int idfreq = 0; idfreq < data.getFrequencies().size(); idfreq++) {
-                    aGlobalMeteo[idfreq] = -(aDiv[idfreq] + aAtm[idfreq] + aBoundary[idfreq] - aRef[idfreq] + aRetroDiff[idfreq] -deltaBodyScreen[idfreq]); // Eq. 2.5.8
-                }
-                //For debugging purpose
-                if(exportAttenuationMatrix) {
-                    attenuationOutput.double_aBoundary = aBoundary.clone();
-                    attenuationOutput.aRetroDiff = aRetroDiff.clone();
-                    attenuationOutput.aGlobalRaw = aGlobalMeteo.clone();
-                }
-            }
-        }
-
-        //For testing purpose
-        if(exportAttenuationMatrix) {
-            attenuationOutput.keepAbsorption = true;
-            attenuationOutput.aDiv = aDiv.clone();
-            attenuationOutput.aAtm = aAtm.clone();
-        }
+        return AttenuationParameters.getRoseIndex(Math.atan2(fieldVectorPropagation.getY(), fieldVectorPropagation.getX()));
+    }
 
+    /**
+     * Apply the probability of the meteorological conditions, the source directivity and the line source
+     * coefficient
+     * @param aGlobalMeteo Attenuation of the path in the meteorological conditions of the path
+     * @param bands Frequency bands of the attenuation
+     * @param favourableProbability Probability of favourable conditions in the direction of the path
+     * @param scene Scene with attenuation data
+     * @param attenuationOutput Output of the attenuation computation
+     * @param exportAttenuationMatrix if true, store intermediate values in attenuationOutput for debugging purpose
+     * @return Global attenuation of each band
+     */
+    private static double[] applyRayConditions(double[] aGlobalMeteo, AttenuationBandTable bands,
+                                               double favourableProbability,
+                                               SceneWithAttenuation scene, CnossosAttenuationOutput attenuationOutput,
+                                               boolean exportAttenuationMatrix) {
+        CnossosPath cnossosPath = attenuationOutput.propagationPath;
         // Compute attenuation under the atmospheric conditions using the ray direction
-        double[] aGlobalMeteoRay = new double[aGlobalMeteo.length];
-        double probability = data.getWindRose()[roseIndex]; // favourable probability
+        double probability = favourableProbability;
         if(!cnossosPath.isFavourable()) {
             // compute homogeneous conditions probability from favourable probability
             probability = 1 - probability;
         }
-        for (int i = 0; i < aGlobalMeteoRay.length; i++) {
-            aGlobalMeteoRay[i] = wToDb(probability * dBToW(aGlobalMeteo[i]));
-        }
+        double[] aGlobalMeteoRay = aGlobalMeteo.clone();
+        AttenuationBandKernel.multiplyEnergy(aGlobalMeteoRay, probability);
 
         // Apply attenuation due to sound direction
         int sourceId = cnossosPath.getCutProfile().getSource().id;
@@ -807,23 +918,24 @@ public class AttenuationCnossos {
 
         if(scene != null && !scene.isOmnidirectional(sourceId)) {
             Orientation directivityToPick = attenuationOutput.getCutProfile().getRaySourceReceiverDirectivity();
+            double[] frequencies = bands.frequencies;
+            if(frequencies.length != scene.profileBuilder.frequencyArray.size()) {
+                frequencies = scene.profileBuilder.frequencyArray.stream().mapToDouble(value -> value).toArray();
+            }
             double[] attSource = scene.getSourceAttenuation( sourceId,
                     frequencies, Math.toRadians(directivityToPick.yaw),
                     Math.toRadians(directivityToPick.pitch));
             if(exportAttenuationMatrix) {
                 attenuationOutput.aSource = attSource;
             }
-            aGlobalMeteoRay = sumArray(aGlobalMeteoRay, attSource);
+            AttenuationBandKernel.add(aGlobalMeteoRay, attSource);
         }
 
         // For line source, take account of li coefficient
         if(sourceLi > 1.0) {
-            for (int i = 0; i < aGlobalMeteoRay.length; i++) {
-                aGlobalMeteoRay[i] = wToDb(dBToW(aGlobalMeteoRay[i]) * sourceLi);
-            }
+            AttenuationBandKernel.multiplyEnergy(aGlobalMeteoRay, sourceLi);
         }
-        // Keep global attenuation
-        attenuationOutput.aGlobal = aGlobalMeteoRay.clone();
+        return aGlobalMeteoRay;
     }
 
 }
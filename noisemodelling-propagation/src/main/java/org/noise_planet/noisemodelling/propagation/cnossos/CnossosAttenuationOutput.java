@@ -9,6 +9,7 @@
 
 package org.noise_planet.noisemodelling.propagation.cnossos;
 
+import org.locationtech.jts.geom.LineString;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutProfile;
 import org.noise_planet.noisemodelling.propagation.AttenuationOutput;
 
@@ -78,6 +79,18 @@ public class CnossosAttenuationOutput extends AttenuationOutput {
         this.keepAbsorption = other.keepAbsorption;
     }
 
+    /**
+     * The ray geometry is only used by the rays export, it is built from the propagation path on the first call
+     * @return ray from source to receiver through potential reflexion and diffraction points
+     */
+    @Override
+    public LineString getLineString() {
+        if(lineString == null && propagationPath != null) {
+            lineString = propagationPath.asGeom();
+        }
+        return lineString;
+    }
+
     public static class ABoundary {
         public double[] deltaDiffSR;
         public double[] aGroundSO;
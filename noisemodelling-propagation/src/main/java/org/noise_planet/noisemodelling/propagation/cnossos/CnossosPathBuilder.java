@@ -184,6 +184,37 @@ public class CnossosPathBuilder {
         return seg;
     }
 
+    /**
+     * Compute the segment path, using the cache if provided
+     * @param pathCache Cache of the receiver or null
+     * @param src source coordinate
+     * @param rcv receiver coordinate
+     * @param meanPlane mean plane coefficients
+     * @param gPath ground factor of the path
+     * @param gS ground factor of the source
+     * @return the computed segment path
+     */
+    private static SegmentPath computeSegment(CnossosPathCache pathCache, Coordinate src, Coordinate rcv,
+                                              double[] meanPlane, double gPath, double gS) {
+        if(pathCache == null) {
+            return computeSegment(src, rcv, meanPlane, gPath, gS);
+        }
+        return pathCache.computeSegment(src, rcv, meanPlane, gPath, gS);
+    }
+
+    /**
+     * Compute the mean plane coefficients, using the cache if provided
+     * @param pathCache Cache of the receiver or null
+     * @param profile Ground points
+     * @return Coefficient A and B
+     */
+    private static double[] getMeanPlaneCoefficients(CnossosPathCache pathCache, Coordinate[] profile) {
+        if(pathCache == null) {
+            return JTSUtility.getMeanPlaneCoefficients(profile);
+        }
+        return pathCache.getMeanPlaneCoefficients(profile);
+    }
+
     /**
      * Given the vertical cut profile (can be a single plane or multiple like a folding panel) return the multiple contribution ray paths
      * following Cnossos specification, or empty if there is no valid path.
@@ -194,16 +225,36 @@ public class CnossosPathBuilder {
      * @return The cnossos path or null
      */
     public static List<CnossosPath> computeCnossosPathsFromCutProfile(CutProfile cutProfile , boolean bodyBarrier, List<Double> exactFrequencyArray, double gS) {
+        return computeCnossosPathsFromCutProfile(cutProfile, bodyBarrier, exactFrequencyArray, gS, null);
+    }
+
+    /**
+     * Given the vertical cut profile (can be a single plane or multiple like a folding panel) return the multiple contribution ray paths
+     * following Cnossos specification, or empty if there is no valid path.
+     * @param cutProfile Vertical cut of a domain
+     * @param bodyBarrier True if there is a body barrier on the path
+     * @param exactFrequencyArray Expected frequencies
+     * @param gS Ground factor of the source area
+     * @param pathCache Geometry shared with the previous cut profiles of the receiver, null to compute everything
+     * @return The cnossos path or null
+     */
+    public static List<CnossosPath> computeCnossosPathsFromCutProfile(CutProfile cutProfile , boolean bodyBarrier,
+                                                                      List<Double> exactFrequencyArray, double gS,
+                                                                      CnossosPathCache pathCache) {
+        if(pathCache != null) {
+            pathCache.setReceiver(cutProfile.getReceiver().getCoordinate());
+        }
         List<CnossosPath> cnossosPaths = new ArrayList<>();
         if(cutProfile.profileType == CutProfile.PROFILE_TYPE.DIRECT ||
                 cutProfile.profileType == CutProfile.PROFILE_TYPE.REFLECTION) {
-            CnossosPath cnossosPath = computeCnossosPathFromCutProfile(cutProfile, bodyBarrier, exactFrequencyArray, gS, false);
+            CnossosPath cnossosPath = computeCnossosPathFromCutProfile(cutProfile, bodyBarrier, exactFrequencyArray, gS, false, pathCache);
             if(cnossosPath != null) cnossosPaths.add(cnossosPath);
-            cnossosPath = computeCnossosPathFromCutProfile(cutProfile, bodyBarrier, exactFrequencyArray, gS, true);
+            cnossosPath = computeCnossosPathFromCutProfile(cutProfile, bodyBarrier, exactFrequencyArray, gS, true, pathCache);
             if(cnossosPath != null) cnossosPaths.add(cnossosPath);
         } else if (cutProfile.profileType == CutProfile.PROFILE_TYPE.LEFT ||
                 cutProfile.profileType == CutProfile.PROFILE_TYPE.RIGHT) {
-            CnossosPath cnossosPath = computeCnossosPathFromCutProfile(cutProfile, bodyBarrier, exactFrequencyArray, gS, cutProfile.curvedPath);
+            CnossosPath cnossosPath = computeCnossosPathFromCutProfile(cutProfile, bodyBarrier, exactFrequencyArray, gS,
+                    cutProfile.curvedPath, pathCache);
             if(cnossosPath != null) cnossosPaths.add(cnossosPath);
         }
         return cnossosPaths;
@@ -220,6 +271,23 @@ public class CnossosPathBuilder {
      * @return The cnossos path or null
      */
     public static CnossosPath computeCnossosPathFromCutProfile(CutProfile cutProfile , boolean bodyBarrier, List<Double> exactFrequencyArray, double gS, boolean favourable) {
+        return computeCnossosPathFromCutProfile(cutProfile, bodyBarrier, exactFrequencyArray, gS, favourable, null);
+    }
+
+    /**
+     * Given the vertical cut profile (can be a single plane or multiple like a folding panel) return the ray path
+     * following Cnossos specification, or null if there is no valid path.
+     * @param cutProfile Vertical cut of a domain
+     * @param bodyBarrier True if there is a body barrier on the path
+     * @param exactFrequencyArray Expected frequencies
+     * @param gS Ground factor of the source area
+     * @param favourable Compute the favourable contribution for the provided profile
+     * @param pathCache Geometry shared with the previous cut profiles of the receiver, null to compute everything
+     * @return The cnossos path or null
+     */
+    public static CnossosPath computeCnossosPathFromCutProfile(CutProfile cutProfile , boolean bodyBarrier,
+                                                               List<Double> exactFrequencyArray, double gS,
+                                                               boolean favourable, CnossosPathCache pathCache) {
         if(favourable &&
                 (cutProfile.profileType == CutProfile.PROFILE_TYPE.LEFT ||
                         cutProfile.profileType == CutProfile.PROFILE_TYPE.RIGHT)
@@ -244,10 +312,10 @@ public class CnossosPathBuilder {
 
         List<Integer> cut2DGroundIndex = new ArrayList<>(cutProfilePoints.size());
         Coordinate[] pts2DGround = cutProfile.computePts2DGround(cut2DGroundIndex).toArray(new Coordinate[0]);
-        double[] meanPlane = JTSUtility.getMeanPlaneCoefficients(pts2DGround);
+        double[] meanPlane = getMeanPlaneCoefficients(pathCache, pts2DGround);
         Coordinate firstPts2D = pts2D.getFirst();
         Coordinate lastPts2D = pts2D.getLast();
-        SegmentPath srPath = computeSegment(firstPts2D, lastPts2D, meanPlane, cutProfile.getGPath(), cutProfile.getSource().groundCoefficient);
+        SegmentPath srPath = computeSegment(pathCache, firstPts2D, lastPts2D, meanPlane, cutProfile.getGPath(), cutProfile.getSource().groundCoefficient);
         // Directive 2002/49/EC, section 2.5.3 "Significant heights above the ground":
         // "If the equivalent height of a point becomes negative, i.e. if the point is located
         //  below the mean ground plane, a null height is retained, and the equivalent point is
@@ -301,7 +369,9 @@ public class CnossosPathBuilder {
                 cutProfile.profileType == CutProfile.PROFILE_TYPE.RIGHT);
 
         // Compute convex hull of the profile
-        List<Integer> hullPointsIndices = cutProfile.getConvexHullIndices(hullPts2D, ignoreBuildingsInConvexHull);
+        List<Integer> hullPointsIndices = pathCache == null ?
+                cutProfile.getConvexHullIndices(hullPts2D, ignoreBuildingsInConvexHull) :
+                pathCache.getConvexHullIndices(cutProfile, hullPts2D, ignoreBuildingsInConvexHull);
 
         // Src if perceived source position from the receiver point of view
         Coordinate src = cutProfile.getSource().getCoordinate();
@@ -414,8 +484,8 @@ public class CnossosPathBuilder {
                     points.add(diffractionPoint);
                     // Compute additional segment
                     Coordinate[] segmentGroundPoints = Arrays.copyOfRange(pts2DGround, previousPivotGround, cut2DGroundIndex.get(pointIndex) + 1);
-                    meanPlane = JTSUtility.getMeanPlaneCoefficients(segmentGroundPoints);
-                    SegmentPath seg = computeSegment(pts2D.get(previousPivotPoint), pts2D.get(pointIndex),
+                    meanPlane = getMeanPlaneCoefficients(pathCache, segmentGroundPoints);
+                    SegmentPath seg = computeSegment(pathCache, pts2D.get(previousPivotPoint), pts2D.get(pointIndex),
                             meanPlane, cutProfile.getGPathByIndex(previousPivotPoint, pointIndex, Scene.DEFAULT_G_BUILDING), gS);
                     seg.setPoints2DGround(segmentGroundPoints);
                     previousPivotGround = cut2DGroundIndex.get(pointIndex);
@@ -429,8 +499,8 @@ public class CnossosPathBuilder {
                 // diffraction point, and we must add the remaining segment between the last horizontal diffraction point
                 // and the last point
                 Coordinate[] segmentGroundPoints = Arrays.copyOfRange(pts2DGround, previousPivotGround, pts2DGround.length);
-                meanPlane = JTSUtility.getMeanPlaneCoefficients(segmentGroundPoints);
-                SegmentPath seg = computeSegment(pts2D.get(previousPivotPoint), pts2D.getLast(),
+                meanPlane = getMeanPlaneCoefficients(pathCache, segmentGroundPoints);
+                SegmentPath seg = computeSegment(pathCache, pts2D.get(previousPivotPoint), pts2D.getLast(),
                         meanPlane, cutProfile.getGPathByIndex(previousPivotPoint, cutProfile.cutPoints.size() - 1, Scene.DEFAULT_G_BUILDING),
                         gS);
                 seg.setPoints2DGround(segmentGroundPoints);
@@ -441,8 +511,8 @@ public class CnossosPathBuilder {
                 break;
             }
             Coordinate[] segmentGroundPoints = Arrays.copyOfRange(pts2DGround, i0Ground,i1Ground + 1);
-            meanPlane = JTSUtility.getMeanPlaneCoefficients(segmentGroundPoints);
-            SegmentPath path = computeSegment(pts2D.get(i0), pts2D.get(i1), meanPlane,
+            meanPlane = getMeanPlaneCoefficients(pathCache, segmentGroundPoints);
+            SegmentPath path = computeSegment(pathCache, pts2D.get(i0), pts2D.get(i1), meanPlane,
                     cutProfile.getGPathByIndex(i0, i1, Scene.DEFAULT_G_BUILDING),
                     cutProfile.cutPoints.get(i0).groundCoefficient);
             path.dc = cutPt0.getCoordinate().distance3D(cutPt1.getCoordinate());
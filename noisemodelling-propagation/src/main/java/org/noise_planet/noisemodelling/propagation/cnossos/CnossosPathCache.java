@@ -0,0 +1,241 @@
+/**
+ * NoiseModelling is a library capable of producing noise maps. It can be freely used either for research and education, as well as by experts in a professional use.
+ * <p>
+ * NoiseModelling is distributed under GPL 3 license. You can read a copy of this License in the file LICENCE provided with this software.
+ * <p>
+ * Official webpage : http://noise-planet.org/noisemodelling.html
+ * Contact: contact@noise-planet.org
+ */
+
+package org.noise_planet.noisemodelling.propagation.cnossos;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutPoint;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutPointTopography;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutPointWall;
+import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutProfile;
+import org.noise_planet.noisemodelling.pathfinder.utils.geometry.JTSUtility;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Geometry of the CNOSSOS paths shared between the cut profiles of one receiver.
+ * The mean planes, the convex hull indices and the segments are stored with a key made of the profile coordinates
+ * rounded to the tolerance, so the profiles matching within the tolerance reuse the first computed value. The mean
+ * plane key is relative to the first ground point of the range, the source points of a line source located close
+ * to each other share the mean planes of the range between the last diffraction point and the receiver.
+ * The homogeneous and favourable paths of a profile also share the mean plane and the segment of the whole profile.
+ * The stored values are cleared for each new receiver, the hit counters are kept.
+ * One instance must not be used by several threads.
+ */
+public class CnossosPathCache {
+    /** Rounding of the profile coordinates used as keys (m) */
+    public static final double DEFAULT_TOLERANCE = 0.01;
+    /** Number of values kept by each map of the cache */
+    public static final int DEFAULT_CAPACITY = 1024;
+    private final double tolerance;
+    private final Map<QuantizedKey, double[]> meanPlanes;
+    private final Map<QuantizedKey, List<Integer>> hullIndices;
+    private final Map<QuantizedKey, SegmentPath> segments;
+    private Coordinate receiver = null;
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    public CnossosPathCache() {
+        this(DEFAULT_TOLERANCE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param tolerance Rounding of the profile coordinates used as keys (m)
+     * @param capacity Number of values kept by each map of the cache
+     */
+    public CnossosPathCache(double tolerance, int capacity) {
+        if(!(tolerance > 0)) {
+            throw new IllegalArgumentException("The tolerance must be greater than 0");
+        }
+        this.tolerance = tolerance;
+        this.meanPlanes = createMap(capacity);
+        this.hullIndices = createMap(capacity);
+        this.segments = createMap(capacity);
+    }
+
+    private static <V> Map<QuantizedKey, V> createMap(int capacity) {
+        return new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<QuantizedKey, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return Rounding of the profile coordinates used as keys (m)
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Clear the stored values if the receiver is not the receiver of the previous cut profile
+     * @param receiverCoordinate Receiver position of the next cut profile
+     */
+    public void setReceiver(Coordinate receiverCoordinate) {
+        if(receiver == null || !receiver.equals3D(receiverCoordinate)) {
+            receiver = new Coordinate(receiverCoordinate);
+            meanPlanes.clear();
+            hullIndices.clear();
+            segments.clear();
+        }
+    }
+
+    /**
+     * @return Number of values found in the cache
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return Number of values computed because they were not found in the cache
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return Ratio of the values found in the cache, 0 if nothing has been requested
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 0 : hitCount / (double) requestCount;
+    }
+
+    private long quantize(double value) {
+        return Math.round(value / tolerance);
+    }
+
+    /**
+     * Mean plane of a range of ground points, see {@link JTSUtility#getMeanPlaneCoefficients(Coordinate[])}
+     * @param profile Ground points in the coordinate system of the cut profile
+     * @return Coefficient A and B, the array must not be modified
+     */
+    public double[] getMeanPlaneCoefficients(Coordinate[] profile) {
+        if(profile.length == 0) {
+            return JTSUtility.getMeanPlaneCoefficients(profile);
+        }
+        // y = a (x - x0) + c, with c = b + a x0, does not depend on the abscissa of the first point
+        double x0 = profile[0].x;
+        long[] key = new long[profile.length * 2];
+        for (int i = 0; i < profile.length; i++) {
+            key[i * 2] = quantize(profile[i].x - x0);
+            key[i * 2 + 1] = quantize(profile[i].y);
+        }
+        QuantizedKey quantizedKey = new QuantizedKey(key);
+        double[] relativeMeanPlane = meanPlanes.get(quantizedKey);
+        if(relativeMeanPlane != null) {
+            hitCount++;
+            return new double[] {relativeMeanPlane[0], relativeMeanPlane[1] - relativeMeanPlane[0] * x0};
+        }
+        missCount++;
+        double[] meanPlane = JTSUtility.getMeanPlaneCoefficients(profile);
+        meanPlanes.put(quantizedKey, new double[] {meanPlane[0], meanPlane[1] + meanPlane[0] * x0});
+        return meanPlane;
+    }
+
+    /**
+     * Indices of the convex hull points, see {@link CutProfile#getConvexHullIndices(List, boolean)}
+     * @param cutProfile Cut profile
+     * @param coordinates2d Coordinates of the cut points in the coordinate system of the cut profile
+     * @param ignoreWall True to ignore the walls and buildings
+     * @return Indices of the cut points on the convex hull, the list must not be modified
+     */
+    public List<Integer> getConvexHullIndices(CutProfile cutProfile, List<Coordinate> coordinates2d,
+                                              boolean ignoreWall) {
+        List<CutPoint> cutPoints = cutProfile.cutPoints;
+        if(coordinates2d.size() != cutPoints.size()) {
+            return cutProfile.getConvexHullIndices(coordinates2d, ignoreWall);
+        }
+        long[] key = new long[coordinates2d.size() * 3 + 1];
+        key[0] = ignoreWall ? 1 : 0;
+        for (int i = 0; i < coordinates2d.size(); i++) {
+            CutPoint cutPoint = cutPoints.get(i);
+            // the kind of the point tells if the point is a convex hull candidate
+            long kind = 0;
+            if(cutPoint instanceof CutPointTopography) {
+                kind = 1;
+            } else if(cutPoint instanceof CutPointWall &&
+                    Double.compare(cutPoint.getCoordinate().z, cutPoint.getzGround()) != 0) {
+                kind = 2;
+            }
+            key[i * 3 + 1] = kind;
+            key[i * 3 + 2] = quantize(coordinates2d.get(i).x);
+            key[i * 3 + 3] = quantize(coordinates2d.get(i).y);
+        }
+        QuantizedKey quantizedKey = new QuantizedKey(key);
+        List<Integer> indices = hullIndices.get(quantizedKey);
+        if(indices != null) {
+            hitCount++;
+            return indices;
+        }
+        missCount++;
+        indices = List.copyOf(cutProfile.getConvexHullIndices(coordinates2d, ignoreWall));
+        hullIndices.put(quantizedKey, indices);
+        return indices;
+    }
+
+    /**
+     * Segment between two points, see {@link CnossosPathBuilder#computeSegment(Coordinate, Coordinate, double[], double, double)}
+     * @param src source coordinate
+     * @param rcv receiver coordinate
+     * @param meanPlane mean plane coefficients
+     * @param gPath ground factor of the path
+     * @param gS ground factor of the source
+     * @return A new segment path, copy of the stored segment with the provided source and receiver coordinates
+     */
+    public SegmentPath computeSegment(Coordinate src, Coordinate rcv, double[] meanPlane, double gPath, double gS) {
+        // the slope has no unit, the mean plane is keyed with its heights (m) at the source and receiver abscissa
+        QuantizedKey quantizedKey = new QuantizedKey(new long[] {quantize(src.x), quantize(src.y),
+                quantize(rcv.x), quantize(rcv.y), quantize(meanPlane[0] * src.x + meanPlane[1]),
+                quantize(meanPlane[0] * rcv.x + meanPlane[1]),
+                Double.doubleToLongBits(gPath), Double.doubleToLongBits(gS)});
+        SegmentPath segmentPath = segments.get(quantizedKey);
+        if(segmentPath != null) {
+            hitCount++;
+        } else {
+            missCount++;
+            segmentPath = CnossosPathBuilder.computeSegment(src, rcv, meanPlane, gPath, gS);
+            segments.put(quantizedKey, segmentPath);
+        }
+        // the caller updates the segment, the stored one is copied
+        SegmentPath copy = new SegmentPath(segmentPath);
+        copy.s = src;
+        copy.r = rcv;
+        return copy;
+    }
+
+    /**
+     * Key made of rounded values
+     */
+    private static final class QuantizedKey {
+        private final long[] values;
+        private final int hashCode;
+
+        QuantizedKey(long[] values) {
+            this.values = values;
+            this.hashCode = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof QuantizedKey && Arrays.equals(values, ((QuantizedKey) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -17,20 +17,49 @@ import org.noise_planet.noisemodelling.propagation.*;
 import org.noise_planet.noisemodelling.pathfinder.profilebuilder.CutProfile;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * CNOSSOS P2P propagation model
- * Note : the instances of the class are thread-safe.
+ * Note : the propagation paths of the current cut profile are kept for the computation of the other periods, the
+ * instances of the class are not thread-safe and {@link #reset()} must be called before each new cut profile.
  * @author Martin Glesser
  */
 public class CnossosPropagationModel implements PropagationModel {
-    List<CnossosPath> cnossosPaths = new ArrayList<>();
+    List<CnossosPath> cnossosPaths = Collections.emptyList();
+    private final CnossosPathCache pathCache;
 
     /**
      * Constructor for CnossosPropagationModel objects
      */
-    public CnossosPropagationModel(){}
+    public CnossosPropagationModel(){
+        this(null);
+    }
+
+    /**
+     * Constructor for CnossosPropagationModel objects
+     * @param pathCache Geometry shared between the cut profiles of a receiver, null to compute the paths of each cut
+     *                  profile independently
+     */
+    public CnossosPropagationModel(CnossosPathCache pathCache){
+        this.pathCache = pathCache;
+    }
+
+    /**
+     * @return Geometry shared between the cut profiles of a receiver, null if disabled
+     */
+    public CnossosPathCache getPathCache() {
+        return pathCache;
+    }
+
+    /**
+     * Forget the propagation paths of the previous cut profile
+     */
+    @Override
+    public void reset() {
+        cnossosPaths = Collections.emptyList();
+    }
 
     /**
      * Compute the attenuation for a list of paths
@@ -48,7 +77,7 @@ public class CnossosPropagationModel implements PropagationModel {
         if (cnossosPaths.isEmpty()) {
             double gs = scene.sourceGs.getOrDefault(cutProfile.getSource().sourcePk, SceneWithAttenuation.DEFAULT_GS);
             cnossosPaths = CnossosPathBuilder.computeCnossosPathsFromCutProfile(cutProfile, scene.isBodyBarrier(),
-                    scene.profileBuilder.exactFrequencyArray, gs);
+                    scene.profileBuilder.exactFrequencyArray, gs, pathCache);
         }
         // Compute attenuation for each path
         List<AttenuationOutput> attenuationOutputs = new ArrayList<>();
@@ -57,7 +86,6 @@ public class CnossosPropagationModel implements PropagationModel {
             attenuationOutput.propagationPath = cnossosPath;
             AttenuationCnossos.computeCnossosAttenuation(attenuationParameters, scene, attenuationOutput,
                     isExportAttenuationMatrix);
-            attenuationOutput.setLineString(cnossosPath.asGeom());
             if (cnossosPath.isFavourable()){
                 attenuationOutput.setMeteoType(MeteoType.FAVOURABLE);
             } else{
@@ -68,6 +96,50 @@ public class CnossosPropagationModel implements PropagationModel {
         return attenuationOutputs;
     }
 
+    /**
+     * Compute the attenuation of the paths for several attenuation parameters. The propagation paths and the terms
+     * that do not depend on the parameters are computed once.
+     *
+     * @param scene Geometrical information about the propagation scene
+     * @param cutProfile Geometrical cross-section
+     * @param attenuationParameters parameters of each computation
+     * @param isExportAttenuationMatrix if true, store intermediate values in attenuationOutput for debugging purpose
+     * @return List of AttenuationOutput objects [favorable, homogeneous] of each parameters
+     */
+    @Override
+    public List<List<AttenuationOutput>> computeAttenuationPerPeriod(SceneWithAttenuation scene, CutProfile cutProfile,
+                                                                     List<AttenuationParameters> attenuationParameters,
+                                                                     boolean isExportAttenuationMatrix) {
+        if(isExportAttenuationMatrix || attenuationParameters.size() < 2) {
+            // the intermediate values are exported by the computation of each parameters
+            return PropagationModel.super.computeAttenuationPerPeriod(scene, cutProfile, attenuationParameters,
+                    isExportAttenuationMatrix);
+        }
+        if (cnossosPaths.isEmpty()) {
+            double gs = scene.sourceGs.getOrDefault(cutProfile.getSource().sourcePk, SceneWithAttenuation.DEFAULT_GS);
+            cnossosPaths = CnossosPathBuilder.computeCnossosPathsFromCutProfile(cutProfile, scene.isBodyBarrier(),
+                    scene.profileBuilder.exactFrequencyArray, gs, pathCache);
+        }
+        List<List<AttenuationOutput>> attenuationOutputs = new ArrayList<>(attenuationParameters.size());
+        for (int idPeriod = 0; idPeriod < attenuationParameters.size(); idPeriod++) {
+            attenuationOutputs.add(new ArrayList<>(cnossosPaths.size()));
+        }
+        List<CnossosAttenuationOutput> pathOutputs = new ArrayList<>(attenuationParameters.size());
+        for (CnossosPath cnossosPath : cnossosPaths) {
+            pathOutputs.clear();
+            for (int idPeriod = 0; idPeriod < attenuationParameters.size(); idPeriod++) {
+                CnossosAttenuationOutput attenuationOutput = new CnossosAttenuationOutput(cutProfile);
+                attenuationOutput.propagationPath = cnossosPath;
+                attenuationOutput.setMeteoType(cnossosPath.isFavourable() ? MeteoType.FAVOURABLE :
+                        MeteoType.HOMOGENEOUS);
+                pathOutputs.add(attenuationOutput);
+                attenuationOutputs.get(idPeriod).add(attenuationOutput);
+            }
+            AttenuationCnossos.computeCnossosAttenuation(attenuationParameters, scene, pathOutputs);
+        }
+        return attenuationOutputs;
+    }
+
     /**
      * Compute attenuation along direct path between source and receiver
      *
@@ -7,11 +7,32 @@ import org.noise_planet.noisemodelling.propagation.PropagationModelCreator;
  * @author Martin Glesser
  */
 public class CnossosPropagationModelCreator implements PropagationModelCreator {
+    private final boolean pathCache;
+
+    public CnossosPropagationModelCreator() {
+        this(false);
+    }
+
+    /**
+     * @param pathCache True to share the path geometry between the cut profiles of a receiver
+     * @see CnossosPathCache
+     */
+    public CnossosPropagationModelCreator(boolean pathCache) {
+        this.pathCache = pathCache;
+    }
+
+    /**
+     * @return True if the created models share the path geometry between the cut profiles of a receiver
+     */
+    public boolean isPathCache() {
+        return pathCache;
+    }
+
     /**
      * Factory method that returns CnossosPropagationModel objects
      * @return PropagationModel object
      */
     public PropagationModel create(){
-        return new CnossosPropagationModel();
+        return new CnossosPropagationModel(pathCache ? new CnossosPathCache() : null);
     }
 }
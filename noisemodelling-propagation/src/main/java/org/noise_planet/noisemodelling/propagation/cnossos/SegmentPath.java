@@ -97,6 +97,44 @@ public class SegmentPath {
     public SegmentPath() {
     }
 
+    /**
+     * Copy constructor, the coordinates computed on the mean plane are copied
+     * @param other Segment to copy
+     */
+    public SegmentPath(SegmentPath other) {
+        this.points2DGround = other.points2DGround;
+        this.gPath = other.gPath;
+        this.meanGdPlane = other.meanGdPlane;
+        this.pInit = other.pInit;
+        this.s = other.s;
+        this.r = other.r;
+        this.a = other.a;
+        this.b = other.b;
+        this.idPtStart = other.idPtStart;
+        this.idPtFinal = other.idPtFinal;
+        this.gPathPrime = other.gPathPrime;
+        this.gw = other.gw;
+        this.gm = other.gm;
+        this.zsH = other.zsH;
+        this.zrH = other.zrH;
+        this.testFormH = other.testFormH;
+        this.sMeanPlane = other.sMeanPlane == null ? null : new Coordinate(other.sMeanPlane);
+        this.rMeanPlane = other.rMeanPlane == null ? null : new Coordinate(other.rMeanPlane);
+        this.sPrime = other.sPrime == null ? null : new Coordinate(other.sPrime);
+        this.rPrime = other.rPrime == null ? null : new Coordinate(other.rPrime);
+        this.zsF = other.zsF;
+        this.zrF = other.zrF;
+        this.testFormF = other.testFormF;
+        this.dPath = other.dPath;
+        this.d = other.d;
+        this.dc = other.dc;
+        this.dp = other.dp;
+        this.eLength = other.eLength;
+        this.delta = other.delta;
+        this.dPrime = other.dPrime;
+        this.deltaPrime = other.deltaPrime;
+    }
+
     /**
      * Writes the content of this object into <code>out</code>.
      * @param out the stream to write into
@@ -15,7 +15,7 @@ import org.noise_planet.noisemodelling.pathfinder.utils.AcousticIndicatorsFuncti
 import java.util.Arrays;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 
 /**
@@ -91,4 +91,39 @@ public class AtmosphericAttenuationComputeOutputTest {
             assertEquals(expected[idfreq], coefAttAtmos, EPSILON);
         }
     }
+
+    @Test
+    public void testBandTable() {
+        AttenuationParameters parameters = new AttenuationParameters();
+        parameters.setTemperature(10);
+        AttenuationBandTable table = parameters.getBandTable();
+        assertSame(table, parameters.getBandTable());
+        assertEquals(parameters.getFrequencies().size(), table.size());
+        assertArrayEquals(parameters.getAlpha_atmo(), table.alphaAtmo);
+        for (int i = 0; i < table.size(); i++) {
+            assertEquals(340.0 / parameters.getFrequencies().get(i), table.wavelengths[i]);
+            assertEquals(2 * Math.PI * parameters.getFrequencies().get(i) / parameters.getCelerity(),
+                    table.waveNumbers[i]);
+        }
+        // the table follows the changes of the parameters
+        parameters.setHumidity(30);
+        AttenuationBandTable humidityTable = parameters.getBandTable();
+        assertNotSame(table, humidityTable);
+        assertArrayEquals(parameters.getAlpha_atmo(), humidityTable.alphaAtmo);
+        double[] windRose = new double[AttenuationParameters.DEFAULT_WIND_ROSE.length];
+        parameters.setWindRose(windRose);
+        AttenuationBandTable windRoseTable = parameters.getBandTable();
+        assertArrayEquals(windRose, windRoseTable.windRose);
+        // the arrays given to or returned by the parameters are copies, changing them does not change the table
+        windRose[0] = 1;
+        parameters.getWindRose()[1] = 1;
+        parameters.getAlpha_atmo()[0] = 0;
+        assertSame(windRoseTable, parameters.getBandTable());
+        assertArrayEquals(new double[AttenuationParameters.DEFAULT_WIND_ROSE.length], parameters.getWindRose());
+        assertArrayEquals(parameters.getAlpha_atmo(), windRoseTable.alphaAtmo);
+        assertEquals(Math.pow(parameters.getFrequencies().get(2), 2.5), windRoseTable.groundFm25[2], 1e-9);
+        parameters.setFrequencies(Arrays.asList(AcousticIndicatorsFunctions.asOctaveBands(
+                ProfileBuilder.DEFAULT_FREQUENCIES_THIRD_OCTAVE)).subList(0, 3));
+        assertEquals(3, parameters.getBandTable().size());
+    }
 }
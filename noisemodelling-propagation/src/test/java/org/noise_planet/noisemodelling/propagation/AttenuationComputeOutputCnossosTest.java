@@ -152,6 +152,149 @@ public class AttenuationComputeOutputCnossosTest {
         return propDataOut;
     }
 
+    /**
+     * The energy weighting of the band kernel must give the same levels as the conversion to energy and back
+     */
+    @Test
+    public void testBandKernel() {
+        double[] levels = new double[]{-12.5, -30.1, -45.0, -60.7, -75.2, -90.3, -101.4, -120.9};
+        for (double coefficient : new double[]{0.25, 0.5, 1.0, 3.0, 12.5}) {
+            double[] expected = new double[levels.length];
+            for (int i = 0; i < levels.length; i++) {
+                expected[i] = wToDb(dBToW(levels[i]) * coefficient);
+            }
+            double[] actual = levels.clone();
+            AttenuationBandKernel.multiplyEnergy(actual, coefficient);
+            assertArrayEquals(expected, actual, 1e-9);
+        }
+        double[] alphaAtmosphericKm = new double[]{0.1, 0.4, 1.0, 1.9, 3.7, 9.7, 32.8, 117.0};
+        assertArrayEquals(new double[]{0.05, 0.2, 0.5, 0.95, 1.85, 4.85, 16.4, 58.5},
+                AttenuationCnossos.aAtm(alphaAtmosphericKm, 500), 1e-9);
+    }
+
+    /**
+     * Computing all the periods of a cut profile together gives the same attenuation as one computation per period
+     */
+    @Test
+    public void testAttenuationPerPeriod() throws IOException {
+        SceneWithAttenuation scene = new SceneWithAttenuation(new ProfileBuilder().finishFeeding());
+        List<AttenuationParameters> parameters = new ArrayList<>();
+        parameters.add(new AttenuationParameters().setTemperature(10).setHumidity(70));
+        parameters.getLast().setWindRose(FAV_WIND_ROSE);
+        parameters.add(new AttenuationParameters().setTemperature(20).setHumidity(50));
+        parameters.add(new AttenuationParameters().setTemperature(10).setHumidity(30));
+        parameters.getLast().setWindRose(HOM_WIND_ROSE);
+        // same temperature as the first periods, the ground terms depend on the other options
+        parameters.add(new AttenuationParameters().setTemperature(10).setHumidity(70).setGDisc(false));
+        parameters.add(new AttenuationParameters().setTemperature(10).setHumidity(70).setPrime2520(true));
+        parameters.getLast().setWindRose(FAV_WIND_ROSE);
+        for (String utName : new String[]{"TC01_Direct", "TC05_Direct", "TC11_Direct", "TC16_Reflection",
+                "TC21_Direct", "TC28_Left"}) {
+            CutProfile cutProfile;
+            try(InputStream inputStream = PathFinder.class.getResourceAsStream("test_cases/" + utName + ".json")) {
+                cutProfile = loadCutProfile(inputStream);
+            }
+            CnossosPropagationModel propagationModel = new CnossosPropagationModel();
+            List<List<AttenuationOutput>> attenuationPerPeriod = propagationModel.computeAttenuationPerPeriod(scene,
+                    cutProfile, parameters, false);
+            assertEquals(parameters.size(), attenuationPerPeriod.size());
+            for (int idPeriod = 0; idPeriod < parameters.size(); idPeriod++) {
+                propagationModel.reset();
+                List<AttenuationOutput> expected = propagationModel.computeAttenuation(scene, cutProfile,
+                        parameters.get(idPeriod), false);
+                List<AttenuationOutput> actual = attenuationPerPeriod.get(idPeriod);
+                assertEquals(expected.size(), actual.size());
+                for (int idPath = 0; idPath < expected.size(); idPath++) {
+                    assertEquals(expected.get(idPath).getMeteoType(), actual.get(idPath).getMeteoType());
+                    assertArrayEquals(expected.get(idPath).getaGlobal(), actual.get(idPath).getaGlobal(), 1e-12,
+                            utName + " period " + idPeriod);
+                }
+            }
+        }
+    }
+
+    /**
+     * The ray geometry is built only when requested
+     */
+    @Test
+    public void testLazyLineString() throws IOException {
+        AttenuationComputeOutput propDataOut = computeCnossosAttenuation("TC16_Reflection");
+        assertFalse(propDataOut.getAttenuationOutputs().isEmpty());
+        for (AttenuationOutput attenuationOutput : propDataOut.getAttenuationOutputs()) {
+            assertNull(attenuationOutput.lineString);
+            LineString lineString = attenuationOutput.getLineString();
+            assertEquals(((CnossosAttenuationOutput) attenuationOutput).propagationPath.getPointList().size(),
+                    lineString.getNumPoints());
+            assertSame(lineString, attenuationOutput.getLineString());
+        }
+    }
+
+    /**
+     * The paths computed with the geometry cache give the same attenuation
+     */
+    @Test
+    public void testPathCache() throws IOException {
+        SceneWithAttenuation scene = new SceneWithAttenuation(new ProfileBuilder().finishFeeding());
+        AttenuationParameters parameters = new AttenuationParameters();
+        CnossosPropagationModel propagationModel = new CnossosPropagationModel();
+        CnossosPropagationModel cachedPropagationModel = new CnossosPropagationModel(new CnossosPathCache());
+        for (String utName : new String[]{"TC05_Direct", "TC11_Direct", "TC16_Reflection", "TC21_Direct",
+                "TC28_Left"}) {
+            // the same profile is computed twice, the second computation only use the cached values
+            for (int i = 0; i < 2; i++) {
+                CutProfile cutProfile;
+                try(InputStream inputStream = PathFinder.class.getResourceAsStream("test_cases/" + utName + ".json")) {
+                    cutProfile = loadCutProfile(inputStream);
+                }
+                propagationModel.reset();
+                List<AttenuationOutput> expected = propagationModel.computeAttenuation(scene, cutProfile,
+                        parameters, false);
+                try(InputStream inputStream = PathFinder.class.getResourceAsStream("test_cases/" + utName + ".json")) {
+                    cutProfile = loadCutProfile(inputStream);
+                }
+                long missCount = cachedPropagationModel.getPathCache().getMissCount();
+                cachedPropagationModel.reset();
+                List<AttenuationOutput> actual = cachedPropagationModel.computeAttenuation(scene, cutProfile,
+                        parameters, false);
+                if(i == 1) {
+                    assertEquals(missCount, cachedPropagationModel.getPathCache().getMissCount(), utName);
+                }
+                assertEquals(expected.size(), actual.size());
+                for (int idPath = 0; idPath < expected.size(); idPath++) {
+                    assertEquals(expected.get(idPath).getMeteoType(), actual.get(idPath).getMeteoType());
+                    assertArrayEquals(expected.get(idPath).getaGlobal(), actual.get(idPath).getaGlobal(), 1e-6,
+                            utName);
+                }
+            }
+        }
+        assertTrue(cachedPropagationModel.getPathCache().getHitRate() > 0.5);
+    }
+
+    /**
+     * Segments with the same source, receiver and mean plane intercept but another slope must not share the cached
+     * segment
+     */
+    @Test
+    public void testPathCacheSegmentSlope() {
+        CnossosPathCache pathCache = new CnossosPathCache();
+        Coordinate src = new Coordinate(0, 1);
+        Coordinate rcv = new Coordinate(100, 4);
+        // the slopes differ by less than the tolerance, the mean plane heights at the receiver differ by 0.3 m
+        double[] firstMeanPlane = new double[] {0.001, 0};
+        double[] secondMeanPlane = new double[] {0.004, 0};
+        pathCache.computeSegment(src, rcv, firstMeanPlane, 0.5, 0.5);
+        SegmentPath segmentPath = pathCache.computeSegment(src, rcv, secondMeanPlane, 0.5, 0.5);
+        assertEquals(0, pathCache.getHitCount());
+        assertEquals(2, pathCache.getMissCount());
+        SegmentPath expected = CnossosPathBuilder.computeSegment(src, rcv, secondMeanPlane, 0.5, 0.5);
+        assertEquals(expected.zsH, segmentPath.zsH, 1e-9);
+        assertEquals(expected.zrH, segmentPath.zrH, 1e-9);
+        assertEquals(expected.dp, segmentPath.dp, 1e-9);
+        // the same mean plane is found in the cache
+        pathCache.computeSegment(src, rcv, secondMeanPlane, 0.5, 0.5);
+        assertEquals(1, pathCache.getHitCount());
+    }
+
     /**
      * Test TC01 -- Reflecting ground (G = 0)
      */